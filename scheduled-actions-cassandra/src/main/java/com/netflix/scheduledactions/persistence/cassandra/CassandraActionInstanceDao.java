@@ -21,11 +21,16 @@ import com.netflix.scheduledactions.persistence.ActionInstanceDao;
 
 import javax.annotation.PostConstruct;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public class CassandraActionInstanceDao implements ActionInstanceDao {
 
+    private static final int BATCH_SIZE = 500;
+
     private final CassandraDao<ActionInstance> cassandraDao;
 
     public CassandraActionInstanceDao(Keyspace keyspace) {
@@ -38,10 +43,16 @@ public class CassandraActionInstanceDao implements ActionInstanceDao {
     }
 
     @Override
-    public String createActionInstance(String group, ActionInstance actionInstance) {
+    public String assignId(String group, ActionInstance actionInstance) {
         if (actionInstance.getId() == null) {
             actionInstance.setId(UUID.randomUUID().toString());
         }
+        return actionInstance.getId();
+    }
+
+    @Override
+    public String createActionInstance(String group, ActionInstance actionInstance) {
+        assignId(group, actionInstance);
         cassandraDao.upsertToGroup(group, actionInstance.getId(), actionInstance, null);
         return actionInstance.getId();
     }
@@ -51,16 +62,89 @@ public class CassandraActionInstanceDao implements ActionInstanceDao {
         cassandraDao.upsert(actionInstance.getId(), actionInstance, null);
     }
 
+    /**
+     * Writes the actionInstances in atomic batches of at most BATCH_SIZE per group
+     */
+    @Override
+    public List<String> createActionInstances(List<ActionInstance> actionInstances) {
+        Map<String, Map<String, ActionInstance>> batches = new LinkedHashMap<>();
+        List<String> ids = new ArrayList<>();
+        for (ActionInstance actionInstance : actionInstances) {
+            assignId(actionInstance.getGroup(), actionInstance);
+            ids.add(actionInstance.getId());
+            Map<String, ActionInstance> batch = batches.get(actionInstance.getGroup());
+            if (batch == null) {
+                batch = new LinkedHashMap<>();
+                batches.put(actionInstance.getGroup(), batch);
+            }
+            batch.put(actionInstance.getId(), actionInstance);
+            if (batch.size() == BATCH_SIZE) {
+                cassandraDao.upsertAllToGroup(actionInstance.getGroup(), batch, null);
+                batches.remove(actionInstance.getGroup());
+            }
+        }
+        for (Map.Entry<String, Map<String, ActionInstance>> batch : batches.entrySet()) {
+            cassandraDao.upsertAllToGroup(batch.getKey(), batch.getValue(), null);
+        }
+        return ids;
+    }
+
+    @Override
+    public void updateActionInstances(List<ActionInstance> actionInstances) {
+        Map<String, ActionInstance> batch = new LinkedHashMap<>();
+        for (ActionInstance actionInstance : actionInstances) {
+            batch.put(actionInstance.getId(), actionInstance);
+            if (batch.size() == BATCH_SIZE) {
+                cassandraDao.upsertAll(batch, null);
+                batch = new LinkedHashMap<>();
+            }
+        }
+        cassandraDao.upsertAll(batch, null);
+    }
+
     @Override
     public ActionInstance getActionInstance(String actionInstanceId) {
         return cassandraDao.get(actionInstanceId);
     }
 
+    @Override
+    public List<String> getActionInstanceIds(String startAfterId, int count) {
+        return cassandraDao.getIndexEntries(ThriftCassandraDao.ALL, startAfterId, count);
+    }
+
+    @Override
+    public List<ActionInstance> getActionInstances(Collection<String> actionInstanceIds) {
+        return new ArrayList<>(cassandraDao.get(actionInstanceIds));
+    }
+
     @Override
     public void deleteActionInstance(String group, ActionInstance actionInstance) {
         cassandraDao.deleteFromGroup(group, actionInstance.getId());
     }
 
+    /**
+     * Deletes the actionInstances in atomic batches of at most BATCH_SIZE per group
+     */
+    @Override
+    public void deleteActionInstances(List<ActionInstance> actionInstances) {
+        Map<String, List<String>> batches = new LinkedHashMap<>();
+        for (ActionInstance actionInstance : actionInstances) {
+            List<String> batch = batches.get(actionInstance.getGroup());
+            if (batch == null) {
+                batch = new ArrayList<>();
+                batches.put(actionInstance.getGroup(), batch);
+            }
+            batch.add(actionInstance.getId());
+            if (batch.size() == BATCH_SIZE) {
+                cassandraDao.deleteAllFromGroup(actionInstance.getGroup(), batch);
+                batches.remove(actionInstance.getGroup());
+            }
+        }
+        for (Map.Entry<String, List<String>> batch : batches.entrySet()) {
+            cassandraDao.deleteAllFromGroup(batch.getKey(), batch.getValue());
+        }
+    }
+
     @Override
     public List<ActionInstance> getActionInstances(String group) {
         return new ArrayList(cassandraDao.getGroup(group));
@@ -16,7 +16,9 @@
 
 package com.netflix.scheduledactions.persistence.cassandra;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface CassandraDao<T> {
 
@@ -25,8 +27,35 @@ public interface CassandraDao<T> {
     public void upsertToGroup(String group, String id, T value, Integer ttlSeconds);
     public void delete(String id);
     public void deleteFromGroup(String group, String id);
+    public void deleteAllFromGroup(String group, Collection<String> ids);
     public T get(String id);
     public List<T> getGroup(String group);
     public List<T> getAll();
+    public List<T> get(Collection<String> ids);
+    public void upsertAll(Map<String, T> values, Integer ttlSeconds);
+    public void upsertAllToGroup(String group, Map<String, T> values, Integer ttlSeconds);
+
+    /*
+     * Same as upsertAllToGroup (group can be null), but also puts and deletes index entries in the same atomic
+     * batch. Both maps go from the id of the entry to the index it belongs to
+     */
+    public void upsertAllToGroup(String group,
+                                 Map<String, T> values,
+                                 Map<String, String> indexEntriesToPut,
+                                 Map<String, String> indexEntriesToDelete,
+                                 Integer ttlSeconds);
+
+    /*
+     * Index rows only hold column names (ids) and are not part of the "all" row
+     */
+    public void putIndexEntries(String index, Collection<String> ids, Integer ttlSeconds);
+    public void deleteIndexEntries(String index, Collection<String> ids);
+    public List<String> getIndexEntries(String index);
+
+    /*
+     * Returns up to count entries of the index that come after startAfter (exclusive, null to start at the
+     * beginning) in column name order
+     */
+    public List<String> getIndexEntries(String index, String startAfter, int count);
 
 }
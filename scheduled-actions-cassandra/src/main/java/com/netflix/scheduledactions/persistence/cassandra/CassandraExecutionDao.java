@@ -21,13 +21,34 @@ import com.netflix.scheduledactions.persistence.ExecutionDao;
 
 import javax.annotation.PostConstruct;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
+/**
+ * The ids of the executions that are not complete yet are kept in an index that is sharded over
+ * {@code RUNNING_EXECUTIONS_SHARDS} rows by execution id, so that no single row takes all the writes and tombstones.
+ * The index is only written when an execution is created and when it completes, in the same batch as the execution
+ * itself, so progress reports and heartbeats never touch it.
+ *
+ * The fire times of the executions of an actionInstance are indexed in a row of their own, written in the same batch
+ * as the executions, with column names that sort the latest fire time first so that reading it is a one column slice.
+ */
 public class CassandraExecutionDao implements ExecutionDao {
 
     private final CassandraDao<Execution> cassandraDao;
     private static final int TTL_SECONDS = 60 * 60 * 24;
+    private static final String RUNNING_EXECUTIONS = "running_executions";
+    private static final int RUNNING_EXECUTIONS_SHARDS = 16;
+    private static final String EXECUTOR_HEARTBEATS = "executor_heartbeats";
+    private static final String LAST_FIRE_TIMES = "last_fire_times";
 
     public CassandraExecutionDao(Keyspace keyspace) {
         this.cassandraDao = new ThriftCassandraDao(Execution.class, keyspace, new ScheduledActionsObjectMapper());
@@ -40,14 +61,12 @@ public class CassandraExecutionDao implements ExecutionDao {
 
     @Override
     public String createExecution(String actionInstanceId, Execution execution) {
-        execution.setId(UUID.randomUUID().toString());
-        cassandraDao.upsertToGroup(actionInstanceId, execution.getId(), execution, Integer.valueOf(TTL_SECONDS));
-        return execution.getId();
+        return createExecutions(actionInstanceId, Collections.singletonList(execution)).get(0);
     }
 
     @Override
     public void updateExecution(Execution execution) {
-        cassandraDao.upsert(execution.getId(), execution, Integer.valueOf(TTL_SECONDS));
+        updateExecutions(Collections.singletonList(execution));
     }
 
     @Override
@@ -58,6 +77,7 @@ public class CassandraExecutionDao implements ExecutionDao {
     @Override
     public void deleteExecution(String actionInstanceId, Execution execution) {
         cassandraDao.deleteFromGroup(actionInstanceId, execution.getId());
+        cassandraDao.deleteIndexEntries(runningExecutionsShard(execution.getId()), Collections.singletonList(execution.getId()));
     }
 
     @Override
@@ -71,4 +91,83 @@ public class CassandraExecutionDao implements ExecutionDao {
         return new ArrayList<>(cassandraDao.getGroup(actionInstanceId));
     }
 
+    @Override
+    public List<String> createExecutions(String actionInstanceId, List<Execution> executions) {
+        Map<String, Execution> values = new LinkedHashMap<>();
+        Map<String, String> indexEntries = new HashMap<>();
+        long lastFireTime = -1L;
+        for (Execution execution : executions) {
+            execution.setId(UUID.randomUUID().toString());
+            values.put(execution.getId(), execution);
+            if (!isComplete(execution)) {
+                indexEntries.put(execution.getId(), runningExecutionsShard(execution.getId()));
+            }
+            if (execution.getFireTime() != null) {
+                lastFireTime = Math.max(lastFireTime, execution.getFireTime().getTime());
+            }
+        }
+        if (lastFireTime >= 0) {
+            indexEntries.put(String.format("%019d", Long.MAX_VALUE - lastFireTime), LAST_FIRE_TIMES + ":" + actionInstanceId);
+        }
+        cassandraDao.upsertAllToGroup(actionInstanceId, values, indexEntries, Collections.<String, String>emptyMap(),
+            Integer.valueOf(TTL_SECONDS));
+        return new ArrayList<>(values.keySet());
+    }
+
+    @Override
+    public void updateExecutions(List<Execution> executions) {
+        Map<String, Execution> values = new LinkedHashMap<>();
+        Map<String, String> completed = new HashMap<>();
+        for (Execution execution : executions) {
+            values.put(execution.getId(), execution);
+            // Executions never go back to running, so completing is the only transition an update can make
+            if (isComplete(execution)) {
+                completed.put(execution.getId(), runningExecutionsShard(execution.getId()));
+            }
+        }
+        cassandraDao.upsertAllToGroup(null, values, Collections.<String, String>emptyMap(), completed,
+            Integer.valueOf(TTL_SECONDS));
+    }
+
+    @Override
+    public List<Execution> getExecutionsById(Collection<String> executionIds) {
+        return cassandraDao.get(executionIds);
+    }
+
+    @Override
+    public Date getLastFireTime(String actionInstanceId) {
+        List<String> latest = cassandraDao.getIndexEntries(LAST_FIRE_TIMES + ":" + actionInstanceId, null, 1);
+        return latest.isEmpty() ? null : new Date(Long.MAX_VALUE - Long.parseLong(latest.get(0)));
+    }
+
+    @Override
+    public List<String> getRunningExecutionIds() {
+        List<String> ids = new ArrayList<>();
+        for (int shard = 0; shard < RUNNING_EXECUTIONS_SHARDS; shard++) {
+            ids.addAll(cassandraDao.getIndexEntries(RUNNING_EXECUTIONS + ":" + shard));
+        }
+        return ids;
+    }
+
+    /**
+     * The heartbeat column expires on its own, so the executors that are alive are simply the ones still in the row
+     */
+    @Override
+    public void heartbeat(String executorId, int ttlSeconds) {
+        cassandraDao.putIndexEntries(EXECUTOR_HEARTBEATS, Collections.singletonList(executorId), Integer.valueOf(ttlSeconds));
+    }
+
+    @Override
+    public Set<String> getLiveExecutorIds() {
+        return new HashSet<>(cassandraDao.getIndexEntries(EXECUTOR_HEARTBEATS));
+    }
+
+    private static String runningExecutionsShard(String executionId) {
+        return RUNNING_EXECUTIONS + ":" + Math.abs(executionId.hashCode() % RUNNING_EXECUTIONS_SHARDS);
+    }
+
+    private static boolean isComplete(Execution execution) {
+        return execution.getStatus() != null && execution.getStatus().isComplete();
+    }
+
 }
@@ -18,6 +18,7 @@ package com.netflix.scheduledactions.persistence.cassandra;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.netflix.astyanax.Keyspace;
+import com.netflix.astyanax.ColumnListMutation;
 import com.netflix.astyanax.MutationBatch;
 import com.netflix.astyanax.connectionpool.exceptions.ConnectionException;
 import com.netflix.astyanax.connectionpool.exceptions.NotFoundException;
@@ -33,7 +34,10 @@ import com.netflix.scheduledactions.persistence.SnappyCodec;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public class ThriftCassandraDao<T> implements CassandraDao<T> {
 
@@ -141,6 +145,26 @@ public class ThriftCassandraDao<T> implements CassandraDao<T> {
         }
     }
 
+    @Override
+    public void deleteAllFromGroup(String group, Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            MutationBatch m = prepareAtomicMutationBatch();
+            for (String id : ids) {
+                if (group != null) {
+                    m.withRow(columnFamily, group).deleteColumn(id);
+                }
+                m.withRow(columnFamily, ALL).deleteColumn(id);
+                m.withRow(columnFamily, id).delete();
+            }
+            m.execute();
+        } catch (ConnectionException e) {
+            throw new RuntimeException(String.format("Exception occurred while deleting %d values from group '%s'", ids.size(), group), e);
+        }
+    }
+
     @Override
     public T get(String id) {
         try {
@@ -156,24 +180,23 @@ public class ThriftCassandraDao<T> implements CassandraDao<T> {
 
     @Override
     public List<T> getGroup(String group) {
-        try {
-            List<T> list = new ArrayList<>();
+        return get(getIndexEntries(group));
+    }
 
-            // Get all the row keys
-            RowQuery<String, String> rowQuery = keyspace.prepareQuery(columnFamily).getKey(group)
-                .autoPaginate(true)
-                .withColumnRange(new RangeBuilder().setLimit(1000).build());
+    @Override
+    public List<T> getAll() {
+        return getGroup(ALL);
+    }
 
-            List<String> rowKeys = new ArrayList<>();
-            ColumnList<String> columns;
-            while (!(columns = rowQuery.execute().getResult()).isEmpty()) {
-                for (Column<String> c : columns) {
-                    rowKeys.add(c.getName());
-                }
+    @Override
+    public List<T> get(Collection<String> ids) {
+        try {
+            List<T> list = new ArrayList<>();
+            if (ids.isEmpty()) {
+                return list;
             }
 
-            // Get values for all the fetched row keys
-            RowSliceQuery<String, String> rowSliceQuery = keyspace.prepareQuery(columnFamily).getKeySlice(rowKeys);
+            RowSliceQuery<String, String> rowSliceQuery = keyspace.prepareQuery(columnFamily).getKeySlice(ids);
             Rows<String, String> rows = rowSliceQuery.execute().getResult();
             for (Row<String, String> row : rows) {
                 if (row.getColumns() != null && row.getColumns().size() > 0) {
@@ -184,13 +207,126 @@ public class ThriftCassandraDao<T> implements CassandraDao<T> {
 
             return list;
         } catch (ConnectionException | IOException e) {
-            throw new RuntimeException(String.format("Exception occurred while fetching values for group '%s'", group), e);
+            throw new RuntimeException(String.format("Exception occurred while fetching values for %d ids", ids.size()), e);
         }
     }
 
     @Override
-    public List<T> getAll() {
-        return getGroup(ALL);
+    public void upsertAll(Map<String, T> values, Integer ttlSeconds) {
+        upsertAllToGroup(null, values, ttlSeconds);
+    }
+
+    @Override
+    public void upsertAllToGroup(String group, Map<String, T> values, Integer ttlSeconds) {
+        upsertAllToGroup(group, values, Collections.<String, String>emptyMap(), Collections.<String, String>emptyMap(), ttlSeconds);
+    }
+
+    @Override
+    public void upsertAllToGroup(String group,
+                                 Map<String, T> values,
+                                 Map<String, String> indexEntriesToPut,
+                                 Map<String, String> indexEntriesToDelete,
+                                 Integer ttlSeconds) {
+        if (values.isEmpty() && indexEntriesToPut.isEmpty() && indexEntriesToDelete.isEmpty()) {
+            return;
+        }
+        try {
+            MutationBatch m = prepareAtomicMutationBatch();
+            for (Map.Entry<String, T> entry : values.entrySet()) {
+                byte[] bytes = codec.compress(objectMapper.writeValueAsBytes(entry.getValue()));
+                m.withRow(columnFamily, entry.getKey()).putColumn(entry.getKey(), bytes, ttlSeconds);
+                if (group != null) {
+                    m.withRow(columnFamily, group).putColumn(entry.getKey(), new byte[0], ttlSeconds);
+                }
+                m.withRow(columnFamily, ALL).putColumn(entry.getKey(), new byte[0], ttlSeconds);
+            }
+            for (Map.Entry<String, String> entry : indexEntriesToPut.entrySet()) {
+                m.withRow(columnFamily, entry.getValue()).putColumn(entry.getKey(), new byte[0], ttlSeconds);
+            }
+            for (Map.Entry<String, String> entry : indexEntriesToDelete.entrySet()) {
+                m.withRow(columnFamily, entry.getValue()).deleteColumn(entry.getKey());
+            }
+            m.execute();
+        } catch (ConnectionException | IOException e) {
+            throw new RuntimeException(String.format("Exception occurred while upserting %d values", values.size()), e);
+        }
+    }
+
+    @Override
+    public void putIndexEntries(String index, Collection<String> ids, Integer ttlSeconds) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            MutationBatch m = keyspace.prepareMutationBatch();
+            ColumnListMutation<String> row = m.withRow(columnFamily, index);
+            for (String id : ids) {
+                row.putColumn(id, new byte[0], ttlSeconds);
+            }
+            m.execute();
+        } catch (ConnectionException e) {
+            throw new RuntimeException(String.format("Exception occurred while adding %d ids to index '%s'", ids.size(), index), e);
+        }
+    }
+
+    @Override
+    public void deleteIndexEntries(String index, Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            MutationBatch m = keyspace.prepareMutationBatch();
+            ColumnListMutation<String> row = m.withRow(columnFamily, index);
+            for (String id : ids) {
+                row.deleteColumn(id);
+            }
+            m.execute();
+        } catch (ConnectionException e) {
+            throw new RuntimeException(String.format("Exception occurred while removing %d ids from index '%s'", ids.size(), index), e);
+        }
+    }
+
+    @Override
+    public List<String> getIndexEntries(String index) {
+        try {
+            RowQuery<String, String> rowQuery = keyspace.prepareQuery(columnFamily).getKey(index)
+                .autoPaginate(true)
+                .withColumnRange(new RangeBuilder().setLimit(1000).build());
+
+            List<String> ids = new ArrayList<>();
+            ColumnList<String> columns;
+            while (!(columns = rowQuery.execute().getResult()).isEmpty()) {
+                for (Column<String> c : columns) {
+                    ids.add(c.getName());
+                }
+            }
+            return ids;
+        } catch (ConnectionException e) {
+            throw new RuntimeException(String.format("Exception occurred while fetching entries of index '%s'", index), e);
+        }
+    }
+
+    @Override
+    public List<String> getIndexEntries(String index, String startAfter, int count) {
+        try {
+            RangeBuilder range = new RangeBuilder().setLimit(startAfter != null ? count + 1 : count);
+            if (startAfter != null) {
+                range.setStart(startAfter);
+            }
+            ColumnList<String> columns = keyspace.prepareQuery(columnFamily).getKey(index)
+                .withColumnRange(range.build())
+                .execute().getResult();
+
+            List<String> ids = new ArrayList<>();
+            for (Column<String> c : columns) {
+                if (ids.size() < count && !c.getName().equals(startAfter)) {
+                    ids.add(c.getName());
+                }
+            }
+            return ids;
+        } catch (ConnectionException e) {
+            throw new RuntimeException(String.format("Exception occurred while fetching a page of index '%s'", index), e);
+        }
     }
 
     private MutationBatch prepareAtomicMutationBatch() {
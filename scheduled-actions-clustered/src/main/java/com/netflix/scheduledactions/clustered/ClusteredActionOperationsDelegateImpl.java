@@ -20,9 +20,14 @@ import com.netflix.fenzo.triggers.TriggerOperator;
 import com.netflix.scheduledactions.*;
 import com.netflix.scheduledactions.clustered.notifications.*;
 import com.netflix.scheduledactions.executors.Executor;
+import com.netflix.scheduledactions.scheduler.ActionScheduler;
+import com.netflix.scheduledactions.scheduler.FenzoActionScheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 
 public class ClusteredActionOperationsDelegateImpl extends AbstractActionOperationsDelegate implements ClusteredActionOperationsDelegate {
@@ -54,7 +59,35 @@ public class ClusteredActionOperationsDelegateImpl extends AbstractActionOperati
                                                  Executor executor,
                                                  int threadPoolSize,
                                                  ClusterMediator clusterMediator) {
-        super(delegateId, triggerOperator, daoConfigurer, executor, threadPoolSize);
+        // The application owns the lifecycle of the TriggerOperator in clustered mode
+        this(delegateId,
+            new FenzoActionScheduler(triggerOperator, false),
+            daoConfigurer,
+            executor,
+            threadPoolSize,
+            clusterMediator);
+    }
+
+    public ClusteredActionOperationsDelegateImpl(ActionScheduler actionScheduler,
+                                                 DaoConfigurer daoConfigurer,
+                                                 Executor executor,
+                                                 int threadPoolSize,
+                                                 ClusterMediator clusterMediator) {
+        this(UUID.randomUUID().toString(),
+            actionScheduler,
+            daoConfigurer,
+            executor,
+            threadPoolSize,
+            clusterMediator);
+    }
+
+    public ClusteredActionOperationsDelegateImpl(String delegateId,
+                                                 ActionScheduler actionScheduler,
+                                                 DaoConfigurer daoConfigurer,
+                                                 Executor executor,
+                                                 int threadPoolSize,
+                                                 ClusterMediator clusterMediator) {
+        super(delegateId, actionScheduler, daoConfigurer, executor, threadPoolSize);
         this.clusterMediator = clusterMediator;
         if (clusterMediator == null) {
             throw new IllegalArgumentException("ClusterMediator cannot be null for ClusteredActionOperationsDelegate");
@@ -66,9 +99,12 @@ public class ClusteredActionOperationsDelegateImpl extends AbstractActionOperati
      */
     @Override
     public void initialize() {
+        loadIndexes();
+        actionScheduler.initialize(this);
         this.actionStatusChangePollingAgent = new ActionStatusChangePollingAgent(
             60*1000L,
-            new DefaultActionStatusChangeListener(actionInstanceDao, triggerOperator),
+            new DefaultActionStatusChangeListener(actionInstanceDao, actionScheduler, nextFireTimeIndex,
+                fuzzPlacementService, eventBus, dependencyTracker, prefetcher),
             clusterMediator
         );
         this.executionStatusChangePollingAgent = new ExecutionStatusChangePollingAgent(
@@ -80,16 +116,25 @@ public class ClusteredActionOperationsDelegateImpl extends AbstractActionOperati
                 this),
             clusterMediator
         );
+        prefetcher.start();
+        startExecutionReaper();
     }
 
     @Override
     public void destroy() {
+        if (this.executionReaper != null) {
+            this.executionReaper.shutdown();
+        }
         if (this.actionStatusChangePollingAgent != null) {
             this.actionStatusChangePollingAgent.shutdown();
         }
         if (this.executionStatusChangePollingAgent != null) {
             this.executionStatusChangePollingAgent.shutdown();
         }
+        prefetcher.shutdown();
+        eventBus.shutdown();
+        dependencyTracker.shutdown();
+        actionScheduler.destroy();
     }
 
     @Override
@@ -104,10 +149,25 @@ public class ClusteredActionOperationsDelegateImpl extends AbstractActionOperati
         return actionInstance.getId();
     }
 
+    @Override
+    public List<RegistrationResult> registerAll(List<ActionInstance> actionInstances) {
+        List<RegistrationResult> results = super.registerAll(actionInstances);
+        for (RegistrationResult result : results) {
+            if (result.isRegistered()) {
+                clusterMediator.sendActionMessage(new ActionInstanceMessage(result.getActionInstanceId(), Status.CREATED));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * The other nodes only reschedule for updates that change the schedule, and drop their prefetched copy of the
+     * instance for the others
+     */
     @Override
     public void update(ActionInstance actionInstance) {
-        super.update(actionInstance);
-        clusterMediator.sendActionMessage(new ActionInstanceMessage(actionInstance.getId(), Status.UPDATED));
+        Status status = updateInPlace(actionInstance) ? Status.UPDATED : Status.MODIFIED;
+        clusterMediator.sendActionMessage(new ActionInstanceMessage(actionInstance.getId(), status));
     }
 
     @Override
@@ -128,10 +188,56 @@ public class ClusteredActionOperationsDelegateImpl extends AbstractActionOperati
         clusterMediator.sendActionMessage(new ActionInstanceMessage(actionInstance.getId(), Status.DELETED));
     }
 
+    /**
+     * Broadcasts a single message for the whole group rather than one per actionInstance
+     */
+    @Override
+    public List<ActionInstance> disableGroup(String group) {
+        List<ActionInstance> disabled = super.disableGroup(group);
+        sendGroupMessage(group, disabled, Status.DISABLED);
+        return disabled;
+    }
+
+    @Override
+    public List<ActionInstance> enableGroup(String group) {
+        List<ActionInstance> enabled = super.enableGroup(group);
+        sendGroupMessage(group, enabled, Status.ENABLED);
+        return enabled;
+    }
+
+    @Override
+    public List<ActionInstance> deleteGroup(String group) {
+        List<ActionInstance> deleted = super.deleteGroup(group);
+        sendGroupMessage(group, deleted, Status.DELETED);
+        return deleted;
+    }
+
+    private void sendGroupMessage(String group, List<ActionInstance> actionInstances, Status status) {
+        if (actionInstances.isEmpty()) {
+            return;
+        }
+        List<String> actionInstanceIds = new ArrayList<>(actionInstances.size());
+        for (ActionInstance actionInstance : actionInstances) {
+            actionInstanceIds.add(actionInstance.getId());
+        }
+        clusterMediator.sendActionMessage(new ActionInstanceMessage(group, actionInstanceIds, status));
+    }
+
+    /**
+     * Both the scheduled fires and the direct executions end up here, so only the node that takes the lock executes
+     */
+    @Override
+    protected Execution execute(final ActionInstance actionInstance, String initiator, Date fireTime, long executeTime) {
+        if (clusterMediator.shouldExecuteAction(actionInstance.getId(), LOCK_TTL)) {
+            super.execute(actionInstance, initiator, fireTime, executeTime);
+        }
+        return null;
+    }
+
     @Override
-    public Execution execute(final ActionInstance actionInstance, String initiator) {
+    public Execution resume(Execution interrupted, ActionInstance actionInstance) {
         if (clusterMediator.shouldExecuteAction(actionInstance.getId(), LOCK_TTL)) {
-            super.execute(actionInstance, initiator);
+            return super.resume(interrupted, actionInstance);
         }
         return null;
     }
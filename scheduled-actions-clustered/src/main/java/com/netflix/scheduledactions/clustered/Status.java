@@ -17,5 +17,5 @@
 package com.netflix.scheduledactions.clustered;
 
 public enum Status {
-    CREATED, UPDATED, DISABLED, ENABLED, DELETED, CANCELED
+    CREATED, UPDATED, MODIFIED, DISABLED, ENABLED, DELETED, CANCELED
 }
@@ -18,12 +18,29 @@ package com.netflix.scheduledactions.clustered.notifications;
 
 import com.netflix.scheduledactions.clustered.Status;
 
+import java.util.List;
+
+/**
+ * A change to one actionInstance, or to all the given actionInstances of a group at once
+ */
 public class ActionInstanceMessage {
     private final String actionInstanceId;
+    private final String group;
+    private final List<String> actionInstanceIds;
     private final Status status;
 
     public ActionInstanceMessage(String actionInstanceId, Status status) {
+        this(actionInstanceId, null, null, status);
+    }
+
+    public ActionInstanceMessage(String group, List<String> actionInstanceIds, Status status) {
+        this(null, group, actionInstanceIds, status);
+    }
+
+    private ActionInstanceMessage(String actionInstanceId, String group, List<String> actionInstanceIds, Status status) {
         this.actionInstanceId = actionInstanceId;
+        this.group = group;
+        this.actionInstanceIds = actionInstanceIds;
         this.status = status;
     }
 
@@ -31,6 +48,25 @@ public class ActionInstanceMessage {
         return actionInstanceId;
     }
 
+    /**
+     * Returns the group of a group-wide change, or null if the message is about a single actionInstance
+     */
+    public String getGroup() {
+        return group;
+    }
+
+    /**
+     * Returns the ids of the actionInstances of a group-wide change, or null if the message is about a single
+     * actionInstance
+     */
+    public List<String> getActionInstanceIds() {
+        return actionInstanceIds;
+    }
+
+    public boolean isGroupMessage() {
+        return actionInstanceIds != null;
+    }
+
     public Status getStatus() {
         return status;
     }
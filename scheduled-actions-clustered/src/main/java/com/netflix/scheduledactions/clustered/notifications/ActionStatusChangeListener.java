@@ -16,6 +16,8 @@
 
 package com.netflix.scheduledactions.clustered.notifications;
 
+import java.util.List;
+
 public interface ActionStatusChangeListener {
 
     public void onCreate(String actionInstanceId) throws Exception;
@@ -26,4 +28,40 @@ public interface ActionStatusChangeListener {
 
     public void onDelete(String actionInstanceId) throws Exception;
 
+    /*
+     * Called for updates that changed the trigger, group, misfire policy or disabled flag of the actionInstance.
+     * By default the actionInstance is dropped and picked up again, as for a delete followed by a create
+     */
+    public default void onUpdate(String actionInstanceId) throws Exception {
+        onDelete(actionInstanceId);
+        onCreate(actionInstanceId);
+    }
+
+    /*
+     * Called for updates that left the schedule as is, e.g. that only changed the owners, parameters or action
+     */
+    public default void onModify(String actionInstanceId) throws Exception {
+    }
+
+    /*
+     * Group-wide changes, received as a single message for all the actionInstances of the group
+     */
+    public default void onDisableAll(List<String> actionInstanceIds) throws Exception {
+        for (String actionInstanceId : actionInstanceIds) {
+            onDisable(actionInstanceId);
+        }
+    }
+
+    public default void onEnableAll(List<String> actionInstanceIds) throws Exception {
+        for (String actionInstanceId : actionInstanceIds) {
+            onEnable(actionInstanceId);
+        }
+    }
+
+    public default void onDeleteAll(List<String> actionInstanceIds) throws Exception {
+        for (String actionInstanceId : actionInstanceIds) {
+            onDelete(actionInstanceId);
+        }
+    }
+
 }
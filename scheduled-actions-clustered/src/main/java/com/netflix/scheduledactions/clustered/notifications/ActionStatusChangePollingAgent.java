@@ -74,6 +74,10 @@ public class ActionStatusChangePollingAgent extends AbstractPollingAgent {
     }
 
     public void invokeListener(ActionInstanceMessage actionInstanceMessage) throws Exception {
+        if (actionInstanceMessage.isGroupMessage()) {
+            invokeGroupListener(actionInstanceMessage);
+            return;
+        }
         switch (actionInstanceMessage.getStatus()) {
             case CREATED:
                 actionStatusChangeListener.onCreate(actionInstanceMessage.getActionInstanceId());
@@ -81,6 +85,12 @@ public class ActionStatusChangePollingAgent extends AbstractPollingAgent {
             case DELETED:
                 actionStatusChangeListener.onDelete(actionInstanceMessage.getActionInstanceId());
                 break;
+            case UPDATED:
+                actionStatusChangeListener.onUpdate(actionInstanceMessage.getActionInstanceId());
+                break;
+            case MODIFIED:
+                actionStatusChangeListener.onModify(actionInstanceMessage.getActionInstanceId());
+                break;
             case ENABLED:
                 actionStatusChangeListener.onEnable(actionInstanceMessage.getActionInstanceId());
                 break;
@@ -92,4 +102,19 @@ public class ActionStatusChangePollingAgent extends AbstractPollingAgent {
         }
     }
 
+    private void invokeGroupListener(ActionInstanceMessage actionInstanceMessage) throws Exception {
+        switch (actionInstanceMessage.getStatus()) {
+            case DELETED:
+                actionStatusChangeListener.onDeleteAll(actionInstanceMessage.getActionInstanceIds());
+                break;
+            case ENABLED:
+                actionStatusChangeListener.onEnableAll(actionInstanceMessage.getActionInstanceIds());
+                break;
+            case DISABLED:
+                actionStatusChangeListener.onDisableAll(actionInstanceMessage.getActionInstanceIds());
+                break;
+            default:
+                break;
+        }
+    }
 }
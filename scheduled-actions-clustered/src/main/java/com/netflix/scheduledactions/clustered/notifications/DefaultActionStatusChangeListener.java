@@ -16,69 +16,245 @@
 
 package com.netflix.scheduledactions.clustered.notifications;
 
-import com.netflix.fenzo.triggers.ScheduledTrigger;
 import com.netflix.fenzo.triggers.TriggerOperator;
 import com.netflix.fenzo.triggers.exceptions.SchedulerException;
 import com.netflix.scheduledactions.ActionInstance;
+import com.netflix.scheduledactions.SchedulerClock;
+import com.netflix.scheduledactions.events.TriggerSubscriber;
 import com.netflix.scheduledactions.persistence.ActionInstanceDao;
+import com.netflix.scheduledactions.scheduler.ActionScheduler;
+import com.netflix.scheduledactions.scheduler.FenzoActionScheduler;
+import com.netflix.scheduledactions.scheduler.NextFireTimeIndex;
+import com.netflix.scheduledactions.triggers.CronTrigger;
+import com.netflix.scheduledactions.triggers.FuzzPlacementService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
 public class DefaultActionStatusChangeListener implements ActionStatusChangeListener {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultActionStatusChangeListener.class);
 
     private final ActionInstanceDao actionInstanceDao;
-    private final TriggerOperator triggerOperator;
+    private final ActionScheduler actionScheduler;
+    private final NextFireTimeIndex nextFireTimeIndex;
+    private final FuzzPlacementService fuzzPlacementService;
+    private final TriggerSubscriber[] triggerSubscribers;
 
     public DefaultActionStatusChangeListener(ActionInstanceDao actionInstanceDao, TriggerOperator triggerOperator) {
+        this(actionInstanceDao, new FenzoActionScheduler(triggerOperator, false));
+    }
+
+    public DefaultActionStatusChangeListener(ActionInstanceDao actionInstanceDao, ActionScheduler actionScheduler) {
+        this(actionInstanceDao, actionScheduler, null);
+    }
+
+    public DefaultActionStatusChangeListener(ActionInstanceDao actionInstanceDao,
+                                             ActionScheduler actionScheduler,
+                                             NextFireTimeIndex nextFireTimeIndex) {
+        this(actionInstanceDao, actionScheduler, nextFireTimeIndex, new TriggerSubscriber[0]);
+    }
+
+    /**
+     * @param nextFireTimeIndex the index of upcoming fires of this node to keep in line with the scheduler, if any
+     * @param triggerSubscribers the subscriptions of this node to events and completions to keep in line as well
+     */
+    public DefaultActionStatusChangeListener(ActionInstanceDao actionInstanceDao,
+                                             ActionScheduler actionScheduler,
+                                             NextFireTimeIndex nextFireTimeIndex,
+                                             TriggerSubscriber... triggerSubscribers) {
+        this(actionInstanceDao, actionScheduler, nextFireTimeIndex, null, triggerSubscribers);
+    }
+
+    /**
+     * @param fuzzPlacementService the fire slots of this node to place new fuzzy cron expressions around, if any
+     */
+    public DefaultActionStatusChangeListener(ActionInstanceDao actionInstanceDao,
+                                             ActionScheduler actionScheduler,
+                                             NextFireTimeIndex nextFireTimeIndex,
+                                             FuzzPlacementService fuzzPlacementService,
+                                             TriggerSubscriber... triggerSubscribers) {
         this.actionInstanceDao = actionInstanceDao;
-        this.triggerOperator = triggerOperator;
+        this.actionScheduler = actionScheduler;
+        this.nextFireTimeIndex = nextFireTimeIndex;
+        this.fuzzPlacementService = fuzzPlacementService;
+        this.triggerSubscribers = triggerSubscribers;
     }
 
     @Override
     public void onCreate(String actionInstanceId) throws SchedulerException {
         ActionInstance actionInstance = actionInstanceDao.getActionInstance(actionInstanceId);
-        if (!isScheduled(actionInstance)) {
-            triggerOperator.scheduleTrigger((ScheduledTrigger) actionInstance.getFenzoTrigger());
+        if (actionInstance != null && !actionScheduler.isScheduled(actionInstance)) {
+            actionScheduler.schedule(actionInstance);
+        }
+        if (actionInstance != null && nextFireTimeIndex != null) {
+            nextFireTimeIndex.index(actionInstance, SchedulerClock.now());
+        }
+        if (actionInstance != null) {
+            record(actionInstance);
+            for (TriggerSubscriber triggerSubscriber : triggerSubscribers) {
+                triggerSubscriber.subscribe(actionInstance);
+            }
         }
     }
 
     @Override
     public void onDisable(String actionInstanceId) throws SchedulerException {
         ActionInstance actionInstance = actionInstanceDao.getActionInstance(actionInstanceId);
-        if (isScheduled(actionInstance)) {
-            triggerOperator.disableTrigger(actionInstance.getFenzoTrigger());
+        if (actionInstance != null && actionScheduler.isScheduled(actionInstance)) {
+            actionScheduler.disable(actionInstance);
+        }
+        if (nextFireTimeIndex != null) {
+            nextFireTimeIndex.remove(actionInstanceId);
+        }
+        for (TriggerSubscriber triggerSubscriber : triggerSubscribers) {
+            triggerSubscriber.unsubscribe(actionInstanceId);
         }
     }
 
     @Override
     public void onEnable(String actionInstanceId) throws SchedulerException {
         ActionInstance actionInstance = actionInstanceDao.getActionInstance(actionInstanceId);
-        if (!isScheduled(actionInstance)) {
-            triggerOperator.enableTrigger(actionInstance.getFenzoTrigger());
+        if (actionInstance != null && !actionScheduler.isScheduled(actionInstance)) {
+            actionScheduler.enable(actionInstance);
+        }
+        if (actionInstance != null && nextFireTimeIndex != null) {
+            nextFireTimeIndex.index(actionInstance, SchedulerClock.now());
+        }
+        if (actionInstance != null) {
+            for (TriggerSubscriber triggerSubscriber : triggerSubscribers) {
+                triggerSubscriber.subscribe(actionInstance);
+            }
         }
     }
 
+    /**
+     * The instance is already gone from the store, so its trigger is unscheduled by id
+     */
     @Override
     public void onDelete(String actionInstanceId) throws SchedulerException {
+        actionScheduler.unschedule(actionInstanceId);
+        unindex(actionInstanceId);
+    }
+
+    /**
+     * The trigger that is scheduled may have been replaced since, and the instance may even have been deleted, so
+     * it is unscheduled by id before the instance is read and scheduled again
+     */
+    @Override
+    public void onUpdate(String actionInstanceId) throws SchedulerException {
+        actionScheduler.unschedule(actionInstanceId);
+        unindex(actionInstanceId);
         ActionInstance actionInstance = actionInstanceDao.getActionInstance(actionInstanceId);
-        if (isScheduled(actionInstance)) {
-            triggerOperator.unscheduleTrigger((ScheduledTrigger) actionInstance.getFenzoTrigger());
+        if (actionInstance == null) {
+            return;
+        }
+        record(actionInstance);
+        if (actionInstance.isDisabled()) {
+            return;
+        }
+        actionScheduler.schedule(actionInstance);
+        if (nextFireTimeIndex != null) {
+            nextFireTimeIndex.index(actionInstance, SchedulerClock.now());
+        }
+        for (TriggerSubscriber triggerSubscriber : triggerSubscribers) {
+            triggerSubscriber.subscribe(actionInstance);
+        }
+    }
+
+    /**
+     * The trigger stays scheduled as is, only the copies of the instance kept on this node are dropped
+     */
+    @Override
+    public void onModify(String actionInstanceId) throws SchedulerException {
+        for (TriggerSubscriber triggerSubscriber : triggerSubscribers) {
+            triggerSubscriber.invalidate(actionInstanceId);
         }
     }
 
-    private boolean isScheduled(ActionInstance actionInstance) {
-        try {
-            if (actionInstance != null &&
-                actionInstance.getFenzoTrigger() != null &&
-                actionInstance.getFenzoTrigger() instanceof ScheduledTrigger) {
-                return triggerOperator.isScheduled((ScheduledTrigger) actionInstance.getFenzoTrigger());
+    @Override
+    public void onDisableAll(List<String> actionInstanceIds) throws SchedulerException {
+        List<ActionInstance> scheduled = new ArrayList<>();
+        for (ActionInstance actionInstance : actionInstanceDao.getActionInstances(actionInstanceIds)) {
+            if (actionScheduler.isScheduled(actionInstance)) {
+                scheduled.add(actionInstance);
+            }
+        }
+        logFailures(actionScheduler.disableAll(scheduled));
+        for (String actionInstanceId : actionInstanceIds) {
+            if (nextFireTimeIndex != null) {
+                nextFireTimeIndex.remove(actionInstanceId);
+            }
+            for (TriggerSubscriber triggerSubscriber : triggerSubscribers) {
+                triggerSubscriber.unsubscribe(actionInstanceId);
+            }
+        }
+    }
+
+    @Override
+    public void onEnableAll(List<String> actionInstanceIds) throws SchedulerException {
+        List<ActionInstance> actionInstances = actionInstanceDao.getActionInstances(actionInstanceIds);
+        List<ActionInstance> unscheduled = new ArrayList<>();
+        for (ActionInstance actionInstance : actionInstances) {
+            if (!actionScheduler.isScheduled(actionInstance)) {
+                unscheduled.add(actionInstance);
+            }
+        }
+        logFailures(actionScheduler.enableAll(unscheduled));
+        Date now = SchedulerClock.now();
+        for (ActionInstance actionInstance : actionInstances) {
+            if (nextFireTimeIndex != null) {
+                nextFireTimeIndex.index(actionInstance, now);
+            }
+            for (TriggerSubscriber triggerSubscriber : triggerSubscribers) {
+                triggerSubscriber.subscribe(actionInstance);
             }
-        } catch (Exception e) {
-            LOGGER.error("Exception occurred while checking actionInstance {}", actionInstance, e);
         }
-        return false;
     }
 
+    /**
+     * The instances are already gone from the store, so their triggers are unscheduled by id
+     */
+    @Override
+    public void onDeleteAll(List<String> actionInstanceIds) throws SchedulerException {
+        for (String actionInstanceId : actionInstanceIds) {
+            try {
+                actionScheduler.unschedule(actionInstanceId);
+            } catch (Exception e) {
+                LOGGER.error(String.format("Exception occurred while unscheduling the trigger of %s", actionInstanceId), e);
+            }
+            unindex(actionInstanceId);
+        }
+    }
+
+    /**
+     * Keeps the fire slots of this node in line with the instances the other nodes place
+     */
+    private void record(ActionInstance actionInstance) {
+        if (fuzzPlacementService != null && actionInstance.getTrigger() instanceof CronTrigger) {
+            fuzzPlacementService.record(actionInstance.getId(), (CronTrigger) actionInstance.getTrigger());
+        }
+    }
+
+    private void unindex(String actionInstanceId) {
+        if (nextFireTimeIndex != null) {
+            nextFireTimeIndex.remove(actionInstanceId);
+        }
+        if (fuzzPlacementService != null) {
+            fuzzPlacementService.release(actionInstanceId);
+        }
+        for (TriggerSubscriber triggerSubscriber : triggerSubscribers) {
+            triggerSubscriber.unsubscribe(actionInstanceId);
+        }
+    }
+
+    private void logFailures(Map<String, Exception> failures) {
+        for (Map.Entry<String, Exception> failure : failures.entrySet()) {
+            LOGGER.error(String.format("Exception occurred while updating the trigger of %s", failure.getKey()), failure.getValue());
+        }
+    }
 }
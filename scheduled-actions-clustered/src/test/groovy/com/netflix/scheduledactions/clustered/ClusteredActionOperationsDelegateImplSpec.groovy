@@ -0,0 +1,131 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.scheduledactions.clustered
+
+import com.netflix.fenzo.triggers.persistence.InMemoryTriggerDao
+import com.netflix.scheduledactions.AbstractActionOperationsDelegate
+import com.netflix.scheduledactions.ActionInstance
+import com.netflix.scheduledactions.ActionSupport
+import com.netflix.scheduledactions.Context
+import com.netflix.scheduledactions.DaoConfigurer
+import com.netflix.scheduledactions.Execution
+import com.netflix.scheduledactions.clustered.notifications.ActionInstanceMessage
+import com.netflix.scheduledactions.clustered.notifications.ExecutionMessage
+import com.netflix.scheduledactions.executors.Executor
+import com.netflix.scheduledactions.persistence.InMemoryActionInstanceDao
+import com.netflix.scheduledactions.persistence.InMemoryExecutionDao
+import com.netflix.scheduledactions.scheduler.ActionScheduler
+import com.netflix.scheduledactions.triggers.CronTrigger
+import spock.lang.Specification
+
+import java.util.concurrent.ConcurrentHashMap
+
+class ClusteredActionOperationsDelegateImplSpec extends Specification {
+
+  static class TestAction extends ActionSupport {
+    @Override
+    void execute(Context context, Execution execution) {}
+  }
+
+  static class LockingClusterMediator implements ClusterMediator {
+    Set<String> locks = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>())
+    List<ActionInstanceMessage> actionMessages = []
+
+    void sendActionMessage(ActionInstanceMessage actionInstanceMessage) { actionMessages << actionInstanceMessage }
+    List<ActionInstanceMessage> getAllActionMessages() { [] }
+    void sendExecutionMessage(ExecutionMessage executionMessage) {}
+    List<ExecutionMessage> getAllExecutionMessages() { [] }
+    boolean isExecutingAction(String executionId, String actionInstanceId) { false }
+    boolean shouldExecuteAction(String actionInstanceId, long ttlSeconds) { locks.add(actionInstanceId) }
+  }
+
+  InMemoryActionInstanceDao actionInstanceDao = new InMemoryActionInstanceDao()
+  InMemoryExecutionDao executionDao = new InMemoryExecutionDao()
+  ClusterMediator clusterMediator = new LockingClusterMediator()
+
+  ClusteredActionOperationsDelegateImpl node1 = newNode('node1')
+  ClusteredActionOperationsDelegateImpl node2 = newNode('node2')
+
+  void 'a scheduled fire is executed by the one node that takes the lock'() {
+    setup:
+    String id = node1.register(ActionInstance.newActionInstance()
+      .withName('ClusteredActionOperationsDelegateImplSpec')
+      .withGroup('ClusteredActionOperationsDelegateImplSpec')
+      .withAction(TestAction)
+      .withTrigger(new CronTrigger('0 0 * * * ?'))
+      .build())
+    Date fireTime = new Date()
+
+    when:
+    node1.execute(id, AbstractActionOperationsDelegate.InternalAction.INITIATOR, fireTime)
+    node2.execute(id, AbstractActionOperationsDelegate.InternalAction.INITIATOR, fireTime)
+
+    then:
+    executionDao.getExecutions(id).size() == 1
+  }
+
+  void 'a direct execution is also guarded by the lock'() {
+    setup:
+    String id = node1.register(ActionInstance.newActionInstance()
+      .withName('ClusteredActionOperationsDelegateImplSpec')
+      .withGroup('ClusteredActionOperationsDelegateImplSpec')
+      .withAction(TestAction)
+      .build())
+
+    when:
+    node1.execute(id, 'user')
+    node2.execute(id, 'user')
+
+    then:
+    executionDao.getExecutions(id).size() == 1
+  }
+
+  void 'every update is broadcast, as an update of the schedule only if it changed'() {
+    setup:
+    String id = node1.register(newActionInstance(null, '0 0 * * * ?', ['a']))
+
+    when:
+    node1.update(newActionInstance(id, '0 0 * * * ?', ['a', 'b']))
+    node1.update(newActionInstance(id, '0 30 * * * ?', ['a', 'b']))
+
+    then:
+    clusterMediator.actionMessages*.status == [Status.CREATED, Status.MODIFIED, Status.UPDATED]
+  }
+
+  private static ActionInstance newActionInstance(String id, String cronExpression, List<String> owners) {
+    ActionInstance.newActionInstance()
+      .withId(id)
+      .withName('ClusteredActionOperationsDelegateImplSpec')
+      .withGroup('ClusteredActionOperationsDelegateImplSpec')
+      .withAction(TestAction)
+      .withTrigger(new CronTrigger(cronExpression))
+      .withOwners(owners as String[])
+      .build()
+  }
+
+  private ClusteredActionOperationsDelegateImpl newNode(String delegateId) {
+    new ClusteredActionOperationsDelegateImpl(
+      delegateId,
+      Mock(ActionScheduler),
+      new DaoConfigurer(actionInstanceDao, new InMemoryTriggerDao(), executionDao),
+      Mock(Executor),
+      2,
+      clusterMediator
+    )
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.scheduledactions.clustered.notifications
+
+import com.netflix.scheduledactions.ActionInstance
+import com.netflix.scheduledactions.ActionSupport
+import com.netflix.scheduledactions.Context
+import com.netflix.scheduledactions.Execution
+import com.netflix.scheduledactions.events.TriggerSubscriber
+import com.netflix.scheduledactions.persistence.InMemoryActionInstanceDao
+import com.netflix.scheduledactions.scheduler.ActionScheduler
+import com.netflix.scheduledactions.scheduler.NextFireTimeIndex
+import com.netflix.scheduledactions.triggers.CronTrigger
+import com.netflix.scheduledactions.triggers.FuzzPlacementService
+import spock.lang.Specification
+
+class DefaultActionStatusChangeListenerSpec extends Specification {
+
+  static class TestAction extends ActionSupport {
+    @Override
+    void execute(Context context, Execution execution) {}
+  }
+
+  InMemoryActionInstanceDao actionInstanceDao = new InMemoryActionInstanceDao()
+  ActionScheduler actionScheduler = Mock(ActionScheduler)
+  NextFireTimeIndex nextFireTimeIndex = new NextFireTimeIndex()
+  TriggerSubscriber triggerSubscriber = Mock(TriggerSubscriber)
+  DefaultActionStatusChangeListener listener = new DefaultActionStatusChangeListener(
+    actionInstanceDao, actionScheduler, nextFireTimeIndex, triggerSubscriber
+  )
+
+  def 'should unschedule a deleted actionInstance by id'() {
+    given:
+    nextFireTimeIndex.put('deleted', System.currentTimeMillis() + 60000L)
+
+    when:
+    listener.onDelete('deleted')
+
+    then:
+    1 * actionScheduler.unschedule('deleted')
+    1 * triggerSubscriber.unsubscribe('deleted')
+    0 * actionScheduler.unschedule(_ as ActionInstance)
+    nextFireTimeIndex.get('deleted') == null
+  }
+
+  def 'should unschedule an updated actionInstance that was deleted since'() {
+    given:
+    ActionInstance actionInstance = newActionInstance(false)
+    String id = actionInstanceDao.createActionInstance('DefaultActionStatusChangeListenerSpec', actionInstance)
+    actionInstanceDao.deleteActionInstance('DefaultActionStatusChangeListenerSpec', actionInstance)
+    nextFireTimeIndex.put(id, System.currentTimeMillis() + 60000L)
+
+    when:
+    listener.onUpdate(id)
+
+    then:
+    1 * actionScheduler.unschedule(id)
+    0 * actionScheduler.schedule(_)
+    nextFireTimeIndex.get(id) == null
+  }
+
+  def 'should replace the scheduled trigger of an updated actionInstance'() {
+    given:
+    String id = actionInstanceDao.createActionInstance('DefaultActionStatusChangeListenerSpec', newActionInstance(false))
+
+    when:
+    listener.onUpdate(id)
+
+    then:
+    1 * actionScheduler.unschedule(id)
+
+    then:
+    1 * actionScheduler.schedule({ it.id == id })
+    1 * triggerSubscriber.subscribe({ it.id == id })
+    nextFireTimeIndex.get(id) != null
+  }
+
+  def 'should not schedule an updated actionInstance that is disabled'() {
+    given:
+    String id = actionInstanceDao.createActionInstance('DefaultActionStatusChangeListenerSpec', newActionInstance(true))
+
+    when:
+    listener.onUpdate(id)
+
+    then:
+    1 * actionScheduler.unschedule(id)
+    0 * actionScheduler.schedule(_)
+    nextFireTimeIndex.get(id) == null
+  }
+
+  def 'should only drop the copies kept of a modified actionInstance'() {
+    when:
+    listener.onModify('modified')
+
+    then:
+    1 * triggerSubscriber.invalidate('modified')
+    0 * actionScheduler._
+    0 * triggerSubscriber.unsubscribe(_)
+  }
+
+  def 'should unschedule every actionInstance of a deleted group by id'() {
+    given:
+    nextFireTimeIndex.put('a', System.currentTimeMillis() + 60000L)
+    nextFireTimeIndex.put('b', System.currentTimeMillis() + 60000L)
+
+    when:
+    listener.onDeleteAll(['a', 'b'])
+
+    then:
+    1 * actionScheduler.unschedule('a') >> { throw new IllegalStateException('boom') }
+    1 * actionScheduler.unschedule('b')
+    1 * triggerSubscriber.unsubscribe('a')
+    1 * triggerSubscriber.unsubscribe('b')
+    nextFireTimeIndex.size() == 0
+  }
+
+  def 'should keep the fire slots of the node in line with the other nodes'() {
+    given:
+    FuzzPlacementService fuzzPlacementService = new FuzzPlacementService()
+    listener = new DefaultActionStatusChangeListener(
+      actionInstanceDao, actionScheduler, nextFireTimeIndex, fuzzPlacementService, triggerSubscriber
+    )
+    ActionInstance actionInstance = newActionInstance(false)
+    String id = actionInstanceDao.createActionInstance('DefaultActionStatusChangeListenerSpec', actionInstance)
+
+    when:
+    listener.onCreate(id)
+
+    then:
+    fuzzPlacementService.getHistogram(FuzzPlacementService.Field.HOURS).sum() == 24
+
+    when:
+    actionInstance.trigger = new CronTrigger('0 0 12 * * ?')
+    actionInstanceDao.updateActionInstance(actionInstance)
+    listener.onUpdate(id)
+
+    then:
+    fuzzPlacementService.getHistogram(FuzzPlacementService.Field.HOURS).sum() == 1
+
+    when:
+    listener.onDelete(id)
+
+    then:
+    fuzzPlacementService.getHistogram(FuzzPlacementService.Field.HOURS).sum() == 0
+  }
+
+  private static ActionInstance newActionInstance(boolean disabled) {
+    ActionInstance actionInstance = ActionInstance.newActionInstance()
+      .withName('DefaultActionStatusChangeListenerSpec')
+      .withGroup('DefaultActionStatusChangeListenerSpec')
+      .withAction(TestAction)
+      .withTrigger(new CronTrigger('0 0 * * * ?'))
+      .build()
+    actionInstance.disabled = disabled
+    actionInstance
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.scheduledactions.scheduler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@code FireTimeQueue} with a {@code PriorityQueue} and a {@code DelayQueue} of boxed fires holding the
+ * same number of pending fires. Run with {@code ./gradlew :scheduled-actions-core:jmh}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FireTimeQueueBenchmark {
+
+    private static final long PERIOD = 60000L;
+
+    @Param({"1000000"})
+    private int size;
+
+    private String[] ids;
+    private Random random;
+    private FireTimeQueue fireTimeQueue;
+    private PriorityQueue<Fire> priorityQueue;
+    private DelayQueue<Fire> delayQueue;
+    private Map<String, Fire> fires;
+
+    @Setup
+    public void setup() {
+        ids = new String[size];
+        random = new Random(42);
+        fireTimeQueue = new FireTimeQueue(FireTimeQueue.DEFAULT_ARITY, size);
+        priorityQueue = new PriorityQueue<>(size);
+        delayQueue = new DelayQueue<>();
+        fires = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            ids[i] = "actionInstance-" + i;
+            // fire times in the past, so that every fire in the DelayQueue is due
+            long fireTime = random.nextInt(size) * 10L;
+            Fire fire = new Fire(ids[i], new Date(fireTime));
+            fireTimeQueue.schedule(ids[i], fireTime);
+            priorityQueue.add(fire);
+            delayQueue.add(fire);
+            fires.put(ids[i], fire);
+        }
+    }
+
+    @Benchmark
+    public String fireTimeQueueFireAndReschedule() {
+        String id = fireTimeQueue.peekId();
+        fireTimeQueue.schedule(id, fireTimeQueue.peekFireTime() + PERIOD);
+        return id;
+    }
+
+    @Benchmark
+    public Fire priorityQueueFireAndReschedule() {
+        Fire fire = priorityQueue.poll();
+        priorityQueue.add(new Fire(fire.id, new Date(fire.fireTime.getTime() + PERIOD)));
+        return fire;
+    }
+
+    @Benchmark
+    public Fire delayQueueFireAndReschedule() {
+        Fire fire = delayQueue.poll();
+        delayQueue.add(new Fire(fire.id, new Date(fire.fireTime.getTime() + PERIOD)));
+        return fire;
+    }
+
+    @Benchmark
+    public boolean fireTimeQueueRemoveAndReschedule() {
+        String id = ids[random.nextInt(size)];
+        boolean removed = fireTimeQueue.remove(id);
+        fireTimeQueue.schedule(id, random.nextInt(size) * 10L);
+        return removed;
+    }
+
+    @Benchmark
+    public boolean priorityQueueRemoveAndReschedule() {
+        Fire fire = fires.get(ids[random.nextInt(size)]);
+        boolean removed = priorityQueue.remove(fire);
+        priorityQueue.add(fire);
+        return removed;
+    }
+
+    @Benchmark
+    public boolean delayQueueRemoveAndReschedule() {
+        Fire fire = fires.get(ids[random.nextInt(size)]);
+        boolean removed = delayQueue.remove(fire);
+        delayQueue.add(fire);
+        return removed;
+    }
+
+    static final class Fire implements Delayed {
+        private final String id;
+        private final Date fireTime;
+
+        Fire(String id, Date fireTime) {
+            this.id = id;
+            this.fireTime = fireTime;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(fireTime.getTime() - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return fireTime.compareTo(((Fire) other).fireTime);
+        }
+    }
+}
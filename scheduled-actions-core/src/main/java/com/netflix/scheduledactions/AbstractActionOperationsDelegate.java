@@ -17,28 +17,52 @@
 package com.netflix.scheduledactions;
 
 import com.netflix.fenzo.triggers.TriggerOperator;
-import com.netflix.fenzo.triggers.exceptions.SchedulerException;
+import com.netflix.scheduledactions.FireLagHistogram.Stage;
 import com.netflix.scheduledactions.exceptions.ActionInstanceNotFoundException;
 import com.netflix.scheduledactions.exceptions.ActionOperationException;
 import com.netflix.scheduledactions.exceptions.ExecutionException;
 import com.netflix.scheduledactions.exceptions.ExecutionNotFoundException;
 import com.netflix.scheduledactions.executors.Executor;
 import com.netflix.scheduledactions.persistence.ActionInstanceDao;
+import com.netflix.scheduledactions.persistence.ActionInstancePager;
 import com.netflix.scheduledactions.persistence.ExecutionDao;
+import com.netflix.scheduledactions.scheduler.ActionScheduler;
+import com.netflix.scheduledactions.events.ActionEventBus;
+import com.netflix.scheduledactions.events.DependencyTracker;
+import com.netflix.scheduledactions.events.TriggerSubscriber;
+import com.netflix.scheduledactions.scheduler.FenzoActionScheduler;
+import com.netflix.scheduledactions.scheduler.NextFireTimeIndex;
+import com.netflix.scheduledactions.scheduler.TimingWheelActionScheduler;
+import com.netflix.scheduledactions.triggers.CronTrigger;
+import com.netflix.scheduledactions.triggers.DependencyTrigger;
+import com.netflix.scheduledactions.triggers.EventTrigger;
+import com.netflix.scheduledactions.triggers.ExcludableTrigger;
+import com.netflix.scheduledactions.triggers.ExclusionCalendars;
+import com.netflix.scheduledactions.triggers.FuzzPlacementService;
+import com.netflix.scheduledactions.triggers.Trigger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import rx.functions.Action1;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
 public class AbstractActionOperationsDelegate implements ActionOperationsDelegate {
 
     private static final Logger logger = LoggerFactory.getLogger(DefaultActionOperationsDelegate.class);
 
+    public static final int MAX_BACKFILL_EXECUTIONS = 10000;
+
+    protected final ActionScheduler actionScheduler;
     protected final TriggerOperator triggerOperator;
     protected final ActionInstanceDao actionInstanceDao;
     protected final ExecutionDao executionDao;
@@ -46,6 +70,15 @@ public class AbstractActionOperationsDelegate implements ActionOperationsDelegat
     protected final String delegateId;
     protected final ExecutorService executeService;
     protected final ExecutorService cancelService;
+    protected final ExecutorService backfillService;
+    protected final FuzzPlacementService fuzzPlacementService;
+    protected final NextFireTimeIndex nextFireTimeIndex;
+    protected final ActionEventBus eventBus;
+    protected final DependencyTracker dependencyTracker;
+    protected final ActionInstancePrefetcher prefetcher;
+    protected final FireLagRecorder fireLagRecorder;
+    protected final List<TriggerSubscriber> triggerSubscribers;
+    protected ExecutionReaper executionReaper;
 
     private static ActionOperationsDelegate actionOperationsDelegate;
 
@@ -54,30 +87,106 @@ public class AbstractActionOperationsDelegate implements ActionOperationsDelegat
                                            DaoConfigurer daoConfigurer,
                                            Executor executor,
                                            int threadPoolSize) {
-        this.triggerOperator = triggerOperator;
+        this(delegateId, new FenzoActionScheduler(triggerOperator), daoConfigurer, executor, threadPoolSize);
+    }
+
+    public AbstractActionOperationsDelegate(String delegateId,
+                                           ActionScheduler actionScheduler,
+                                           DaoConfigurer daoConfigurer,
+                                           Executor executor,
+                                           int threadPoolSize) {
+        if (actionScheduler == null) {
+            throw new IllegalArgumentException("ActionScheduler cannot be null");
+        }
+        this.actionScheduler = actionScheduler;
+        this.triggerOperator = actionScheduler instanceof FenzoActionScheduler ?
+            ((FenzoActionScheduler) actionScheduler).getTriggerOperator() : null;
         this.actionInstanceDao = daoConfigurer.getActionInstanceDao();
         this.executionDao = daoConfigurer.getExecutionDao();
         this.executor = executor;
         this.delegateId = delegateId;
         this.executeService = Executors.newFixedThreadPool(threadPoolSize);
         this.cancelService = Executors.newFixedThreadPool(threadPoolSize > 1 ? threadPoolSize/2 : threadPoolSize);
+        this.backfillService = Executors.newSingleThreadExecutor();
+        this.fuzzPlacementService = new FuzzPlacementService();
+        this.nextFireTimeIndex = new NextFireTimeIndex();
+        this.eventBus = new ActionEventBus(this);
+        this.dependencyTracker = new DependencyTracker(this);
+        this.prefetcher = new ActionInstancePrefetcher(delegateId, actionInstanceDao, nextFireTimeIndex);
+        this.fireLagRecorder = new FireLagRecorder();
+        this.triggerSubscribers = Arrays.<TriggerSubscriber>asList(eventBus, dependencyTracker, prefetcher);
+        if (actionScheduler instanceof TimingWheelActionScheduler) {
+            ((TimingWheelActionScheduler) actionScheduler).setExecutionDao(executionDao);
+        }
     }
 
     @Override
     public void initialize() {
         try {
             actionOperationsDelegate = this;
-            this.triggerOperator.initialize();
-        } catch (SchedulerException e) {
+            loadIndexes();
+            this.actionScheduler.initialize(this);
+            prefetcher.start();
+            startExecutionReaper();
+        } catch (ActionOperationException e) {
             throw new RuntimeException("Exception occurred while initializing AbstractActionOperationsDelegate", e);
         }
     }
 
+    /**
+     * Records the fire slots of the registered cron triggers so that new fuzzy expressions are placed around them,
+     * indexes the next fire time of every registered trigger and subscribes the event triggers to their events.
+     * The instances are read a page at a time, on the loader threads of an {@code ActionInstancePager}
+     */
+    protected void loadIndexes() {
+        final Date now = SchedulerClock.now();
+        try {
+            new ActionInstancePager(actionInstanceDao).forEachPage(new ActionInstancePager.PageHandler() {
+                @Override
+                public void onPage(List<ActionInstance> actionInstances) {
+                    for (ActionInstance actionInstance : actionInstances) {
+                        if (actionInstance.getTrigger() instanceof CronTrigger) {
+                            fuzzPlacementService.record(actionInstance.getId(), (CronTrigger) actionInstance.getTrigger());
+                        }
+                        nextFireTimeIndex.index(actionInstance, now);
+                        if (actionInstance.getTrigger() instanceof EventTrigger ||
+                            actionInstance.getTrigger() instanceof DependencyTrigger) {
+                            subscribe(actionInstance);
+                        }
+                    }
+                }
+
+                @Override
+                public void onFailure(List<String> actionInstanceIds, Exception e) {
+                    logger.error("Exception occurred while indexing a page of {} actionInstances",
+                        actionInstanceIds.size(), e);
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Loading the indexes of the registered actionInstances was interrupted");
+        }
+    }
+
+    /**
+     * Starts heartbeating for this delegate and sweeping the executions orphaned by executors that went away
+     */
+    protected void startExecutionReaper() {
+        this.executionReaper = new ExecutionReaper(delegateId, executionDao, actionInstanceDao, this);
+        this.executionReaper.start();
+    }
+
     @Override
     public void destroy() {
+        if (this.executionReaper != null) {
+            this.executionReaper.shutdown();
+        }
+        prefetcher.shutdown();
+        eventBus.shutdown();
+        dependencyTracker.shutdown();
         try {
-            this.triggerOperator.destroy();
-        } catch (SchedulerException e) {
+            this.actionScheduler.destroy();
+        } catch (ActionOperationException e) {
             throw new RuntimeException("Exception occurred while destroying AbstractActionOperationsDelegate", e);
         }
     }
@@ -95,36 +204,163 @@ public class AbstractActionOperationsDelegate implements ActionOperationsDelegat
     public String register(ActionInstance actionInstance) {
         validate(actionInstance);
 
-        actionInstanceDao.createActionInstance(actionInstance.getGroup(), actionInstance);
+        // The id and the fuzzed placement are assigned up front so that the instance is fully formed when it is
+        // written, and it is written before its trigger is registered so that a trigger firing right away finds it
+        actionInstanceDao.assignId(actionInstance.getGroup(), actionInstance);
+        dependencyTracker.validate(actionInstance);
+        if (actionInstance.getTrigger() instanceof CronTrigger) {
+            fuzzPlacementService.place(actionInstance.getId(), (CronTrigger) actionInstance.getTrigger());
+        }
+        try {
+            actionInstanceDao.createActionInstance(actionInstance.getGroup(), actionInstance);
+        } catch (RuntimeException e) {
+            fuzzPlacementService.release(actionInstance.getId());
+            throw e;
+        }
         if (actionInstance.getTrigger() != null) {
-            actionInstance.setFenzoTrigger(actionInstance.getTrigger().createFenzoTrigger(actionInstance.getContext(),
-                InternalAction.class));
             try {
-                triggerOperator.registerTrigger(actionInstance.getGroup(), actionInstance.getFenzoTrigger());
-            } catch (SchedulerException e) {
-                throw new ActionOperationException(String.format(
-                    "Exception occurred while registering actionInstance %s", actionInstance), e);
+                actionScheduler.register(actionInstance);
+            } catch (RuntimeException e) {
+                actionInstanceDao.deleteActionInstance(actionInstance.getGroup(), actionInstance);
+                fuzzPlacementService.release(actionInstance.getId());
+                throw e;
             }
+            if (actionInstance.getFenzoTrigger() != null) {
+                // Fenzo only gives the trigger its id when registering it, and that handle has to be stored too
+                actionInstanceDao.updateActionInstance(actionInstance);
+            }
+            nextFireTimeIndex.index(actionInstance, SchedulerClock.now());
+            subscribe(actionInstance);
         }
-        actionInstanceDao.updateActionInstance(actionInstance);
 
         logger.info("Successfully registered the actionInstance {}", actionInstance);
         return actionInstance.getId();
     }
 
+    /**
+     * Registers all the given {@code ActionInstance}s: validates every instance, assigns their ids, creates them in a
+     * single batch and then registers their triggers in one pass, deleting the instances whose trigger could not be
+     * registered. Returns the outcome for each instance in order
+     */
+    @Override
+    public List<RegistrationResult> registerAll(List<ActionInstance> actionInstances) {
+        RegistrationResult[] results = new RegistrationResult[actionInstances.size()];
+        Map<ActionInstance, Integer> positions = new IdentityHashMap<>();
+        List<ActionInstance> valid = new ArrayList<>();
+        for (int i = 0; i < actionInstances.size(); i++) {
+            ActionInstance actionInstance = actionInstances.get(i);
+            try {
+                validate(actionInstance);
+                actionInstanceDao.assignId(actionInstance.getGroup(), actionInstance);
+                dependencyTracker.validate(actionInstance);
+                valid.add(actionInstance);
+                positions.put(actionInstance, i);
+            } catch (Exception e) {
+                results[i] = RegistrationResult.failure(actionInstance, e);
+            }
+        }
+
+        if (!valid.isEmpty()) {
+            List<ActionInstance> placed = new ArrayList<>();
+            for (ActionInstance actionInstance : valid) {
+                if (actionInstance.getTrigger() instanceof CronTrigger) {
+                    try {
+                        fuzzPlacementService.place(actionInstance.getId(), (CronTrigger) actionInstance.getTrigger());
+                    } catch (Exception e) {
+                        results[positions.get(actionInstance)] = RegistrationResult.failure(actionInstance, e);
+                        continue;
+                    }
+                }
+                placed.add(actionInstance);
+            }
+
+            try {
+                actionInstanceDao.createActionInstances(placed);
+            } catch (Exception e) {
+                logger.error("Exception occurred while creating {} actionInstances", placed.size(), e);
+                for (ActionInstance actionInstance : placed) {
+                    fuzzPlacementService.release(actionInstance.getId());
+                    results[positions.get(actionInstance)] = RegistrationResult.failure(actionInstance, e);
+                }
+                return Arrays.asList(results);
+            }
+
+            List<ActionInstance> withTriggers = new ArrayList<>();
+            for (ActionInstance actionInstance : placed) {
+                if (actionInstance.getTrigger() != null) {
+                    withTriggers.add(actionInstance);
+                }
+            }
+            Map<String, Exception> failures = actionScheduler.registerAll(withTriggers);
+
+            List<ActionInstance> registered = new ArrayList<>();
+            List<ActionInstance> failed = new ArrayList<>();
+            List<ActionInstance> withFenzoTriggers = new ArrayList<>();
+            for (ActionInstance actionInstance : placed) {
+                Exception failure = failures.get(actionInstance.getId());
+                if (failure == null) {
+                    registered.add(actionInstance);
+                    if (actionInstance.getFenzoTrigger() != null) {
+                        withFenzoTriggers.add(actionInstance);
+                    }
+                } else {
+                    failed.add(actionInstance);
+                    fuzzPlacementService.release(actionInstance.getId());
+                    results[positions.get(actionInstance)] = RegistrationResult.failure(actionInstance, failure);
+                }
+            }
+            if (!failed.isEmpty()) {
+                try {
+                    actionInstanceDao.deleteActionInstances(failed);
+                } catch (Exception e) {
+                    logger.error("Exception occurred while deleting {} actionInstances whose trigger could not be registered",
+                        failed.size(), e);
+                }
+            }
+            if (!withFenzoTriggers.isEmpty()) {
+                // Fenzo only gives the triggers their ids when registering them, and those handles have to be stored too
+                actionInstanceDao.updateActionInstances(withFenzoTriggers);
+            }
+
+            Date now = SchedulerClock.now();
+            for (ActionInstance actionInstance : registered) {
+                if (actionInstance.getTrigger() != null) {
+                    nextFireTimeIndex.index(actionInstance, now);
+                    subscribe(actionInstance);
+                }
+                results[positions.get(actionInstance)] = RegistrationResult.success(actionInstance);
+            }
+            logger.info("Successfully registered {} of {} actionInstances", registered.size(), actionInstances.size());
+        }
+        return Arrays.asList(results);
+    }
+
     public static class InternalAction implements Action1<Context> {
+        public static final String INITIATOR = "ScheduledTrigger";
+
         @Override
         public void call(Context context) {
             String actionInstanceId = context.getActionInstanceId();
             try {
                 logger.info("[{}] InternalAction: Calling execute() on delegate with context: {}", actionInstanceId, context);
-                actionOperationsDelegate.execute(actionInstanceId, "ScheduledTrigger"); // TODO: Pass trigger info from context
+                actionOperationsDelegate.execute(actionInstanceId, INITIATOR); // TODO: Pass trigger info from context
             } catch (ActionInstanceNotFoundException e) {}
         }
     }
 
+    /**
+     * Writes the updated {@code ActionInstance} once and only replaces its registered trigger if the schedule changed
+     */
     @Override
     public void update(ActionInstance actionInstance) {
+        updateInPlace(actionInstance);
+    }
+
+    /**
+     * Updates the {@code ActionInstance} as {@link #update(ActionInstance)} does and returns whether its trigger was
+     * replaced, so that subclasses only propagate the updates that change the schedule
+     */
+    protected boolean updateInPlace(ActionInstance actionInstance) {
         // Find an existing one to update
         ActionInstance existingInstance = actionInstanceDao.getActionInstance(actionInstance.getId());
         if (existingInstance == null) {
@@ -135,15 +371,108 @@ public class AbstractActionOperationsDelegate implements ActionOperationsDelegat
         // Set the id of the existing action instance so that this looks like an "update" operation
         actionInstance.setId(existingInstance.getId());
 
-        // Validate the new one before deleting the existing one
+        // Validate the new one before touching the existing one
         validate(actionInstance);
+        dependencyTracker.validate(actionInstance);
 
-        // Delete the existing one
-        delete(existingInstance);
+        // Keep the placement of an unchanged fuzzy cron expression
+        if (actionInstance.getTrigger() instanceof CronTrigger && existingInstance.getTrigger() instanceof CronTrigger) {
+            CronTrigger trigger = (CronTrigger) actionInstance.getTrigger();
+            CronTrigger existingTrigger = (CronTrigger) existingInstance.getTrigger();
+            if (trigger.getFuzzedExpression() == null &&
+                trigger.getCronExpression().equals(existingTrigger.getCronExpression())) {
+                trigger.setFuzzedExpression(existingTrigger.getFuzzedExpression());
+            }
+        }
 
-        // Register the new one
-        this.register(actionInstance);
+        boolean scheduleChanged = isScheduleChanged(existingInstance, actionInstance);
+        // The registered trigger stays as is until it is rescheduled, so keep the handle the scheduler gave it
+        actionInstance.setFenzoTrigger(existingInstance.getFenzoTrigger());
+
+        if (scheduleChanged) {
+            place(existingInstance, actionInstance);
+        }
+
+        // The instance is written before its new trigger is registered, so that a trigger firing right away finds it
+        write(existingInstance, actionInstance);
+        if (scheduleChanged) {
+            try {
+                reschedule(existingInstance, actionInstance);
+            } catch (RuntimeException e) {
+                write(actionInstance, existingInstance);
+                place(actionInstance, existingInstance);
+                throw e;
+            }
+            if (actionInstance.getFenzoTrigger() != existingInstance.getFenzoTrigger()) {
+                // Fenzo only gives the new trigger its id when registering it, and that handle has to be stored too
+                actionInstanceDao.updateActionInstance(actionInstance);
+            }
+        }
+        prefetcher.invalidate(actionInstance.getId());
         logger.info("Successfully updated the actionInstance {}", actionInstance);
+        return scheduleChanged;
+    }
+
+    /**
+     * Writes the updated {@code ActionInstance} over the previous one, moving it between the group rows of the store
+     * if its group changed
+     */
+    private void write(ActionInstance previousInstance, ActionInstance actionInstance) {
+        if (Objects.equals(previousInstance.getGroup(), actionInstance.getGroup())) {
+            actionInstanceDao.updateActionInstance(actionInstance);
+        } else {
+            actionInstanceDao.deleteActionInstance(previousInstance.getGroup(), previousInstance);
+            actionInstanceDao.createActionInstance(actionInstance.getGroup(), actionInstance);
+        }
+    }
+
+    /**
+     * Returns whether the update changes when or how the {@code ActionInstance} fires. Anything else, such as the
+     * owners, the parameters or the action, is only written to the store
+     */
+    protected boolean isScheduleChanged(ActionInstance existingInstance, ActionInstance actionInstance) {
+        return isTriggerChanged(existingInstance.getTrigger(), actionInstance.getTrigger()) ||
+            !Objects.equals(existingInstance.getGroup(), actionInstance.getGroup()) ||
+            !Objects.equals(existingInstance.getMisfirePolicy(), actionInstance.getMisfirePolicy()) ||
+            existingInstance.isDisabled() != actionInstance.isDisabled();
+    }
+
+    private static boolean isTriggerChanged(Trigger existingTrigger, Trigger trigger) {
+        if (existingTrigger instanceof CronTrigger && trigger instanceof CronTrigger) {
+            return !((CronTrigger) existingTrigger).isEquivalent((CronTrigger) trigger, SchedulerClock.now());
+        }
+        return !Objects.equals(existingTrigger, trigger);
+    }
+
+    /**
+     * Moves the fuzzy cron placement of the previous {@code ActionInstance} to the one of the updated instance
+     */
+    private void place(ActionInstance previousInstance, ActionInstance actionInstance) {
+        fuzzPlacementService.release(previousInstance.getId());
+        if (actionInstance.getTrigger() instanceof CronTrigger) {
+            fuzzPlacementService.place(actionInstance.getId(), (CronTrigger) actionInstance.getTrigger());
+        }
+    }
+
+    /**
+     * Replaces the registered trigger of the existing {@code ActionInstance} with the one of the updated instance,
+     * without writing either of them to the store
+     */
+    private void reschedule(ActionInstance existingInstance, ActionInstance actionInstance) {
+        if (existingInstance.getTrigger() != null) {
+            actionScheduler.delete(existingInstance);
+            nextFireTimeIndex.remove(existingInstance.getId());
+            unsubscribe(existingInstance.getId());
+        }
+        if (actionInstance.getTrigger() != null) {
+            actionScheduler.register(actionInstance);
+            if (actionInstance.isDisabled()) {
+                actionScheduler.disable(actionInstance);
+            } else {
+                nextFireTimeIndex.index(actionInstance, SchedulerClock.now());
+                subscribe(actionInstance);
+            }
+        }
     }
 
     @Override
@@ -187,14 +516,9 @@ public class AbstractActionOperationsDelegate implements ActionOperationsDelegat
     public void disable(ActionInstance actionInstance) {
         actionInstance.setDisabled(true);
         actionInstanceDao.updateActionInstance(actionInstance);
-        if (actionInstance.getFenzoTrigger() != null) {
-            try {
-                triggerOperator.disableTrigger(actionInstance.getFenzoTrigger());
-            } catch (SchedulerException e) {
-                throw new ActionOperationException(String.format(
-                    "Exception occurred while disabling trigger %s for actionInstance %s", actionInstance.getTrigger(), actionInstance), e);
-            }
-        }
+        actionScheduler.disable(actionInstance);
+        nextFireTimeIndex.remove(actionInstance.getId());
+        unsubscribe(actionInstance.getId());
         logger.info("Successfully disabled the actionInstance {}", actionInstance);
     }
 
@@ -222,14 +546,9 @@ public class AbstractActionOperationsDelegate implements ActionOperationsDelegat
     public void enable(ActionInstance actionInstance) {
         actionInstance.setDisabled(false);
         actionInstanceDao.updateActionInstance(actionInstance);
-        if (actionInstance.getFenzoTrigger() != null) {
-            try {
-                triggerOperator.enableTrigger(actionInstance.getFenzoTrigger());
-            } catch (SchedulerException e) {
-                throw new ActionOperationException(String.format(
-                    "Exception occurred while enabling trigger %s for actionInstance %s", actionInstance.getTrigger(), actionInstance), e);
-            }
-        }
+        actionScheduler.enable(actionInstance);
+        nextFireTimeIndex.index(actionInstance, SchedulerClock.now());
+        subscribe(actionInstance);
         logger.info("Successfully enabled the actionInstance {}", actionInstance);
     }
 
@@ -258,15 +577,115 @@ public class AbstractActionOperationsDelegate implements ActionOperationsDelegat
     @Override
     public void delete(ActionInstance actionInstance) {
         actionInstanceDao.deleteActionInstance(actionInstance.getGroup(), actionInstance);
-        if (actionInstance.getFenzoTrigger() != null) {
-            try {
-                triggerOperator.deleteTrigger(actionInstance.getGroup(), actionInstance.getFenzoTrigger());
-            } catch (SchedulerException e) {
-                throw new ActionOperationException(String.format(
-                    "Exception occurred while deleting trigger %s for actionInstance %s", actionInstance.getTrigger(), actionInstance), e);
+        actionScheduler.delete(actionInstance);
+        fuzzPlacementService.release(actionInstance.getId());
+        nextFireTimeIndex.remove(actionInstance.getId());
+        unsubscribe(actionInstance.getId());
+        logger.info("Successfully deleted the actionInstance {}", actionInstance);
+    }
+
+    @Override
+    public List<ActionInstance> disableGroup(String group) {
+        List<ActionInstance> disabled = new ArrayList<>();
+        for (ActionInstance actionInstance : actionInstanceDao.getActionInstances(group)) {
+            if (!actionInstance.isDisabled()) {
+                actionInstance.setDisabled(true);
+                disabled.add(actionInstance);
             }
         }
-        logger.info("Successfully deleted the actionInstance {}", actionInstance);
+        if (!disabled.isEmpty()) {
+            actionInstanceDao.updateActionInstances(disabled);
+            logFailures("disabling", actionScheduler.disableAll(disabled));
+            for (ActionInstance actionInstance : disabled) {
+                nextFireTimeIndex.remove(actionInstance.getId());
+                unsubscribe(actionInstance.getId());
+            }
+        }
+        logger.info("Successfully disabled {} actionInstances of group {}", disabled.size(), group);
+        return disabled;
+    }
+
+    @Override
+    public List<ActionInstance> enableGroup(String group) {
+        List<ActionInstance> enabled = new ArrayList<>();
+        for (ActionInstance actionInstance : actionInstanceDao.getActionInstances(group)) {
+            if (actionInstance.isDisabled()) {
+                actionInstance.setDisabled(false);
+                enabled.add(actionInstance);
+            }
+        }
+        if (!enabled.isEmpty()) {
+            actionInstanceDao.updateActionInstances(enabled);
+            logFailures("enabling", actionScheduler.enableAll(enabled));
+            Date now = SchedulerClock.now();
+            for (ActionInstance actionInstance : enabled) {
+                nextFireTimeIndex.index(actionInstance, now);
+                subscribe(actionInstance);
+            }
+        }
+        logger.info("Successfully enabled {} actionInstances of group {}", enabled.size(), group);
+        return enabled;
+    }
+
+    @Override
+    public List<ActionInstance> deleteGroup(String group) {
+        List<ActionInstance> deleted = actionInstanceDao.getActionInstances(group);
+        if (!deleted.isEmpty()) {
+            actionInstanceDao.deleteActionInstances(deleted);
+            logFailures("deleting", actionScheduler.deleteAll(deleted));
+            for (ActionInstance actionInstance : deleted) {
+                fuzzPlacementService.release(actionInstance.getId());
+                nextFireTimeIndex.remove(actionInstance.getId());
+                unsubscribe(actionInstance.getId());
+            }
+        }
+        logger.info("Successfully deleted {} actionInstances of group {}", deleted.size(), group);
+        return deleted;
+    }
+
+    /**
+     * The stored state of a group is already changed when its triggers are, so a trigger that could not be changed
+     * is only reported here rather than failing the operation for the whole group
+     */
+    private void logFailures(String operation, Map<String, Exception> failures) {
+        for (Map.Entry<String, Exception> failure : failures.entrySet()) {
+            logger.error("[{}] Exception occurred while {} the trigger", failure.getKey(), operation, failure.getValue());
+        }
+    }
+
+    @Override
+    public Map<String, int[]> getFuzzPlacementHistogram() {
+        return fuzzPlacementService.getHistogram();
+    }
+
+    /**
+     * Subscribes the {@code ActionInstance} to the events or upstream completions its trigger fires on, if any
+     */
+    protected void subscribe(ActionInstance actionInstance) {
+        for (TriggerSubscriber triggerSubscriber : triggerSubscribers) {
+            triggerSubscriber.subscribe(actionInstance);
+        }
+    }
+
+    protected void unsubscribe(String actionInstanceId) {
+        for (TriggerSubscriber triggerSubscriber : triggerSubscribers) {
+            triggerSubscriber.unsubscribe(actionInstanceId);
+        }
+    }
+
+    @Override
+    public int publishEvent(String eventName) {
+        return eventBus.publish(eventName);
+    }
+
+    @Override
+    public UpcomingSchedule getUpcoming(Date from, Date to, int limit) {
+        return nextFireTimeIndex.upcoming(from.getTime(), to.getTime(), limit);
+    }
+
+    @Override
+    public List<FireLagHistogram> getFireLagHistograms() {
+        return fireLagRecorder.getHistograms();
     }
 
     /**
@@ -276,18 +695,82 @@ public class AbstractActionOperationsDelegate implements ActionOperationsDelegat
      */
     @Override
     public Execution execute(String actionInstanceId, String initiator) throws ActionInstanceNotFoundException {
-        ActionInstance actionInstance = actionInstanceDao.getActionInstance(actionInstanceId);
+        return execute(actionInstanceId, initiator, null);
+    }
+
+    /**
+     * Executes the {@code ActionInstance}
+     * @throws com.netflix.scheduledactions.exceptions.ExecutionException
+     */
+    @Override
+    public Execution execute(ActionInstance actionInstance, String initiator) {
+        return execute(actionInstance, initiator, null);
+    }
+
+    /**
+     * Executes the {@code ActionInstance} for a trigger that was due at the given fire time, and moves it to its
+     * next fire time in the index of upcoming fires. The instance is only read from the store if it was not
+     * prefetched
+     * @throws com.netflix.scheduledactions.exceptions.ActionInstanceNotFoundException
+     * @throws com.netflix.scheduledactions.exceptions.ActionOperationException
+     */
+    @Override
+    public Execution execute(String actionInstanceId, String initiator, Date fireTime) throws ActionInstanceNotFoundException {
+        long executeTime = SchedulerClock.currentTimeMillis();
+        if (fireTime == null && InternalAction.INITIATOR.equals(initiator)) {
+            // fenzo does not pass the fire time, which is the one indexed until the instance is re-indexed below
+            Date indexed = nextFireTimeIndex.get(actionInstanceId);
+            fireTime = indexed != null && indexed.getTime() <= executeTime ? indexed : null;
+        }
+        ActionInstance actionInstance = prefetcher.take(actionInstanceId);
         if (actionInstance == null) {
+            actionInstance = actionInstanceDao.getActionInstance(actionInstanceId);
+        }
+        if (actionInstance == null) {
+            nextFireTimeIndex.remove(actionInstanceId);
             throw new ActionInstanceNotFoundException(String.format("No actionInstance found with id: %s", actionInstanceId));
         }
-        return execute(actionInstance, initiator);
+        nextFireTimeIndex.index(actionInstance, SchedulerClock.now());
+        if (isExcluded(actionInstance, initiator, fireTime)) {
+            logger.info("[{}] Skipping the fire at {}, excluded by its exclusion calendars", actionInstanceId,
+                fireTime != null ? fireTime : SchedulerClock.now());
+            return null;
+        }
+        if (fireTime != null) {
+            fireLagRecorder.record(actionInstance.getGroup(), Stage.FIRE_TO_EXECUTE, executeTime - fireTime.getTime());
+        }
+        return execute(actionInstance, initiator, fireTime, executeTime);
     }
 
     /**
-     * Executes the {@code ActionInstance}
+     * Schedulers that compute fire times on their own, such as fenzo, do not know about the exclusion calendars, so
+     * a scheduled fire at an excluded time is dropped here, before an {@code Execution} is created for it
+     */
+    private static boolean isExcluded(ActionInstance actionInstance, String initiator, Date fireTime) {
+        if (!(actionInstance.getTrigger() instanceof ExcludableTrigger) ||
+            (fireTime == null && !InternalAction.INITIATOR.equals(initiator))) {
+            return false;
+        }
+        List<String> exclusionCalendars = ((ExcludableTrigger) actionInstance.getTrigger()).getExclusionCalendars();
+        long time = fireTime != null ? fireTime.getTime() : SchedulerClock.currentTimeMillis();
+        return ExclusionCalendars.excludedUntil(exclusionCalendars, time) >= 0;
+    }
+
+    /**
+     * Executes the {@code ActionInstance}, recording the fire time the execution was due at if it has one
      * @throws com.netflix.scheduledactions.exceptions.ExecutionException
      */
-    public Execution execute(final ActionInstance actionInstance, String initiator)  {
+    @Override
+    public Execution execute(ActionInstance actionInstance, String initiator, Date fireTime) {
+        return execute(actionInstance, initiator, fireTime, SchedulerClock.currentTimeMillis());
+    }
+
+    /**
+     * Executes the {@code ActionInstance} as {@link #execute(ActionInstance, String, Date)} does, for a fire that was
+     * picked up at the given execute time. Every execution goes through here, so subclasses that guard executions,
+     * such as the clustered delegate, override this one
+     */
+    protected Execution execute(final ActionInstance actionInstance, String initiator, Date fireTime, long executeTime) {
 
         if (actionInstance.isDisabled()) {
             return null;
@@ -295,6 +778,7 @@ public class AbstractActionOperationsDelegate implements ActionOperationsDelegat
 
         final String actionInstanceId = actionInstance.getId();
         final Execution execution = new Execution(delegateId, actionInstanceId);
+        execution.setFireTime(fireTime);
         final String executionId = executionDao.createExecution(actionInstanceId, execution);
 
         logger.info("[{}] Created execution for actionInstance: {}", actionInstanceId, executionId);
@@ -318,12 +802,13 @@ public class AbstractActionOperationsDelegate implements ActionOperationsDelegat
                         )
                     );
                     execution.setStatus(status);
-                    execution.setStartTime(new Date());
-                    execution.setEndTime(new Date());
+                    execution.setStartTime(SchedulerClock.now());
+                    execution.setEndTime(SchedulerClock.now());
                     logger.info("[{}] actionInstance concurrent execution strategy is: REJECT, skipping execution",
                         actionInstanceId);
                     execution.getLogger().info("Concurrent execution strategy is: REJECT, skipping execution");
                     executionDao.updateExecution(execution);
+                    dependencyTracker.onComplete(actionInstanceId, status);
                     return execution;
                 case REPLACE:
                     logger.info("[{}] actionInstance concurrent execution strategy is: REPLACE, cancelling previous execution(s)",
@@ -335,39 +820,193 @@ public class AbstractActionOperationsDelegate implements ActionOperationsDelegat
             }
         }
 
-        logger.info("[{}] Submitting runnable for execution: {}", actionInstanceId, executionId);
+        if (fireTime != null) {
+            fireLagRecorder.record(actionInstance.getGroup(), Stage.EXECUTE_TO_SUBMITTED,
+                SchedulerClock.currentTimeMillis() - executeTime);
+        }
+        submit(actionInstance, execution);
+        return execution;
+    }
+
+    /**
+     * Resumes the interrupted {@code Execution} associated with this executionId from its last checkpoint
+     * @throws ExecutionNotFoundException
+     * @throws ActionInstanceNotFoundException
+     */
+    @Override
+    public Execution resume(String executionId) throws ExecutionNotFoundException, ActionInstanceNotFoundException {
+        Execution execution = executionDao.getExecution(executionId);
+        if (execution == null) {
+            throw new ExecutionNotFoundException(String.format("No execution found for executionId: %s", executionId));
+        }
+        ActionInstance actionInstance = actionInstanceDao.getActionInstance(execution.getActionInstanceId());
+        if (actionInstance == null) {
+            throw new ActionInstanceNotFoundException(String.format("No actionInstance found associated with executionId: %s", executionId));
+        }
+        return resume(execution, actionInstance);
+    }
+
+    /**
+     * Marks the interrupted {@code Execution} as failed and starts a new one that carries over its checkpoint.
+     * Returns null if the given execution has already completed
+     */
+    @Override
+    public Execution resume(Execution interrupted, ActionInstance actionInstance) {
+        if (interrupted.getStatus() != null && interrupted.getStatus().isComplete()) {
+            return null;
+        }
+
+        final String actionInstanceId = actionInstance.getId();
+        final Execution execution = new Execution(delegateId, actionInstanceId);
+        execution.setCheckpoint(interrupted.getCheckpoint());
+        execution.setFireTime(interrupted.getFireTime());
+        execution.setResumedFrom(interrupted.getId());
+        final String executionId = executionDao.createExecution(actionInstanceId, execution);
+
+        Status status = Status.FAILED;
+        status.setMessage(String.format("Execution was interrupted and has been resumed as execution %s", executionId));
+        interrupted.setStatus(status);
+        interrupted.setEndTime(SchedulerClock.now());
+        executionDao.updateExecution(interrupted);
+
+        logger.info("[{}] Resuming interrupted execution {} as execution {} from checkpoint {}", actionInstanceId,
+            interrupted.getId(), executionId, interrupted.getCheckpoint());
+        execution.getLogger().info(String.format("Resumed interrupted execution %s from its last checkpoint", interrupted.getId()));
+
+        submit(actionInstance, execution);
+        return execution;
+    }
+
+    /**
+     * Executes the {@code ActionInstance} associated with this actionInstanceId once for every time its trigger
+     * would have fired in the given time range
+     * @throws ActionInstanceNotFoundException
+     */
+    @Override
+    public List<Execution> backfill(String actionInstanceId, Date from, Date to, int maxConcurrency)
+        throws ActionInstanceNotFoundException {
+        ActionInstance actionInstance = actionInstanceDao.getActionInstance(actionInstanceId);
+        if (actionInstance == null) {
+            throw new ActionInstanceNotFoundException(String.format("No actionInstance found with id: %s", actionInstanceId));
+        }
+        return backfill(actionInstance, from, to, maxConcurrency);
+    }
+
+    /**
+     * Executes the {@code ActionInstance} once for every time its trigger would have fired in the given time range.
+     * All the executions are created upfront in a single batch and each one gets its fire time through the
+     * {@code Context}. The {@code ConcurrentExecutionStrategy} does not apply to backfilled executions, instead at
+     * most maxConcurrency of them run at the same time
+     */
+    @Override
+    public List<Execution> backfill(final ActionInstance actionInstance, Date from, Date to, int maxConcurrency) {
+        if (actionInstance.getTrigger() == null) {
+            throw new IllegalArgumentException(String.format("ActionInstance %s has no trigger to backfill", actionInstance));
+        }
+        if (from == null || to == null || !from.before(to)) {
+            throw new IllegalArgumentException("Backfill range must have a 'from' date before the 'to' date");
+        }
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency for a backfill has to be greater than 0");
+        }
+        if (actionInstance.isDisabled()) {
+            return new ArrayList<>();
+        }
+
+        final String actionInstanceId = actionInstance.getId();
+        final List<Execution> executions = new ArrayList<>();
+        Date fireTime = actionInstance.getTrigger().getNextFireTime(actionInstance.getContext(), new Date(from.getTime() - 1));
+        while (fireTime != null && !fireTime.after(to)) {
+            if (executions.size() == MAX_BACKFILL_EXECUTIONS) {
+                throw new IllegalArgumentException(String.format(
+                    "Backfill of actionInstance %s would run more than %d executions", actionInstance, MAX_BACKFILL_EXECUTIONS));
+            }
+            Execution execution = new Execution(delegateId, actionInstanceId);
+            execution.setFireTime(fireTime);
+            execution.getLogger().info(String.format("Created backfill execution for fire time %s", fireTime));
+            executions.add(execution);
+            fireTime = actionInstance.getTrigger().getNextFireTime(actionInstance.getContext(), fireTime);
+        }
+        if (executions.isEmpty()) {
+            return executions;
+        }
+        executionDao.createExecutions(actionInstanceId, executions);
+        logger.info("[{}] Backfilling {} executions between {} and {}", actionInstanceId, executions.size(), from, to);
+
+        final Semaphore permits = new Semaphore(maxConcurrency);
+        backfillService.submit(new Runnable() {
+            @Override
+            public void run() {
+                for (final Execution execution : executions) {
+                    try {
+                        permits.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        logger.warn("[{}] Backfill interrupted before submitting execution {}", actionInstanceId, execution.getId());
+                        return;
+                    }
+                    executeService.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                executeNow(actionInstance, execution);
+                            } finally {
+                                permits.release();
+                            }
+                        }
+                    });
+                }
+            }
+        });
+        return executions;
+    }
 
+    private void submit(final ActionInstance actionInstance, final Execution execution) {
+        logger.info("[{}] Submitting runnable for execution: {}", actionInstance.getId(), execution.getId());
+
+        final long submitTime = SchedulerClock.currentTimeMillis();
         executeService.submit(new Runnable() {
             @Override
             public void run() {
-                try {
-                    Action action = newInstance(actionInstance);
-                    execution.getLogger().info("Calling executor.execute()...");
-                    logger.info("[{}] Calling executor.execute() for execution {} ...", actionInstanceId, executionId);
-                    executor.execute(action, actionInstance, execution);
-                } catch (ExecutionException e) {
-                    Status status = e.getStatus() != null ? e.getStatus() : Status.FAILED;
-                    status.setMessage(e.getMessage());
-                    execution.setEndTime(new Date());
-                    execution.setStatus(status);
-                    execution.getLogger().error("Exception occurred while executing action", e);
-                } catch (Exception e) {
-                    Status status = Status.FAILED;
-                    status.setMessage(
-                        String.format(
-                            "Exception occurred while executing action %s: %s", actionInstance.getAction(), e.getMessage()
-                        )
-                    );
-                    execution.getLogger().error("Exception occurred while executing action", e);
-                    execution.setEndTime(new Date());
-                    execution.setStatus(status);
-                } finally {
-                    executionDao.updateExecution(execution);
+                if (execution.getFireTime() != null) {
+                    fireLagRecorder.record(actionInstance.getGroup(), Stage.SUBMITTED_TO_STARTED,
+                        SchedulerClock.currentTimeMillis() - submitTime);
                 }
+                executeNow(actionInstance, execution);
             }
         });
+    }
 
-        return execution;
+    private void executeNow(ActionInstance actionInstance, Execution execution) {
+        final String actionInstanceId = actionInstance.getId();
+        final String executionId = execution.getId();
+        try {
+            Action action = newInstance(actionInstance);
+            execution.getLogger().info("Calling executor.execute()...");
+            logger.info("[{}] Calling executor.execute() for execution {} ...", actionInstanceId, executionId);
+            executor.execute(action, actionInstance, execution);
+        } catch (ExecutionException e) {
+            Status status = e.getStatus() != null ? e.getStatus() : Status.FAILED;
+            status.setMessage(e.getMessage());
+            execution.setEndTime(SchedulerClock.now());
+            execution.setStatus(status);
+            execution.getLogger().error("Exception occurred while executing action", e);
+        } catch (Exception e) {
+            Status status = Status.FAILED;
+            status.setMessage(
+                String.format(
+                    "Exception occurred while executing action %s: %s", actionInstance.getAction(), e.getMessage()
+                )
+            );
+            execution.getLogger().error("Exception occurred while executing action", e);
+            execution.setEndTime(SchedulerClock.now());
+            execution.setStatus(status);
+        } finally {
+            executionDao.updateExecution(execution);
+            if (execution.getStatus() != null) {
+                dependencyTracker.onComplete(actionInstanceId, execution.getStatus());
+            }
+        }
     }
 
     /**
@@ -412,17 +1051,17 @@ public class AbstractActionOperationsDelegate implements ActionOperationsDelegat
                 } catch (InstantiationException | IllegalAccessException e) {
                     Status status = Status.FAILED;
                     status.setMessage(String.format("Exception occurred while creating an action instance of type %s: %s", actionInstance.getAction(), e.getMessage()));
-                    execution.setEndTime(new Date());
+                    execution.setEndTime(SchedulerClock.now());
                     execution.setStatus(status);
                 } catch (ExecutionException e) {
                     Status status = e.getStatus() != null ? e.getStatus() : Status.FAILED;
                     status.setMessage(e.getMessage());
-                    execution.setEndTime(new Date());
+                    execution.setEndTime(SchedulerClock.now());
                     execution.setStatus(status);
                 } catch (Exception e) {
                     Status status = Status.FAILED;
                     status.setMessage(String.format("Exception occurred while cancelling execution %s: %s", execution, e.getMessage()));
-                    execution.setEndTime(new Date());
+                    execution.setEndTime(SchedulerClock.now());
                     execution.setStatus(status);
                 } finally {
                     executionDao.updateExecution(execution);
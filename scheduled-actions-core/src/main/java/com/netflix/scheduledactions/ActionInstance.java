@@ -44,6 +44,7 @@ public class ActionInstance implements Comparable<ActionInstance> {
     private Date lastUpdated;
     private long executionTimeoutInSeconds;
     private ConcurrentExecutionStrategy concurrentExecutionStrategy;
+    private MisfirePolicy misfirePolicy;
     private Context context;
 
     private ActionInstance() {}
@@ -64,6 +65,7 @@ public class ActionInstance implements Comparable<ActionInstance> {
         this.lastUpdated = builder.lastUpdated;
         this.executionTimeoutInSeconds = builder.executionTimeoutInSeconds;
         this.concurrentExecutionStrategy = builder.concurrentExecutionStrategy;
+        this.misfirePolicy = builder.misfirePolicy;
         this.context = builder.context;
     }
 
@@ -163,6 +165,18 @@ public class ActionInstance implements Comparable<ActionInstance> {
         this.concurrentExecutionStrategy = concurrentExecutionStrategy;
     }
 
+    /**
+     * Returns the policy for fires missed while the scheduler was stalled or down, or null to leave them to the
+     * scheduler in use
+     */
+    public MisfirePolicy getMisfirePolicy() {
+        return misfirePolicy;
+    }
+
+    void setMisfirePolicy(MisfirePolicy misfirePolicy) {
+        this.misfirePolicy = misfirePolicy;
+    }
+
     public Date getLastUpdated() {
         return lastUpdated;
     }
@@ -184,7 +198,7 @@ public class ActionInstance implements Comparable<ActionInstance> {
         return fenzoTrigger;
     }
 
-    void setFenzoTrigger(com.netflix.fenzo.triggers.Trigger<Context> fenzoTrigger) {
+    public void setFenzoTrigger(com.netflix.fenzo.triggers.Trigger<Context> fenzoTrigger) {
         this.fenzoTrigger = fenzoTrigger;
     }
 
@@ -237,9 +251,10 @@ public class ActionInstance implements Comparable<ActionInstance> {
         private List<String> owners;
         private List<String> watchers;
         private boolean disabled;
-        private Date lastUpdated = new Date();
+        private Date lastUpdated = SchedulerClock.now();
         private long executionTimeoutInSeconds = DEFAULT_EXECUTION_TIMEOUT;
         private ConcurrentExecutionStrategy concurrentExecutionStrategy = DEFAULT_EXECUTION_STRATEGY;
+        private MisfirePolicy misfirePolicy;
         private Context context;
 
         private ActionInstanceBuilder() {}
@@ -299,9 +314,14 @@ public class ActionInstance implements Comparable<ActionInstance> {
             return this;
         }
 
+        public ActionInstanceBuilder withMisfirePolicy(MisfirePolicy misfirePolicy) {
+            this.misfirePolicy = misfirePolicy;
+            return this;
+        }
+
         public ActionInstance build() {
             this.context = new Context(id, name, group, parameters);
-            this.creationTime = System.currentTimeMillis();
+            this.creationTime = SchedulerClock.currentTimeMillis();
             return new ActionInstance(this);
         }
     }
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.scheduledactions;
+
+import com.netflix.scheduledactions.events.TriggerSubscriber;
+import com.netflix.scheduledactions.persistence.ActionInstanceDao;
+import com.netflix.scheduledactions.scheduler.NextFireTimeIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads the {@code ActionInstance}s that are due in the next few seconds, according to the
+ * {@code NextFireTimeIndex}, ahead of their fire time, so that executing a fired trigger does not wait on a read
+ * from the store.
+ *
+ * A prefetched instance is handed out once and only for lookaheadMs + intervalMs after it was read. It is subscribed
+ * like the event triggers are, so every change made through this node, or relayed to it by the cluster, drops its
+ * prefetched copy
+ */
+public class ActionInstancePrefetcher implements TriggerSubscriber {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActionInstancePrefetcher.class);
+
+    public static final long DEFAULT_LOOKAHEAD_MS = 5 * 1000L;
+    public static final long DEFAULT_INTERVAL_MS = 1000L;
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+    public static final int DEFAULT_LOADER_THREADS = 4;
+
+    private final String delegateId;
+    private final ActionInstanceDao actionInstanceDao;
+    private final NextFireTimeIndex nextFireTimeIndex;
+    private final long lookaheadMs;
+    private final long intervalMs;
+    private final int maxEntries;
+    private final int loaderThreads;
+    private final ConcurrentHashMap<String, Prefetched> prefetched = new ConcurrentHashMap<>();
+    private final Set<String> loading = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private ScheduledExecutorService scheduledExecutorService;
+
+    public ActionInstancePrefetcher(String delegateId,
+                                    ActionInstanceDao actionInstanceDao,
+                                    NextFireTimeIndex nextFireTimeIndex) {
+        this(delegateId, actionInstanceDao, nextFireTimeIndex,
+            DEFAULT_LOOKAHEAD_MS, DEFAULT_INTERVAL_MS, DEFAULT_MAX_ENTRIES, DEFAULT_LOADER_THREADS);
+    }
+
+    public ActionInstancePrefetcher(String delegateId,
+                                    ActionInstanceDao actionInstanceDao,
+                                    NextFireTimeIndex nextFireTimeIndex,
+                                    long lookaheadMs,
+                                    long intervalMs,
+                                    int maxEntries,
+                                    int loaderThreads) {
+        if (intervalMs <= 0 || lookaheadMs < intervalMs) {
+            throw new IllegalArgumentException(String.format(
+                "lookaheadMs (%d) has to be at least the interval (%d ms), which has to be positive", lookaheadMs, intervalMs));
+        }
+        if (maxEntries < 1 || loaderThreads < 1) {
+            throw new IllegalArgumentException("maxEntries and loaderThreads have to be greater than 0");
+        }
+        this.delegateId = delegateId;
+        this.actionInstanceDao = actionInstanceDao;
+        this.nextFireTimeIndex = nextFireTimeIndex;
+        this.lookaheadMs = lookaheadMs;
+        this.intervalMs = intervalMs;
+        this.maxEntries = maxEntries;
+        this.loaderThreads = loaderThreads;
+    }
+
+    public synchronized void start() {
+        if (scheduledExecutorService != null) {
+            return;
+        }
+        final AtomicInteger threadCount = new AtomicInteger();
+        scheduledExecutorService = Executors.newScheduledThreadPool(loaderThreads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable,
+                    String.format("ActionInstancePrefetcher-%s-%d", delegateId, threadCount.incrementAndGet()));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduledExecutorService.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    prefetch();
+                } catch (Throwable e) {
+                    logger.error("Exception occurred while prefetching the upcoming actionInstances for {}", delegateId, e);
+                }
+            }
+        }, 0, intervalMs, TimeUnit.MILLISECONDS);
+        logger.info("Started the ActionInstancePrefetcher for {}...", delegateId);
+    }
+
+    public synchronized void shutdown() {
+        if (scheduledExecutorService != null) {
+            scheduledExecutorService.shutdownNow();
+            scheduledExecutorService = null;
+        }
+        prefetched.clear();
+        loading.clear();
+    }
+
+    /**
+     * Drops the expired instances and starts reading the ones due within the lookahead that are not prefetched yet.
+     * Returns the number of reads started
+     */
+    public int prefetch() {
+        long now = SchedulerClock.currentTimeMillis();
+        for (Iterator<Prefetched> iterator = prefetched.values().iterator(); iterator.hasNext();) {
+            if (iterator.next().isExpired(now)) {
+                iterator.remove();
+            }
+        }
+        UpcomingSchedule upcoming = nextFireTimeIndex.upcoming(now, now + lookaheadMs, maxEntries);
+        int started = 0;
+        for (UpcomingSchedule.Fire fire : upcoming.getFires()) {
+            final String actionInstanceId = fire.getActionInstanceId();
+            if (prefetched.size() + loading.size() >= maxEntries) {
+                break;
+            }
+            if (prefetched.containsKey(actionInstanceId) || !loading.add(actionInstanceId)) {
+                continue;
+            }
+            try {
+                submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            load(actionInstanceId);
+                        } finally {
+                            loading.remove(actionInstanceId);
+                        }
+                    }
+                });
+                started++;
+            } catch (RejectedExecutionException e) {
+                loading.remove(actionInstanceId);
+                break;
+            }
+        }
+        return started;
+    }
+
+    /**
+     * Returns the prefetched {@code ActionInstance} with the given id and forgets it, or null if it was not
+     * prefetched or not recently enough. The caller then reads it from the store as usual
+     */
+    public ActionInstance take(String actionInstanceId) {
+        Prefetched entry = prefetched.remove(actionInstanceId);
+        if (entry == null || entry.isExpired(SchedulerClock.currentTimeMillis())) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.actionInstance;
+    }
+
+    /**
+     * Drops the prefetched copy of the given actionInstance, to be called once a change to it is written
+     */
+    @Override
+    public void invalidate(String actionInstanceId) {
+        invalidations.incrementAndGet();
+        prefetched.remove(actionInstanceId);
+    }
+
+    @Override
+    public void subscribe(ActionInstance actionInstance) {
+        invalidate(actionInstance.getId());
+    }
+
+    @Override
+    public void unsubscribe(String actionInstanceId) {
+        invalidate(actionInstanceId);
+    }
+
+    public int size() {
+        return prefetched.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private void submit(Runnable load) {
+        ScheduledExecutorService scheduledExecutorService;
+        synchronized (this) {
+            scheduledExecutorService = this.scheduledExecutorService;
+        }
+        if (scheduledExecutorService == null) {
+            load.run();
+        } else {
+            scheduledExecutorService.execute(load);
+        }
+    }
+
+    private void load(String actionInstanceId) {
+        long generation = invalidations.get();
+        ActionInstance actionInstance;
+        try {
+            actionInstance = actionInstanceDao.getActionInstance(actionInstanceId);
+        } catch (Exception e) {
+            logger.warn("[{}] Exception occurred while prefetching the actionInstance", actionInstanceId, e);
+            return;
+        }
+        if (actionInstance == null || actionInstance.isDisabled()) {
+            return;
+        }
+        Prefetched entry = new Prefetched(actionInstance, SchedulerClock.currentTimeMillis() + lookaheadMs + intervalMs);
+        prefetched.put(actionInstanceId, entry);
+        // A change written while reading may not be in the copy that was read
+        if (invalidations.get() != generation) {
+            prefetched.remove(actionInstanceId, entry);
+        }
+    }
+
+    private static final class Prefetched {
+        private final ActionInstance actionInstance;
+        private final long expiresAt;
+
+        private Prefetched(ActionInstance actionInstance, long expiresAt) {
+            this.actionInstance = actionInstance;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now > expiresAt;
+        }
+    }
+}
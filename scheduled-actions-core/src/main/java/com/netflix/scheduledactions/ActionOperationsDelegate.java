@@ -19,6 +19,10 @@ package com.netflix.scheduledactions;
 import com.netflix.scheduledactions.exceptions.ActionInstanceNotFoundException;
 import com.netflix.scheduledactions.exceptions.ExecutionNotFoundException;
 
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
 /**
  * An operations (create, delete, disable, enable, etc.) delegate for {@code ActionInstance} used
  * by {@code ActionOperator}
@@ -45,6 +49,12 @@ public interface ActionOperationsDelegate {
      */
     public String register(ActionInstance actionInstance);
 
+    /**
+     * Registers all the given {@code ActionInstance}s with batched writes, returning the outcome for each of them
+     * in the order of the given list
+     */
+    public List<RegistrationResult> registerAll(List<ActionInstance> actionInstances);
+
     /**
      * Updates an existing actionInstance
      */
@@ -94,6 +104,27 @@ public interface ActionOperationsDelegate {
      */
     public void delete(ActionInstance actionInstance);
 
+    /**
+     * Disables all the {@code ActionInstance}s of the group with one batched write and one bulk unschedule.
+     * Returns the instances that were disabled, i.e. the ones that were not disabled already
+     * @throws com.netflix.scheduledactions.exceptions.ActionOperationException
+     */
+    public List<ActionInstance> disableGroup(String group);
+
+    /**
+     * Enables all the {@code ActionInstance}s of the group with one batched write and one bulk schedule.
+     * Returns the instances that were enabled, i.e. the ones that were disabled
+     * @throws com.netflix.scheduledactions.exceptions.ActionOperationException
+     */
+    public List<ActionInstance> enableGroup(String group);
+
+    /**
+     * Deletes all the {@code ActionInstance}s of the group with one batched write and one bulk unschedule.
+     * Returns the instances that were deleted
+     * @throws com.netflix.scheduledactions.exceptions.ActionOperationException
+     */
+    public List<ActionInstance> deleteGroup(String group);
+
     /**
      * Executes the {@code ActionInstance}
      * @throws ActionInstanceNotFoundException
@@ -107,6 +138,44 @@ public interface ActionOperationsDelegate {
      */
     public Execution execute(ActionInstance actionInstance, String initiator);
 
+    /**
+     * Executes the {@code ActionInstance} for a trigger that was due at the given fire time
+     * @throws ActionInstanceNotFoundException
+     */
+    public Execution execute(String actionInstanceId, String initiator, Date fireTime) throws ActionInstanceNotFoundException;
+
+    /**
+     * Executes the {@code ActionInstance} for a trigger that was due at the given fire time, which is recorded on
+     * the {@code Execution}. A null fire time means the execution was not triggered by a schedule
+     */
+    public Execution execute(ActionInstance actionInstance, String initiator, Date fireTime);
+
+    /**
+     * Resumes the interrupted {@code Execution} associated with this executionId from its last checkpoint
+     * @throws ExecutionNotFoundException
+     * @throws ActionInstanceNotFoundException
+     */
+    public Execution resume(String executionId) throws ExecutionNotFoundException, ActionInstanceNotFoundException;
+
+    /**
+     * Resumes the interrupted {@code Execution} from its last checkpoint
+     */
+    public Execution resume(Execution execution, ActionInstance actionInstance);
+
+    /**
+     * Executes the {@code ActionInstance} associated with this actionInstanceId once for every time its trigger
+     * would have fired in the given time range
+     * @throws ActionInstanceNotFoundException
+     */
+    public List<Execution> backfill(String actionInstanceId, Date from, Date to, int maxConcurrency)
+        throws ActionInstanceNotFoundException;
+
+    /**
+     * Executes the {@code ActionInstance} once for every time its trigger would have fired in the given time range,
+     * with at most maxConcurrency of these executions running at the same time
+     */
+    public List<Execution> backfill(ActionInstance actionInstance, Date from, Date to, int maxConcurrency);
+
     /**
      * Cancels the currently running {@code Execution} for given {@code ActionInstance} id
      * @throws ActionInstanceNotFoundException
@@ -118,4 +187,26 @@ public interface ActionOperationsDelegate {
      */
     public void cancel(Execution execution, ActionInstance actionInstance);
 
+    /**
+     * Returns the number of registered cron expressions firing at every second, minute and hour, as used to
+     * place fuzzy expressions
+     */
+    public Map<String, int[]> getFuzzPlacementHistogram();
+
+    /**
+     * Returns the number of triggers due in [from, to) and the first limit of them, soonest first
+     */
+    public UpcomingSchedule getUpcoming(Date from, Date to, int limit);
+
+    /**
+     * Returns how late the fires of every group are at every stage from their fire time to the start of their
+     * {@code Execution}, since this delegate was created
+     */
+    public List<FireLagHistogram> getFireLagHistograms();
+
+    /**
+     * Publishes an event to the {@code ActionInstance}s with an {@code EventTrigger} for it, returns how many of
+     * them are subscribed to it
+     */
+    public int publishEvent(String eventName);
 }
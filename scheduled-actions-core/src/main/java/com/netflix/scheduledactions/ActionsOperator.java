@@ -23,11 +23,14 @@ import com.netflix.scheduledactions.exceptions.ExecutionNotFoundException;
 import com.netflix.scheduledactions.executors.LocalThreadPoolBlockingExecutor;
 import com.netflix.scheduledactions.persistence.ActionInstanceDao;
 import com.netflix.scheduledactions.persistence.ExecutionDao;
+import com.netflix.scheduledactions.scheduler.ActionScheduler;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -70,6 +73,26 @@ public class ActionsOperator {
         );
     }
 
+    /**
+     * Creates a new instance of {@code ActionsOperator} with a {@code LocalActionOperationsDelegate} that schedules
+     * the triggers with the given {@code ActionScheduler}
+     */
+    public ActionsOperator(String id,
+                           ActionScheduler actionScheduler,
+                           DaoConfigurer daoConfigurer,
+                           int threadPoolSize) {
+        this(
+            daoConfigurer,
+            new DefaultActionOperationsDelegate(
+                id,
+                actionScheduler,
+                daoConfigurer,
+                new LocalThreadPoolBlockingExecutor(daoConfigurer.getExecutionDao(), threadPoolSize),
+                threadPoolSize
+            )
+        );
+    }
+
     /**
      * Creates a new instance of {@code ActionsOperator} with a either a {@code LocalActionOperationsDelegate} or
      * {@code LocalActionOperationsDelegate} depending on the {@code clustered} flag. If the cluster flag is passed
@@ -162,6 +185,15 @@ public class ActionsOperator {
         return actionOperationsDelegate.register(actionInstance);
     }
 
+    /**
+     * Registers all the given {@code ActionInstance}s with batched writes. An invalid instance or one whose trigger
+     * can't be registered does not stop the others from being registered, the outcome of each is returned in order
+     */
+    public List<RegistrationResult> registerAll(List<ActionInstance> actionInstances) {
+        checkInitialized();
+        return actionOperationsDelegate.registerAll(actionInstances);
+    }
+
     /**
      * Disables the {@code ActionInstance}. If the {@code ActionInstance} is disabled it will NOT execute
      * @throws ActionInstanceNotFoundException
@@ -231,6 +263,43 @@ public class ActionsOperator {
         actionOperationsDelegate.delete(actionInstance);
     }
 
+    /**
+     * Disables all the {@code ActionInstance}s of the group at once, e.g. during an incident. Returns the instances
+     * that were disabled
+     * @throws com.netflix.scheduledactions.exceptions.ActionOperationException
+     */
+    public List<ActionInstance> disableGroup(String group) {
+        checkInitialized();
+        if (group == null || "".equals(group)) {
+            throw new IllegalArgumentException("group cannot be null or empty");
+        }
+        return actionOperationsDelegate.disableGroup(group);
+    }
+
+    /**
+     * Enables all the {@code ActionInstance}s of the group at once. Returns the instances that were enabled
+     * @throws com.netflix.scheduledactions.exceptions.ActionOperationException
+     */
+    public List<ActionInstance> enableGroup(String group) {
+        checkInitialized();
+        if (group == null || "".equals(group)) {
+            throw new IllegalArgumentException("group cannot be null or empty");
+        }
+        return actionOperationsDelegate.enableGroup(group);
+    }
+
+    /**
+     * Deletes all the {@code ActionInstance}s of the group at once. Returns the instances that were deleted
+     * @throws com.netflix.scheduledactions.exceptions.ActionOperationException
+     */
+    public List<ActionInstance> deleteGroup(String group) {
+        checkInitialized();
+        if (group == null || "".equals(group)) {
+            throw new IllegalArgumentException("group cannot be null or empty");
+        }
+        return actionOperationsDelegate.deleteGroup(group);
+    }
+
     /**
      * Executes the {@code ActionInstance}
      * @throws ActionInstanceNotFoundException
@@ -271,6 +340,28 @@ public class ActionsOperator {
         return actionOperationsDelegate.execute(actionInstance, initiator);
     }
 
+    /**
+     * Executes the {@code ActionInstance} once for every time its trigger would have fired between from and to,
+     * e.g. to catch up after an outage. At most maxConcurrency of these executions run at the same time
+     * @throws ActionInstanceNotFoundException
+     */
+    public List<Execution> backfill(String actionInstanceId, Date from, Date to, int maxConcurrency)
+        throws ActionInstanceNotFoundException {
+        checkInitialized();
+        return actionOperationsDelegate.backfill(actionInstanceId, from, to, maxConcurrency);
+    }
+
+    /**
+     * Resumes the interrupted {@code Execution} for given {@code Execution} id from its last checkpoint,
+     * e.g. after the node that was running it went away
+     * @throws ExecutionNotFoundException
+     * @throws ActionInstanceNotFoundException
+     */
+    public Execution resume(String executionId) throws ExecutionNotFoundException, ActionInstanceNotFoundException {
+        checkInitialized();
+        return actionOperationsDelegate.resume(executionId);
+    }
+
     /**
      * Cancels the currently running {@code Execution} for given {@code Execution} id
      * @throws ActionInstanceNotFoundException
@@ -288,6 +379,48 @@ public class ActionsOperator {
         actionOperationsDelegate.cancel(execution, actionInstance);
     }
 
+    /**
+     * Returns the number of registered cron expressions firing at every second, minute and hour. Fuzzy "H"
+     * expressions are placed in the least loaded slots of this histogram
+     */
+    public Map<String, int[]> getFuzzPlacementHistogram() {
+        checkInitialized();
+        return actionOperationsDelegate.getFuzzPlacementHistogram();
+    }
+
+    /**
+     * Returns how late fires are, per group, from their fire time to execute(), from execute() to the submission of
+     * their {@code Execution} and from the submission to the start of the action
+     */
+    public List<FireLagHistogram> getFireLagHistograms() {
+        checkInitialized();
+        return actionOperationsDelegate.getFireLagHistograms();
+    }
+
+    /**
+     * Returns how many triggers are due in [from, to) and the first limit of them, soonest first. Useful to size
+     * and pre-warm resources ahead of busy fire windows
+     */
+    public UpcomingSchedule getUpcoming(Date from, Date to, int limit) {
+        checkInitialized();
+        if (from == null || to == null || limit < 0) {
+            throw new IllegalArgumentException("from and to cannot be null and limit cannot be negative");
+        }
+        return actionOperationsDelegate.getUpcoming(from, to, limit);
+    }
+
+    /**
+     * Publishes an event on the in-process event bus. Every {@code ActionInstance} with an {@code EventTrigger} for
+     * this event fires, at most once per its coalescing window. Returns the number of subscribed actionInstances
+     */
+    public int publishEvent(String eventName) {
+        checkInitialized();
+        if (eventName == null || "".equals(eventName)) {
+            throw new IllegalArgumentException("eventName cannot be null or empty");
+        }
+        return actionOperationsDelegate.publishEvent(eventName);
+    }
+
     /**
      * Checks to see if this instance is initialized or not
      */
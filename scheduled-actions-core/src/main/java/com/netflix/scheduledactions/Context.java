@@ -19,6 +19,7 @@ package com.netflix.scheduledactions;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.util.Date;
 import java.util.Map;
 
 public class Context {
@@ -26,6 +27,7 @@ public class Context {
     private final String name;
     private final String group;
     private final Map<String, String> parameters;
+    private Date fireTime;
 
     @JsonCreator
     public Context(@JsonProperty("actionInstanceId") String actionInstanceId,
@@ -58,6 +60,35 @@ public class Context {
       return parameters;
     }
 
+    /**
+     * Returns the fire time of the trigger this context was created for, by the scheduler or a backfill, null for
+     * executions that were requested explicitly
+     */
+    public Date getFireTime() {
+        return fireTime;
+    }
+
+    public void setFireTime(Date fireTime) {
+        this.fireTime = fireTime;
+    }
+
+    /**
+     * Returns a copy of this context for the given scheduled fire time
+     */
+    public Context forFireTime(Date fireTime) {
+        Context context = new Context(actionInstanceId, name, group, parameters);
+        context.setFireTime(fireTime);
+        return context;
+    }
+
+    /**
+     * Returns the context an {@code Action} should see for the given execution of the actionInstance
+     */
+    public static Context of(ActionInstance actionInstance, Execution execution) {
+        Context context = actionInstance.getContext();
+        return execution.getFireTime() != null && context != null ? context.forFireTime(execution.getFireTime()) : context;
+    }
+
     @Override
     public String toString() {
         return String.format(
@@ -18,6 +18,7 @@ package com.netflix.scheduledactions;
 
 import com.netflix.fenzo.triggers.TriggerOperator;
 import com.netflix.scheduledactions.executors.Executor;
+import com.netflix.scheduledactions.scheduler.ActionScheduler;
 
 import java.util.UUID;
 
@@ -40,4 +41,19 @@ public class DefaultActionOperationsDelegate extends AbstractActionOperationsDel
                                             int threadPoolSize) {
         super(delegateId, triggerOperator, daoConfigurer, executor, threadPoolSize);
     }
+
+    public DefaultActionOperationsDelegate(ActionScheduler actionScheduler,
+                                           DaoConfigurer daoConfigurer,
+                                           Executor executor,
+                                           int threadPoolSize) {
+        super(UUID.randomUUID().toString(), actionScheduler, daoConfigurer, executor, threadPoolSize);
+    }
+
+    public DefaultActionOperationsDelegate(String delegateId,
+                                           ActionScheduler actionScheduler,
+                                           DaoConfigurer daoConfigurer,
+                                           Executor executor,
+                                           int threadPoolSize) {
+        super(delegateId, actionScheduler, daoConfigurer, executor, threadPoolSize);
+    }
 }
@@ -19,6 +19,7 @@ package com.netflix.scheduledactions;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.netflix.scheduledactions.persistence.ExecutionDao;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
@@ -30,6 +31,7 @@ public class Execution implements Comparable<Execution> {
 
     private static final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss z";
     private static final String DATE_FORMAT_TIMEZONE = "America/Los_Angeles";
+    public static final long PROGRESS_WRITE_INTERVAL_MS = 5000L;
 
     private final String executorId;
     private final String actionInstanceId;
@@ -39,8 +41,18 @@ public class Execution implements Comparable<Execution> {
     private Date endTime;
     private Status status;
     private List<LogEntry> log;
+    private Map<String, String> checkpoint;
+    private String resumedFrom;
+    private Date fireTime;
+    private int progressPercent;
+    private String progressMessage;
+    private Date lastHeartbeat;
+    @JsonIgnore
+    private transient long lastProgressWriteTime;
     @JsonIgnore
     private final Logger logger = new Logger();
+    @JsonIgnore
+    private transient ExecutionDao executionDao;
 
     @JsonCreator
     public Execution(@JsonProperty("executorId") String executorId,
@@ -103,6 +115,124 @@ public class Execution implements Comparable<Execution> {
         return logger;
     }
 
+    /**
+     * Returns the state last saved with {@code saveCheckpoint}. An {@code Action} that is resumed after its
+     * node went away finds the checkpoint of the interrupted execution here
+     */
+    public Map<String, String> getCheckpoint() {
+        return checkpoint;
+    }
+
+    public void setCheckpoint(Map<String, String> checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Saves a small progress state for this execution. The state is persisted right away, so that the
+     * execution can be resumed from here instead of being rerun from scratch
+     */
+    public void saveCheckpoint(Map<String, String> state) {
+        this.checkpoint = state != null ? new HashMap<>(state) : null;
+        if (executionDao != null) {
+            executionDao.updateExecution(this);
+        }
+    }
+
+    /**
+     * Returns the id of the interrupted execution this execution was resumed from, if any
+     */
+    public String getResumedFrom() {
+        return resumedFrom;
+    }
+
+    public void setResumedFrom(String resumedFrom) {
+        this.resumedFrom = resumedFrom;
+    }
+
+    /**
+     * Attaches the {@code ExecutionDao} that checkpoints of this execution are saved to
+     */
+    public void setExecutionDao(ExecutionDao executionDao) {
+        this.executionDao = executionDao;
+    }
+
+    /**
+     * Returns the fire time of the trigger this execution runs for when it was fired by the scheduler or created by
+     * a backfill, null for executions that were requested explicitly
+     */
+    public Date getFireTime() {
+        return fireTime;
+    }
+
+    public void setFireTime(Date fireTime) {
+        this.fireTime = fireTime;
+    }
+
+    public int getProgressPercent() {
+        return progressPercent;
+    }
+
+    public void setProgressPercent(int progressPercent) {
+        this.progressPercent = progressPercent;
+    }
+
+    public String getProgressMessage() {
+        return progressMessage;
+    }
+
+    public void setProgressMessage(String progressMessage) {
+        this.progressMessage = progressMessage;
+    }
+
+    /**
+     * Returns the last time the running {@code Action} reported a heartbeat or progress, null if it never did
+     */
+    public Date getLastHeartbeat() {
+        return lastHeartbeat;
+    }
+
+    public void setLastHeartbeat(Date lastHeartbeat) {
+        this.lastHeartbeat = lastHeartbeat;
+    }
+
+    /**
+     * Signals that the running {@code Action} is still alive without changing its progress
+     */
+    public void heartbeat() {
+        reportProgress(progressPercent, progressMessage);
+    }
+
+    /**
+     * Reports the progress of the running {@code Action} (0 to 100) along with an optional message. The progress
+     * is always visible on this instance, but it is written to the {@code ExecutionDao} at most once every
+     * {@code PROGRESS_WRITE_INTERVAL_MS} (and always when reaching 100), so it is fine to call this very often
+     */
+    public void reportProgress(int percent, String message) {
+        long now = SchedulerClock.currentTimeMillis();
+        boolean write;
+        synchronized (this) {
+            this.progressPercent = Math.max(0, Math.min(100, percent));
+            this.progressMessage = message;
+            this.lastHeartbeat = new Date(now);
+            write = this.progressPercent == 100 || now - lastProgressWriteTime >= PROGRESS_WRITE_INTERVAL_MS;
+            if (write) {
+                lastProgressWriteTime = now;
+            }
+        }
+        if (write) {
+            writeProgress();
+        }
+    }
+
+    /**
+     * Persists the progress, called by {@code reportProgress} once the throttling interval has passed
+     */
+    protected void writeProgress() {
+        if (executionDao != null) {
+            executionDao.updateExecution(this);
+        }
+    }
+
     public boolean isBefore(Execution execution) {
         return this.createdTime - execution.getCreatedTime() < 0;
     }
@@ -159,7 +289,7 @@ public class Execution implements Comparable<Execution> {
     }
 
     private static String getFormattedDate() {
-        return newDateFormat().format(new Date());
+        return newDateFormat().format(SchedulerClock.now());
     }
 
     private static String getFormattedDate(Date date) {
@@ -174,7 +304,7 @@ public class Execution implements Comparable<Execution> {
         @JsonCreator
         public LogEntry(@JsonProperty("timestamp") String timestamp,
                         @JsonProperty("message") String message) {
-            this.logEntryTime = System.currentTimeMillis();
+            this.logEntryTime = SchedulerClock.currentTimeMillis();
             this.timestamp = timestamp;
             this.message = message;
         }
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.scheduledactions;
+
+import com.netflix.scheduledactions.persistence.ActionInstanceDao;
+import com.netflix.scheduledactions.persistence.ExecutionDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heartbeats on behalf of an executor and periodically finds the {@code Execution}s that are still running
+ * on executors that stopped heartbeating (e.g. the node died). Those executions are resumed if they saved a
+ * checkpoint, otherwise they are marked {@code ORPHANED} so that they no longer count as incomplete for the
+ * {@code ConcurrentExecutionStrategy} of their {@code ActionInstance}.
+ *
+ * Only the running-executions index of the {@code ExecutionDao} is swept, never the whole execution history,
+ * and the executions are read and updated in batches.
+ */
+public class ExecutionReaper {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionReaper.class);
+
+    public static final long DEFAULT_INTERVAL_MS = 30 * 1000L;
+    public static final int DEFAULT_HEARTBEAT_TTL_SECONDS = 90;
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    private final String executorId;
+    private final ExecutionDao executionDao;
+    private final ActionInstanceDao actionInstanceDao;
+    private final ActionOperationsDelegate actionOperationsDelegate;
+    private final long intervalMs;
+    private final int heartbeatTtlSeconds;
+    private final int batchSize;
+    private final Date startTime = SchedulerClock.now();
+    private ScheduledExecutorService scheduledExecutorService;
+
+    public ExecutionReaper(String executorId,
+                           ExecutionDao executionDao,
+                           ActionInstanceDao actionInstanceDao,
+                           ActionOperationsDelegate actionOperationsDelegate) {
+        this(executorId, executionDao, actionInstanceDao, actionOperationsDelegate,
+            DEFAULT_INTERVAL_MS, DEFAULT_HEARTBEAT_TTL_SECONDS, DEFAULT_BATCH_SIZE);
+    }
+
+    public ExecutionReaper(String executorId,
+                           ExecutionDao executionDao,
+                           ActionInstanceDao actionInstanceDao,
+                           ActionOperationsDelegate actionOperationsDelegate,
+                           long intervalMs,
+                           int heartbeatTtlSeconds,
+                           int batchSize) {
+        if (TimeUnit.SECONDS.toMillis(heartbeatTtlSeconds) <= intervalMs) {
+            throw new IllegalArgumentException(String.format(
+                "heartbeatTtlSeconds (%d) has to be longer than the interval (%d ms)", heartbeatTtlSeconds, intervalMs));
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize has to be greater than 0");
+        }
+        this.executorId = executorId;
+        this.executionDao = executionDao;
+        this.actionInstanceDao = actionInstanceDao;
+        this.actionOperationsDelegate = actionOperationsDelegate;
+        this.intervalMs = intervalMs;
+        this.heartbeatTtlSeconds = heartbeatTtlSeconds;
+        this.batchSize = batchSize;
+    }
+
+    public synchronized void start() {
+        if (scheduledExecutorService != null) {
+            return;
+        }
+        scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ExecutionReaper-" + executorId);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduledExecutorService.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    executionDao.heartbeat(executorId, heartbeatTtlSeconds);
+                    reap();
+                } catch (Throwable e) {
+                    logger.error("Exception occurred while reaping orphaned executions for {}", executorId, e);
+                }
+            }
+        }, 0, intervalMs, TimeUnit.MILLISECONDS);
+        logger.info("Started the ExecutionReaper for {}...", executorId);
+    }
+
+    public synchronized void shutdown() {
+        if (scheduledExecutorService != null) {
+            scheduledExecutorService.shutdownNow();
+            scheduledExecutorService = null;
+        }
+    }
+
+    /**
+     * Sweeps the running executions once and returns the number of executions that were orphaned or resumed
+     */
+    public int reap() {
+        List<String> runningExecutionIds = executionDao.getRunningExecutionIds();
+        if (runningExecutionIds.isEmpty()) {
+            return 0;
+        }
+        Set<String> liveExecutorIds = executionDao.getLiveExecutorIds();
+
+        int reaped = 0;
+        for (int from = 0; from < runningExecutionIds.size(); from += batchSize) {
+            List<String> batch = runningExecutionIds.subList(from, Math.min(from + batchSize, runningExecutionIds.size()));
+            List<Execution> orphaned = new ArrayList<>();
+            for (Execution execution : executionDao.getExecutionsById(batch)) {
+                if (!isOrphaned(execution, liveExecutorIds)) {
+                    continue;
+                }
+                if (execution.getCheckpoint() != null) {
+                    // Executions that can be resumed are left alone here, the delegate marks them once resumed
+                    ActionInstance actionInstance = actionInstanceDao.getActionInstance(execution.getActionInstanceId());
+                    if (actionInstance != null) {
+                        if (resume(execution, actionInstance)) {
+                            reaped++;
+                        }
+                        continue;
+                    }
+                }
+                Status status = Status.ORPHANED;
+                status.setMessage("Executor stopped heartbeating before the execution completed");
+                execution.setStatus(status);
+                execution.setEndTime(SchedulerClock.now());
+                orphaned.add(execution);
+                logger.info("[{}] Marking execution {} of executor {} as ORPHANED", execution.getActionInstanceId(),
+                    execution.getId(), execution.getExecutorId());
+            }
+            if (!orphaned.isEmpty()) {
+                executionDao.updateExecutions(orphaned);
+                reaped += orphaned.size();
+            }
+        }
+        return reaped;
+    }
+
+    /**
+     * An execution is orphaned if it is not complete and its executor is not heartbeating anymore, or if it is
+     * one of our own executions that was started before this executor (re)started. An execution that reported
+     * a heartbeat or progress itself within the heartbeat TTL is never orphaned
+     */
+    private boolean isOrphaned(Execution execution, Set<String> liveExecutorIds) {
+        if (execution.getStatus() != null && execution.getStatus().isComplete()) {
+            return false;
+        }
+        Date lastHeartbeat = execution.getLastHeartbeat();
+        if (lastHeartbeat != null &&
+            SchedulerClock.currentTimeMillis() - lastHeartbeat.getTime() < TimeUnit.SECONDS.toMillis(heartbeatTtlSeconds)) {
+            return false;
+        }
+        if (executorId.equals(execution.getExecutorId())) {
+            return execution.getStartTime() != null && execution.getStartTime().before(startTime);
+        }
+        return !liveExecutorIds.contains(execution.getExecutorId());
+    }
+
+    private boolean resume(Execution execution, ActionInstance actionInstance) {
+        try {
+            return actionOperationsDelegate.resume(execution, actionInstance) != null;
+        } catch (Exception e) {
+            logger.error("[{}] Exception occurred while resuming orphaned execution {}", actionInstance.getId(),
+                execution.getId(), e);
+            return false;
+        }
+    }
+}
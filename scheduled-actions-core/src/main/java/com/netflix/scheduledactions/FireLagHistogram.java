@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.scheduledactions;
+
+/**
+ * Snapshot of how late the fires of a group are at one stage between their fire time and the start of their
+ * {@code Execution}: the number of fires that took at most each bucket bound, plus the fires over the last bound
+ */
+public class FireLagHistogram {
+
+    public static enum Stage {
+        /**
+         * From the fire time of the trigger to the scheduler calling execute() on the delegate
+         */
+        FIRE_TO_EXECUTE,
+        /**
+         * From execute() to the {@code Execution} being submitted: the actionInstance read, the execution write
+         * and the concurrent execution strategy
+         */
+        EXECUTE_TO_SUBMITTED,
+        /**
+         * From the submission to the {@code Execution} starting, i.e. the time it waited for an execution thread
+         */
+        SUBMITTED_TO_STARTED
+    }
+
+    private final String group;
+    private final Stage stage;
+    private final long[] bucketBoundsMs;
+    private final long[] counts;
+    private final long count;
+    private final long totalMs;
+    private final long maxMs;
+
+    public FireLagHistogram(String group, Stage stage, long[] bucketBoundsMs, long[] counts, long totalMs, long maxMs) {
+        if (counts.length != bucketBoundsMs.length + 1) {
+            throw new IllegalArgumentException("There has to be one more count than there are bucket bounds");
+        }
+        long count = 0;
+        for (long bucketCount : counts) {
+            count += bucketCount;
+        }
+        this.group = group;
+        this.stage = stage;
+        this.bucketBoundsMs = bucketBoundsMs;
+        this.counts = counts;
+        this.count = count;
+        this.totalMs = totalMs;
+        this.maxMs = maxMs;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public Stage getStage() {
+        return stage;
+    }
+
+    /**
+     * Inclusive upper bounds of the buckets, in milliseconds
+     */
+    public long[] getBucketBoundsMs() {
+        return bucketBoundsMs;
+    }
+
+    /**
+     * Number of fires in each bucket. The last count is of the fires over the last bound
+     */
+    public long[] getCounts() {
+        return counts;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMaxMs() {
+        return maxMs;
+    }
+
+    public double getMeanMs() {
+        return count > 0 ? (double) totalMs / count : 0;
+    }
+
+    public long getP50Ms() {
+        return getPercentileMs(50);
+    }
+
+    public long getP99Ms() {
+        return getPercentileMs(99);
+    }
+
+    /**
+     * Returns the bound of the bucket the given percentile falls into, or the max for the fires over the last bound
+     */
+    public long getPercentileMs(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < bucketBoundsMs.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(bucketBoundsMs[i], maxMs);
+            }
+        }
+        return maxMs;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FireLagHistogram (%s, %s: %d fires, p50 %d ms, p99 %d ms, max %d ms)",
+            group, stage, count, getP50Ms(), getP99Ms(), maxMs);
+    }
+}
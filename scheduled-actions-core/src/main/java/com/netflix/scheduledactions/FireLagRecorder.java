@@ -0,0 +1,133 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.scheduledactions;
+
+import com.netflix.scheduledactions.FireLagHistogram.Stage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records how late fires are at every {@code FireLagHistogram.Stage}, per group, in fixed buckets from 1 ms to
+ * 5 minutes. Recording is a few atomic increments, so it is done for every fire. Past maxGroups groups, the fires of
+ * new groups are recorded under {@link #OTHER_GROUPS}
+ */
+public class FireLagRecorder {
+
+    public static final long[] BUCKET_BOUNDS_MS = {
+        1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000, 60000, 300000
+    };
+    public static final int DEFAULT_MAX_GROUPS = 1000;
+    public static final String OTHER_GROUPS = "<other>";
+
+    private final int maxGroups;
+    private final ConcurrentMap<String, Recording[]> recordings = new ConcurrentHashMap<>();
+
+    public FireLagRecorder() {
+        this(DEFAULT_MAX_GROUPS);
+    }
+
+    public FireLagRecorder(int maxGroups) {
+        if (maxGroups < 1) {
+            throw new IllegalArgumentException("maxGroups has to be greater than 0");
+        }
+        this.maxGroups = maxGroups;
+    }
+
+    /**
+     * Records the lag of one fire at the given stage. Negative lags, e.g. from a fire a little ahead of its time,
+     * are recorded as 0
+     */
+    public void record(String group, Stage stage, long lagMs) {
+        recordingsOf(String.valueOf(group))[stage.ordinal()].record(Math.max(lagMs, 0));
+    }
+
+    /**
+     * Returns the histogram of the given group at the given stage, or null if nothing was recorded for the group
+     */
+    public FireLagHistogram getHistogram(String group, Stage stage) {
+        Recording[] groupRecordings = recordings.get(group);
+        return groupRecordings != null ? groupRecordings[stage.ordinal()].snapshot(group, stage) : null;
+    }
+
+    /**
+     * Returns the histograms of every group and stage, by group and then stage
+     */
+    public List<FireLagHistogram> getHistograms() {
+        List<FireLagHistogram> histograms = new ArrayList<>();
+        for (Map.Entry<String, Recording[]> entry : new TreeMap<>(recordings).entrySet()) {
+            for (Stage stage : Stage.values()) {
+                histograms.add(entry.getValue()[stage.ordinal()].snapshot(entry.getKey(), stage));
+            }
+        }
+        return histograms;
+    }
+
+    public void reset() {
+        recordings.clear();
+    }
+
+    private Recording[] recordingsOf(String group) {
+        Recording[] groupRecordings = recordings.get(group);
+        if (groupRecordings == null) {
+            if (recordings.size() >= maxGroups) {
+                group = OTHER_GROUPS;
+            }
+            groupRecordings = new Recording[Stage.values().length];
+            for (int i = 0; i < groupRecordings.length; i++) {
+                groupRecordings[i] = new Recording();
+            }
+            Recording[] existing = recordings.putIfAbsent(group, groupRecordings);
+            if (existing != null) {
+                groupRecordings = existing;
+            }
+        }
+        return groupRecordings;
+    }
+
+    private static class Recording {
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKET_BOUNDS_MS.length + 1);
+        private final AtomicLong totalMs = new AtomicLong();
+        private final AtomicLong maxMs = new AtomicLong();
+
+        private void record(long lagMs) {
+            int position = Arrays.binarySearch(BUCKET_BOUNDS_MS, lagMs);
+            counts.incrementAndGet(position >= 0 ? position : -position - 1);
+            totalMs.addAndGet(lagMs);
+            long max = maxMs.get();
+            while (lagMs > max && !maxMs.compareAndSet(max, lagMs)) {
+                max = maxMs.get();
+            }
+        }
+
+        private FireLagHistogram snapshot(String group, Stage stage) {
+            long[] snapshot = new long[counts.length()];
+            for (int i = 0; i < snapshot.length; i++) {
+                snapshot[i] = counts.get(i);
+            }
+            return new FireLagHistogram(group, stage, BUCKET_BOUNDS_MS.clone(), snapshot, totalMs.get(), maxMs.get());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.scheduledactions;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Objects;
+
+/**
+ * What to do with the fires of an {@code ActionInstance} that were missed because the scheduler was stalled or the
+ * node was down. A fire is missed once it is more than thresholdMs late.
+ *
+ * SKIP drops the missed fires, RUN_ONCE runs a single execution for all of them and RUN_ALL replays every one of
+ * them, at most maxFiresPerSecond at a time
+ */
+public class MisfirePolicy {
+
+    public static final long DEFAULT_THRESHOLD_MS = 60 * 1000L;
+    public static final double DEFAULT_MAX_FIRES_PER_SECOND = 1.0;
+
+    public static enum Type {
+        SKIP, RUN_ONCE, RUN_ALL
+    }
+
+    private final Type type;
+    private final double maxFiresPerSecond;
+    private final long thresholdMs;
+
+    @JsonCreator
+    public MisfirePolicy(@JsonProperty("type") Type type,
+                         @JsonProperty("maxFiresPerSecond") double maxFiresPerSecond,
+                         @JsonProperty("thresholdMs") long thresholdMs) {
+        if (type == null) {
+            throw new IllegalArgumentException("Type of the MisfirePolicy cannot be null");
+        }
+        if (type == Type.RUN_ALL && maxFiresPerSecond <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid maxFiresPerSecond %s for a RUN_ALL MisfirePolicy", maxFiresPerSecond));
+        }
+        this.type = type;
+        this.maxFiresPerSecond = maxFiresPerSecond;
+        this.thresholdMs = thresholdMs > 0 ? thresholdMs : DEFAULT_THRESHOLD_MS;
+    }
+
+    public static MisfirePolicy skip() {
+        return new MisfirePolicy(Type.SKIP, 0, DEFAULT_THRESHOLD_MS);
+    }
+
+    public static MisfirePolicy runOnce() {
+        return new MisfirePolicy(Type.RUN_ONCE, 0, DEFAULT_THRESHOLD_MS);
+    }
+
+    public static MisfirePolicy runAll(double maxFiresPerSecond) {
+        return new MisfirePolicy(Type.RUN_ALL, maxFiresPerSecond, DEFAULT_THRESHOLD_MS);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public double getMaxFiresPerSecond() {
+        return maxFiresPerSecond;
+    }
+
+    public long getThresholdMs() {
+        return thresholdMs;
+    }
+
+    /**
+     * Returns true if a fire that is the given number of milliseconds late has been missed
+     */
+    public boolean isMisfire(long lateMs) {
+        return lateMs > thresholdMs;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MisfirePolicy that = (MisfirePolicy) o;
+        return type == that.type &&
+            Double.compare(maxFiresPerSecond, that.maxFiresPerSecond) == 0 &&
+            thresholdMs == that.thresholdMs;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, maxFiresPerSecond, thresholdMs);
+    }
+
+    @Override
+    public String toString() {
+        return type == Type.RUN_ALL ?
+            String.format("MisfirePolicy (%s at %s/s after %d ms)", type, maxFiresPerSecond, thresholdMs) :
+            String.format("MisfirePolicy (%s after %d ms)", type, thresholdMs);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.scheduledactions;
+
+/**
+ * Outcome of registering one {@code ActionInstance} as part of a bulk registration
+ */
+public class RegistrationResult {
+
+    private final String actionInstanceId;
+    private final String name;
+    private final boolean registered;
+    private final String error;
+
+    private RegistrationResult(String actionInstanceId, String name, boolean registered, String error) {
+        this.actionInstanceId = actionInstanceId;
+        this.name = name;
+        this.registered = registered;
+        this.error = error;
+    }
+
+    public static RegistrationResult success(ActionInstance actionInstance) {
+        return new RegistrationResult(actionInstance.getId(), actionInstance.getName(), true, null);
+    }
+
+    public static RegistrationResult failure(ActionInstance actionInstance, Exception e) {
+        return new RegistrationResult(
+            actionInstance != null ? actionInstance.getId() : null,
+            actionInstance != null ? actionInstance.getName() : null,
+            false,
+            e.getMessage() != null ? e.getMessage() : e.getClass().getName()
+        );
+    }
+
+    public String getActionInstanceId() {
+        return actionInstanceId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isRegistered() {
+        return registered;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return registered ?
+            String.format("RegistrationResult (%s registered)", actionInstanceId) :
+            String.format("RegistrationResult (%s failed: %s)", name, error);
+    }
+}
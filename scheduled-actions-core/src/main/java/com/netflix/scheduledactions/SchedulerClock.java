@@ -0,0 +1,59 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.scheduledactions;
+
+import java.time.Clock;
+import java.util.Date;
+
+/**
+ * The clock that every timestamp of the library is read from: fire times, execution start and end times, heartbeats,
+ * creation and update times. It is the system clock unless another {@code Clock} is plugged in, typically a
+ * {@code VirtualClock} to replay a long stretch of schedules in a few seconds
+ */
+public final class SchedulerClock {
+
+    private static volatile Clock clock = Clock.systemUTC();
+
+    private SchedulerClock() {}
+
+    public static Clock get() {
+        return clock;
+    }
+
+    public static void set(Clock clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock cannot be null");
+        }
+        SchedulerClock.clock = clock;
+    }
+
+    /**
+     * Goes back to the system clock
+     */
+    public static void reset() {
+        clock = Clock.systemUTC();
+    }
+
+    public static long currentTimeMillis() {
+        return clock.millis();
+    }
+
+    public static Date now() {
+        return new Date(clock.millis());
+    }
+}
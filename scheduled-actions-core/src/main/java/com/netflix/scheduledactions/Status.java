@@ -18,7 +18,7 @@ package com.netflix.scheduledactions;
 
 public enum Status {
     CANCELLED("CANCELLED", true), COMPLETED("COMPLETED", true), FAILED("FAILED", true), TIMED_OUT("TIMED_OUT", true), SKIPPED("SKIPPED", true),
-    SCHEDULED("SCHEDULED", false), IN_PROGRESS("IN_PROGRESS", false), DISABLED("DISABLED", false),
+    ORPHANED("ORPHANED", true), SCHEDULED("SCHEDULED", false), IN_PROGRESS("IN_PROGRESS", false), DISABLED("DISABLED", false),
     ENABLED("ENABLED", false);
 
     private final String status;
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.scheduledactions;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The triggers due in a time window: how many there are in total and the first ones of them, soonest first
+ */
+public class UpcomingSchedule {
+
+    private final Date from;
+    private final Date to;
+    private final int count;
+    private final List<Fire> fires;
+
+    public UpcomingSchedule(Date from, Date to, int count, List<Fire> fires) {
+        this.from = from;
+        this.to = to;
+        this.count = count;
+        this.fires = fires != null ? fires : Collections.<Fire>emptyList();
+    }
+
+    public Date getFrom() {
+        return from;
+    }
+
+    public Date getTo() {
+        return to;
+    }
+
+    /**
+     * Total number of triggers due in the window, which can be more than the number of fires returned
+     */
+    public int getCount() {
+        return count;
+    }
+
+    public List<Fire> getFires() {
+        return fires;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("UpcomingSchedule (%d due between %s and %s)", count, from, to);
+    }
+
+    public static class Fire {
+        private final String actionInstanceId;
+        private final Date fireTime;
+
+        public Fire(String actionInstanceId, Date fireTime) {
+            this.actionInstanceId = actionInstanceId;
+            this.fireTime = fireTime;
+        }
+
+        public String getActionInstanceId() {
+            return actionInstanceId;
+        }
+
+        public Date getFireTime() {
+            return fireTime;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Fire (%s at %s)", actionInstanceId, fireTime);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.scheduledactions;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@code Clock} that only moves when it is told to. Time never goes backwards, so that fire times computed
+ * from it stay ordered. Instances derived with {@link #withZone(ZoneId)} share the same time
+ */
+public class VirtualClock extends Clock {
+
+    private final AtomicLong millis;
+    private final ZoneId zone;
+
+    public VirtualClock(long startMillis) {
+        this(new AtomicLong(startMillis), ZoneOffset.UTC);
+    }
+
+    private VirtualClock(AtomicLong millis, ZoneId zone) {
+        this.millis = millis;
+        this.zone = zone;
+    }
+
+    /**
+     * Moves the clock forward by the given number of milliseconds and returns the new time
+     */
+    public long advance(long deltaMillis) {
+        if (deltaMillis < 0) {
+            throw new IllegalArgumentException("A virtual clock cannot go backwards");
+        }
+        return millis.addAndGet(deltaMillis);
+    }
+
+    /**
+     * Moves the clock forward to the given time, leaving it as is if it is already past it. Returns the new time
+     */
+    public long advanceTo(long timeMillis) {
+        while (true) {
+            long current = millis.get();
+            if (timeMillis <= current) {
+                return current;
+            }
+            if (millis.compareAndSet(current, timeMillis)) {
+                return timeMillis;
+            }
+        }
+    }
+
+    @Override
+    public long millis() {
+        return millis.get();
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis.get());
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return zone.equals(this.zone) ? this : new VirtualClock(millis, zone);
+    }
+
+    @Override
+    public String toString() {
+        return "VirtualClock (" + instant() + ')';
+    }
+}
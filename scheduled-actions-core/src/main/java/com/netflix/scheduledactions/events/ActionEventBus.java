@@ -0,0 +1,198 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.scheduledactions.events;
+
+import com.netflix.scheduledactions.ActionInstance;
+import com.netflix.scheduledactions.ActionOperationsDelegate;
+import com.netflix.scheduledactions.SchedulerClock;
+import com.netflix.scheduledactions.exceptions.ActionInstanceNotFoundException;
+import com.netflix.scheduledactions.triggers.EventTrigger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process bus that fires the {@code ActionInstance}s with an {@code EventTrigger} when their event is published.
+ *
+ * Publishing only looks up the subscribers of the event and hands the fires to the bus threads, so it does not
+ * block on the executions. Within the coalescing window of a subscriber the first event fires right away and the
+ * rest are folded into one trailing fire at the end of the window
+ */
+public class ActionEventBus implements TriggerSubscriber {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActionEventBus.class);
+
+    public static final String INITIATOR_PREFIX = "Event:";
+    public static final int DEFAULT_THREADS = 2;
+
+    private final ActionOperationsDelegate delegate;
+    private final ScheduledExecutorService dispatcher;
+    private final ConcurrentMap<String, ConcurrentMap<String, Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Subscription> subscriptionsById = new ConcurrentHashMap<>();
+
+    public ActionEventBus(ActionOperationsDelegate delegate) {
+        this(delegate, DEFAULT_THREADS);
+    }
+
+    public ActionEventBus(ActionOperationsDelegate delegate, int threads) {
+        final AtomicInteger count = new AtomicInteger();
+        this.delegate = delegate;
+        this.dispatcher = Executors.newScheduledThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ActionEventBus-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Subscribes the {@code ActionInstance} to the event of its {@code EventTrigger}, replacing any previous
+     * subscription. Instances that are disabled or have another kind of trigger are unsubscribed
+     */
+    @Override
+    public void subscribe(ActionInstance actionInstance) {
+        unsubscribe(actionInstance.getId());
+        if (!(actionInstance.getTrigger() instanceof EventTrigger) || actionInstance.isDisabled()) {
+            return;
+        }
+        EventTrigger trigger = (EventTrigger) actionInstance.getTrigger();
+        Subscription subscription = new Subscription(actionInstance.getId(), trigger.getEventName(), trigger.getCoalesceMs());
+        ConcurrentMap<String, Subscription> subscribers = subscriptions.get(trigger.getEventName());
+        if (subscribers == null) {
+            ConcurrentMap<String, Subscription> created = new ConcurrentHashMap<>();
+            subscribers = subscriptions.putIfAbsent(trigger.getEventName(), created);
+            if (subscribers == null) {
+                subscribers = created;
+            }
+        }
+        subscribers.put(actionInstance.getId(), subscription);
+        subscriptionsById.put(actionInstance.getId(), subscription);
+    }
+
+    @Override
+    public void unsubscribe(String actionInstanceId) {
+        Subscription subscription = subscriptionsById.remove(actionInstanceId);
+        if (subscription != null) {
+            Map<String, Subscription> subscribers = subscriptions.get(subscription.eventName);
+            if (subscribers != null) {
+                subscribers.remove(actionInstanceId, subscription);
+            }
+        }
+    }
+
+    /**
+     * Publishes an event, returns the number of actionInstances subscribed to it
+     */
+    public int publish(String eventName) {
+        Map<String, Subscription> subscribers = subscriptions.get(eventName);
+        if (subscribers == null || subscribers.isEmpty()) {
+            return 0;
+        }
+        for (Subscription subscription : subscribers.values()) {
+            subscription.onEvent();
+        }
+        return subscribers.size();
+    }
+
+    public int getSubscriptionCount() {
+        return subscriptionsById.size();
+    }
+
+    public void shutdown() {
+        dispatcher.shutdownNow();
+    }
+
+    protected long now() {
+        return SchedulerClock.currentTimeMillis();
+    }
+
+    /**
+     * Runs the given task on the bus threads once the given delay has passed. Overridden along with {@link #now()}
+     * to drive the coalescing windows by hand
+     */
+    protected void schedule(Runnable task, long delayMs) {
+        dispatcher.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void fire(Subscription subscription, long fireTime) {
+        if (subscriptionsById.get(subscription.actionInstanceId) != subscription) {
+            return;
+        }
+        try {
+            logger.info("[{}] Event {} published, calling execute() on delegate", subscription.actionInstanceId, subscription.eventName);
+            delegate.execute(subscription.actionInstanceId, INITIATOR_PREFIX + subscription.eventName, new Date(fireTime));
+        } catch (ActionInstanceNotFoundException e) {
+            logger.warn("[{}] Event fired for an actionInstance that does not exist anymore", subscription.actionInstanceId);
+            unsubscribe(subscription.actionInstanceId);
+        } catch (Exception e) {
+            logger.error("[{}] Exception occurred while executing the actionInstance for event {}",
+                subscription.actionInstanceId, subscription.eventName, e);
+        }
+    }
+
+    private class Subscription {
+        private final String actionInstanceId;
+        private final String eventName;
+        private final long coalesceMs;
+        private long lastFireTime = Long.MIN_VALUE;
+        private boolean pending;
+
+        private Subscription(String actionInstanceId, String eventName, long coalesceMs) {
+            this.actionInstanceId = actionInstanceId;
+            this.eventName = eventName;
+            this.coalesceMs = coalesceMs;
+        }
+
+        private synchronized void onEvent() {
+            if (pending) {
+                return;
+            }
+            long now = now();
+            long delayMs = lastFireTime == Long.MIN_VALUE ? 0L : lastFireTime + coalesceMs - now;
+            pending = true;
+            try {
+                schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        long fireTime;
+                        synchronized (Subscription.this) {
+                            pending = false;
+                            fireTime = now();
+                            lastFireTime = fireTime;
+                        }
+                        fire(Subscription.this, fireTime);
+                    }
+                }, Math.max(delayMs, 0L));
+            } catch (RejectedExecutionException e) {
+                pending = false;
+                logger.warn("[{}] Event bus is shut down, dropping event {}", actionInstanceId, eventName);
+            }
+        }
+    }
+}
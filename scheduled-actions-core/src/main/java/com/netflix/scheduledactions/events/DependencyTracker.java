@@ -0,0 +1,225 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.scheduledactions.events;
+
+import com.netflix.scheduledactions.ActionInstance;
+import com.netflix.scheduledactions.ActionOperationsDelegate;
+import com.netflix.scheduledactions.SchedulerClock;
+import com.netflix.scheduledactions.Status;
+import com.netflix.scheduledactions.exceptions.ActionInstanceNotFoundException;
+import com.netflix.scheduledactions.triggers.DependencyTrigger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fires the {@code ActionInstance}s with a {@code DependencyTrigger} as their upstream actionInstances complete.
+ *
+ * The completions are tracked in memory, per node: an actionInstance fans in the completions of its upstream
+ * instances that ran on this node since it last fired, and starts over when it is subscribed again
+ */
+public class DependencyTracker implements TriggerSubscriber {
+
+    private static final Logger logger = LoggerFactory.getLogger(DependencyTracker.class);
+
+    public static final String INITIATOR_PREFIX = "Dependency:";
+
+    private final ActionOperationsDelegate delegate;
+    private final ExecutorService dispatcher;
+    private final Map<String, Set<Dependent>> dependentsByUpstream = new HashMap<>();
+    private final Map<String, Dependent> dependentsById = new HashMap<>();
+
+    public DependencyTracker(ActionOperationsDelegate delegate) {
+        final AtomicInteger count = new AtomicInteger();
+        this.delegate = delegate;
+        this.dispatcher = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "DependencyTracker-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    @Override
+    public synchronized void subscribe(ActionInstance actionInstance) {
+        unsubscribe(actionInstance.getId());
+        if (!(actionInstance.getTrigger() instanceof DependencyTrigger) || actionInstance.isDisabled()) {
+            return;
+        }
+        try {
+            validate(actionInstance);
+        } catch (IllegalArgumentException e) {
+            // Subscribing it would make the actionInstances of the cycle fire each other forever
+            logger.warn("[{}] Not subscribing the actionInstance: {}", actionInstance.getId(), e.getMessage());
+            return;
+        }
+        DependencyTrigger trigger = (DependencyTrigger) actionInstance.getTrigger();
+        Dependent dependent = new Dependent(
+            actionInstance.getId(), new LinkedHashSet<>(trigger.getUpstreamActionInstanceIds()), EnumSet.copyOf(trigger.getStatuses())
+        );
+        dependentsById.put(dependent.actionInstanceId, dependent);
+        for (String upstream : dependent.upstreams) {
+            Set<Dependent> dependents = dependentsByUpstream.get(upstream);
+            if (dependents == null) {
+                dependents = new HashSet<>();
+                dependentsByUpstream.put(upstream, dependents);
+            }
+            dependents.add(dependent);
+        }
+    }
+
+    /**
+     * Rejects a {@code DependencyTrigger} that lists its own actionInstance, or whose upstream actionInstances
+     * (transitively, as currently subscribed) depend on the actionInstance, since the instances of such a cycle
+     * would fire each other forever
+     * @throws IllegalArgumentException
+     */
+    public synchronized void validate(ActionInstance actionInstance) throws IllegalArgumentException {
+        if (!(actionInstance.getTrigger() instanceof DependencyTrigger)) {
+            return;
+        }
+        String actionInstanceId = actionInstance.getId();
+        List<String> upstreams = ((DependencyTrigger) actionInstance.getTrigger()).getUpstreamActionInstanceIds();
+        if (upstreams.contains(actionInstanceId)) {
+            throw new IllegalArgumentException(
+                String.format("DependencyTrigger of actionInstance %s cannot depend on the actionInstance itself", actionInstanceId));
+        }
+        Set<String> visited = new HashSet<>();
+        List<String> pending = new ArrayList<>(upstreams);
+        while (!pending.isEmpty()) {
+            String upstream = pending.remove(pending.size() - 1);
+            if (!visited.add(upstream)) {
+                continue;
+            }
+            Dependent dependent = dependentsById.get(upstream);
+            if (dependent == null) {
+                continue;
+            }
+            if (dependent.upstreams.contains(actionInstanceId)) {
+                throw new IllegalArgumentException(String.format(
+                    "DependencyTrigger of actionInstance %s makes a cycle through upstream actionInstance %s",
+                    actionInstanceId, upstream));
+            }
+            pending.addAll(dependent.upstreams);
+        }
+    }
+
+    @Override
+    public synchronized void unsubscribe(String actionInstanceId) {
+        Dependent dependent = dependentsById.remove(actionInstanceId);
+        if (dependent == null) {
+            return;
+        }
+        for (String upstream : dependent.upstreams) {
+            Set<Dependent> dependents = dependentsByUpstream.get(upstream);
+            if (dependents != null) {
+                dependents.remove(dependent);
+                if (dependents.isEmpty()) {
+                    dependentsByUpstream.remove(upstream);
+                }
+            }
+        }
+    }
+
+    /**
+     * Records that an execution of the given actionInstance finished with the given status and fires the dependent
+     * actionInstances for which it was the last upstream completion missing
+     */
+    public void onComplete(final String upstreamActionInstanceId, Status status) {
+        if (status == null || !status.isComplete()) {
+            return;
+        }
+        List<String> ready = new ArrayList<>();
+        synchronized (this) {
+            Set<Dependent> dependents = dependentsByUpstream.get(upstreamActionInstanceId);
+            if (dependents == null) {
+                return;
+            }
+            for (Dependent dependent : dependents) {
+                if (dependent.statuses.contains(status)) {
+                    dependent.completed.add(upstreamActionInstanceId);
+                    if (dependent.completed.size() == dependent.upstreams.size()) {
+                        dependent.completed.clear();
+                        ready.add(dependent.actionInstanceId);
+                    }
+                }
+            }
+        }
+        for (final String actionInstanceId : ready) {
+            try {
+                dispatcher.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        fire(actionInstanceId, upstreamActionInstanceId);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                logger.warn("[{}] Dependency tracker is shut down, not firing on {}", actionInstanceId, upstreamActionInstanceId);
+            }
+        }
+    }
+
+    public synchronized int getSubscriptionCount() {
+        return dependentsById.size();
+    }
+
+    public void shutdown() {
+        dispatcher.shutdownNow();
+    }
+
+    private void fire(String actionInstanceId, String upstreamActionInstanceId) {
+        try {
+            logger.info("[{}] Upstream actionInstance {} completed, calling execute() on delegate",
+                actionInstanceId, upstreamActionInstanceId);
+            delegate.execute(actionInstanceId, INITIATOR_PREFIX + upstreamActionInstanceId, SchedulerClock.now());
+        } catch (ActionInstanceNotFoundException e) {
+            logger.warn("[{}] Dependency fired for an actionInstance that does not exist anymore", actionInstanceId);
+            unsubscribe(actionInstanceId);
+        } catch (Exception e) {
+            logger.error("[{}] Exception occurred while executing the actionInstance after {} completed",
+                actionInstanceId, upstreamActionInstanceId, e);
+        }
+    }
+
+    private static class Dependent {
+        private final String actionInstanceId;
+        private final Set<String> upstreams;
+        private final Set<Status> statuses;
+        private final Set<String> completed = new HashSet<>();
+
+        private Dependent(String actionInstanceId, Set<String> upstreams, Set<Status> statuses) {
+            this.actionInstanceId = actionInstanceId;
+            this.upstreams = upstreams;
+            this.statuses = statuses;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.scheduledactions.events;
+
+import com.netflix.scheduledactions.ActionInstance;
+
+/**
+ * Keeps track of the {@code ActionInstance}s whose trigger fires on something other than time, or of anything else
+ * about them that has to follow every change made to them
+ */
+public interface TriggerSubscriber {
+
+    /**
+     * Subscribes the {@code ActionInstance} if it has a trigger of the kind this subscriber handles and is enabled,
+     * replacing any previous subscription. Unsubscribes it otherwise
+     */
+    public void subscribe(ActionInstance actionInstance);
+
+    public void unsubscribe(String actionInstanceId);
+
+    /**
+     * Drops anything kept about the {@code ActionInstance} other than its subscription, called when something other
+     * than its trigger changed
+     */
+    public default void invalidate(String actionInstanceId) {
+    }
+}
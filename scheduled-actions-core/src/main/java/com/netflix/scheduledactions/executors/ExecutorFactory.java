@@ -27,4 +27,12 @@ public class ExecutorFactory {
     public static Executor getDefaultExecutor(ExecutionDao executionDao, int threadPoolSize) {
         return new LocalThreadPoolBlockingExecutor(executionDao, threadPoolSize);
     }
+
+    /**
+     * Factory method to get an executor that runs actions in a pool of separate worker JVMs
+     * @return {@code WorkerProcessPoolExecutor}
+     */
+    public static Executor getWorkerProcessExecutor(ExecutionDao executionDao, int poolSize) {
+        return new WorkerProcessPoolExecutor(executionDao, poolSize);
+    }
 }
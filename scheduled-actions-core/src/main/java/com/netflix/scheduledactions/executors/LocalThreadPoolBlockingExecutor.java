@@ -22,7 +22,6 @@ import com.netflix.scheduledactions.persistence.ExecutionDao;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Date;
 import java.util.concurrent.*;
 
 public class LocalThreadPoolBlockingExecutor implements Executor {
@@ -45,20 +44,21 @@ public class LocalThreadPoolBlockingExecutor implements Executor {
                         final ActionInstance actionInstance,
                         final Execution execution) throws ExecutionException {
 
-        final Context context = actionInstance.getContext();
+        final Context context = Context.of(actionInstance, execution);
         final ExecutionListener executionListener;
         try {
             executionListener = actionInstance.getExecutionListener().newInstance();
         } catch (IllegalAccessException | InstantiationException e) {
             throw new ExecutionException("Exception occurred while instantiating executionListener", e);
         }
+        execution.setExecutionDao(executionDao);
 
         Future future = executeService.submit(new Runnable() {
             @Override
             public void run() {
                 try {
                     executionListener.onStart(context, execution);
-                    execution.setStartTime(new Date());
+                    execution.setStartTime(SchedulerClock.now());
                     execution.setStatus(Status.IN_PROGRESS);
                     executionDao.updateExecution(execution);
 
@@ -87,7 +87,7 @@ public class LocalThreadPoolBlockingExecutor implements Executor {
             }
 
             // Action execution complete
-            execution.setEndTime(new Date());
+            execution.setEndTime(SchedulerClock.now());
             execution.setStatus(action.getStatus() != null ? action.getStatus() : Status.COMPLETED);
             logger.info("[{}] Execution completed for action {} with status: {}", actionInstance.getId(),
                 action.getClass().getSimpleName(), execution.getStatus());
@@ -130,7 +130,7 @@ public class LocalThreadPoolBlockingExecutor implements Executor {
             throw new ExecutionException("Exception occurred while instantiating executionListener", e);
         }
 
-        final Context context = actionInstance.getContext();
+        final Context context = Context.of(actionInstance, execution);
 
         cancelService.execute(new Runnable() {
             @Override
@@ -144,7 +144,7 @@ public class LocalThreadPoolBlockingExecutor implements Executor {
                 } catch (Exception e) {
                     throw new ExecutionException(e);
                 } finally {
-                    execution.setEndTime(new Date());
+                    execution.setEndTime(SchedulerClock.now());
                     execution.setStatus(Status.CANCELLED);
                     executionDao.updateExecution(execution);
                     logger.info("Successfully cancelled the action {} for execution {}", action, execution);
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.scheduledactions.executors;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A single message exchanged between a {@code WorkerProcessPoolExecutor} and one of its worker JVMs.
+ * Frames are written as: type (1 byte), executionId, field count (int) and then key/value pairs, where
+ * every string is written as a length prefixed UTF-8 byte array
+ */
+class WorkerFrame {
+
+    static final String ACTION = "action";
+    static final String ACTION_INSTANCE_ID = "actionInstanceId";
+    static final String NAME = "name";
+    static final String GROUP = "group";
+    static final String PARAMETER_PREFIX = "parameter.";
+    static final String CHECKPOINT_PREFIX = "checkpoint.";
+    static final String EXECUTOR_ID = "executorId";
+    static final String FIRE_TIME = "fireTime";
+    static final String STATUS = "status";
+    static final String MESSAGE = "message";
+    static final String STATE = "state";
+    static final String HEAP_USED = "heapUsed";
+    static final String PROGRESS_PERCENT = "progressPercent";
+
+    private static final int MAX_STRING_BYTES = 16 * 1024 * 1024;
+
+    enum Type {
+        EXECUTE, CANCEL, STATUS, LOG, RESULT, SHUTDOWN, CHECKPOINT, PROGRESS
+    }
+
+    private final Type type;
+    private final String executionId;
+    private final Map<String, String> fields;
+
+    WorkerFrame(Type type, String executionId) {
+        this(type, executionId, new HashMap<String, String>());
+    }
+
+    WorkerFrame(Type type, String executionId, Map<String, String> fields) {
+        this.type = type;
+        this.executionId = executionId;
+        this.fields = fields != null ? fields : new HashMap<String, String>();
+    }
+
+    Type getType() {
+        return type;
+    }
+
+    String getExecutionId() {
+        return executionId;
+    }
+
+    String get(String key) {
+        return fields.get(key);
+    }
+
+    long getLong(String key, long defaultValue) {
+        String value = fields.get(key);
+        try {
+            return value != null ? Long.parseLong(value) : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    WorkerFrame with(String key, Object value) {
+        if (value != null) {
+            fields.put(key, String.valueOf(value));
+        }
+        return this;
+    }
+
+    WorkerFrame withAll(String prefix, Map<String, String> values) {
+        if (values != null) {
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                with(prefix + entry.getKey(), entry.getValue());
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Returns all the fields that start with the given prefix, with the prefix stripped off
+     */
+    Map<String, String> getAll(String prefix) {
+        Map<String, String> values = new HashMap<>();
+        for (Map.Entry<String, String> entry : fields.entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                values.put(entry.getKey().substring(prefix.length()), entry.getValue());
+            }
+        }
+        return values;
+    }
+
+    Map<String, String> getFields() {
+        return Collections.unmodifiableMap(fields);
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeByte(type.ordinal());
+        writeString(out, executionId);
+        out.writeInt(fields.size());
+        for (Map.Entry<String, String> entry : fields.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+        out.flush();
+    }
+
+    static WorkerFrame read(DataInputStream in) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= Type.values().length) {
+            throw new IOException(String.format("Unknown worker frame type %d", ordinal));
+        }
+        Type type = Type.values()[ordinal];
+        String executionId = readString(in);
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException(String.format("Invalid worker frame field count %d", count));
+        }
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            fields.put(readString(in), readString(in));
+        }
+        return new WorkerFrame(type, executionId, fields);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > MAX_STRING_BYTES) {
+            throw new IOException(String.format("Worker frame string of %d bytes exceeds the limit", length));
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("WorkerFrame (%s, %s)", type, executionId);
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.scheduledactions.executors;
+
+import com.netflix.scheduledactions.Action;
+import com.netflix.scheduledactions.Context;
+import com.netflix.scheduledactions.Execution;
+import com.netflix.scheduledactions.Status;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Entry point of a worker JVM spawned by {@code WorkerProcessPoolExecutor}. The worker listens on an ephemeral
+ * loopback port, prints that port on stdout for the parent and then runs one action at a time as instructed
+ * by the frames it receives. The worker exits as soon as its parent goes away.
+ */
+public class WorkerMain {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkerMain.class);
+
+    static final String PORT_PREFIX = "scheduled-actions-worker-port:";
+    static final int HANDSHAKE_TIMEOUT_MS = 30 * 1000;
+
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private volatile Thread actionThread;
+    private volatile String runningExecutionId;
+    private volatile boolean cancelled;
+
+    WorkerMain(Socket socket) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.err.println("Usage: WorkerMain <token>");
+            System.exit(2);
+        }
+
+        Socket socket;
+        ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        try {
+            System.out.println(PORT_PREFIX + serverSocket.getLocalPort());
+            System.out.flush();
+            System.setOut(System.err);  // Nobody reads stdout once the port has been handed over
+            serverSocket.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+            socket = serverSocket.accept();
+        } finally {
+            serverSocket.close();
+        }
+
+        try {
+            new WorkerMain(socket).run(args[0]);
+        } finally {
+            socket.close();
+        }
+        System.exit(0);
+    }
+
+    void run(String token) throws IOException {
+        if (!token.equals(in.readUTF())) {
+            logger.error("Worker handshake failed, exiting");
+            return;
+        }
+        try {
+            while (true) {
+                WorkerFrame frame = WorkerFrame.read(in);
+                switch (frame.getType()) {
+                    case EXECUTE:
+                        execute(frame);
+                        break;
+                    case CANCEL:
+                        cancel(frame);
+                        break;
+                    case STATUS:
+                        send(newStatusFrame(WorkerFrame.Type.STATUS, frame.getExecutionId())
+                            .with(WorkerFrame.STATE, actionThread != null ? "BUSY" : "IDLE"));
+                        break;
+                    case SHUTDOWN:
+                        return;
+                    default:
+                        logger.warn("Ignoring unexpected frame {}", frame);
+                        break;
+                }
+            }
+        } catch (EOFException e) {
+            logger.info("Parent closed the connection, exiting");
+        }
+    }
+
+    private void execute(final WorkerFrame frame) throws IOException {
+        final String executionId = frame.getExecutionId();
+        if (actionThread != null) {
+            send(newStatusFrame(WorkerFrame.Type.RESULT, executionId)
+                .with(WorkerFrame.STATUS, Status.FAILED.name())
+                .with(WorkerFrame.MESSAGE, String.format("Worker is already running execution %s", runningExecutionId)));
+            return;
+        }
+
+        cancelled = false;
+        runningExecutionId = executionId;
+        actionThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Context context = new Context(
+                    frame.get(WorkerFrame.ACTION_INSTANCE_ID),
+                    frame.get(WorkerFrame.NAME),
+                    frame.get(WorkerFrame.GROUP),
+                    frame.getAll(WorkerFrame.PARAMETER_PREFIX)
+                );
+                Execution execution = new Execution(frame.get(WorkerFrame.EXECUTOR_ID), frame.get(WorkerFrame.ACTION_INSTANCE_ID)) {
+                    @Override
+                    public void saveCheckpoint(Map<String, String> state) {
+                        super.saveCheckpoint(state);
+                        try {
+                            send(new WorkerFrame(WorkerFrame.Type.CHECKPOINT, executionId)
+                                .withAll(WorkerFrame.CHECKPOINT_PREFIX, state));
+                        } catch (IOException e) {
+                            throw new IllegalStateException("Unable to send the checkpoint to the parent", e);
+                        }
+                    }
+
+                    @Override
+                    protected void writeProgress() {
+                        try {
+                            send(new WorkerFrame(WorkerFrame.Type.PROGRESS, executionId)
+                                .with(WorkerFrame.PROGRESS_PERCENT, getProgressPercent())
+                                .with(WorkerFrame.MESSAGE, getProgressMessage()));
+                        } catch (IOException e) {
+                            throw new IllegalStateException("Unable to send the progress to the parent", e);
+                        }
+                    }
+                };
+                execution.setId(executionId);
+                Map<String, String> checkpoint = frame.getAll(WorkerFrame.CHECKPOINT_PREFIX);
+                execution.setCheckpoint(checkpoint.isEmpty() ? null : checkpoint);
+                long fireTime = frame.getLong(WorkerFrame.FIRE_TIME, -1L);
+                if (fireTime >= 0) {
+                    execution.setFireTime(new Date(fireTime));
+                    context.setFireTime(execution.getFireTime());
+                }
+
+                Status status;
+                String message = null;
+                try {
+                    Action action = Class.forName(frame.get(WorkerFrame.ACTION)).asSubclass(Action.class).newInstance();
+                    action.execute(context, execution);
+                    status = action.getStatus() != null ? action.getStatus() : Status.COMPLETED;
+                } catch (Throwable e) {
+                    status = Status.FAILED;
+                    message = e.getMessage();
+                    execution.getLogger().error("Exception occurred while executing action", e);
+                }
+                if (cancelled) {
+                    status = Status.CANCELLED;
+                }
+
+                actionThread = null;
+                runningExecutionId = null;
+                try {
+                    List<Execution.LogEntry> entries = execution.getLog();
+                    if (entries != null) {
+                        for (Execution.LogEntry entry : entries) {
+                            send(new WorkerFrame(WorkerFrame.Type.LOG, executionId).with(WorkerFrame.MESSAGE, entry.getMessage()));
+                        }
+                    }
+                    send(newStatusFrame(WorkerFrame.Type.RESULT, executionId)
+                        .with(WorkerFrame.STATUS, status.name())
+                        .with(WorkerFrame.MESSAGE, message));
+                } catch (IOException e) {
+                    logger.error("Unable to report the result of execution {} to the parent", executionId, e);
+                }
+            }
+        }, "scheduled-actions-worker-" + executionId);
+        actionThread.setDaemon(true);
+        actionThread.start();
+    }
+
+    private void cancel(WorkerFrame frame) {
+        Thread thread = actionThread;
+        if (thread != null && frame.getExecutionId() != null && frame.getExecutionId().equals(runningExecutionId)) {
+            cancelled = true;
+            thread.interrupt();
+        }
+    }
+
+    private WorkerFrame newStatusFrame(WorkerFrame.Type type, String executionId) {
+        Runtime runtime = Runtime.getRuntime();
+        return new WorkerFrame(type, executionId).with(WorkerFrame.HEAP_USED, runtime.totalMemory() - runtime.freeMemory());
+    }
+
+    private void send(WorkerFrame frame) throws IOException {
+        synchronized (out) {
+            frame.write(out);
+        }
+    }
+}
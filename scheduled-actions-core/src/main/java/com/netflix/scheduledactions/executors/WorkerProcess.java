@@ -0,0 +1,172 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.scheduledactions.executors;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parent side handle of a single worker JVM running {@code WorkerMain}
+ */
+class WorkerProcess {
+
+    private final String id;
+    private final Process process;
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private int executionCount;
+    private volatile long heapUsed;
+
+    private WorkerProcess(String id, Process process, Socket socket) throws IOException {
+        this.id = id;
+        this.process = process;
+        this.socket = socket;
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * Spawns a new worker JVM and connects to it over loopback
+     */
+    static WorkerProcess start(String javaCommand, String classpath, List<String> jvmArgs) throws IOException {
+        String token = UUID.randomUUID().toString();
+        List<String> command = new ArrayList<>();
+        command.add(javaCommand);
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(classpath);
+        command.add(WorkerMain.class.getName());
+        command.add(token);
+
+        Process process = new ProcessBuilder(command)
+            .redirectError(ProcessBuilder.Redirect.INHERIT)
+            .start();
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null && !line.startsWith(WorkerMain.PORT_PREFIX)) {
+                // Skip anything the JVM prints before the worker announces its port
+            }
+            if (line == null) {
+                throw new IOException("Worker process exited before announcing its port");
+            }
+            int port = Integer.parseInt(line.substring(WorkerMain.PORT_PREFIX.length()).trim());
+
+            Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            socket.setTcpNoDelay(true);
+            WorkerProcess workerProcess = new WorkerProcess(token.substring(0, 8), process, socket);
+            workerProcess.out.writeUTF(token);
+            workerProcess.out.flush();
+            return workerProcess;
+        } catch (IOException | RuntimeException e) {
+            process.destroy();
+            throw e instanceof IOException ? (IOException) e : new IOException("Unable to start worker process", e);
+        }
+    }
+
+    String getId() {
+        return id;
+    }
+
+    void send(WorkerFrame frame) throws IOException {
+        synchronized (out) {
+            frame.write(out);
+        }
+    }
+
+    /**
+     * Blocks until the next frame arrives from the worker
+     * @param timeoutMs maximum time to wait, 0 waits indefinitely
+     * @throws java.net.SocketTimeoutException if no frame arrived in time
+     */
+    WorkerFrame receive(long timeoutMs) throws IOException {
+        socket.setSoTimeout((int) Math.min(Integer.MAX_VALUE, Math.max(0L, timeoutMs)));
+        WorkerFrame frame = WorkerFrame.read(in);
+        long reportedHeap = frame.getLong(WorkerFrame.HEAP_USED, -1L);
+        if (reportedHeap >= 0) {
+            heapUsed = reportedHeap;
+        }
+        return frame;
+    }
+
+    /**
+     * Sends a STATUS frame and waits for the answer. Only meant to be called while the worker is idle
+     */
+    boolean isHealthy(long timeoutMs) {
+        if (!process.isAlive()) {
+            return false;
+        }
+        try {
+            send(new WorkerFrame(WorkerFrame.Type.STATUS, null));
+            WorkerFrame frame = receive(timeoutMs);
+            return frame.getType() == WorkerFrame.Type.STATUS && "IDLE".equals(frame.get(WorkerFrame.STATE));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    int incrementExecutionCount() {
+        return ++executionCount;
+    }
+
+    long getHeapUsed() {
+        return heapUsed;
+    }
+
+    /**
+     * Asks the worker to exit and forcibly kills it if it does not do so within the grace period
+     */
+    void shutdown(long gracePeriodMs) {
+        try {
+            send(new WorkerFrame(WorkerFrame.Type.SHUTDOWN, null));
+            process.waitFor(gracePeriodMs, TimeUnit.MILLISECONDS);
+        } catch (IOException IGNORED) {
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            destroy();
+        }
+    }
+
+    void destroy() {
+        try {
+            socket.close();
+        } catch (IOException IGNORED) {
+        }
+        if (process.isAlive()) {
+            process.destroyForcibly();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("WorkerProcess (%s)", id);
+    }
+}
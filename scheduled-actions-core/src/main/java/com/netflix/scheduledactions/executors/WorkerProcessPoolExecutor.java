@@ -0,0 +1,358 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.scheduledactions.executors;
+
+import com.netflix.scheduledactions.*;
+import com.netflix.scheduledactions.exceptions.ExecutionException;
+import com.netflix.scheduledactions.persistence.ExecutionDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * An {@code Executor} that runs every action in one of a pool of long-lived local worker JVMs, so that the
+ * garbage collection pauses and memory blowups of heavy actions do not affect the JVM hosting the
+ * {@code ActionsOperator}. Workers talk to this executor over loopback sockets (see {@code WorkerFrame}) and are
+ * recycled after a configurable number of executions or once their used heap crosses a threshold.
+ *
+ * Actions and their parameters have to be loadable from the worker classpath, which defaults to the classpath
+ * of the current JVM.
+ */
+public class WorkerProcessPoolExecutor implements Executor {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkerProcessPoolExecutor.class);
+
+    public static final int DEFAULT_MAX_EXECUTIONS_PER_WORKER = 100;
+    public static final long DEFAULT_MAX_WORKER_HEAP_BYTES = -1L;
+
+    private static final long STATUS_TIMEOUT_MS = 5 * 1000L;
+    private static final long SHUTDOWN_GRACE_PERIOD_MS = 5 * 1000L;
+    private static final long CANCEL_GRACE_PERIOD_MS = 10 * 1000L;
+
+    private final ExecutionDao executionDao;
+    private final int maxExecutionsPerWorker;
+    private final long maxWorkerHeapBytes;
+    private final List<String> jvmArgs;
+    private final String javaCommand;
+    private final String classpath;
+    private final Semaphore permits;
+    private final ConcurrentLinkedQueue<WorkerProcess> idleWorkers = new ConcurrentLinkedQueue<>();
+    private final ConcurrentMap<String, WorkerProcess> runningWorkers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Boolean> cancelledExecutions = new ConcurrentHashMap<>();
+    private final ExecutorService cancelService;
+    private final ScheduledExecutorService killService;
+    private final Thread shutdownHook;
+
+    public WorkerProcessPoolExecutor(ExecutionDao executionDao, int poolSize) {
+        this(executionDao, poolSize, DEFAULT_MAX_EXECUTIONS_PER_WORKER, DEFAULT_MAX_WORKER_HEAP_BYTES,
+            Collections.<String>emptyList());
+    }
+
+    /**
+     * @param poolSize maximum number of worker JVMs, i.e. the maximum number of concurrently running actions
+     * @param maxExecutionsPerWorker a worker is recycled after running this many executions
+     * @param maxWorkerHeapBytes a worker is recycled once its used heap exceeds this many bytes, -1 to disable
+     * @param jvmArgs additional arguments for the worker JVMs, e.g. -Xmx1g
+     */
+    public WorkerProcessPoolExecutor(ExecutionDao executionDao,
+                                     int poolSize,
+                                     int maxExecutionsPerWorker,
+                                     long maxWorkerHeapBytes,
+                                     List<String> jvmArgs) {
+        this(executionDao, poolSize, maxExecutionsPerWorker, maxWorkerHeapBytes, jvmArgs,
+            System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+            System.getProperty("java.class.path"));
+    }
+
+    public WorkerProcessPoolExecutor(ExecutionDao executionDao,
+                                     int poolSize,
+                                     int maxExecutionsPerWorker,
+                                     long maxWorkerHeapBytes,
+                                     List<String> jvmArgs,
+                                     String javaCommand,
+                                     String classpath) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid pool size %s specified for the WorkerProcessPoolExecutor", poolSize));
+        }
+        this.executionDao = executionDao;
+        this.maxExecutionsPerWorker = maxExecutionsPerWorker;
+        this.maxWorkerHeapBytes = maxWorkerHeapBytes;
+        this.jvmArgs = jvmArgs != null ? new ArrayList<>(jvmArgs) : Collections.<String>emptyList();
+        this.javaCommand = javaCommand;
+        this.classpath = classpath;
+        this.permits = new Semaphore(poolSize, true);
+        this.cancelService = Executors.newFixedThreadPool(poolSize > 1 ? poolSize/2 : poolSize);
+        this.killService = Executors.newSingleThreadScheduledExecutor();
+        this.shutdownHook = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                destroyWorkers();
+            }
+        }, "scheduled-actions-worker-reaper");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    @Override
+    public void execute(final Action action,
+                        final ActionInstance actionInstance,
+                        final Execution execution) throws ExecutionException {
+
+        final Context context = Context.of(actionInstance, execution);
+        final ExecutionListener executionListener;
+        try {
+            executionListener = actionInstance.getExecutionListener().newInstance();
+        } catch (IllegalAccessException | InstantiationException e) {
+            throw new ExecutionException("Exception occurred while instantiating executionListener", e);
+        }
+        execution.setExecutionDao(executionDao);
+
+        WorkerProcess worker = borrowWorker();
+        boolean recycle = true;
+        long timeoutInSeconds = actionInstance.getExecutionTimeoutInSeconds();
+        try {
+            executionListener.onStart(context, execution);
+            execution.setStartTime(SchedulerClock.now());
+            execution.setStatus(Status.IN_PROGRESS);
+            executionDao.updateExecution(execution);
+
+            logger.info("[{}] Execution started for action {} on {}", actionInstance.getId(),
+                action.getClass().getSimpleName(), worker);
+            execution.getLogger().info(
+                String.format("Execution started for action %s on %s", action.getClass().getSimpleName(), worker)
+            );
+
+            runningWorkers.put(execution.getId(), worker);
+            worker.send(
+                new WorkerFrame(WorkerFrame.Type.EXECUTE, execution.getId())
+                    .with(WorkerFrame.ACTION, action.getClass().getName())
+                    .with(WorkerFrame.ACTION_INSTANCE_ID, actionInstance.getId())
+                    .with(WorkerFrame.NAME, context.getName())
+                    .with(WorkerFrame.GROUP, context.getGroup())
+                    .with(WorkerFrame.EXECUTOR_ID, execution.getExecutorId())
+                    .with(WorkerFrame.FIRE_TIME, execution.getFireTime() != null ? execution.getFireTime().getTime() : null)
+                    .withAll(WorkerFrame.PARAMETER_PREFIX, context.getParameters())
+                    .withAll(WorkerFrame.CHECKPOINT_PREFIX, execution.getCheckpoint())
+            );
+
+            WorkerFrame result = awaitResult(worker, execution, timeoutInSeconds);
+            recycle = shouldRecycle(worker);
+            String statusName = result.get(WorkerFrame.STATUS);
+            Status status = statusName != null ? Status.valueOf(statusName) : Status.FAILED;
+
+            if (status == Status.CANCELLED || cancelledExecutions.containsKey(execution.getId())) {
+                throw new ExecutionException(String.format("Action %s has been cancelled", action.getClass().getName()),
+                    new CancellationException(), Status.CANCELLED);
+            }
+            if (status == Status.FAILED) {
+                executionListener.onError(context, execution);
+                throw new ExecutionException(String.format("Exception occurred in action %s: %s",
+                    action.getClass().getName(), result.get(WorkerFrame.MESSAGE)));
+            }
+
+            // Action execution complete
+            execution.setEndTime(SchedulerClock.now());
+            execution.setStatus(status);
+            logger.info("[{}] Execution completed for action {} with status: {}", actionInstance.getId(),
+                action.getClass().getSimpleName(), execution.getStatus());
+            execution.getLogger().info(
+                String.format("Execution completed for action %s with status: %s",
+                    action.getClass().getSimpleName(), execution.getStatus())
+            );
+            executionDao.updateExecution(execution);
+
+            executionListener.onComplete(context, execution);
+
+        } catch (SocketTimeoutException e) {
+            executionListener.onError(context, execution);
+            throw new ExecutionException(String.format("Action %s timed out after %d seconds",
+                action.getClass().getName(), timeoutInSeconds), e, Status.TIMED_OUT);
+        } catch (IOException e) {
+            if (cancelledExecutions.containsKey(execution.getId())) {
+                throw new ExecutionException(String.format("Action %s has been cancelled", action.getClass().getName()),
+                    e, Status.CANCELLED);
+            }
+            executionListener.onError(context, execution);
+            throw new ExecutionException(String.format("Worker %s running action %s failed: %s",
+                worker, action.getClass().getName(), e.getMessage()), e);
+        } finally {
+            runningWorkers.remove(execution.getId());
+            cancelledExecutions.remove(execution.getId());
+            returnWorker(worker, recycle);
+        }
+    }
+
+    @Override
+    public void cancel(final Action action,
+                       final ActionInstance actionInstance,
+                       final Execution execution) throws ExecutionException {
+
+        final ExecutionListener executionListener;
+        try {
+            executionListener = actionInstance.getExecutionListener().newInstance();
+        } catch (IllegalAccessException | InstantiationException e) {
+            throw new ExecutionException("Exception occurred while instantiating executionListener", e);
+        }
+
+        final Context context = Context.of(actionInstance, execution);
+
+        cancelService.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    executionListener.beforeCancel(context, execution);
+                    final WorkerProcess worker = runningWorkers.get(execution.getId());
+                    if (worker != null) {
+                        cancelledExecutions.put(execution.getId(), Boolean.TRUE);
+                        worker.send(new WorkerFrame(WorkerFrame.Type.CANCEL, execution.getId()));
+                        // Actions that ignore the interrupt take their worker down with them
+                        killService.schedule(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (runningWorkers.get(execution.getId()) == worker) {
+                                    logger.warn("Killing {} since execution {} did not respond to cancel", worker, execution);
+                                    worker.destroy();
+                                }
+                            }
+                        }, CANCEL_GRACE_PERIOD_MS, TimeUnit.MILLISECONDS);
+                    }
+                } catch (Exception e) {
+                    throw new ExecutionException(e);
+                } finally {
+                    execution.setEndTime(SchedulerClock.now());
+                    execution.setStatus(Status.CANCELLED);
+                    executionDao.updateExecution(execution);
+                    logger.info("Successfully cancelled the action {} for execution {}", action, execution);
+                }
+            }
+        });
+    }
+
+    /**
+     * Shuts down all the idle workers and kills the running ones
+     */
+    public void shutdown() {
+        cancelService.shutdownNow();
+        killService.shutdownNow();
+        destroyWorkers();
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // the JVM is already shutting down and runs the hook anyway
+        }
+    }
+
+    private WorkerFrame awaitResult(WorkerProcess worker, Execution execution, long timeoutInSeconds) throws IOException {
+        long deadline = timeoutInSeconds > 0 ? System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(timeoutInSeconds) : 0L;
+        while (true) {
+            long timeoutMs = 0L;
+            if (deadline > 0) {
+                timeoutMs = deadline - System.currentTimeMillis();
+                if (timeoutMs <= 0) {
+                    throw new SocketTimeoutException("Execution timed out");
+                }
+            }
+            WorkerFrame frame = worker.receive(timeoutMs);
+            if (!execution.getId().equals(frame.getExecutionId())) {
+                logger.warn("Ignoring frame {} from {} while waiting for execution {}", frame, worker, execution);
+                continue;
+            }
+            switch (frame.getType()) {
+                case LOG:
+                    execution.getLogger().info(frame.get(WorkerFrame.MESSAGE));
+                    break;
+                case CHECKPOINT:
+                    execution.saveCheckpoint(frame.getAll(WorkerFrame.CHECKPOINT_PREFIX));
+                    break;
+                case PROGRESS:
+                    execution.reportProgress((int) frame.getLong(WorkerFrame.PROGRESS_PERCENT, 0), frame.get(WorkerFrame.MESSAGE));
+                    break;
+                case RESULT:
+                    return frame;
+                default:
+                    logger.warn("Ignoring unexpected frame {} from {}", frame, worker);
+                    break;
+            }
+        }
+    }
+
+    private WorkerProcess borrowWorker() {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExecutionException("Interrupted while waiting for a worker process", e, Status.CANCELLED);
+        }
+        try {
+            WorkerProcess worker;
+            while ((worker = idleWorkers.poll()) != null) {
+                if (worker.isHealthy(STATUS_TIMEOUT_MS)) {
+                    return worker;
+                }
+                logger.warn("Discarding unhealthy {}", worker);
+                worker.destroy();
+            }
+            worker = WorkerProcess.start(javaCommand, classpath, jvmArgs);
+            logger.info("Started {}", worker);
+            return worker;
+        } catch (IOException | RuntimeException e) {
+            permits.release();
+            throw new ExecutionException("Exception occurred while starting a worker process", e);
+        }
+    }
+
+    private boolean shouldRecycle(WorkerProcess worker) {
+        int executionCount = worker.incrementExecutionCount();
+        if (maxExecutionsPerWorker > 0 && executionCount >= maxExecutionsPerWorker) {
+            logger.info("Recycling {} after {} executions", worker, executionCount);
+            return true;
+        }
+        if (maxWorkerHeapBytes > 0 && worker.getHeapUsed() > maxWorkerHeapBytes) {
+            logger.info("Recycling {} since its used heap {} exceeds {}", worker, worker.getHeapUsed(), maxWorkerHeapBytes);
+            return true;
+        }
+        return false;
+    }
+
+    private void returnWorker(WorkerProcess worker, boolean recycle) {
+        try {
+            if (recycle) {
+                worker.shutdown(SHUTDOWN_GRACE_PERIOD_MS);
+            } else {
+                idleWorkers.offer(worker);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void destroyWorkers() {
+        WorkerProcess worker;
+        while ((worker = idleWorkers.poll()) != null) {
+            worker.destroy();
+        }
+        for (WorkerProcess running : runningWorkers.values()) {
+            running.destroy();
+        }
+    }
+}
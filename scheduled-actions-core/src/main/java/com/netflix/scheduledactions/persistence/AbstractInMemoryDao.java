@@ -53,6 +53,9 @@ public abstract class AbstractInMemoryDao<T> {
 
     protected T read(String group, String id) {
         ConcurrentMap<String, T> subMap = map.get(group);
+        if (subMap == null) {
+            return null;
+        }
         for (Iterator<String> iterator2 = subMap.keySet().iterator(); iterator2.hasNext();) {
             String storedId = iterator2.next();
             if (id.equals(storedId)) {
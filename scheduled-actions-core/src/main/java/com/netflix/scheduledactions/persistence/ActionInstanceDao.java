@@ -18,15 +18,92 @@ package com.netflix.scheduledactions.persistence;
 
 import com.netflix.scheduledactions.ActionInstance;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.TreeSet;
+import java.util.UUID;
 
 public interface ActionInstanceDao {
 
+    /**
+     * Sets the id the store gives the actionInstance when it is created in the given group, without writing
+     * anything, so that the actionInstance can be fully formed before its first write. Ids already set are kept.
+     * Returns the id. By default the id is a random UUID, stores that derive their ids from the group have to
+     * override this
+     */
+    public default String assignId(String group, ActionInstance actionInstance) {
+        if (actionInstance.getId() == null) {
+            actionInstance.setId(UUID.randomUUID().toString());
+        }
+        return actionInstance.getId();
+    }
     public String createActionInstance(String group, ActionInstance actionInstance);
     public void updateActionInstance(ActionInstance actionInstance);
+
+    /**
+     * Creates all the given actionInstances, each in its own group, with as few writes as the store allows.
+     * Returns the ids in the order of the given list
+     */
+    public default List<String> createActionInstances(List<ActionInstance> actionInstances) {
+        List<String> ids = new ArrayList<>(actionInstances.size());
+        for (ActionInstance actionInstance : actionInstances) {
+            ids.add(createActionInstance(actionInstance.getGroup(), actionInstance));
+        }
+        return ids;
+    }
+
+    public default void updateActionInstances(List<ActionInstance> actionInstances) {
+        for (ActionInstance actionInstance : actionInstances) {
+            updateActionInstance(actionInstance);
+        }
+    }
     public ActionInstance getActionInstance(String actionInstanceId);
     public void deleteActionInstance(String group, ActionInstance actionInstance);
+
+    /**
+     * Deletes all the given actionInstances, each from its own group, with as few writes as the store allows
+     */
+    public default void deleteActionInstances(List<ActionInstance> actionInstances) {
+        for (ActionInstance actionInstance : actionInstances) {
+            deleteActionInstance(actionInstance.getGroup(), actionInstance);
+        }
+    }
     public List<ActionInstance> getActionInstances(String group);
     public List<ActionInstance> getActionInstances();
 
+    /**
+     * Returns up to count actionInstance ids that come after startAfterId (or from the first one if it is null) in
+     * the order of the store, so that callers can page through all the actionInstances. By default this reads all the
+     * actionInstances for every page and orders their ids, stores that can page through their ids should override it
+     */
+    public default List<String> getActionInstanceIds(String startAfterId, int count) {
+        TreeSet<String> ids = new TreeSet<>();
+        for (ActionInstance actionInstance : getActionInstances()) {
+            ids.add(actionInstance.getId());
+        }
+        List<String> page = new ArrayList<>(Math.min(count, ids.size()));
+        for (String id : startAfterId != null ? ids.tailSet(startAfterId, false) : ids) {
+            if (page.size() == count) {
+                break;
+            }
+            page.add(id);
+        }
+        return page;
+    }
+
+    /**
+     * Returns the actionInstances with the given ids, skipping the ones that don't exist
+     */
+    public default List<ActionInstance> getActionInstances(Collection<String> actionInstanceIds) {
+        List<ActionInstance> actionInstances = new ArrayList<>(actionInstanceIds.size());
+        for (String actionInstanceId : actionInstanceIds) {
+            ActionInstance actionInstance = getActionInstance(actionInstanceId);
+            if (actionInstance != null) {
+                actionInstances.add(actionInstance);
+            }
+        }
+        return actionInstances;
+    }
+
 }
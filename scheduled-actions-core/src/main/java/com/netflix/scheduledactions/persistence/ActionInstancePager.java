@@ -0,0 +1,100 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.scheduledactions.persistence;
+
+import com.netflix.scheduledactions.ActionInstance;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads all the registered {@code ActionInstance}s a page at a time, so that a node never holds all of them at once.
+ *
+ * The calling thread pages through the actionInstance ids while a pool fetches and deserializes the pages in
+ * parallel and hands them to a {@code PageHandler}, with at most two pages per loader thread in flight
+ */
+public class ActionInstancePager {
+
+    public static final int DEFAULT_PAGE_SIZE = 500;
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    private final ActionInstanceDao actionInstanceDao;
+    private final int pageSize;
+    private final int parallelism;
+
+    public ActionInstancePager(ActionInstanceDao actionInstanceDao) {
+        this(actionInstanceDao, DEFAULT_PAGE_SIZE, DEFAULT_PARALLELISM);
+    }
+
+    public ActionInstancePager(ActionInstanceDao actionInstanceDao, int pageSize, int parallelism) {
+        if (pageSize < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("Page size and parallelism have to be greater than 0");
+        }
+        this.actionInstanceDao = actionInstanceDao;
+        this.pageSize = pageSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Hands every page of actionInstances to the given handler and returns once all of them were handled
+     */
+    public void forEachPage(final PageHandler handler) throws InterruptedException {
+        ExecutorService loaders = Executors.newFixedThreadPool(parallelism);
+        final Semaphore inFlight = new Semaphore(parallelism * 2);
+        try {
+            String cursor = null;
+            List<String> ids;
+            do {
+                ids = actionInstanceDao.getActionInstanceIds(cursor, pageSize);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                cursor = ids.get(ids.size() - 1);
+                inFlight.acquire();
+                final List<String> page = ids;
+                loaders.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            handler.onPage(actionInstanceDao.getActionInstances(page));
+                        } catch (Exception e) {
+                            handler.onFailure(page, e);
+                        } finally {
+                            inFlight.release();
+                        }
+                    }
+                });
+            } while (ids.size() == pageSize);
+            loaders.shutdown();
+            loaders.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } finally {
+            loaders.shutdownNow();
+        }
+    }
+
+    /**
+     * Called back on the loader threads, so implementations have to be thread-safe
+     */
+    public interface PageHandler {
+        public void onPage(List<ActionInstance> actionInstances);
+        public void onFailure(List<String> actionInstanceIds, Exception e);
+    }
+}
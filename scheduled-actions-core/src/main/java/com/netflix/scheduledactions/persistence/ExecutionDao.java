@@ -18,7 +18,12 @@ package com.netflix.scheduledactions.persistence;
 
 import com.netflix.scheduledactions.Execution;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 public interface ExecutionDao {
 
@@ -29,4 +34,78 @@ public interface ExecutionDao {
     public List<Execution> getExecutions(String actionInstanceId, int count);
     public List<Execution> getExecutions(String actionInstanceId);
 
+    /**
+     * Creates the given executions of an actionInstance in a single batch where the underlying store supports it
+     * and returns their ids
+     */
+    public default List<String> createExecutions(String actionInstanceId, List<Execution> executions) {
+        List<String> ids = new ArrayList<>(executions.size());
+        for (Execution execution : executions) {
+            ids.add(createExecution(actionInstanceId, execution));
+        }
+        return ids;
+    }
+
+    /**
+     * Updates the given executions in a single batch where the underlying store supports it
+     */
+    public default void updateExecutions(List<Execution> executions) {
+        for (Execution execution : executions) {
+            updateExecution(execution);
+        }
+    }
+
+    /**
+     * Returns the executions for the given execution ids, skipping the ones that no longer exist
+     */
+    public default List<Execution> getExecutionsById(Collection<String> executionIds) {
+        List<Execution> executions = new ArrayList<>(executionIds.size());
+        for (String executionId : executionIds) {
+            Execution execution = getExecution(executionId);
+            if (execution != null) {
+                executions.add(execution);
+            }
+        }
+        return executions;
+    }
+
+    /**
+     * Returns the latest fire time recorded for the executions of the given actionInstance, or null if none of them
+     * was fired at a time. By default this reads the whole execution history of the actionInstance, stores should
+     * keep the last fire time indexed as they create executions instead
+     */
+    public default Date getLastFireTime(String actionInstanceId) {
+        Date lastFireTime = null;
+        for (Execution execution : getExecutions(actionInstanceId)) {
+            if (execution.getFireTime() != null &&
+                (lastFireTime == null || execution.getFireTime().after(lastFireTime))) {
+                lastFireTime = execution.getFireTime();
+            }
+        }
+        return lastFireTime;
+    }
+
+    /**
+     * Returns the ids of the executions that have not completed yet. The index is maintained by
+     * {@code createExecution}, {@code updateExecution(s)} and {@code deleteExecution}, so this does not
+     * have to scan the execution history. Stores that don't keep such an index return no ids, so their executions
+     * are never reaped
+     */
+    public default List<String> getRunningExecutionIds() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Records that the executor with given id is alive for the next {@code ttlSeconds}
+     */
+    public default void heartbeat(String executorId, int ttlSeconds) {
+    }
+
+    /**
+     * Returns the ids of all the executors whose last heartbeat has not expired yet
+     */
+    public default Set<String> getLiveExecutorIds() {
+        return Collections.emptySet();
+    }
+
 }
@@ -18,18 +18,26 @@ package com.netflix.scheduledactions.persistence;
 
 import com.netflix.scheduledactions.ActionInstance;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
 public class InMemoryActionInstanceDao extends AbstractInMemoryDao<ActionInstance> implements ActionInstanceDao {
 
     @Override
-    public String createActionInstance(String group, ActionInstance actionInstance) {
+    public String assignId(String group, ActionInstance actionInstance) {
         if (actionInstance.getId() == null) {
             actionInstance.setId(createId(group, UUID.randomUUID().toString()));
         } else if (!isIdFormat(actionInstance.getId())) {
             actionInstance.setId(createId(group, actionInstance.getId()));
         }
+        return actionInstance.getId();
+    }
+
+    @Override
+    public String createActionInstance(String group, ActionInstance actionInstance) {
+        assignId(group, actionInstance);
         create(group, actionInstance.getId(), actionInstance);
         return actionInstance.getId();
     }
@@ -46,6 +54,18 @@ public class InMemoryActionInstanceDao extends AbstractInMemoryDao<ActionInstanc
         return read(group, actionInstanceId);
     }
 
+    @Override
+    public List<String> getActionInstanceIds(String startAfterId, int count) {
+        List<String> ids = new ArrayList<>();
+        for (ActionInstance actionInstance : list()) {
+            if (startAfterId == null || actionInstance.getId().compareTo(startAfterId) > 0) {
+                ids.add(actionInstance.getId());
+            }
+        }
+        Collections.sort(ids);
+        return ids.size() > count ? new ArrayList<>(ids.subList(0, count)) : ids;
+    }
+
     @Override
     public void deleteActionInstance(String group, ActionInstance actionInstance) {
         delete(group, actionInstance.getId());
@@ -17,17 +17,31 @@
 package com.netflix.scheduledactions.persistence;
 
 import com.netflix.scheduledactions.Execution;
-import com.netflix.fenzo.triggers.persistence.AbstractInMemoryDao;
+import com.netflix.scheduledactions.SchedulerClock;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 public class InMemoryExecutionDao extends AbstractInMemoryDao<Execution> implements ExecutionDao {
 
+    private final Set<String> runningExecutionIds = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<String, Long> heartbeatExpiryTimes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> lastFireTimes = new ConcurrentHashMap<>();
+
     @Override
     public String createExecution(String actionInstanceId, Execution execution) {
         execution.setId(createId(actionInstanceId, UUID.randomUUID().toString()));
         create(actionInstanceId, execution.getId(), execution);
+        updateRunningIndex(execution);
+        recordFireTime(actionInstanceId, execution);
         return execution.getId();
     }
 
@@ -36,6 +50,7 @@ public class InMemoryExecutionDao extends AbstractInMemoryDao<Execution> impleme
         try {
             String actionInstanceId = extractGroupFromId(execution.getId());
             update(actionInstanceId, execution.getId(), execution);
+            updateRunningIndex(execution);
         } catch (Exception e) {
             throw e;
         }
@@ -50,6 +65,7 @@ public class InMemoryExecutionDao extends AbstractInMemoryDao<Execution> impleme
     @Override
     public void deleteExecution(String actionInstanceId, Execution execution) {
         delete(actionInstanceId, execution.getId());
+        runningExecutionIds.remove(execution.getId());
     }
 
     @Override
@@ -62,4 +78,53 @@ public class InMemoryExecutionDao extends AbstractInMemoryDao<Execution> impleme
         return list(actionInstanceId);
     }
 
+    @Override
+    public Date getLastFireTime(String actionInstanceId) {
+        Long lastFireTime = lastFireTimes.get(actionInstanceId);
+        return lastFireTime != null ? new Date(lastFireTime) : null;
+    }
+
+    @Override
+    public List<String> getRunningExecutionIds() {
+        return new ArrayList<>(runningExecutionIds);
+    }
+
+    @Override
+    public void heartbeat(String executorId, int ttlSeconds) {
+        heartbeatExpiryTimes.put(executorId, SchedulerClock.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttlSeconds));
+    }
+
+    @Override
+    public Set<String> getLiveExecutorIds() {
+        long now = SchedulerClock.currentTimeMillis();
+        Set<String> executorIds = new HashSet<>();
+        for (Map.Entry<String, Long> entry : heartbeatExpiryTimes.entrySet()) {
+            if (entry.getValue() > now) {
+                executorIds.add(entry.getKey());
+            } else {
+                heartbeatExpiryTimes.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        return executorIds;
+    }
+
+    private void recordFireTime(String actionInstanceId, Execution execution) {
+        if (execution.getFireTime() == null) {
+            return;
+        }
+        long fireTime = execution.getFireTime().getTime();
+        Long last = lastFireTimes.putIfAbsent(actionInstanceId, fireTime);
+        while (last != null && last < fireTime && !lastFireTimes.replace(actionInstanceId, last, fireTime)) {
+            last = lastFireTimes.putIfAbsent(actionInstanceId, fireTime);
+        }
+    }
+
+    private void updateRunningIndex(Execution execution) {
+        if (execution.getStatus() == null || !execution.getStatus().isComplete()) {
+            runningExecutionIds.add(execution.getId());
+        } else {
+            runningExecutionIds.remove(execution.getId());
+        }
+    }
+
 }
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.scheduledactions.scheduler;
+
+import com.netflix.scheduledactions.ActionInstance;
+import com.netflix.scheduledactions.ActionOperationsDelegate;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Schedules the triggers of {@code ActionInstance}s and calls back the {@code ActionOperationsDelegate} every time
+ * one of them fires. Failures are reported as {@code ActionOperationException}s
+ */
+public interface ActionScheduler {
+
+    public void initialize(ActionOperationsDelegate delegate);
+    public void destroy();
+
+    /**
+     * Registers the trigger of a newly created {@code ActionInstance}, persisting it if the scheduler needs to
+     */
+    public void register(ActionInstance actionInstance);
+
+    /**
+     * Registers the triggers of all the given {@code ActionInstance}s in one pass. Returns the failures keyed by
+     * actionInstance id, the triggers of the other instances are registered
+     */
+    public Map<String, Exception> registerAll(List<ActionInstance> actionInstances);
+    public void enable(ActionInstance actionInstance);
+    public void disable(ActionInstance actionInstance);
+    public void delete(ActionInstance actionInstance);
+
+    /**
+     * Enables, disables or deletes the triggers of all the given {@code ActionInstance}s in one pass, e.g. for a
+     * whole group. Returns the failures keyed by actionInstance id, the other instances are handled
+     */
+    public Map<String, Exception> enableAll(List<ActionInstance> actionInstances);
+    public Map<String, Exception> disableAll(List<ActionInstance> actionInstances);
+    public Map<String, Exception> deleteAll(List<ActionInstance> actionInstances);
+
+    /**
+     * Schedules an already registered trigger on this node only, e.g. when another node of a cluster registered it
+     */
+    public void schedule(ActionInstance actionInstance);
+
+    /**
+     * Unschedules the trigger on this node only
+     */
+    public void unschedule(ActionInstance actionInstance);
+
+    /**
+     * Unschedules the trigger of the actionInstance with the given id on this node only, for when the instance
+     * cannot be read anymore, e.g. because another node of a cluster deleted it
+     */
+    public void unschedule(String actionInstanceId);
+
+    public boolean isScheduled(ActionInstance actionInstance);
+}
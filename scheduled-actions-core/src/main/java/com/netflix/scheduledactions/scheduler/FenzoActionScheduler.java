@@ -0,0 +1,275 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.scheduledactions.scheduler;
+
+import com.netflix.fenzo.triggers.ScheduledTrigger;
+import com.netflix.fenzo.triggers.TriggerOperator;
+import com.netflix.fenzo.triggers.exceptions.SchedulerException;
+import com.netflix.scheduledactions.AbstractActionOperationsDelegate;
+import com.netflix.scheduledactions.ActionInstance;
+import com.netflix.scheduledactions.ActionOperationsDelegate;
+import com.netflix.scheduledactions.exceptions.ActionOperationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@code ActionScheduler} backed by a fenzo {@code TriggerOperator}. The fenzo trigger is stored on the
+ * {@code ActionInstance} so that the other nodes of a cluster can schedule it as well. The triggers scheduled on
+ * this node are also kept by actionInstance id, so that they can be unscheduled once the instance is gone
+ */
+public class FenzoActionScheduler implements ActionScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(FenzoActionScheduler.class);
+
+    private final TriggerOperator triggerOperator;
+    private final boolean manageTriggerOperator;
+    private final ConcurrentMap<String, ScheduledTrigger> scheduledTriggers = new ConcurrentHashMap<>();
+
+    public FenzoActionScheduler(TriggerOperator triggerOperator) {
+        this(triggerOperator, true);
+    }
+
+    /**
+     * @param manageTriggerOperator whether {@code initialize()} and {@code destroy()} are passed on to the
+     *                              {@code TriggerOperator}, pass false if the application manages its lifecycle
+     */
+    public FenzoActionScheduler(TriggerOperator triggerOperator, boolean manageTriggerOperator) {
+        if (triggerOperator == null) {
+            throw new IllegalArgumentException("TriggerOperator cannot be null for FenzoActionScheduler");
+        }
+        this.triggerOperator = triggerOperator;
+        this.manageTriggerOperator = manageTriggerOperator;
+    }
+
+    public TriggerOperator getTriggerOperator() {
+        return triggerOperator;
+    }
+
+    @Override
+    public void initialize(ActionOperationsDelegate delegate) {
+        if (manageTriggerOperator) {
+            try {
+                triggerOperator.initialize();
+            } catch (SchedulerException e) {
+                throw new ActionOperationException("Exception occurred while initializing the TriggerOperator", e);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (manageTriggerOperator) {
+            try {
+                triggerOperator.destroy();
+            } catch (SchedulerException e) {
+                throw new ActionOperationException("Exception occurred while destroying the TriggerOperator", e);
+            }
+        }
+    }
+
+    @Override
+    public void register(ActionInstance actionInstance) {
+        if (actionInstance.getTrigger() == null) {
+            return;
+        }
+        actionInstance.setFenzoTrigger(actionInstance.getTrigger().createFenzoTrigger(actionInstance.getContext(),
+            AbstractActionOperationsDelegate.InternalAction.class));
+        if (actionInstance.getFenzoTrigger() == null) {
+            // Triggers that do not fire at a time, such as EventTrigger, have nothing to register
+            return;
+        }
+        try {
+            triggerOperator.registerTrigger(actionInstance.getGroup(), actionInstance.getFenzoTrigger());
+            track(actionInstance);
+        } catch (SchedulerException e) {
+            throw new ActionOperationException(String.format(
+                "Exception occurred while registering actionInstance %s", actionInstance), e);
+        }
+    }
+
+    /**
+     * The {@code TriggerOperator} has no bulk API, so every trigger is still registered (and persisted) on its own
+     */
+    @Override
+    public Map<String, Exception> registerAll(List<ActionInstance> actionInstances) {
+        Map<String, Exception> failures = new LinkedHashMap<>();
+        for (ActionInstance actionInstance : actionInstances) {
+            try {
+                register(actionInstance);
+            } catch (Exception e) {
+                failures.put(actionInstance.getId(), e);
+            }
+        }
+        return failures;
+    }
+
+    @Override
+    public void enable(ActionInstance actionInstance) {
+        if (actionInstance.getFenzoTrigger() != null) {
+            try {
+                triggerOperator.enableTrigger(actionInstance.getFenzoTrigger());
+                track(actionInstance);
+            } catch (SchedulerException e) {
+                throw new ActionOperationException(String.format(
+                    "Exception occurred while enabling trigger %s for actionInstance %s", actionInstance.getTrigger(), actionInstance), e);
+            }
+        }
+    }
+
+    @Override
+    public void disable(ActionInstance actionInstance) {
+        if (actionInstance.getFenzoTrigger() != null) {
+            try {
+                triggerOperator.disableTrigger(actionInstance.getFenzoTrigger());
+                untrack(actionInstance);
+            } catch (SchedulerException e) {
+                throw new ActionOperationException(String.format(
+                    "Exception occurred while disabling trigger %s for actionInstance %s", actionInstance.getTrigger(), actionInstance), e);
+            }
+        }
+    }
+
+    @Override
+    public void delete(ActionInstance actionInstance) {
+        if (actionInstance.getFenzoTrigger() != null) {
+            try {
+                triggerOperator.deleteTrigger(actionInstance.getGroup(), actionInstance.getFenzoTrigger());
+                untrack(actionInstance);
+            } catch (SchedulerException e) {
+                throw new ActionOperationException(String.format(
+                    "Exception occurred while deleting trigger %s for actionInstance %s", actionInstance.getTrigger(), actionInstance), e);
+            }
+        }
+    }
+
+    /**
+     * The {@code TriggerOperator} has no bulk API either, so these go through the triggers one by one as well
+     */
+    @Override
+    public Map<String, Exception> enableAll(List<ActionInstance> actionInstances) {
+        Map<String, Exception> failures = new LinkedHashMap<>();
+        for (ActionInstance actionInstance : actionInstances) {
+            try {
+                enable(actionInstance);
+            } catch (Exception e) {
+                failures.put(actionInstance.getId(), e);
+            }
+        }
+        return failures;
+    }
+
+    @Override
+    public Map<String, Exception> disableAll(List<ActionInstance> actionInstances) {
+        Map<String, Exception> failures = new LinkedHashMap<>();
+        for (ActionInstance actionInstance : actionInstances) {
+            try {
+                disable(actionInstance);
+            } catch (Exception e) {
+                failures.put(actionInstance.getId(), e);
+            }
+        }
+        return failures;
+    }
+
+    @Override
+    public Map<String, Exception> deleteAll(List<ActionInstance> actionInstances) {
+        Map<String, Exception> failures = new LinkedHashMap<>();
+        for (ActionInstance actionInstance : actionInstances) {
+            try {
+                delete(actionInstance);
+            } catch (Exception e) {
+                failures.put(actionInstance.getId(), e);
+            }
+        }
+        return failures;
+    }
+
+    @Override
+    public void schedule(ActionInstance actionInstance) {
+        if (actionInstance.getFenzoTrigger() instanceof ScheduledTrigger) {
+            try {
+                triggerOperator.scheduleTrigger((ScheduledTrigger) actionInstance.getFenzoTrigger());
+                track(actionInstance);
+            } catch (SchedulerException e) {
+                throw new ActionOperationException(String.format(
+                    "Exception occurred while scheduling trigger %s for actionInstance %s", actionInstance.getTrigger(), actionInstance), e);
+            }
+        }
+    }
+
+    @Override
+    public void unschedule(ActionInstance actionInstance) {
+        if (actionInstance.getFenzoTrigger() instanceof ScheduledTrigger) {
+            try {
+                triggerOperator.unscheduleTrigger((ScheduledTrigger) actionInstance.getFenzoTrigger());
+                untrack(actionInstance);
+            } catch (SchedulerException e) {
+                throw new ActionOperationException(String.format(
+                    "Exception occurred while unscheduling trigger %s for actionInstance %s", actionInstance.getTrigger(), actionInstance), e);
+            }
+        }
+    }
+
+    @Override
+    public void unschedule(String actionInstanceId) {
+        ScheduledTrigger trigger = scheduledTriggers.remove(actionInstanceId);
+        if (trigger != null) {
+            try {
+                triggerOperator.unscheduleTrigger(trigger);
+            } catch (SchedulerException e) {
+                throw new ActionOperationException(String.format(
+                    "Exception occurred while unscheduling the trigger of actionInstance %s", actionInstanceId), e);
+            }
+        }
+    }
+
+    @Override
+    public boolean isScheduled(ActionInstance actionInstance) {
+        try {
+            if (actionInstance != null && actionInstance.getFenzoTrigger() instanceof ScheduledTrigger) {
+                return triggerOperator.isScheduled((ScheduledTrigger) actionInstance.getFenzoTrigger());
+            }
+        } catch (Exception e) {
+            logger.error("Exception occurred while checking actionInstance {}", actionInstance, e);
+        }
+        return false;
+    }
+
+    private void track(ActionInstance actionInstance) {
+        if (actionInstance.getFenzoTrigger() instanceof ScheduledTrigger) {
+            scheduledTriggers.put(actionInstance.getId(), (ScheduledTrigger) actionInstance.getFenzoTrigger());
+        }
+    }
+
+    /**
+     * Only forgets the trigger of the given instance, an update may already have scheduled its replacement
+     */
+    private void untrack(ActionInstance actionInstance) {
+        ScheduledTrigger tracked = scheduledTriggers.get(actionInstance.getId());
+        if (tracked != null && actionInstance.getFenzoTrigger() != null &&
+            Objects.equals(tracked.getId(), actionInstance.getFenzoTrigger().getId())) {
+            scheduledTriggers.remove(actionInstance.getId(), tracked);
+        }
+    }
+}
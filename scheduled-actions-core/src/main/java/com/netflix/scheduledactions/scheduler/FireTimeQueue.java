@@ -0,0 +1,301 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.scheduledactions.scheduler;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Min-queue of actionInstance ids ordered by their next fire time, specialized for primitives so that millions of
+ * pending fires cost a few arrays instead of an object (and a boxed {@code Date}) each.
+ *
+ * Every id owns an int slot for as long as it is queued. The heap is a d-ary heap of long fire times with the slot
+ * of each entry in a parallel int[], every slot remembers its position in the heap and the ids are found through an
+ * open addressing table of slots, so {@link #schedule(String, long)} (which also reschedules) and
+ * {@link #remove(String)} are O(log n) without a search. Not thread-safe
+ */
+public class FireTimeQueue {
+
+    public static final int DEFAULT_ARITY = 4;
+    public static final long NOT_SCHEDULED = Long.MIN_VALUE;
+
+    private static final int EMPTY = 0;
+
+    private final int arity;
+
+    // heap, by position
+    private long[] fireTimes;
+    private int[] heapSlots;
+
+    // by slot
+    private int[] positions;
+    private String[] ids;
+    private int[] freeSlots;
+    private int freeCount;
+    private int nextSlot;
+
+    // id -> slot + 1, linear probing
+    private int[] table;
+    private int size;
+
+    public FireTimeQueue() {
+        this(DEFAULT_ARITY, 16);
+    }
+
+    public FireTimeQueue(int arity, int initialCapacity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException(String.format("Invalid heap arity %d", arity));
+        }
+        int capacity = Math.max(initialCapacity, 2);
+        this.arity = arity;
+        this.fireTimes = new long[capacity];
+        this.heapSlots = new int[capacity];
+        this.positions = new int[capacity];
+        this.ids = new String[capacity];
+        this.freeSlots = new int[capacity];
+        this.table = new int[tableSizeFor(capacity)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(String id) {
+        return slotOf(id) >= 0;
+    }
+
+    /**
+     * Queues the given id at the given fire time, or moves it there if it is already queued. Returns true if the
+     * id was not queued before
+     */
+    public boolean schedule(String id, long fireTime) {
+        if (id == null) {
+            throw new IllegalArgumentException("Id cannot be null");
+        }
+        int slot = slotOf(id);
+        if (slot >= 0) {
+            int position = positions[slot];
+            long previous = fireTimes[position];
+            fireTimes[position] = fireTime;
+            if (fireTime < previous) {
+                siftUp(position);
+            } else if (fireTime > previous) {
+                siftDown(position);
+            }
+            return false;
+        }
+        if (size == fireTimes.length) {
+            grow();
+        }
+        slot = allocateSlot();
+        ids[slot] = id;
+        insert(id, slot);
+        fireTimes[size] = fireTime;
+        heapSlots[size] = slot;
+        positions[slot] = size;
+        siftUp(size++);
+        return true;
+    }
+
+    /**
+     * Removes the given id from the queue, returns false if it was not queued
+     */
+    public boolean remove(String id) {
+        int slot = slotOf(id);
+        if (slot < 0) {
+            return false;
+        }
+        removeAt(positions[slot]);
+        return true;
+    }
+
+    /**
+     * Returns the fire time the given id is queued at, or {@link #NOT_SCHEDULED}
+     */
+    public long getFireTime(String id) {
+        int slot = slotOf(id);
+        return slot >= 0 ? fireTimes[positions[slot]] : NOT_SCHEDULED;
+    }
+
+    public String peekId() {
+        return size == 0 ? null : ids[heapSlots[0]];
+    }
+
+    public long peekFireTime() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return fireTimes[0];
+    }
+
+    /**
+     * Removes and returns the id with the earliest fire time, or null if the queue is empty
+     */
+    public String poll() {
+        if (size == 0) {
+            return null;
+        }
+        String id = ids[heapSlots[0]];
+        removeAt(0);
+        return id;
+    }
+
+    public void clear() {
+        Arrays.fill(ids, null);
+        Arrays.fill(table, EMPTY);
+        size = 0;
+        freeCount = 0;
+        nextSlot = 0;
+    }
+
+    private void removeAt(int position) {
+        int slot = heapSlots[position];
+        delete(ids[slot], slot);
+        ids[slot] = null;
+        freeSlots[freeCount++] = slot;
+        int last = --size;
+        if (position != last) {
+            long fireTime = fireTimes[last];
+            fireTimes[position] = fireTime;
+            heapSlots[position] = heapSlots[last];
+            positions[heapSlots[position]] = position;
+            siftDown(position);
+            siftUp(position);
+        }
+    }
+
+    private void siftUp(int position) {
+        long fireTime = fireTimes[position];
+        int slot = heapSlots[position];
+        while (position > 0) {
+            int parent = (position - 1) / arity;
+            if (fireTimes[parent] <= fireTime) {
+                break;
+            }
+            place(parent, position);
+            position = parent;
+        }
+        fireTimes[position] = fireTime;
+        heapSlots[position] = slot;
+        positions[slot] = position;
+    }
+
+    private void siftDown(int position) {
+        long fireTime = fireTimes[position];
+        int slot = heapSlots[position];
+        while (true) {
+            int first = arity * position + 1;
+            if (first >= size) {
+                break;
+            }
+            int end = Math.min(first + arity, size);
+            int child = first;
+            for (int i = first + 1; i < end; i++) {
+                if (fireTimes[i] < fireTimes[child]) {
+                    child = i;
+                }
+            }
+            if (fireTime <= fireTimes[child]) {
+                break;
+            }
+            place(child, position);
+            position = child;
+        }
+        fireTimes[position] = fireTime;
+        heapSlots[position] = slot;
+        positions[slot] = position;
+    }
+
+    private void place(int from, int to) {
+        fireTimes[to] = fireTimes[from];
+        heapSlots[to] = heapSlots[from];
+        positions[heapSlots[to]] = to;
+    }
+
+    private int allocateSlot() {
+        return freeCount > 0 ? freeSlots[--freeCount] : nextSlot++;
+    }
+
+    private void grow() {
+        int capacity = fireTimes.length * 2;
+        fireTimes = Arrays.copyOf(fireTimes, capacity);
+        heapSlots = Arrays.copyOf(heapSlots, capacity);
+        positions = Arrays.copyOf(positions, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        freeSlots = Arrays.copyOf(freeSlots, capacity);
+        table = new int[tableSizeFor(capacity)];
+        for (int i = 0; i < size; i++) {
+            int slot = heapSlots[i];
+            insert(ids[slot], slot);
+        }
+    }
+
+    private int slotOf(String id) {
+        if (id == null) {
+            return -1;
+        }
+        int mask = table.length - 1;
+        for (int index = hash(id) & mask; table[index] != EMPTY; index = (index + 1) & mask) {
+            int slot = table[index] - 1;
+            if (id.equals(ids[slot])) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(String id, int slot) {
+        int mask = table.length - 1;
+        int index = hash(id) & mask;
+        while (table[index] != EMPTY) {
+            index = (index + 1) & mask;
+        }
+        table[index] = slot + 1;
+    }
+
+    private void delete(String id, int slot) {
+        int mask = table.length - 1;
+        int hole = hash(id) & mask;
+        while (table[hole] != slot + 1) {
+            hole = (hole + 1) & mask;
+        }
+        // shift back the entries probed past the hole so that lookups do not stop at it
+        for (int index = (hole + 1) & mask; table[index] != EMPTY; index = (index + 1) & mask) {
+            int home = hash(ids[table[index] - 1]) & mask;
+            if (((index - home) & mask) >= ((index - hole) & mask)) {
+                table[hole] = table[index];
+                hole = index;
+            }
+        }
+        table[hole] = EMPTY;
+    }
+
+    private static int hash(String id) {
+        int h = id.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    // at most half full
+    private static int tableSizeFor(int capacity) {
+        return Integer.highestOneBit(capacity - 1) << 2;
+    }
+}
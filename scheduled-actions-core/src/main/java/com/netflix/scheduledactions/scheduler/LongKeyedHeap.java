@@ -0,0 +1,157 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.scheduledactions.scheduler;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Binary min-heap keyed by primitive longs. Every node remembers its own position in the heap so that it can be
+ * removed or re-keyed in O(log n) without a search. Not thread-safe
+ */
+class LongKeyedHeap<T extends LongKeyedHeap.Node> {
+
+    static class Node {
+        int heapIndex = -1;
+
+        boolean isInHeap() {
+            return heapIndex >= 0;
+        }
+    }
+
+    private long[] keys;
+    private Node[] nodes;
+    private int size;
+
+    LongKeyedHeap() {
+        this(16);
+    }
+
+    LongKeyedHeap(int initialCapacity) {
+        this.keys = new long[Math.max(initialCapacity, 2)];
+        this.nodes = new Node[keys.length];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void add(long key, T node) {
+        if (node.isInHeap()) {
+            throw new IllegalArgumentException("Node is already in the heap");
+        }
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            nodes = Arrays.copyOf(nodes, size * 2);
+        }
+        keys[size] = key;
+        nodes[size] = node;
+        node.heapIndex = size;
+        siftUp(size++);
+    }
+
+    long peekKey() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return keys[0];
+    }
+
+    @SuppressWarnings("unchecked")
+    T peek() {
+        return size == 0 ? null : (T) nodes[0];
+    }
+
+    T poll() {
+        T node = peek();
+        if (node != null) {
+            removeAt(0);
+        }
+        return node;
+    }
+
+    boolean remove(T node) {
+        int index = node.heapIndex;
+        if (index < 0 || index >= size || nodes[index] != node) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    private void removeAt(int index) {
+        Node removed = nodes[index];
+        int last = --size;
+        if (index != last) {
+            move(last, index);
+            siftDown(index);
+            siftUp(index);
+        }
+        keys[last] = 0L;
+        nodes[last] = null;
+        removed.heapIndex = -1;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (keys[parent] <= keys[index]) {
+                break;
+            }
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (keys[index] <= keys[child]) {
+                break;
+            }
+            swap(index, child);
+            index = child;
+        }
+    }
+
+    private void move(int from, int to) {
+        keys[to] = keys[from];
+        nodes[to] = nodes[from];
+        nodes[to].heapIndex = to;
+    }
+
+    private void swap(int i, int j) {
+        long key = keys[i];
+        Node node = nodes[i];
+        keys[i] = keys[j];
+        nodes[i] = nodes[j];
+        keys[j] = key;
+        nodes[j] = node;
+        nodes[i].heapIndex = i;
+        nodes[j].heapIndex = j;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.scheduledactions.scheduler;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded queue of missed fires waiting to be replayed. The replays of every actionInstance are released one
+ * interval apart, so catching up on a long outage does not burst on the downstreams of the action.
+ * Not thread-safe, the {@code TimingWheelActionScheduler} guards it with its lock
+ */
+class MisfireReplayQueue {
+
+    static final int DEFAULT_CAPACITY = 10000;
+
+    private final int capacity;
+    private final LongKeyedHeap<Replay> heap = new LongKeyedHeap<>();
+    private final Map<String, Deque<Replay>> pending = new HashMap<>();
+
+    MisfireReplayQueue(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Queues a replay of the given fire time, released intervalMs after the previous replay of the same
+     * actionInstance and not before now. Returns false if the queue is full
+     */
+    boolean offer(String actionInstanceId, long fireTime, long intervalMs, long now) {
+        if (heap.size() >= capacity) {
+            return false;
+        }
+        Deque<Replay> replays = pending.get(actionInstanceId);
+        if (replays == null) {
+            replays = new ArrayDeque<>();
+            pending.put(actionInstanceId, replays);
+        }
+        long releaseTime = replays.isEmpty() ? now : Math.max(now, replays.peekLast().releaseTime + intervalMs);
+        Replay replay = new Replay(actionInstanceId, fireTime, releaseTime);
+        replays.addLast(replay);
+        heap.add(releaseTime, replay);
+        return true;
+    }
+
+    /**
+     * Moves the replays that are released by now to the given list, as (actionInstanceId, fireTime) pairs
+     */
+    void pollReleased(long now, List<Replay> released) {
+        while (!heap.isEmpty() && heap.peekKey() <= now) {
+            Replay replay = heap.poll();
+            Deque<Replay> replays = pending.get(replay.actionInstanceId);
+            replays.remove(replay);
+            if (replays.isEmpty()) {
+                pending.remove(replay.actionInstanceId);
+            }
+            released.add(replay);
+        }
+    }
+
+    /**
+     * Drops the pending replays of the given actionInstance, returns how many were dropped
+     */
+    int remove(String actionInstanceId) {
+        Deque<Replay> replays = pending.remove(actionInstanceId);
+        if (replays == null) {
+            return 0;
+        }
+        for (Replay replay : replays) {
+            heap.remove(replay);
+        }
+        return replays.size();
+    }
+
+    int size() {
+        return heap.size();
+    }
+
+    int remainingCapacity() {
+        return capacity - heap.size();
+    }
+
+    static final class Replay extends LongKeyedHeap.Node {
+        final String actionInstanceId;
+        final long fireTime;
+        final long releaseTime;
+
+        private Replay(String actionInstanceId, long fireTime, long releaseTime) {
+            this.actionInstanceId = actionInstanceId;
+            this.fireTime = fireTime;
+            this.releaseTime = releaseTime;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.scheduledactions.scheduler;
+
+import com.netflix.scheduledactions.ActionInstance;
+import com.netflix.scheduledactions.UpcomingSchedule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Next fire time of every scheduled {@code ActionInstance}, sorted by time.
+ *
+ * The fires are ordered by (fire time, actionInstance id) in a treap whose nodes know the size of their subtree,
+ * and a map from actionInstance id to its node is the only other structure. A treap rather than sorted arrays,
+ * because every fire moves one entry and shifting sorted arrays makes that O(n): here adding, moving and removing a
+ * fire time are O(log n), and moving one reuses its node. Counting the triggers due in a window is two rank lookups,
+ * and listing them is a descent to the start of the window followed by an in-order walk of the fires listed
+ */
+public class NextFireTimeIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(NextFireTimeIndex.class);
+
+    private final Map<String, Node> nodes = new HashMap<>();
+    private final Random random = new Random();
+    private Node root;
+
+    /**
+     * Indexes the first fire time of the trigger of the given {@code ActionInstance} after the given time, or
+     * removes it from the index if it is disabled or its trigger does not fire anymore
+     */
+    public void index(ActionInstance actionInstance, Date after) {
+        if (actionInstance.getTrigger() == null || actionInstance.isDisabled()) {
+            remove(actionInstance.getId());
+            return;
+        }
+        Date next;
+        try {
+            next = actionInstance.getTrigger().getNextFireTime(actionInstance.getContext(), after);
+        } catch (Exception e) {
+            logger.warn("Exception occurred while computing the next fire time of actionInstance {}", actionInstance, e);
+            next = null;
+        }
+        if (next != null) {
+            put(actionInstance.getId(), next.getTime());
+        } else {
+            remove(actionInstance.getId());
+        }
+    }
+
+    public synchronized void put(String actionInstanceId, long fireTime) {
+        Node node = nodes.get(actionInstanceId);
+        if (node == null) {
+            node = new Node(actionInstanceId, random.nextInt());
+            nodes.put(actionInstanceId, node);
+        } else if (node.fireTime == fireTime) {
+            return;
+        } else {
+            root = delete(root, node.fireTime, actionInstanceId);
+            node.left = null;
+            node.right = null;
+            node.size = 1;
+        }
+        node.fireTime = fireTime;
+        root = insert(root, node);
+    }
+
+    public synchronized void remove(String actionInstanceId) {
+        Node node = nodes.remove(actionInstanceId);
+        if (node != null) {
+            root = delete(root, node.fireTime, actionInstanceId);
+        }
+    }
+
+    /**
+     * Returns the indexed next fire time of the given actionInstance, or null if it is not indexed
+     */
+    public synchronized Date get(String actionInstanceId) {
+        Node node = nodes.get(actionInstanceId);
+        return node != null ? new Date(node.fireTime) : null;
+    }
+
+    /**
+     * Returns the number of triggers due in [from, to)
+     */
+    public synchronized int count(long from, long to) {
+        return Math.max(0, rank(to) - rank(from));
+    }
+
+    /**
+     * Returns the triggers due in [from, to), at most limit of them and soonest first
+     */
+    public synchronized UpcomingSchedule upcoming(long from, long to, int limit) {
+        List<UpcomingSchedule.Fire> fires = new ArrayList<>();
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        while (node != null) {
+            if (node.fireTime < from) {
+                node = node.right;
+            } else {
+                path.push(node);
+                node = node.left;
+            }
+        }
+        while (!path.isEmpty() && fires.size() < limit) {
+            node = path.pop();
+            if (node.fireTime >= to) {
+                break;
+            }
+            fires.add(new UpcomingSchedule.Fire(node.actionInstanceId, new Date(node.fireTime)));
+            for (Node next = node.right; next != null; next = next.left) {
+                path.push(next);
+            }
+        }
+        return new UpcomingSchedule(new Date(from), new Date(to), count(from, to), fires);
+    }
+
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Returns the number of fires before the given time
+     */
+    private int rank(long time) {
+        int rank = 0;
+        Node node = root;
+        while (node != null) {
+            if (node.fireTime < time) {
+                rank += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return rank;
+    }
+
+    private Node insert(Node tree, Node node) {
+        if (tree == null) {
+            return node;
+        }
+        if (node.priority > tree.priority) {
+            split(tree, node.fireTime, node.actionInstanceId, node);
+            update(node);
+            return node;
+        }
+        if (compare(tree, node.fireTime, node.actionInstanceId) > 0) {
+            tree.left = insert(tree.left, node);
+        } else {
+            tree.right = insert(tree.right, node);
+        }
+        update(tree);
+        return tree;
+    }
+
+    private Node delete(Node tree, long fireTime, String actionInstanceId) {
+        if (tree == null) {
+            return null;
+        }
+        int cmp = compare(tree, fireTime, actionInstanceId);
+        if (cmp == 0) {
+            return merge(tree.left, tree.right);
+        }
+        if (cmp > 0) {
+            tree.left = delete(tree.left, fireTime, actionInstanceId);
+        } else {
+            tree.right = delete(tree.right, fireTime, actionInstanceId);
+        }
+        update(tree);
+        return tree;
+    }
+
+    /**
+     * Splits the tree into the fires before (fireTime, actionInstanceId), which become the left child of the given
+     * node, and the ones after it, which become its right child
+     */
+    private static void split(Node tree, long fireTime, String actionInstanceId, Node into) {
+        if (tree == null) {
+            into.left = null;
+            into.right = null;
+            return;
+        }
+        if (compare(tree, fireTime, actionInstanceId) < 0) {
+            split(tree.right, fireTime, actionInstanceId, into);
+            tree.right = into.left;
+            update(tree);
+            into.left = tree;
+        } else {
+            split(tree.left, fireTime, actionInstanceId, into);
+            tree.left = into.right;
+            update(tree);
+            into.right = tree;
+        }
+    }
+
+    /**
+     * Merges two trees where every fire of the first one is before every fire of the second one
+     */
+    private static Node merge(Node first, Node second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            first.right = merge(first.right, second);
+            update(first);
+            return first;
+        }
+        second.left = merge(first, second.left);
+        update(second);
+        return second;
+    }
+
+    private static int compare(Node node, long fireTime, String actionInstanceId) {
+        return node.fireTime != fireTime ?
+            Long.compare(node.fireTime, fireTime) : node.actionInstanceId.compareTo(actionInstanceId);
+    }
+
+    private static int size(Node node) {
+        return node != null ? node.size : 0;
+    }
+
+    private static void update(Node node) {
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+
+    private static final class Node {
+        private final String actionInstanceId;
+        private final int priority;
+        private long fireTime;
+        private int size = 1;
+        private Node left;
+        private Node right;
+
+        private Node(String actionInstanceId, int priority) {
+            this.actionInstanceId = actionInstanceId;
+            this.priority = priority;
+        }
+    }
+}
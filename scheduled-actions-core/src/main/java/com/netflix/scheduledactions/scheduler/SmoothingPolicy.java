@@ -0,0 +1,58 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.scheduledactions.scheduler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spreads the fires of a group of {@code ActionInstance}s that are due at the same instant, e.g. thousands of
+ * "0 0 * * * ?" crons, across a window. Every actionInstance fires at a fixed offset into the window derived from
+ * its id, so its fires stay evenly spaced and the offset survives restarts. Executions still record the fire time
+ * they were due at
+ */
+public class SmoothingPolicy {
+
+    private final long windowMs;
+
+    public SmoothingPolicy(long window, TimeUnit unit) {
+        if (window < 0) {
+            throw new IllegalArgumentException(String.format("Invalid smoothing window %d %s", window, unit));
+        }
+        this.windowMs = unit.toMillis(window);
+    }
+
+    public long getWindowMs() {
+        return windowMs;
+    }
+
+    /**
+     * Returns how many milliseconds after its fire time the given actionInstance fires, in [0, window)
+     */
+    public long offsetFor(String actionInstanceId) {
+        if (windowMs <= 1) {
+            return 0L;
+        }
+        long hash = actionInstanceId.hashCode() * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 32;
+        return Math.floorMod(hash, windowMs);
+    }
+
+    @Override
+    public String toString() {
+        return "SmoothingPolicy (" + windowMs + " ms)";
+    }
+}
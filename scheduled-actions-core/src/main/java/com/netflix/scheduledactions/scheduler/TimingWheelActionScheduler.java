@@ -0,0 +1,826 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.scheduledactions.scheduler;
+
+import com.netflix.scheduledactions.AbstractActionOperationsDelegate.InternalAction;
+import com.netflix.scheduledactions.ActionInstance;
+import com.netflix.scheduledactions.ActionOperationsDelegate;
+import com.netflix.scheduledactions.Context;
+import com.netflix.scheduledactions.MisfirePolicy;
+import com.netflix.scheduledactions.SchedulerClock;
+import com.netflix.scheduledactions.exceptions.ActionInstanceNotFoundException;
+import com.netflix.scheduledactions.exceptions.ActionOperationException;
+import com.netflix.scheduledactions.persistence.ActionInstanceDao;
+import com.netflix.scheduledactions.persistence.ExecutionDao;
+import com.netflix.scheduledactions.triggers.IntervalTrigger;
+import com.netflix.scheduledactions.triggers.Trigger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In process {@code ActionScheduler} that drives the {@code Trigger}s directly through
+ * {@code Trigger.getNextFireTime()}, without fenzo or Quartz.
+ *
+ * Pending fire times are kept in a hierarchical timing wheel: level 0 has wheelSize buckets of tickMs each and
+ * every level above has buckets that span a full rotation of the level below. Scheduling and unscheduling a trigger
+ * is O(1), and a single ticker thread only ever looks at the bucket that is due, cascading the buckets of the upper
+ * levels down as time reaches them. Fire times beyond the span of the top level wait in a {@code FireTimeQueue}
+ * keyed by actionInstance id until they come within it. Triggers fire at most one tick late, on a dedicated pool of
+ * firing threads.
+ *
+ * Triggers are not persisted, every node loads the enabled {@code ActionInstance}s from the
+ * {@code ActionInstanceDao} when it is initialized. The wheel starts ticking right away and a
+ * {@code TriggerRehydrator} pages the instances in on a background thread, soonest due first.
+ *
+ * Groups can opt into a {@code SmoothingPolicy}, in which case their actionInstances fire at a fixed per-instance
+ * offset after the time they are due. The delegate is always called back with the fire time that was due.
+ *
+ * Fires that were missed while the wheel was behind are coalesced into a single fire, unless the actionInstance
+ * has a {@code MisfirePolicy}. The fires missed while the node was down are only caught up with a policy, and when
+ * the scheduler has an {@code ExecutionDao} to find the last fire in. Replays of RUN_ALL policies go through a
+ * bounded {@code MisfireReplayQueue} that paces them per actionInstance.
+ *
+ * {@code IntervalTrigger}s with a period shorter than HIGH_RESOLUTION_TICKS ticks would jitter by a large share of
+ * their period in the wheel, so they are kept in a separate heap instead that a dedicated thread waits on to the
+ * millisecond. Their next fire time is always taken from the fixed start + n * period grid of the trigger rather
+ * than from the time they actually fired, so delays in firing never accumulate into drift
+ */
+public class TimingWheelActionScheduler implements ActionScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimingWheelActionScheduler.class);
+
+    public static final long DEFAULT_TICK_MS = 100L;
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+    public static final int DEFAULT_LEVELS = 3;
+    public static final int HIGH_RESOLUTION_TICKS = 10;
+
+    private static final String REPLAY_INITIATOR = "MisfireReplay";
+    private static final int UNLINKED = -1;
+    private static final long MAX_HIGH_RESOLUTION_WAIT_MS = 10L;
+
+    private final ActionInstanceDao actionInstanceDao;
+    private final ExecutorService firingService;
+    private final long tickMs;
+    private final int wheelSize;
+    private final long[] levelTickMs;
+    private final Entry[][] buckets;
+    private final FireTimeQueue overflow = new FireTimeQueue();
+    private final LongKeyedHeap<Entry> highResolution = new LongKeyedHeap<>();
+    private final int highResolutionLevel;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final ConcurrentMap<String, SmoothingPolicy> smoothingPolicies = new ConcurrentHashMap<>();
+    private final MisfireReplayQueue replays = new MisfireReplayQueue(MisfireReplayQueue.DEFAULT_CAPACITY);
+    private final Object lock = new Object();
+
+    private long currentTime;
+    private volatile ActionOperationsDelegate delegate;
+    private volatile boolean running;
+    private Thread ticker;
+    private Thread highResolutionTicker;
+    private Set<String> changedDuringRehydration;
+    private int rehydrationPageSize = TriggerRehydrator.DEFAULT_PAGE_SIZE;
+    private int rehydrationParallelism = TriggerRehydrator.DEFAULT_PARALLELISM;
+    private long rehydrationUrgentHorizonMs = TriggerRehydrator.DEFAULT_URGENT_HORIZON_MS;
+    private volatile TriggerRehydrator rehydrator;
+    private volatile ExecutionDao executionDao;
+
+    public TimingWheelActionScheduler(ActionInstanceDao actionInstanceDao, int firingThreads) {
+        this(actionInstanceDao, newFiringService(firingThreads), DEFAULT_TICK_MS, DEFAULT_WHEEL_SIZE, DEFAULT_LEVELS);
+    }
+
+    /**
+     * @param firingService the threads the {@code ActionOperationsDelegate} is called back on
+     * @param tickMs the resolution of the wheel, i.e. how late a trigger may fire at most
+     * @param wheelSize the number of buckets in each level of the wheel
+     * @param levels the number of levels, fire times beyond tickMs * wheelSize ^ levels go to the overflow queue
+     */
+    public TimingWheelActionScheduler(ActionInstanceDao actionInstanceDao,
+                                      ExecutorService firingService,
+                                      long tickMs,
+                                      int wheelSize,
+                                      int levels) {
+        if (tickMs <= 0 || wheelSize < 2 || levels < 1) {
+            throw new IllegalArgumentException(String.format(
+                "Invalid timing wheel of %d levels of %d buckets of %d ms", levels, wheelSize, tickMs));
+        }
+        this.actionInstanceDao = actionInstanceDao;
+        this.firingService = firingService;
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.levelTickMs = new long[levels];
+        this.buckets = new Entry[levels][wheelSize];
+        this.highResolutionLevel = levels + 1;
+        long levelTick = tickMs;
+        for (int level = 0; level < levels; level++) {
+            levelTickMs[level] = levelTick;
+            if (levelTick > Long.MAX_VALUE / wheelSize / 2) {
+                throw new IllegalArgumentException(String.format("Timing wheel of %d levels is too large", levels));
+            }
+            levelTick *= wheelSize;
+        }
+        this.currentTime = align(now(), tickMs);
+    }
+
+    private static ExecutorService newFiringService(int firingThreads) {
+        final AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(firingThreads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "TimingWheelActionScheduler-firing-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    @Override
+    public void initialize(ActionOperationsDelegate delegate) {
+        this.delegate = delegate;
+        running = true;
+        ticker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                tick();
+            }
+        }, "TimingWheelActionScheduler-ticker");
+        ticker.setDaemon(true);
+        ticker.start();
+        highResolutionTicker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                tickHighResolution();
+            }
+        }, "TimingWheelActionScheduler-high-resolution");
+        highResolutionTicker.setDaemon(true);
+        highResolutionTicker.start();
+        rehydrate();
+        logger.info("Initialized timing wheel scheduler, rehydrating triggers in the background");
+    }
+
+    /**
+     * Sets how the triggers are loaded from the {@code ActionInstanceDao} when the scheduler is initialized
+     *
+     * @param pageSize the number of actionInstances fetched at a time
+     * @param parallelism the number of pages fetched and deserialized concurrently
+     * @param urgentHorizonMs triggers due within this time are scheduled as soon as their page is loaded
+     */
+    public void setRehydration(int pageSize, int parallelism, long urgentHorizonMs) {
+        this.rehydrationPageSize = pageSize;
+        this.rehydrationParallelism = parallelism;
+        this.rehydrationUrgentHorizonMs = urgentHorizonMs;
+    }
+
+    /**
+     * Returns the progress of loading the triggers at startup, or null if the scheduler has not been initialized
+     */
+    public TriggerRehydrator.Progress getRehydrationProgress() {
+        TriggerRehydrator current = rehydrator;
+        return current != null ? current.getProgress() : null;
+    }
+
+    private void rehydrate() {
+        final TriggerRehydrator current = new TriggerRehydrator(
+            actionInstanceDao, this, rehydrationPageSize, rehydrationParallelism, rehydrationUrgentHorizonMs
+        );
+        synchronized (lock) {
+            changedDuringRehydration = new HashSet<>();
+        }
+        rehydrator = current;
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    current.run();
+                } finally {
+                    synchronized (lock) {
+                        changedDuringRehydration = null;
+                    }
+                }
+            }
+        }, "TimingWheelActionScheduler-rehydrator");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        if (ticker != null) {
+            ticker.interrupt();
+        }
+        if (highResolutionTicker != null) {
+            highResolutionTicker.interrupt();
+        }
+        firingService.shutdown();
+    }
+
+    /**
+     * Spreads the fires of the given group according to the policy, from the next fire of each trigger on
+     */
+    public void setSmoothingPolicy(String group, SmoothingPolicy smoothingPolicy) {
+        if (smoothingPolicy != null) {
+            smoothingPolicies.put(group, smoothingPolicy);
+        } else {
+            smoothingPolicies.remove(group);
+        }
+    }
+
+    public SmoothingPolicy getSmoothingPolicy(String group) {
+        return smoothingPolicies.get(group);
+    }
+
+    /**
+     * Sets where to look up the last fire of actionInstances with a {@code MisfirePolicy} when the scheduler starts,
+     * without it the fires missed while the node was down are not caught up
+     */
+    public void setExecutionDao(ExecutionDao executionDao) {
+        this.executionDao = executionDao;
+    }
+
+    /**
+     * Returns the number of missed fires waiting to be replayed
+     */
+    public int getPendingReplayCount() {
+        synchronized (lock) {
+            return replays.size();
+        }
+    }
+
+    @Override
+    public void register(ActionInstance actionInstance) {
+        schedule(actionInstance);
+    }
+
+    /**
+     * Computes the first fire time of every trigger and then links all of them into the wheel at once
+     */
+    @Override
+    public Map<String, Exception> registerAll(List<ActionInstance> actionInstances) {
+        return scheduleAll(actionInstances, false);
+    }
+
+    /**
+     * Schedules actionInstances loaded by the {@code TriggerRehydrator}. The ones that were registered, scheduled or
+     * unscheduled since the rehydration started are left alone, as the copy that was loaded may be stale
+     */
+    Map<String, Exception> rehydrate(List<ActionInstance> actionInstances) {
+        return scheduleAll(actionInstances, true);
+    }
+
+    private Map<String, Exception> scheduleAll(List<ActionInstance> actionInstances, boolean rehydrating) {
+        Map<String, Exception> failures = new LinkedHashMap<>();
+        List<Entry> scheduled = new ArrayList<>();
+        List<String> unscheduled = new ArrayList<>();
+        Date now = new Date(now());
+        for (ActionInstance actionInstance : actionInstances) {
+            Trigger trigger = actionInstance.getTrigger();
+            if (trigger == null || actionInstance.isDisabled()) {
+                unscheduled.add(actionInstance.getId());
+                continue;
+            }
+            try {
+                Date next = trigger.getNextFireTime(actionInstance.getContext(), now);
+                if (next == null) {
+                    unscheduled.add(actionInstance.getId());
+                    continue;
+                }
+                Entry entry = new Entry(actionInstance, trigger, tickMs);
+                entry.fireTime = next.getTime();
+                scheduled.add(entry);
+            } catch (Exception e) {
+                failures.put(actionInstance.getId(), new ActionOperationException(String.format(
+                    "Exception occurred while scheduling trigger %s for actionInstance %s", trigger, actionInstance), e));
+            }
+        }
+        synchronized (lock) {
+            if (rehydrating) {
+                for (Entry entry : scheduled) {
+                    if (!entries.containsKey(entry.actionInstanceId) && !isChangedDuringRehydration(entry.actionInstanceId)) {
+                        entries.put(entry.actionInstanceId, entry);
+                        setFireTime(entry, entry.fireTime);
+                        insert(entry);
+                    }
+                }
+                return failures;
+            }
+            for (String actionInstanceId : unscheduled) {
+                markChanged(actionInstanceId);
+                Entry existing = entries.remove(actionInstanceId);
+                if (existing != null) {
+                    unlink(existing);
+                }
+            }
+            for (Entry entry : scheduled) {
+                markChanged(entry.actionInstanceId);
+                Entry existing = entries.put(entry.actionInstanceId, entry);
+                if (existing != null) {
+                    unlink(existing);
+                }
+                setFireTime(entry, entry.fireTime);
+                insert(entry);
+            }
+        }
+        return failures;
+    }
+
+    @Override
+    public void enable(ActionInstance actionInstance) {
+        schedule(actionInstance);
+    }
+
+    @Override
+    public void disable(ActionInstance actionInstance) {
+        unschedule(actionInstance);
+    }
+
+    @Override
+    public void delete(ActionInstance actionInstance) {
+        unschedule(actionInstance);
+    }
+
+    /**
+     * Computes the next fire time of every trigger and then links all of them into the wheel at once
+     */
+    @Override
+    public Map<String, Exception> enableAll(List<ActionInstance> actionInstances) {
+        return scheduleAll(actionInstances, false);
+    }
+
+    /**
+     * Unlinks all the triggers from the wheel under a single lock
+     */
+    @Override
+    public Map<String, Exception> disableAll(List<ActionInstance> actionInstances) {
+        synchronized (lock) {
+            for (ActionInstance actionInstance : actionInstances) {
+                unschedule(actionInstance);
+            }
+        }
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public Map<String, Exception> deleteAll(List<ActionInstance> actionInstances) {
+        return disableAll(actionInstances);
+    }
+
+    /**
+     * (Re)schedules the trigger of the {@code ActionInstance} from now on. Disabled instances are unscheduled
+     */
+    @Override
+    public void schedule(ActionInstance actionInstance) {
+        Trigger trigger = actionInstance.getTrigger();
+        if (trigger == null || actionInstance.isDisabled()) {
+            unschedule(actionInstance);
+            return;
+        }
+        Context context = actionInstance.getContext();
+        Date next;
+        try {
+            next = trigger.getNextFireTime(context, new Date(now()));
+        } catch (RuntimeException e) {
+            throw new ActionOperationException(String.format(
+                "Exception occurred while scheduling trigger %s for actionInstance %s", trigger, actionInstance), e);
+        }
+        synchronized (lock) {
+            markChanged(actionInstance.getId());
+            Entry existing = entries.remove(actionInstance.getId());
+            if (existing != null) {
+                unlink(existing);
+            }
+            if (next != null) {
+                Entry entry = new Entry(actionInstance, trigger, tickMs);
+                entries.put(entry.actionInstanceId, entry);
+                setFireTime(entry, next.getTime());
+                insert(entry);
+            }
+        }
+    }
+
+    @Override
+    public void unschedule(ActionInstance actionInstance) {
+        unschedule(actionInstance.getId());
+    }
+
+    @Override
+    public void unschedule(String actionInstanceId) {
+        synchronized (lock) {
+            markChanged(actionInstanceId);
+            Entry entry = entries.remove(actionInstanceId);
+            if (entry != null) {
+                unlink(entry);
+            }
+            replays.remove(actionInstanceId);
+        }
+    }
+
+    @Override
+    public boolean isScheduled(ActionInstance actionInstance) {
+        synchronized (lock) {
+            return actionInstance != null && entries.containsKey(actionInstance.getId());
+        }
+    }
+
+    /**
+     * Returns the next time the trigger of the given {@code ActionInstance} is due, or null if it is not scheduled.
+     * With a {@code SmoothingPolicy} it fires a fixed offset after this time
+     */
+    public Date getNextFireTime(String actionInstanceId) {
+        synchronized (lock) {
+            Entry entry = entries.get(actionInstanceId);
+            return entry != null ? new Date(entry.fireTime) : null;
+        }
+    }
+
+    public int getScheduledCount() {
+        synchronized (lock) {
+            return entries.size();
+        }
+    }
+
+    private void markChanged(String actionInstanceId) {
+        if (changedDuringRehydration != null) {
+            changedDuringRehydration.add(actionInstanceId);
+        }
+    }
+
+    private boolean isChangedDuringRehydration(String actionInstanceId) {
+        return changedDuringRehydration != null && changedDuringRehydration.contains(actionInstanceId);
+    }
+
+    protected long now() {
+        return SchedulerClock.currentTimeMillis();
+    }
+
+    private void tick() {
+        while (running) {
+            try {
+                long now = now();
+                advanceTo(now);
+                long sleepMs;
+                synchronized (lock) {
+                    sleepMs = currentTime + tickMs - now;
+                }
+                if (sleepMs > 0) {
+                    Thread.sleep(sleepMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Exception occurred while advancing the timing wheel", e);
+            }
+        }
+    }
+
+    private void tickHighResolution() {
+        while (running) {
+            try {
+                List<Fire> due = new ArrayList<>();
+                synchronized (lock) {
+                    if (highResolution.isEmpty()) {
+                        lock.wait();
+                        continue;
+                    }
+                    long now = now();
+                    long waitMs = highResolution.peekKey() - now;
+                    if (waitMs > 0) {
+                        // Waits are capped so that the thread catches up with the clock regularly
+                        lock.wait(Math.min(waitMs, MAX_HIGH_RESOLUTION_WAIT_MS));
+                        continue;
+                    }
+                    List<Entry> fired = new ArrayList<>();
+                    while (!highResolution.isEmpty() && highResolution.peekKey() <= now) {
+                        Entry entry = highResolution.poll();
+                        entry.level = UNLINKED;
+                        fired.add(entry);
+                    }
+                    reschedule(fired, now, due);
+                }
+                for (Fire fire : due) {
+                    fire(fire.actionInstanceId, InternalAction.INITIATOR, fire.fireTime);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Exception occurred while firing high resolution triggers", e);
+            }
+        }
+    }
+
+    /**
+     * Processes every bucket that has fully elapsed at the given time and fires the triggers in them
+     */
+    void advanceTo(long now) {
+        List<Fire> due = new ArrayList<>();
+        List<MisfireReplayQueue.Replay> released = new ArrayList<>();
+        synchronized (lock) {
+            while (currentTime + tickMs <= now) {
+                advance(now, due);
+            }
+            replays.pollReleased(now, released);
+        }
+        for (Fire fire : due) {
+            fire(fire.actionInstanceId, InternalAction.INITIATOR, fire.fireTime);
+        }
+        for (MisfireReplayQueue.Replay replay : released) {
+            fire(replay.actionInstanceId, REPLAY_INITIATOR, replay.fireTime);
+        }
+    }
+
+    /**
+     * Catches up on the fires of an actionInstance with a {@code MisfirePolicy} that were missed since its last fire
+     * before the node started. Called by the {@code TriggerRehydrator}
+     */
+    void catchUp(ActionInstance actionInstance) {
+        MisfirePolicy misfirePolicy = actionInstance.getMisfirePolicy();
+        Trigger trigger = actionInstance.getTrigger();
+        if (executionDao == null || misfirePolicy == null || trigger == null || actionInstance.isDisabled()) {
+            return;
+        }
+        Date lastFireTime = executionDao.getLastFireTime(actionInstance.getId());
+        if (lastFireTime == null) {
+            return;
+        }
+        long now = now();
+        Date firstMissed = trigger.getNextFireTime(actionInstance.getContext(), lastFireTime);
+        if (firstMissed == null || firstMissed.getTime() > now) {
+            return;
+        }
+        List<Fire> due = new ArrayList<>();
+        synchronized (lock) {
+            if (isChangedDuringRehydration(actionInstance.getId())) {
+                return;
+            }
+            if (misfirePolicy.isMisfire(now - firstMissed.getTime())) {
+                misfire(actionInstance.getId(), trigger, actionInstance.getContext(), misfirePolicy,
+                    firstMissed.getTime(), now, due);
+            } else {
+                due.add(new Fire(actionInstance.getId(), firstMissed.getTime()));
+            }
+        }
+        for (Fire fire : due) {
+            fire(fire.actionInstanceId, InternalAction.INITIATOR, fire.fireTime);
+        }
+    }
+
+    private void advance(long now, List<Fire> due) {
+        int top = levelTickMs.length - 1;
+        long topSpan = levelTickMs[top] * wheelSize;
+        long topEnd = align(currentTime, levelTickMs[top]) + topSpan;
+        while (!overflow.isEmpty() && overflow.peekFireTime() < topEnd) {
+            Entry entry = entries.get(overflow.poll());
+            entry.level = UNLINKED;
+            insert(entry);
+        }
+        for (int level = top; level > 0; level--) {
+            if (currentTime % levelTickMs[level] == 0) {
+                Entry entry = detach(level, bucketIndex(currentTime, level));
+                while (entry != null) {
+                    Entry next = entry.next;
+                    entry.next = null;
+                    entry.level = UNLINKED;
+                    insert(entry);
+                    entry = next;
+                }
+            }
+        }
+
+        List<Entry> fired = new ArrayList<>();
+        Entry entry = detach(0, bucketIndex(currentTime, 0));
+        while (entry != null) {
+            Entry next = entry.next;
+            entry.next = null;
+            entry.level = UNLINKED;
+            fired.add(entry);
+            entry = next;
+        }
+        currentTime += tickMs;
+        reschedule(fired, now, due);
+    }
+
+    private void reschedule(List<Entry> fired, long now, List<Fire> due) {
+        // Fire times that were missed while the wheel was behind are coalesced into a single fire, unless the
+        // actionInstance has a MisfirePolicy and the first of them is late enough to count as a misfire
+        for (Entry firedEntry : fired) {
+            long resumeFrom = Math.max(firedEntry.fireTime, now - (firedEntry.dueTime - firedEntry.fireTime));
+            if (firedEntry.misfirePolicy != null && firedEntry.misfirePolicy.isMisfire(now - firedEntry.dueTime)) {
+                misfire(firedEntry.actionInstanceId, firedEntry.trigger, firedEntry.context, firedEntry.misfirePolicy,
+                    firedEntry.fireTime, resumeFrom, due);
+            } else {
+                due.add(new Fire(firedEntry.actionInstanceId, firedEntry.fireTime));
+            }
+            Date next = null;
+            try {
+                next = firedEntry.trigger.getNextFireTime(firedEntry.context, new Date(resumeFrom));
+            } catch (RuntimeException e) {
+                logger.error("[{}] Exception occurred while computing the next fire time of trigger {}",
+                    firedEntry.actionInstanceId, firedEntry.trigger, e);
+            }
+            if (next == null) {
+                entries.remove(firedEntry.actionInstanceId);
+            } else {
+                setFireTime(firedEntry, next.getTime());
+                insert(firedEntry);
+            }
+        }
+    }
+
+    /**
+     * Applies the {@code MisfirePolicy} to the fires from firstMissed up to and including until
+     */
+    private void misfire(String actionInstanceId, Trigger trigger, Context context, MisfirePolicy misfirePolicy,
+                         long firstMissed, long until, List<Fire> due) {
+        switch (misfirePolicy.getType()) {
+            case SKIP:
+                logger.info("[{}] Skipping the fires missed since {}", actionInstanceId, new Date(firstMissed));
+                break;
+            case RUN_ONCE:
+                logger.info("[{}] Running once for the fires missed since {}", actionInstanceId, new Date(firstMissed));
+                due.add(new Fire(actionInstanceId, firstMissed));
+                break;
+            case RUN_ALL:
+                long intervalMs = (long) Math.ceil(1000.0 / misfirePolicy.getMaxFiresPerSecond());
+                long now = now();
+                int queued = 0;
+                Date missed = new Date(firstMissed);
+                try {
+                    while (missed != null && missed.getTime() <= until) {
+                        if (!replays.offer(actionInstanceId, missed.getTime(), intervalMs, now)) {
+                            logger.warn("[{}] Misfire replay queue is full, dropping the fires missed from {} on",
+                                actionInstanceId, missed);
+                            break;
+                        }
+                        queued++;
+                        missed = trigger.getNextFireTime(context, missed);
+                    }
+                } catch (RuntimeException e) {
+                    logger.error("[{}] Exception occurred while enumerating the missed fires of trigger {}",
+                        actionInstanceId, trigger, e);
+                }
+                logger.info("[{}] Replaying {} fires missed since {}", actionInstanceId, queued, new Date(firstMissed));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void setFireTime(Entry entry, long fireTime) {
+        SmoothingPolicy smoothingPolicy = entry.group != null ? smoothingPolicies.get(entry.group) : null;
+        entry.fireTime = fireTime;
+        entry.dueTime = fireTime + (smoothingPolicy != null ? smoothingPolicy.offsetFor(entry.actionInstanceId) : 0L);
+    }
+
+    private void insert(Entry entry) {
+        if (entry.highResolution) {
+            entry.level = highResolutionLevel;
+            highResolution.add(entry.dueTime, entry);
+            lock.notifyAll();
+            return;
+        }
+        long dueTime = Math.max(entry.dueTime, currentTime);
+        for (int level = 0; level < levelTickMs.length; level++) {
+            long levelStart = align(currentTime, levelTickMs[level]);
+            if (dueTime < levelStart + levelTickMs[level] * wheelSize) {
+                link(entry, level, bucketIndex(dueTime, level));
+                return;
+            }
+        }
+        entry.level = levelTickMs.length;
+        overflow.schedule(entry.actionInstanceId, entry.dueTime);
+    }
+
+    private int bucketIndex(long time, int level) {
+        return (int) ((time / levelTickMs[level]) % wheelSize);
+    }
+
+    private void link(Entry entry, int level, int bucket) {
+        Entry head = buckets[level][bucket];
+        entry.level = level;
+        entry.bucket = bucket;
+        entry.prev = null;
+        entry.next = head;
+        if (head != null) {
+            head.prev = entry;
+        }
+        buckets[level][bucket] = entry;
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.level == levelTickMs.length) {
+            overflow.remove(entry.actionInstanceId);
+        } else if (entry.level == highResolutionLevel) {
+            highResolution.remove(entry);
+        } else if (entry.level != UNLINKED) {
+            if (entry.prev != null) {
+                entry.prev.next = entry.next;
+            } else {
+                buckets[entry.level][entry.bucket] = entry.next;
+            }
+            if (entry.next != null) {
+                entry.next.prev = entry.prev;
+            }
+        }
+        entry.prev = null;
+        entry.next = null;
+        entry.level = UNLINKED;
+    }
+
+    private Entry detach(int level, int bucket) {
+        Entry head = buckets[level][bucket];
+        buckets[level][bucket] = null;
+        return head;
+    }
+
+    private void fire(final String actionInstanceId, final String initiator, final long fireTime) {
+        try {
+            firingService.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        logger.info("[{}] Timing wheel trigger fired, calling execute() on delegate", actionInstanceId);
+                        delegate.execute(actionInstanceId, initiator, new Date(fireTime));
+                    } catch (ActionInstanceNotFoundException e) {
+                        logger.warn("[{}] Trigger fired for an actionInstance that does not exist anymore", actionInstanceId);
+                    } catch (Exception e) {
+                        logger.error("[{}] Exception occurred while executing the fired actionInstance", actionInstanceId, e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("[{}] Firing service rejected the fired actionInstance", actionInstanceId);
+        }
+    }
+
+    private static long align(long time, long unit) {
+        return time - (time % unit);
+    }
+
+    private static final class Entry extends LongKeyedHeap.Node {
+        private final String actionInstanceId;
+        private final String group;
+        private final Trigger trigger;
+        private final Context context;
+        private final MisfirePolicy misfirePolicy;
+        private final boolean highResolution;
+        private long fireTime;
+        private long dueTime;
+        private int level = UNLINKED;
+        private int bucket;
+        private Entry prev;
+        private Entry next;
+
+        private Entry(ActionInstance actionInstance, Trigger trigger, long tickMs) {
+            this.actionInstanceId = actionInstance.getId();
+            this.group = actionInstance.getGroup();
+            this.trigger = trigger;
+            this.context = actionInstance.getContext();
+            this.misfirePolicy = actionInstance.getMisfirePolicy();
+            this.highResolution = trigger instanceof IntervalTrigger &&
+                ((IntervalTrigger) trigger).getPeriodMs() < HIGH_RESOLUTION_TICKS * tickMs;
+        }
+    }
+
+    private static final class Fire {
+        private final String actionInstanceId;
+        private final long fireTime;
+
+        private Fire(String actionInstanceId, long fireTime) {
+            this.actionInstanceId = actionInstanceId;
+            this.fireTime = fireTime;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.scheduledactions.scheduler;
+
+import com.netflix.scheduledactions.ActionInstance;
+import com.netflix.scheduledactions.persistence.ActionInstanceDao;
+import com.netflix.scheduledactions.persistence.ActionInstancePager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads the registered {@code ActionInstance}s into a {@code TimingWheelActionScheduler} when a node starts.
+ *
+ * An {@code ActionInstancePager} pages through the actionInstance ids and fetches the pages in parallel.
+ * Triggers due within the urgent horizon are scheduled as soon as their page is loaded, so the node fires on time
+ * while it is still loading, and all the others are scheduled soonest first once every page has been loaded.
+ * The fires that actionInstances with a {@code MisfirePolicy} missed while the node was down are caught up as
+ * their page is loaded
+ */
+public class TriggerRehydrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(TriggerRehydrator.class);
+
+    public static final int DEFAULT_PAGE_SIZE = ActionInstancePager.DEFAULT_PAGE_SIZE;
+    public static final int DEFAULT_PARALLELISM = ActionInstancePager.DEFAULT_PARALLELISM;
+    public static final long DEFAULT_URGENT_HORIZON_MS = 60 * 1000L;
+
+    private final ActionInstancePager pager;
+    private final TimingWheelActionScheduler scheduler;
+    private final int pageSize;
+    private final long urgentHorizonMs;
+    private final Progress progress = new Progress();
+    private final List<Pending> deferred = new ArrayList<>();
+
+    public TriggerRehydrator(ActionInstanceDao actionInstanceDao,
+                             TimingWheelActionScheduler scheduler,
+                             int pageSize,
+                             int parallelism,
+                             long urgentHorizonMs) {
+        this.pager = new ActionInstancePager(actionInstanceDao, pageSize, parallelism);
+        this.scheduler = scheduler;
+        this.pageSize = pageSize;
+        this.urgentHorizonMs = urgentHorizonMs;
+    }
+
+    public Progress getProgress() {
+        return progress;
+    }
+
+    /**
+     * Rehydrates all the triggers on the calling thread and returns once they are all scheduled
+     */
+    public Progress run() {
+        progress.startTime = System.currentTimeMillis();
+        try {
+            pager.forEachPage(new ActionInstancePager.PageHandler() {
+                @Override
+                public void onPage(List<ActionInstance> actionInstances) {
+                    loadPage(actionInstances);
+                }
+
+                @Override
+                public void onFailure(List<String> actionInstanceIds, Exception e) {
+                    progress.failed.addAndGet(actionInstanceIds.size());
+                    logger.error("Exception occurred while rehydrating a page of {} actionInstances",
+                        actionInstanceIds.size(), e);
+                }
+            });
+            scheduleDeferred();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Rehydration of triggers was interrupted after {}", progress);
+        } finally {
+            progress.endTime = System.currentTimeMillis();
+            progress.done = true;
+        }
+        logger.info("Finished rehydrating triggers: {}", progress);
+        return progress;
+    }
+
+    private void loadPage(List<ActionInstance> actionInstances) {
+        long now = scheduler.now();
+        List<ActionInstance> urgent = new ArrayList<>();
+        List<Pending> later = new ArrayList<>();
+        for (ActionInstance actionInstance : actionInstances) {
+            if (actionInstance.getTrigger() == null || actionInstance.isDisabled()) {
+                continue;
+            }
+            try {
+                Date next = actionInstance.getTrigger().getNextFireTime(actionInstance.getContext(), new Date(now));
+                if (next == null) {
+                    continue;
+                }
+                if (next.getTime() - now <= urgentHorizonMs) {
+                    urgent.add(actionInstance);
+                } else {
+                    later.add(new Pending(actionInstance, next.getTime()));
+                }
+            } catch (Exception e) {
+                progress.failed.incrementAndGet();
+                logger.error("Exception occurred while computing the next fire time of actionInstance {}", actionInstance, e);
+            }
+        }
+        schedule(urgent);
+        for (ActionInstance actionInstance : actionInstances) {
+            if (actionInstance.getMisfirePolicy() != null) {
+                try {
+                    scheduler.catchUp(actionInstance);
+                } catch (Exception e) {
+                    logger.error("Exception occurred while catching up on the missed fires of actionInstance {}", actionInstance, e);
+                }
+            }
+        }
+        synchronized (deferred) {
+            deferred.addAll(later);
+        }
+        progress.pages.incrementAndGet();
+        progress.loaded.addAndGet(actionInstances.size());
+        logger.info("Rehydrating triggers: {}", progress);
+    }
+
+    private void scheduleDeferred() {
+        synchronized (deferred) {
+            Collections.sort(deferred, new Comparator<Pending>() {
+                @Override
+                public int compare(Pending p1, Pending p2) {
+                    return Long.compare(p1.nextFireTime, p2.nextFireTime);
+                }
+            });
+            for (int from = 0; from < deferred.size(); from += pageSize) {
+                List<ActionInstance> chunk = new ArrayList<>();
+                for (Pending pending : deferred.subList(from, Math.min(from + pageSize, deferred.size()))) {
+                    chunk.add(pending.actionInstance);
+                }
+                schedule(chunk);
+            }
+            deferred.clear();
+        }
+    }
+
+    private void schedule(List<ActionInstance> actionInstances) {
+        if (actionInstances.isEmpty()) {
+            return;
+        }
+        Map<String, Exception> failures = scheduler.rehydrate(actionInstances);
+        for (Map.Entry<String, Exception> failure : failures.entrySet()) {
+            logger.error("Exception occurred while scheduling actionInstance {}", failure.getKey(), failure.getValue());
+        }
+        progress.failed.addAndGet(failures.size());
+        progress.scheduled.addAndGet(actionInstances.size() - failures.size());
+    }
+
+    private static class Pending {
+        private final ActionInstance actionInstance;
+        private final long nextFireTime;
+
+        private Pending(ActionInstance actionInstance, long nextFireTime) {
+            this.actionInstance = actionInstance;
+            this.nextFireTime = nextFireTime;
+        }
+    }
+
+    /**
+     * Counters of a rehydration, updated while it is running
+     */
+    public static class Progress {
+        private final AtomicLong pages = new AtomicLong();
+        private final AtomicLong loaded = new AtomicLong();
+        private final AtomicLong scheduled = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private volatile long startTime;
+        private volatile long endTime;
+        private volatile boolean done;
+
+        public long getPages() {
+            return pages.get();
+        }
+
+        public long getLoaded() {
+            return loaded.get();
+        }
+
+        public long getScheduled() {
+            return scheduled.get();
+        }
+
+        public long getFailed() {
+            return failed.get();
+        }
+
+        public boolean isDone() {
+            return done;
+        }
+
+        public long getElapsedMs() {
+            if (startTime == 0) {
+                return 0L;
+            }
+            return (done ? endTime : System.currentTimeMillis()) - startTime;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d actionInstances loaded in %d pages, %d triggers scheduled, %d failed in %d ms%s",
+                getLoaded(), getPages(), getScheduled(), getFailed(), getElapsedMs(), done ? "" : " so far");
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.scheduledactions.scheduler;
+
+import com.netflix.scheduledactions.ActionInstance;
+import com.netflix.scheduledactions.ActionOperationsDelegate;
+import com.netflix.scheduledactions.Context;
+import com.netflix.scheduledactions.VirtualClock;
+import com.netflix.scheduledactions.exceptions.ActionInstanceNotFoundException;
+import com.netflix.scheduledactions.exceptions.ActionOperationException;
+import com.netflix.scheduledactions.triggers.Trigger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An {@code ActionScheduler} driven by a {@code VirtualClock} instead of the wall clock. Nothing fires on its own:
+ * {@link #advanceTo(long)} walks through every fire time up to the given time in order, moves the clock to each of
+ * them and calls back the delegate on the calling thread, so a day of schedules can be replayed in seconds.
+ *
+ * Plug the same clock into {@code SchedulerClock} so that executions, heartbeats and the persisted timestamps
+ * follow the virtual time as well
+ */
+public class VirtualTimeActionScheduler implements ActionScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualTimeActionScheduler.class);
+    static final String INITIATOR = "VirtualTimeActionScheduler";
+
+    private final VirtualClock clock;
+    private final FireTimeQueue queue = new FireTimeQueue();
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Object lock = new Object();
+    private volatile ActionOperationsDelegate delegate;
+    private long fireCount;
+
+    public VirtualTimeActionScheduler(VirtualClock clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock cannot be null");
+        }
+        this.clock = clock;
+    }
+
+    @Override
+    public void initialize(ActionOperationsDelegate delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void destroy() {
+        synchronized (lock) {
+            queue.clear();
+            entries.clear();
+        }
+    }
+
+    @Override
+    public void register(ActionInstance actionInstance) {
+        schedule(actionInstance);
+    }
+
+    @Override
+    public Map<String, Exception> registerAll(List<ActionInstance> actionInstances) {
+        Map<String, Exception> failures = new LinkedHashMap<>();
+        for (ActionInstance actionInstance : actionInstances) {
+            try {
+                schedule(actionInstance);
+            } catch (ActionOperationException e) {
+                failures.put(actionInstance.getId(), e);
+            }
+        }
+        return failures;
+    }
+
+    @Override
+    public void enable(ActionInstance actionInstance) {
+        schedule(actionInstance);
+    }
+
+    @Override
+    public void disable(ActionInstance actionInstance) {
+        unschedule(actionInstance);
+    }
+
+    @Override
+    public void delete(ActionInstance actionInstance) {
+        unschedule(actionInstance);
+    }
+
+    @Override
+    public Map<String, Exception> enableAll(List<ActionInstance> actionInstances) {
+        return registerAll(actionInstances);
+    }
+
+    @Override
+    public Map<String, Exception> disableAll(List<ActionInstance> actionInstances) {
+        for (ActionInstance actionInstance : actionInstances) {
+            unschedule(actionInstance);
+        }
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public Map<String, Exception> deleteAll(List<ActionInstance> actionInstances) {
+        return disableAll(actionInstances);
+    }
+
+    /**
+     * (Re)schedules the trigger of the {@code ActionInstance} from the current virtual time on
+     */
+    @Override
+    public void schedule(ActionInstance actionInstance) {
+        Trigger trigger = actionInstance.getTrigger();
+        if (trigger == null || actionInstance.isDisabled()) {
+            unschedule(actionInstance);
+            return;
+        }
+        Date next;
+        try {
+            next = trigger.getNextFireTime(actionInstance.getContext(), new Date(clock.millis()));
+        } catch (RuntimeException e) {
+            throw new ActionOperationException(String.format(
+                "Exception occurred while scheduling trigger %s for actionInstance %s", trigger, actionInstance), e);
+        }
+        synchronized (lock) {
+            if (next != null) {
+                entries.put(actionInstance.getId(), new Entry(trigger, actionInstance.getContext()));
+                queue.schedule(actionInstance.getId(), next.getTime());
+            } else {
+                entries.remove(actionInstance.getId());
+                queue.remove(actionInstance.getId());
+            }
+        }
+    }
+
+    @Override
+    public void unschedule(ActionInstance actionInstance) {
+        unschedule(actionInstance.getId());
+    }
+
+    @Override
+    public void unschedule(String actionInstanceId) {
+        synchronized (lock) {
+            entries.remove(actionInstanceId);
+            queue.remove(actionInstanceId);
+        }
+    }
+
+    @Override
+    public boolean isScheduled(ActionInstance actionInstance) {
+        synchronized (lock) {
+            return actionInstance != null && entries.containsKey(actionInstance.getId());
+        }
+    }
+
+    /**
+     * Fires, in order, every trigger that is due up to and including the given time and then leaves the clock at
+     * that time. Returns the number of fires
+     */
+    public int advanceTo(long timeMillis) {
+        int fired = 0;
+        while (true) {
+            String actionInstanceId;
+            long fireTime;
+            synchronized (lock) {
+                if (queue.isEmpty() || queue.peekFireTime() > timeMillis) {
+                    break;
+                }
+                fireTime = queue.peekFireTime();
+                actionInstanceId = queue.peekId();
+                Date next = nextFireTime(actionInstanceId, entries.get(actionInstanceId), fireTime);
+                if (next != null) {
+                    queue.schedule(actionInstanceId, next.getTime());
+                } else {
+                    queue.poll();
+                    entries.remove(actionInstanceId);
+                }
+                fireCount++;
+            }
+            clock.advanceTo(fireTime);
+            fire(actionInstanceId, fireTime);
+            fired++;
+        }
+        clock.advanceTo(timeMillis);
+        return fired;
+    }
+
+    /**
+     * Advances the virtual time by the given number of milliseconds, see {@link #advanceTo(long)}
+     */
+    public int advanceBy(long deltaMillis) {
+        if (deltaMillis < 0) {
+            throw new IllegalArgumentException("A virtual clock cannot go backwards");
+        }
+        return advanceTo(clock.millis() + deltaMillis);
+    }
+
+    /**
+     * Returns the next time the trigger of the given {@code ActionInstance} is due, or null if it is not scheduled
+     */
+    public Date getNextFireTime(String actionInstanceId) {
+        synchronized (lock) {
+            long fireTime = queue.getFireTime(actionInstanceId);
+            return fireTime != FireTimeQueue.NOT_SCHEDULED ? new Date(fireTime) : null;
+        }
+    }
+
+    public int getScheduledCount() {
+        synchronized (lock) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Returns the number of fires since this scheduler was created
+     */
+    public long getFireCount() {
+        synchronized (lock) {
+            return fireCount;
+        }
+    }
+
+    public VirtualClock getClock() {
+        return clock;
+    }
+
+    private Date nextFireTime(String actionInstanceId, Entry entry, long fireTime) {
+        try {
+            return entry.trigger.getNextFireTime(entry.context, new Date(fireTime));
+        } catch (RuntimeException e) {
+            logger.error("[{}] Exception occurred while computing the next fire time of trigger {}",
+                actionInstanceId, entry.trigger, e);
+            return null;
+        }
+    }
+
+    private void fire(String actionInstanceId, long fireTime) {
+        ActionOperationsDelegate delegate = this.delegate;
+        if (delegate == null) {
+            return;
+        }
+        try {
+            delegate.execute(actionInstanceId, INITIATOR, new Date(fireTime));
+        } catch (ActionInstanceNotFoundException e) {
+            logger.warn("[{}] Trigger fired for an actionInstance that does not exist anymore", actionInstanceId);
+        } catch (Exception e) {
+            logger.error("[{}] Exception occurred while executing the fired actionInstance", actionInstanceId, e);
+        }
+    }
+
+    private static final class Entry {
+        private final Trigger trigger;
+        private final Context context;
+
+        private Entry(Trigger trigger, Context context) {
+            this.trigger = trigger;
+            this.context = context;
+        }
+    }
+}
@@ -0,0 +1,555 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.scheduledactions.triggers;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Locale;
+
+/**
+ * A Quartz compatible cron expression (seconds, minutes, hours, day-of-month, month, day-of-week and an optional
+ * year) compiled into one bitset per field, so that next fire times are computed with plain integer math on
+ * epoch seconds instead of re-parsing the expression and walking a {@code Calendar}.
+ *
+ * Fuzzy "H" tokens are resolved with {@code CronExpressionFuzzer} at compile time. Besides lists, ranges
+ * (including wrapping ones like FRI-MON), steps and month/day names, the day-of-month field supports L, L-n, nW
+ * and LW and the day-of-week field supports L, nL and n#k. As in Quartz, one of the two day fields has to be
+ * unrestricted ("?" or "*").
+ *
+ * Around DST transitions fire times match Quartz: skipped local times do not fire and repeated local times
+ * fire once, at their later occurrence.
+ *
+ * Instances are immutable apart from a cached time zone offset window and can be shared between threads.
+ * {@code nextFireTime} does not allocate, except when crossing into a new offset window of the time zone
+ * (i.e. close to a DST transition).
+ */
+public final class CompiledCronExpression {
+
+    public static final int MIN_YEAR = 1970;
+    public static final int MAX_YEAR = 2199;
+
+    private static final long NONE = Long.MIN_VALUE;
+    private static final int SECONDS_PER_DAY = 86400;
+    private static final String[] MONTH_NAMES = {
+        "JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC"
+    };
+    private static final String[] DAY_NAMES = {"SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT"};
+
+    private final String expression;
+    private final ZoneRules zoneRules;
+    private final boolean fixedOffset;
+
+    private final long seconds;
+    private final long minutes;
+    private final long hours;
+    private final long daysOfMonth;
+    private final long months;
+    private final long daysOfWeek;
+    private final long[] years;
+
+    private final boolean dayOfMonthRestricted;
+    private final boolean dayOfWeekRestricted;
+    private final int lastDayOfMonthOffset;     // L or L-n, -1 if not used
+    private final int nearestWeekday;           // nW, 0 if not used
+    private final boolean lastWeekdayOfMonth;   // LW
+    private final int lastDayOfWeek;            // nL, 0 if not used
+    private final int nthDayOfWeek;             // n#k, 0 if not used
+    private final int nthDayOfWeekIndex;
+
+    private volatile OffsetWindow offsetWindow;
+
+    private CompiledCronExpression(String expression, ZoneId zoneId) {
+        this.expression = expression;
+        this.zoneRules = zoneId.getRules();
+        this.fixedOffset = zoneRules.isFixedOffset();
+
+        String[] fields = expression.trim().toUpperCase(Locale.US).split("\\s+");
+        if (fields.length < 6 || fields.length > 7) {
+            throw new IllegalArgumentException(String.format("Cron expression '%s' must have 6 or 7 fields", expression));
+        }
+        this.seconds = parseField(fields[0], 0, 59, null);
+        this.minutes = parseField(fields[1], 0, 59, null);
+        this.hours = parseField(fields[2], 0, 23, null);
+        this.months = parseField(fields[4], 1, 12, MONTH_NAMES);
+        this.years = parseYears(fields.length == 7 ? fields[6] : "*");
+
+        String dayOfMonth = fields[3];
+        int lastDayOfMonthOffset = -1;
+        int nearestWeekday = 0;
+        boolean lastWeekdayOfMonth = false;
+        long daysOfMonth = 0L;
+        if (dayOfMonth.equals("LW")) {
+            lastWeekdayOfMonth = true;
+        } else if (dayOfMonth.startsWith("L")) {
+            lastDayOfMonthOffset = dayOfMonth.length() == 1 ? 0 : parseNumber(dayOfMonth.substring(2), 0, 30, dayOfMonth);
+            if (dayOfMonth.length() > 1 && dayOfMonth.charAt(1) != '-') {
+                throw invalid(dayOfMonth);
+            }
+        } else if (dayOfMonth.endsWith("W")) {
+            nearestWeekday = parseNumber(dayOfMonth.substring(0, dayOfMonth.length() - 1), 1, 31, dayOfMonth);
+        } else {
+            daysOfMonth = parseField(dayOfMonth, 1, 31, null);
+        }
+
+        String dayOfWeek = fields[5];
+        int lastDayOfWeek = 0;
+        int nthDayOfWeek = 0;
+        int nthDayOfWeekIndex = 0;
+        long daysOfWeek = 0L;
+        if (dayOfWeek.equals("L")) {
+            daysOfWeek = 1L << 7;
+        } else if (dayOfWeek.length() > 1 && dayOfWeek.endsWith("L")) {
+            lastDayOfWeek = parseValue(dayOfWeek.substring(0, dayOfWeek.length() - 1), 1, 7, DAY_NAMES);
+        } else if (dayOfWeek.contains("#")) {
+            String[] parts = dayOfWeek.split("#");
+            if (parts.length != 2) {
+                throw invalid(dayOfWeek);
+            }
+            nthDayOfWeek = parseValue(parts[0], 1, 7, DAY_NAMES);
+            nthDayOfWeekIndex = parseNumber(parts[1], 1, 5, dayOfWeek);
+        } else {
+            daysOfWeek = parseField(dayOfWeek, 1, 7, DAY_NAMES);
+        }
+
+        this.dayOfMonthRestricted = !isUnrestricted(dayOfMonth);
+        this.dayOfWeekRestricted = !isUnrestricted(dayOfWeek);
+        if (dayOfMonthRestricted && dayOfWeekRestricted) {
+            throw new IllegalArgumentException(String.format(
+                "Cron expression '%s' cannot restrict both day-of-month and day-of-week, one of them has to be '?'", expression));
+        }
+        this.daysOfMonth = daysOfMonth;
+        this.daysOfWeek = daysOfWeek;
+        this.lastDayOfMonthOffset = lastDayOfMonthOffset;
+        this.nearestWeekday = nearestWeekday;
+        this.lastWeekdayOfMonth = lastWeekdayOfMonth;
+        this.lastDayOfWeek = lastDayOfWeek;
+        this.nthDayOfWeek = nthDayOfWeek;
+        this.nthDayOfWeekIndex = nthDayOfWeekIndex;
+    }
+
+    /**
+     * Compiles the given cron expression for the given time zone
+     * @throws IllegalArgumentException if the expression is not valid
+     */
+    public static CompiledCronExpression compile(String expression, ZoneId zoneId) {
+        if (expression == null) {
+            throw new IllegalArgumentException("Cron expression cannot be null");
+        }
+        return new CompiledCronExpression(expression, zoneId != null ? zoneId : ZoneOffset.UTC);
+    }
+
+    /**
+     * Compiles the given cron expression for the given time zone, resolving fuzzy "H" tokens with the given id
+     * @throws IllegalArgumentException if the expression is not valid
+     */
+    public static CompiledCronExpression compile(String id, String expression, ZoneId zoneId) {
+        if (expression == null) {
+            throw new IllegalArgumentException("Cron expression cannot be null");
+        }
+        return compile(CronExpressionFuzzer.fuzz(id, expression), zoneId);
+    }
+
+    /**
+     * Returns the expression this instance was compiled from (with "H" tokens already resolved)
+     */
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * Returns the first fire time (epoch milliseconds) strictly after the given time, or -1 if there is none
+     * up to {@code MAX_YEAR}
+     */
+    public long nextFireTime(long afterEpochMillis) {
+        long after = Math.floorDiv(afterEpochMillis, 1000L) + 1;
+        long local = after + offsetAt(after);
+        while (true) {
+            long candidate = nextLocal(local);
+            if (candidate == NONE) {
+                return -1L;
+            }
+            long epochSecond = toEpochSecond(candidate);
+            if (epochSecond != NONE && epochSecond >= after) {
+                return epochSecond * 1000L;
+            }
+            local = candidate + 1;
+        }
+    }
+
+    /**
+     * Returns the next local time (seconds since the epoch in local time) matching all the fields, starting at
+     * and including the given one
+     */
+    private long nextLocal(long local) {
+        long epochDay = Math.floorDiv(local, (long) SECONDS_PER_DAY);
+        int secondOfDay = (int) (local - epochDay * SECONDS_PER_DAY);
+        int civil = civilFromDays(epochDay);
+        int year = civil / 10000;
+        int month = civil / 100 % 100;
+        int day = civil % 100;
+        int hour = secondOfDay / 3600;
+        int minute = secondOfDay / 60 % 60;
+        int second = secondOfDay % 60;
+        if (year < MIN_YEAR) {
+            year = MIN_YEAR;
+            month = 1;
+            day = 1;
+            hour = minute = second = 0;
+        }
+
+        while (year <= MAX_YEAR) {
+            int nextYear = nextYear(year);
+            if (nextYear < 0) {
+                return NONE;
+            }
+            if (nextYear != year) {
+                year = nextYear;
+                month = 1;
+                day = 1;
+                hour = minute = second = 0;
+            }
+
+            int nextMonth = nextBit(months, month, 12);
+            if (nextMonth < 0) {
+                year++;
+                month = 1;
+                day = 1;
+                hour = minute = second = 0;
+                continue;
+            }
+            if (nextMonth != month) {
+                month = nextMonth;
+                day = 1;
+                hour = minute = second = 0;
+            }
+
+            int lastDay = lengthOfMonth(year, month);
+            int nextDay = nextDay(year, month, day, lastDay);
+            if (nextDay < 0) {
+                month++;
+                day = 1;
+                hour = minute = second = 0;
+                continue;
+            }
+            if (nextDay != day) {
+                day = nextDay;
+                hour = minute = second = 0;
+            }
+
+            int nextHour = nextBit(hours, hour, 23);
+            if (nextHour < 0) {
+                day++;
+                hour = minute = second = 0;
+                continue;
+            }
+            if (nextHour != hour) {
+                hour = nextHour;
+                minute = second = 0;
+            }
+
+            int nextMinute = nextBit(minutes, minute, 59);
+            if (nextMinute < 0) {
+                hour++;
+                minute = second = 0;
+                continue;
+            }
+            if (nextMinute != minute) {
+                minute = nextMinute;
+                second = 0;
+            }
+
+            int nextSecond = nextBit(seconds, second, 59);
+            if (nextSecond < 0) {
+                minute++;
+                second = 0;
+                continue;
+            }
+
+            return daysFromCivil(year, month, day) * SECONDS_PER_DAY + hour * 3600 + minute * 60 + nextSecond;
+        }
+        return NONE;
+    }
+
+    private int nextDay(int year, int month, int day, int lastDay) {
+        if (day > lastDay) {
+            return -1;
+        }
+        if (!dayOfMonthRestricted && !dayOfWeekRestricted) {
+            return day;
+        }
+        if (dayOfMonthRestricted && daysOfMonth != 0L) {
+            int next = nextBit(daysOfMonth, day, lastDay);
+            return next <= lastDay ? next : -1;
+        }
+        if (dayOfMonthRestricted) {
+            int target = specialDayOfMonth(year, month, lastDay);
+            return target >= day ? target : -1;
+        }
+
+        int dayOfWeek = dayOfWeek(daysFromCivil(year, month, day));
+        for (int d = day; d <= lastDay; d++, dayOfWeek = dayOfWeek == 7 ? 1 : dayOfWeek + 1) {
+            if (lastDayOfWeek != 0) {
+                if (dayOfWeek == lastDayOfWeek && d + 7 > lastDay) {
+                    return d;
+                }
+            } else if (nthDayOfWeek != 0) {
+                if (dayOfWeek == nthDayOfWeek && (d - 1) / 7 + 1 == nthDayOfWeekIndex) {
+                    return d;
+                }
+            } else if ((daysOfWeek & (1L << dayOfWeek)) != 0) {
+                return d;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Resolves L, L-n, nW and LW for the given month
+     */
+    private int specialDayOfMonth(int year, int month, int lastDay) {
+        if (lastDayOfMonthOffset >= 0) {
+            return lastDay - lastDayOfMonthOffset;
+        }
+        int target = lastWeekdayOfMonth ? lastDay : Math.min(nearestWeekday, lastDay);
+        int dayOfWeek = dayOfWeek(daysFromCivil(year, month, target));
+        if (dayOfWeek == 7) {
+            target = target == 1 ? target + 2 : target - 1;
+        } else if (dayOfWeek == 1) {
+            target = target == lastDay ? target - 2 : target + 1;
+        }
+        return target;
+    }
+
+    private int nextYear(int year) {
+        int index = year - MIN_YEAR;
+        for (int word = index >>> 6; word < years.length; word++) {
+            long bits = word == index >>> 6 ? years[word] & (-1L << (index & 63)) : years[word];
+            if (bits != 0L) {
+                return MIN_YEAR + (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Converts a local time to epoch seconds the way Quartz (i.e. a lenient {@code Calendar}) does: local times
+     * that occur twice when the clocks go back resolve to the later one, and local times skipped when the clocks go
+     * forward do not exist (NONE)
+     */
+    private long toEpochSecond(long local) {
+        int before = offsetAt(local - SECONDS_PER_DAY);
+        if (fixedOffset) {
+            return local - before;
+        }
+        int after = offsetAt(local + SECONDS_PER_DAY);
+        if (before == after) {
+            return local - before;
+        }
+        boolean beforeValid = offsetAt(local - before) == before;
+        boolean afterValid = offsetAt(local - after) == after;
+        if (beforeValid && afterValid) {
+            return local - Math.min(before, after);
+        }
+        if (beforeValid) {
+            return local - before;
+        }
+        return afterValid ? local - after : NONE;
+    }
+
+    private int offsetAt(long epochSecond) {
+        OffsetWindow window = offsetWindow;
+        if (window != null && epochSecond >= window.from && epochSecond < window.until) {
+            return window.offsetSeconds;
+        }
+        Instant instant = Instant.ofEpochSecond(epochSecond);
+        int offsetSeconds = zoneRules.getOffset(instant).getTotalSeconds();
+        if (fixedOffset) {
+            offsetWindow = new OffsetWindow(Long.MIN_VALUE, Long.MAX_VALUE, offsetSeconds);
+            return offsetSeconds;
+        }
+        ZoneOffsetTransition previous = zoneRules.previousTransition(instant.plusSeconds(1));
+        ZoneOffsetTransition next = zoneRules.nextTransition(instant);
+        long from = previous != null ? previous.toEpochSecond() : Long.MIN_VALUE;
+        long until = next != null ? next.toEpochSecond() : Long.MAX_VALUE;
+        if (epochSecond >= from && epochSecond < until) {
+            offsetWindow = new OffsetWindow(from, until, offsetSeconds);
+        }
+        return offsetSeconds;
+    }
+
+    private static final class OffsetWindow {
+        private final long from;
+        private final long until;
+        private final int offsetSeconds;
+
+        private OffsetWindow(long from, long until, int offsetSeconds) {
+            this.from = from;
+            this.until = until;
+            this.offsetSeconds = offsetSeconds;
+        }
+    }
+
+    private static int nextBit(long bits, int from, int max) {
+        if (from > max) {
+            return -1;
+        }
+        long masked = bits & (-1L << from);
+        return masked != 0L ? Long.numberOfTrailingZeros(masked) : -1;
+    }
+
+    /**
+     * Day of week of the given epoch day, 1 (SUN) to 7 (SAT) as in Quartz. The epoch day 0 was a Thursday
+     */
+    private static int dayOfWeek(long epochDay) {
+        return (int) Math.floorMod(epochDay + 4, 7L) + 1;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Days since the epoch for the given proleptic Gregorian date (see http://howardhinnant.github.io/date_algorithms.html)
+     */
+    static long daysFromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468L;
+    }
+
+    /**
+     * Inverse of {@code daysFromCivil}, packed as yyyymmdd to avoid allocating
+     */
+    static int civilFromDays(long epochDay) {
+        long z = epochDay + 719468L;
+        long era = Math.floorDiv(z, 146097L);
+        int dayOfEra = (int) (z - era * 146097L);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yearOfEra + era * 400L + (month <= 2 ? 1 : 0);
+        return (int) (year * 10000L + month * 100 + day);
+    }
+
+    private static boolean isUnrestricted(String field) {
+        return field.equals("*") || field.equals("?");
+    }
+
+    private static long[] parseYears(String field) {
+        long[] years = new long[((MAX_YEAR - MIN_YEAR) >>> 6) + 1];
+        for (String item : field.split(",")) {
+            int[] range = parseRange(item, MIN_YEAR, MAX_YEAR, null);
+            for (int year = range[0]; year <= range[1]; year += range[2]) {
+                int index = year - MIN_YEAR;
+                years[index >>> 6] |= 1L << (index & 63);
+            }
+        }
+        return years;
+    }
+
+    private static long parseField(String field, int min, int max, String[] names) {
+        long bits = 0L;
+        int span = max - min + 1;
+        for (String item : field.split(",")) {
+            int[] range = parseRange(item, min, max, names);
+            int start = range[0];
+            int count = range[1] >= start ? range[1] - start : range[1] - start + span;
+            for (int i = 0; i <= count; i += range[2]) {
+                bits |= 1L << (min + (start - min + i) % span);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Parses a single list item into {start, end, step}. The end can be smaller than the start for ranges that
+     * wrap around, like FRI-MON
+     */
+    private static int[] parseRange(String item, int min, int max, String[] names) {
+        int step = 1;
+        String range = item;
+        int slash = item.indexOf('/');
+        if (slash >= 0) {
+            step = parseNumber(item.substring(slash + 1), 1, max - min + 1, item);
+            range = item.substring(0, slash);
+        }
+        if (isUnrestricted(range)) {
+            return new int[] {min, max, step};
+        }
+        int dash = range.indexOf('-');
+        if (dash > 0) {
+            return new int[] {
+                parseValue(range.substring(0, dash), min, max, names),
+                parseValue(range.substring(dash + 1), min, max, names),
+                step
+            };
+        }
+        int start = parseValue(range, min, max, names);
+        return new int[] {start, slash >= 0 ? max : start, step};
+    }
+
+    private static int parseValue(String value, int min, int max, String[] names) {
+        if (names != null) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(value)) {
+                    return min + i;
+                }
+            }
+        }
+        return parseNumber(value, min, max, value);
+    }
+
+    private static int parseNumber(String value, int min, int max, String item) {
+        int number;
+        try {
+            number = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw invalid(item);
+        }
+        if (number < min || number > max) {
+            throw new IllegalArgumentException(String.format("Value %d in '%s' is out of range [%d, %d]", number, item, min, max));
+        }
+        return number;
+    }
+
+    private static IllegalArgumentException invalid(String item) {
+        return new IllegalArgumentException(String.format("Invalid cron expression item '%s'", item));
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledCronExpression (" + expression + ')';
+    }
+}
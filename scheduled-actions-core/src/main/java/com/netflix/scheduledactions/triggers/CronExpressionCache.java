@@ -0,0 +1,199 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.scheduledactions.triggers;
+
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A bounded, least recently used cache of validated cron expressions. Validation goes through Quartz which
+ * parses the expression from scratch every time, so the outcome (and anything derived from it, such as a
+ * description or the compiled expression) is kept per expression and shared by every caller of
+ * {@link CronTrigger#validate()}
+ */
+public class CronExpressionCache {
+
+    public static final int DEFAULT_MAX_SIZE = 1024;
+
+    private static final CronExpressionCache shared = new CronExpressionCache(DEFAULT_MAX_SIZE);
+
+    private final int maxSize;
+    private final Map<String, Entry> entries;
+    private long hits;
+    private long misses;
+
+    public CronExpressionCache(final int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than 0");
+        }
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CronExpressionCache.Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the cache shared by {@link CronTrigger} and the validation endpoints
+     */
+    public static CronExpressionCache shared() {
+        return shared;
+    }
+
+    /**
+     * Returns the cached entry for the given expression, validating it first if it is not cached yet.
+     * Invalid expressions are cached as well, with their validation error
+     */
+    public Entry get(String expression) {
+        if (expression == null) {
+            throw new IllegalArgumentException("Cron expression cannot be null");
+        }
+        synchronized (entries) {
+            Entry entry = entries.get(expression);
+            if (entry != null) {
+                hits++;
+                return entry;
+            }
+            misses++;
+        }
+        Entry entry = new Entry(expression, validationError(expression));
+        synchronized (entries) {
+            Entry existing = entries.get(expression);
+            if (existing != null) {
+                return existing;
+            }
+            entries.put(expression, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Validates the given expression, reusing the cached outcome when there is one
+     * @throws IllegalArgumentException if the expression is not valid
+     */
+    public void validate(String expression) {
+        Entry entry = get(expression);
+        if (!entry.isValid()) {
+            throw new IllegalArgumentException(entry.getError());
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHits() {
+        synchronized (entries) {
+            return hits;
+        }
+    }
+
+    public long getMisses() {
+        synchronized (entries) {
+            return misses;
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private static String validationError(String expression) {
+        try {
+            CronExpressionFuzzer.validate(expression);
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage() != null ? e.getMessage() : e.toString();
+        } catch (RuntimeException e) {
+            return e.toString();
+        }
+    }
+
+    public static class Entry {
+        private final String expression;
+        private final String error;
+        private final ConcurrentMap<ZoneId, CompiledCronExpression> compiled = new ConcurrentHashMap<>();
+        private volatile String description;
+
+        private Entry(String expression, String error) {
+            this.expression = expression;
+            this.error = error;
+        }
+
+        public String getExpression() {
+            return expression;
+        }
+
+        public boolean isValid() {
+            return error == null;
+        }
+
+        /**
+         * Returns the validation error, or null if the expression is valid
+         */
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * Returns the expression compiled for the given time zone (UTC if null). Fuzzy "H" tokens are resolved
+         * the same way {@link CronExpressionFuzzer#validate(String)} resolves them
+         * @throws IllegalArgumentException if the expression is not valid
+         */
+        public CompiledCronExpression compile(ZoneId zoneId) {
+            if (error != null) {
+                throw new IllegalArgumentException(error);
+            }
+            ZoneId zone = zoneId != null ? zoneId : ZoneOffset.UTC;
+            CompiledCronExpression expression = compiled.get(zone);
+            if (expression == null) {
+                expression = CompiledCronExpression.compile("temp", this.expression, zone);
+                CompiledCronExpression existing = compiled.putIfAbsent(zone, expression);
+                if (existing != null) {
+                    expression = existing;
+                }
+            }
+            return expression;
+        }
+
+        /**
+         * Returns the description attached by {@link #setDescription(String)}, or null if there is none yet
+         */
+        public String getDescription() {
+            return description;
+        }
+
+        public void setDescription(String description) {
+            this.description = description;
+        }
+    }
+}
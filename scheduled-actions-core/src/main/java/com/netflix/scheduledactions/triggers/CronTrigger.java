@@ -17,20 +17,30 @@
 package com.netflix.scheduledactions.triggers;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.netflix.scheduledactions.Context;
+import com.netflix.scheduledactions.SchedulerClock;
 import rx.functions.Action1;
 
+import java.time.ZoneId;
 import java.util.Date;
+import java.util.List;
+import java.util.Objects;
 
-public class CronTrigger implements Trigger {
+public class CronTrigger implements ExcludableTrigger {
 
     private final String cronExpression;
     private final Date startAt;
     private final String timeZoneId;
+    private volatile String fuzzedExpression;
+    private volatile List<String> exclusionCalendars;
+    @JsonIgnore
+    private transient volatile CompiledExpression compiledExpression;
 
     public CronTrigger(String cronExpression) {
-        this(cronExpression, "America/Los_Angeles", new Date());
+        this(cronExpression, "America/Los_Angeles", SchedulerClock.now());
     }
 
     @JsonCreator
@@ -44,25 +54,126 @@ public class CronTrigger implements Trigger {
 
     @Override
     public void validate() throws IllegalArgumentException {
-        CronExpressionFuzzer.validate(cronExpression);
+        CronExpressionCache.shared().validate(cronExpression);
+        ExclusionCalendars.validate(exclusionCalendars);
     }
 
     @Override
     public com.netflix.fenzo.triggers.Trigger<Context> createFenzoTrigger(Context context,
                                                                           Class<? extends Action1<Context>> action) {
         return new com.netflix.fenzo.triggers.CronTrigger<>(
-            this.cronExpression, this.timeZoneId, this.startAt, context.getName(), context, Context.class, action
+            fuzzedExpression != null ? fuzzedExpression : cronExpression, this.timeZoneId, this.startAt, context.getName(), context, Context.class, action
         );
     }
 
+    /**
+     * Fuzzy expressions are resolved to their placement if they have one and with the actionInstance id otherwise,
+     * the same way they are when the trigger is scheduled
+     */
+    @Override
+    public Date getScheduledFireTime(Context context, Date after) {
+        Date fireAfter = startAt != null && after.before(startAt) ? new Date(startAt.getTime() - 1) : after;
+        long nextFireTime = compile(context.getActionInstanceId()).nextFireTime(fireAfter.getTime());
+        return nextFireTime >= 0 ? new Date(nextFireTime) : null;
+    }
+
+    /**
+     * Returns the compiled expression for the given actionInstance id. The last compiled expression is cached,
+     * as a trigger practically always belongs to one actionInstance
+     */
+    public CompiledCronExpression compile(String actionInstanceId) {
+        CompiledExpression cached = compiledExpression;
+        if (cached == null || !Objects.equals(cached.actionInstanceId, actionInstanceId)) {
+            ZoneId zoneId = timeZoneId != null ? ZoneId.of(timeZoneId) : null;
+            cached = new CompiledExpression(
+                actionInstanceId,
+                fuzzedExpression != null ?
+                    CompiledCronExpression.compile(fuzzedExpression, zoneId) :
+                    CompiledCronExpression.compile(actionInstanceId, cronExpression, zoneId)
+            );
+            compiledExpression = cached;
+        }
+        return cached.expression;
+    }
+
+    private static class CompiledExpression {
+        private final String actionInstanceId;
+        private final CompiledCronExpression expression;
+
+        private CompiledExpression(String actionInstanceId, CompiledCronExpression expression) {
+            this.actionInstanceId = actionInstanceId;
+            this.expression = expression;
+        }
+    }
+
     public String getCronExpression() {
         return cronExpression;
     }
 
+    /**
+     * Returns the expression with its "H" tokens resolved by the {@code FuzzPlacementService}, or null if the
+     * expression has not been placed
+     */
+    public String getFuzzedExpression() {
+        return fuzzedExpression;
+    }
+
+    public void setFuzzedExpression(String fuzzedExpression) {
+        this.fuzzedExpression = fuzzedExpression;
+        this.compiledExpression = null;
+    }
+
     public Date getStartAt() {
         return startAt;
     }
 
+    @Override
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public List<String> getExclusionCalendars() {
+        return exclusionCalendars;
+    }
+
+    @Override
+    public void setExclusionCalendars(List<String> exclusionCalendars) {
+        this.exclusionCalendars = ExclusionCalendars.copyOf(exclusionCalendars);
+    }
+
+    /**
+     * Returns whether both triggers fire at the same times from the given time on, i.e. they only differ by start
+     * times that have both passed. Triggers created with the default start time are never equal otherwise
+     */
+    public boolean isEquivalent(CronTrigger other, Date now) {
+        if (other == null) {
+            return false;
+        }
+        boolean started = (startAt == null || !startAt.after(now)) &&
+            (other.startAt == null || !other.startAt.after(now));
+        return Objects.equals(cronExpression, other.cronExpression) &&
+            Objects.equals(timeZoneId, other.timeZoneId) &&
+            Objects.equals(exclusionCalendars, other.exclusionCalendars) &&
+            (started || Objects.equals(startAt, other.startAt));
+    }
+
+    /**
+     * Two cron triggers are equal if they have the same expression, start time, time zone and exclusion calendars.
+     * The placement of their "H" tokens is not compared
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CronTrigger that = (CronTrigger) o;
+        return Objects.equals(cronExpression, that.cronExpression) &&
+            Objects.equals(startAt, that.startAt) &&
+            Objects.equals(timeZoneId, that.timeZoneId) &&
+            Objects.equals(exclusionCalendars, that.exclusionCalendars);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(cronExpression, startAt, timeZoneId, exclusionCalendars);
+    }
+
     @Override
     public String toString() {
         return "CronTrigger (" + cronExpression + ')';
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.scheduledactions.triggers;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.netflix.scheduledactions.Context;
+import com.netflix.scheduledactions.Status;
+import rx.functions.Action1;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Trigger that fires when upstream {@code ActionInstance}s complete, instead of at a time.
+ *
+ * With several upstream actionInstances it fans in: it fires once every one of them has reached one of the given
+ * terminal statuses since it last fired. Statuses default to COMPLETED
+ */
+public class DependencyTrigger implements Trigger {
+
+    private final List<String> upstreamActionInstanceIds;
+    private final List<Status> statuses;
+
+    /**
+     * Creates a dependency trigger that fires once all the given actionInstances have COMPLETED
+     */
+    public DependencyTrigger(String... upstreamActionInstanceIds) {
+        this(Arrays.asList(upstreamActionInstanceIds), null);
+    }
+
+    @JsonCreator
+    public DependencyTrigger(@JsonProperty("upstreamActionInstanceIds") List<String> upstreamActionInstanceIds,
+                             @JsonProperty("statuses") List<Status> statuses) {
+        this.upstreamActionInstanceIds = upstreamActionInstanceIds;
+        this.statuses = statuses != null && !statuses.isEmpty() ? statuses : Collections.singletonList(Status.COMPLETED);
+    }
+
+    @Override
+    public void validate() throws IllegalArgumentException {
+        if (upstreamActionInstanceIds == null || upstreamActionInstanceIds.isEmpty()) {
+            throw new IllegalArgumentException("upstreamActionInstanceIds for the DependencyTrigger cannot be null or empty");
+        }
+        for (String upstreamActionInstanceId : upstreamActionInstanceIds) {
+            if (upstreamActionInstanceId == null || "".equals(upstreamActionInstanceId)) {
+                throw new IllegalArgumentException("upstreamActionInstanceIds for the DependencyTrigger cannot contain empty ids");
+            }
+        }
+        for (Status status : statuses) {
+            if (status == null || !status.isComplete()) {
+                throw new IllegalArgumentException(String.format("Status %s of the DependencyTrigger is not a terminal status", status));
+            }
+        }
+    }
+
+    /**
+     * Dependencies are not scheduled, there is no fenzo trigger for them
+     */
+    @Override
+    public com.netflix.fenzo.triggers.Trigger<Context> createFenzoTrigger(Context context,
+                                                                          Class<? extends Action1<Context>> action) {
+        return null;
+    }
+
+    /**
+     * Dependencies are not scheduled, this trigger never fires at a time
+     */
+    @Override
+    public Date getNextFireTime(Context context, Date after) {
+        return null;
+    }
+
+    public List<String> getUpstreamActionInstanceIds() {
+        return upstreamActionInstanceIds;
+    }
+
+    public List<Status> getStatuses() {
+        return statuses;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DependencyTrigger that = (DependencyTrigger) o;
+        return Objects.equals(upstreamActionInstanceIds, that.upstreamActionInstanceIds) &&
+            Objects.equals(statuses, that.statuses);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(upstreamActionInstanceIds, statuses);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DependencyTrigger (%s on %s)", upstreamActionInstanceIds, statuses);
+    }
+}
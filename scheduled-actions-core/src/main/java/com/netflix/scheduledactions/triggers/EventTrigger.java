@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.scheduledactions.triggers;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.netflix.scheduledactions.Context;
+import rx.functions.Action1;
+
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Trigger that fires when an event with the given name is published on the {@code ActionEventBus} of the
+ * {@code ActionsOperator}, instead of at a time.
+ *
+ * With a coalescing window the actionInstance fires at most once every coalesceMs: the first event fires right away
+ * and all the events that arrive within the window are folded into a single fire at its end
+ */
+public class EventTrigger implements Trigger {
+
+    private final String eventName;
+    private final long coalesceMs;
+
+    /**
+     * Creates an event trigger that fires for the events with the given name as they arrive
+     */
+    public EventTrigger(String eventName) {
+        this(eventName, 0L);
+    }
+
+    @JsonCreator
+    public EventTrigger(@JsonProperty("eventName") String eventName,
+                        @JsonProperty("coalesceMs") long coalesceMs) {
+        this.eventName = eventName;
+        this.coalesceMs = coalesceMs;
+    }
+
+    @Override
+    public void validate() throws IllegalArgumentException {
+        if (eventName == null || "".equals(eventName)) {
+            throw new IllegalArgumentException("eventName for the EventTrigger cannot be null or empty");
+        }
+        if (coalesceMs < 0) {
+            throw new IllegalArgumentException(String.format("Invalid coalesceMs %s specified for the EventTrigger", coalesceMs));
+        }
+    }
+
+    /**
+     * Events are not scheduled, there is no fenzo trigger for them
+     */
+    @Override
+    public com.netflix.fenzo.triggers.Trigger<Context> createFenzoTrigger(Context context,
+                                                                          Class<? extends Action1<Context>> action) {
+        return null;
+    }
+
+    /**
+     * Events are not scheduled, this trigger never fires at a time
+     */
+    @Override
+    public Date getNextFireTime(Context context, Date after) {
+        return null;
+    }
+
+    public String getEventName() {
+        return eventName;
+    }
+
+    public long getCoalesceMs() {
+        return coalesceMs;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        EventTrigger that = (EventTrigger) o;
+        return coalesceMs == that.coalesceMs && Objects.equals(eventName, that.eventName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(eventName, coalesceMs);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EventTrigger (%s, coalesced over %d ms)", eventName, coalesceMs);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.scheduledactions.triggers;
+
+import com.netflix.scheduledactions.Context;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A time based {@code Trigger} that skips the fire times excluded by the {@code ExclusionCalendar}s it refers to
+ */
+public interface ExcludableTrigger extends Trigger {
+
+    /**
+     * Returns the names of the registered {@code ExclusionCalendar}s whose excluded times this trigger skips, or null
+     * if it has none
+     */
+    public List<String> getExclusionCalendars();
+
+    public void setExclusionCalendars(List<String> exclusionCalendars);
+
+    /**
+     * Returns the first time after the given date at which this trigger fires for the given context, without
+     * skipping the times excluded by its calendars
+     */
+    public Date getScheduledFireTime(Context context, Date after);
+
+    /**
+     * Skips the scheduled fire times excluded by the calendars. Returns null if no fire time is found within
+     * {@code ExclusionCalendars.MAX_SKIPS} excluded intervals
+     */
+    @Override
+    public default Date getNextFireTime(Context context, Date after) {
+        List<String> exclusionCalendars = getExclusionCalendars();
+        Date next = getScheduledFireTime(context, after);
+        for (int i = 0; next != null && exclusionCalendars != null; i++) {
+            long until = ExclusionCalendars.excludedUntil(exclusionCalendars, next.getTime());
+            if (until < 0) {
+                break;
+            }
+            next = i < ExclusionCalendars.MAX_SKIPS ? getScheduledFireTime(context, new Date(until - 1)) : null;
+        }
+        return next;
+    }
+}
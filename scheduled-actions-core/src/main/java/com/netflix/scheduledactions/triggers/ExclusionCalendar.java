@@ -0,0 +1,217 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.scheduledactions.triggers;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Named set of times at which triggers that refer to it do not fire: absolute windows (e.g. a maintenance), whole
+ * days in the time zone of the calendar (e.g. holidays) and windows that recur on a cron expression.
+ *
+ * The windows are precompiled into a sorted set of disjoint intervals covering about a month around the times
+ * looked up, starting about a week before them, and recompiled when a lookup falls outside of it or the calendar
+ * changes, so checking a fire time is a binary search. Calendars are registered once in {@code ExclusionCalendars} and shared by all the triggers
+ */
+public class ExclusionCalendar {
+
+    static final long HORIZON_MS = 31L * 24 * 60 * 60 * 1000;
+    static final int MAX_RECURRENCES = 100000;
+
+    private final String name;
+    private final ZoneId zoneId;
+    private final List<long[]> windows = new ArrayList<>();
+    private final List<LocalDate> dates = new ArrayList<>();
+    private final List<RecurringWindow> recurringWindows = new ArrayList<>();
+    private volatile Intervals compiled;
+
+    public ExclusionCalendar(String name, String timeZoneId) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("An exclusion calendar needs a name");
+        }
+        this.name = name;
+        this.zoneId = ZoneId.of(timeZoneId != null ? timeZoneId : "UTC");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTimeZoneId() {
+        return zoneId.getId();
+    }
+
+    /**
+     * Excludes [start, end)
+     */
+    public synchronized void addWindow(Date start, Date end) {
+        if (start == null || end == null || !end.after(start)) {
+            throw new IllegalArgumentException(String.format("Invalid exclusion window [%s, %s)", start, end));
+        }
+        windows.add(new long[] { start.getTime(), end.getTime() });
+        compiled = null;
+    }
+
+    /**
+     * Excludes the whole given day, an ISO-8601 date such as 2015-12-25, in the time zone of the calendar
+     */
+    public synchronized void addDate(String isoDate) {
+        try {
+            dates.add(LocalDate.parse(isoDate));
+        } catch (DateTimeParseException | NullPointerException e) {
+            throw new IllegalArgumentException(String.format("Invalid exclusion date %s", isoDate), e);
+        }
+        compiled = null;
+    }
+
+    /**
+     * Excludes durationMs from every time the given cron expression fires in the time zone of the calendar,
+     * e.g. "0 0 2 ? * SUN" for two hours is a weekly maintenance on Sunday night
+     */
+    public synchronized void addRecurringWindow(String cronExpression, long durationMs) {
+        if (durationMs <= 0 || durationMs > HORIZON_MS) {
+            throw new IllegalArgumentException(String.format("Invalid duration %d for the exclusion window %s", durationMs, cronExpression));
+        }
+        CompiledCronExpression expression = CronExpressionCache.shared().get(cronExpression).compile(zoneId);
+        recurringWindows.add(new RecurringWindow(expression, durationMs));
+        compiled = null;
+    }
+
+    public boolean isExcluded(long time) {
+        return excludedUntil(time) >= 0;
+    }
+
+    /**
+     * Returns the end of the excluded interval the given time falls into, i.e. the first time after it that is not
+     * excluded by this calendar, or -1 if the given time is not excluded
+     */
+    public long excludedUntil(long time) {
+        Intervals intervals = compiled;
+        if (intervals == null || time < intervals.from || time >= intervals.to) {
+            intervals = compileAround(time);
+        }
+        return intervals.excludedUntil(time);
+    }
+
+    /**
+     * Compiles the intervals from a quarter of the horizon before the quarter the given time falls in, so that the
+     * lookups around it, including the earlier ones of triggers that are checked out of order, hit the same compiled
+     * intervals. Calendars with too many recurrences for that much slack are compiled from the given time on
+     */
+    private synchronized Intervals compileAround(long time) {
+        long quarterMs = HORIZON_MS / 4;
+        Intervals intervals = compile(Math.floorDiv(time, quarterMs) * quarterMs - quarterMs);
+        if (time >= intervals.to) {
+            intervals = compile(time);
+        }
+        return intervals;
+    }
+
+    private Intervals compile(long from) {
+        long maxDurationMs = 0;
+        for (RecurringWindow recurringWindow : recurringWindows) {
+            maxDurationMs = Math.max(maxDurationMs, recurringWindow.durationMs);
+        }
+        long to = from + HORIZON_MS;
+        List<long[]> intervals = new ArrayList<>(windows);
+        for (LocalDate date : dates) {
+            intervals.add(new long[] {
+                date.atStartOfDay(zoneId).toInstant().toEpochMilli(),
+                date.plusDays(1).atStartOfDay(zoneId).toInstant().toEpochMilli()
+            });
+        }
+        for (RecurringWindow recurringWindow : recurringWindows) {
+            // windows that start before from - maxDurationMs are over by from
+            long start = recurringWindow.expression.nextFireTime(from - maxDurationMs - 1);
+            for (int i = 0; start >= 0 && start < to; i++) {
+                if (i == MAX_RECURRENCES) {
+                    to = Math.max(start, from + 1);
+                    break;
+                }
+                intervals.add(new long[] { start, start + recurringWindow.durationMs });
+                start = recurringWindow.expression.nextFireTime(start);
+            }
+        }
+        Intervals compiled = new Intervals(from, to, intervals);
+        this.compiled = compiled;
+        return compiled;
+    }
+
+    private static class RecurringWindow {
+        private final CompiledCronExpression expression;
+        private final long durationMs;
+
+        private RecurringWindow(CompiledCronExpression expression, long durationMs) {
+            this.expression = expression;
+            this.durationMs = durationMs;
+        }
+    }
+
+    /**
+     * Sorted, disjoint [start, end) intervals, valid for the lookups in [from, to)
+     */
+    private static class Intervals {
+        private final long from;
+        private final long to;
+        private final long[] starts;
+        private final long[] ends;
+
+        private Intervals(long from, long to, List<long[]> intervals) {
+            Collections.sort(intervals, new Comparator<long[]>() {
+                @Override
+                public int compare(long[] a, long[] b) {
+                    return Long.compare(a[0], b[0]);
+                }
+            });
+            long[] starts = new long[intervals.size()];
+            long[] ends = new long[intervals.size()];
+            int size = 0;
+            for (long[] interval : intervals) {
+                if (size > 0 && interval[0] <= ends[size - 1]) {
+                    ends[size - 1] = Math.max(ends[size - 1], interval[1]);
+                } else {
+                    starts[size] = interval[0];
+                    ends[size] = interval[1];
+                    size++;
+                }
+            }
+            this.from = from;
+            this.to = to;
+            this.starts = Arrays.copyOf(starts, size);
+            this.ends = Arrays.copyOf(ends, size);
+        }
+
+        private long excludedUntil(long time) {
+            int position = Arrays.binarySearch(starts, time);
+            int index = position >= 0 ? position : -position - 2;
+            return index >= 0 && ends[index] > time ? ends[index] : -1;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ExclusionCalendar (%s)", name);
+    }
+}
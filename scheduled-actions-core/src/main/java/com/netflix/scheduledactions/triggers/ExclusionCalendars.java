@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.scheduledactions.triggers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of the {@code ExclusionCalendar}s the triggers refer to by name. Every node registers the same
+ * calendars at startup, before its actionInstances are loaded
+ */
+public final class ExclusionCalendars {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExclusionCalendars.class);
+
+    /**
+     * Upper bound on the excluded intervals skipped while looking for a time that is not excluded, so that
+     * calendars that exclude everything do not hang the scheduler
+     */
+    public static final int MAX_SKIPS = 10000;
+
+    private static final ConcurrentMap<String, ExclusionCalendar> calendars = new ConcurrentHashMap<>();
+
+    private ExclusionCalendars() {}
+
+    /**
+     * Registers the calendar, replacing any calendar registered with the same name
+     */
+    public static void register(ExclusionCalendar calendar) {
+        calendars.put(calendar.getName(), calendar);
+    }
+
+    public static ExclusionCalendar unregister(String name) {
+        return calendars.remove(name);
+    }
+
+    public static ExclusionCalendar get(String name) {
+        return calendars.get(name);
+    }
+
+    public static List<String> getNames() {
+        List<String> names = new ArrayList<>(calendars.keySet());
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * @throws IllegalArgumentException if any of the given calendars is not registered
+     */
+    public static void validate(List<String> names) {
+        if (names == null) {
+            return;
+        }
+        for (String name : names) {
+            if (!calendars.containsKey(name)) {
+                throw new IllegalArgumentException(String.format("No exclusion calendar registered with the name %s", name));
+            }
+        }
+    }
+
+    /**
+     * Returns an unmodifiable copy of the given calendar names, or null if there are none
+     */
+    public static List<String> copyOf(List<String> names) {
+        return names != null && !names.isEmpty() ? Collections.unmodifiableList(new ArrayList<>(names)) : null;
+    }
+
+    /**
+     * Returns the first time at or after the given time that none of the given calendars excludes, or -1 if the given
+     * time is not excluded. Calendars that are not registered (anymore) exclude nothing
+     */
+    public static long excludedUntil(List<String> names, long time) {
+        if (names == null || names.isEmpty()) {
+            return -1;
+        }
+        long until = time;
+        boolean moved = true;
+        for (int i = 0; moved && i < MAX_SKIPS; i++) {
+            moved = false;
+            for (String name : names) {
+                ExclusionCalendar calendar = calendars.get(name);
+                if (calendar == null) {
+                    logger.warn("Exclusion calendar {} is not registered, ignoring it", name);
+                    continue;
+                }
+                long end = calendar.excludedUntil(until);
+                if (end >= 0) {
+                    until = end;
+                    moved = true;
+                }
+            }
+        }
+        return until != time ? until : -1;
+    }
+}
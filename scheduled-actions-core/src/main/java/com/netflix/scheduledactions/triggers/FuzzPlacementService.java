@@ -0,0 +1,254 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.scheduledactions.triggers;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Resolves the fuzzy "H" tokens of cron expressions based on load rather than on the hash of the id alone.
+ *
+ * The service keeps an occupancy histogram of the seconds, minutes and hours that the registered expressions fire
+ * at. A new fuzzy expression gets the least loaded slot of each of its fuzzy fields, e.g. "H/15" gets the offset
+ * whose four quarter-hours are the least loaded. Ties are broken by a hash of the id so the placement is
+ * deterministic for a given id and histogram. Placements are stored on the {@code CronTrigger} and persisted with
+ * it, so they do not move when the histogram changes later on
+ */
+public class FuzzPlacementService {
+
+    private static final String TOKEN = "H";
+
+    public enum Field {
+        SECONDS(0, 60), MINUTES(1, 60), HOURS(2, 24);
+
+        private final int position;
+        private final int range;
+
+        Field(int position, int range) {
+            this.position = position;
+            this.range = range;
+        }
+    }
+
+    private final int[][] histogram = new int[Field.values().length][];
+    private final Map<String, long[]> occupiedSlots = new HashMap<>();
+
+    public FuzzPlacementService() {
+        for (Field field : Field.values()) {
+            histogram[field.ordinal()] = new int[field.range];
+        }
+    }
+
+    /**
+     * Places the fuzzy expression of the trigger if it has not been placed yet, and records the slots it occupies
+     * for the given actionInstance id
+     */
+    public synchronized void place(String id, CronTrigger trigger) {
+        if (trigger.getFuzzedExpression() == null && CronExpressionFuzzer.hasFuzzyExpression(trigger.getCronExpression())) {
+            trigger.setFuzzedExpression(place(id, trigger.getCronExpression()));
+        } else {
+            record(id, trigger);
+        }
+    }
+
+    /**
+     * Records the slots occupied by an already placed trigger, e.g. when loading the registered actionInstances
+     */
+    public synchronized void record(String id, CronTrigger trigger) {
+        String expression = trigger.getFuzzedExpression() != null ?
+            trigger.getFuzzedExpression() : CronExpressionFuzzer.fuzz(id, trigger.getCronExpression());
+        record(id, expression);
+    }
+
+    /**
+     * Resolves the "H" tokens of the expression to the least loaded slots, records the resolved expression for
+     * the given id and returns it. Expressions without "H" tokens are only recorded
+     */
+    public synchronized String place(String id, String expression) {
+        release(id);
+        String[] tokens = expression.trim().split("\\s+");
+        if (tokens.length < Field.values().length) {
+            throw new IllegalArgumentException(String.format("Invalid cron expression '%s'", expression));
+        }
+        for (Field field : Field.values()) {
+            String token = tokens[field.position];
+            if (token.contains(TOKEN)) {
+                tokens[field.position] = resolve(id, field, token);
+            }
+        }
+        StringBuilder resolved = new StringBuilder();
+        for (String token : tokens) {
+            if (resolved.length() > 0) {
+                resolved.append(' ');
+            }
+            resolved.append(token);
+        }
+        record(id, resolved.toString());
+        return resolved.toString();
+    }
+
+    /**
+     * Removes the slots occupied by the given id from the histogram
+     */
+    public synchronized void release(String id) {
+        long[] slots = occupiedSlots.remove(id);
+        if (slots != null) {
+            for (Field field : Field.values()) {
+                for (int slot = 0; slot < field.range; slot++) {
+                    if ((slots[field.ordinal()] & (1L << slot)) != 0) {
+                        histogram[field.ordinal()][slot]--;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a copy of the occupancy histogram, i.e. the number of registered expressions firing at every
+     * second, minute and hour
+     */
+    public synchronized Map<String, int[]> getHistogram() {
+        Map<String, int[]> copy = new LinkedHashMap<>();
+        for (Field field : Field.values()) {
+            copy.put(field.name().toLowerCase(), histogram[field.ordinal()].clone());
+        }
+        return copy;
+    }
+
+    public synchronized int[] getHistogram(Field field) {
+        return histogram[field.ordinal()].clone();
+    }
+
+    private void record(String id, String expression) {
+        release(id);
+        String[] tokens = expression.trim().split("\\s+");
+        long[] slots = new long[Field.values().length];
+        for (Field field : Field.values()) {
+            long mask = tokens.length > field.position ? slots(tokens[field.position], field.range) : 0L;
+            slots[field.ordinal()] = mask;
+            for (int slot = 0; slot < field.range; slot++) {
+                if ((mask & (1L << slot)) != 0) {
+                    histogram[field.ordinal()][slot]++;
+                }
+            }
+        }
+        occupiedSlots.put(id, slots);
+    }
+
+    /**
+     * Resolves "H" or "H/step" to the least loaded offset, any other use of "H" gets the least loaded single slot
+     */
+    private String resolve(String id, Field field, String token) {
+        int step = 1;
+        int candidates = field.range;
+        if (token.startsWith(TOKEN + "/")) {
+            try {
+                step = Integer.parseInt(token.substring(2));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(String.format("Invalid fuzzy cron token '%s'", token));
+            }
+            if (step < 1 || step > field.range) {
+                throw new IllegalArgumentException(String.format("Invalid fuzzy cron token '%s'", token));
+            }
+            candidates = step;
+        }
+        int[] load = histogram[field.ordinal()];
+        int start = Math.floorMod(mix(id.hashCode()), candidates);
+        int best = start;
+        long bestLoad = Long.MAX_VALUE;
+        for (int i = 0; i < candidates; i++) {
+            int offset = (start + i) % candidates;
+            long offsetLoad = 0;
+            for (int slot = offset; slot < field.range; slot += (step > 1 ? step : field.range)) {
+                offsetLoad += load[slot];
+            }
+            if (offsetLoad < bestLoad) {
+                bestLoad = offsetLoad;
+                best = offset;
+            }
+        }
+        return token.replace(TOKEN, Integer.toString(best));
+    }
+
+    /**
+     * Returns the bit mask of the slots a seconds, minutes or hours token fires at. Tokens that can't be parsed
+     * occupy no slots
+     */
+    static long slots(String token, int range) {
+        long mask = 0L;
+        for (String part : token.split(",")) {
+            int step = 1;
+            String values = part;
+            int slash = part.indexOf('/');
+            if (slash >= 0) {
+                values = part.substring(0, slash);
+                Integer parsedStep = parse(part.substring(slash + 1));
+                if (parsedStep == null || parsedStep < 1) {
+                    return 0L;
+                }
+                step = parsedStep;
+            }
+            int from;
+            int to;
+            if ("*".equals(values) || "?".equals(values)) {
+                from = 0;
+                to = range - 1;
+            } else if (values.contains("-")) {
+                String[] bounds = values.split("-");
+                Integer lower = bounds.length == 2 ? parse(bounds[0]) : null;
+                Integer upper = bounds.length == 2 ? parse(bounds[1]) : null;
+                if (lower == null || upper == null) {
+                    return 0L;
+                }
+                from = lower;
+                to = upper;
+            } else {
+                Integer value = parse(values);
+                if (value == null) {
+                    return 0L;
+                }
+                from = value;
+                to = slash >= 0 ? range - 1 : value;
+            }
+            if (from < 0 || to >= range || from > to) {
+                return 0L;
+            }
+            for (int slot = from; slot <= to; slot += step) {
+                mask |= 1L << slot;
+            }
+        }
+        return mask;
+    }
+
+    private static Integer parse(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
@@ -17,32 +17,68 @@
 package com.netflix.scheduledactions.triggers;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.netflix.fenzo.triggers.TriggerUtils;
 import com.netflix.scheduledactions.Context;
+import com.netflix.scheduledactions.SchedulerClock;
+import org.joda.time.Interval;
 import rx.functions.Action1;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
+import java.util.Objects;
 
-public class IntervalTrigger implements Trigger {
+/**
+ * Trigger that fires every period from a start time on, given as an ISO-8601 interval such as
+ * 2015-06-01T10:00:00Z/PT5M. Sub-second periods are written with fractional seconds, e.g. PT0.250S.
+ *
+ * The interval is parsed once into an epoch-millis start and period, the same way fenzo reads it (with Joda, so any
+ * interval fenzo accepts works here too), and computing the next fire time is plain arithmetic on the fixed grid
+ * start + n * period that never drifts
+ */
+public class IntervalTrigger implements ExcludableTrigger {
 
     private static final String ISO_8601_TIME_PREFIX = "PT";
     private static final String ISO_8601_DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ssXXX";
+    private static final String ISO_8601_MILLIS_DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSSXXX";
+
+    private static final ThreadLocal<DateFormat> DATE_FORMAT = new ThreadLocal<DateFormat>() {
+        @Override
+        protected DateFormat initialValue() {
+            return new SimpleDateFormat(ISO_8601_DATE_FORMAT);
+        }
+    };
+    private static final ThreadLocal<DateFormat> MILLIS_DATE_FORMAT = new ThreadLocal<DateFormat>() {
+        @Override
+        protected DateFormat initialValue() {
+            return new SimpleDateFormat(ISO_8601_MILLIS_DATE_FORMAT);
+        }
+    };
 
     public static enum TimeUnit {
-        SECONDS("S"), MINUTES("M"), HOURS("H");
+        MILLISECONDS("S", 1L), SECONDS("S", 1000L), MINUTES("M", 60 * 1000L), HOURS("H", 60 * 60 * 1000L);
 
         private final String timeUnitSuffix;
+        private final long millis;
 
-        TimeUnit(String timeUnitSuffix) { this.timeUnitSuffix = timeUnitSuffix; }
+        TimeUnit(String timeUnitSuffix, long millis) {
+            this.timeUnitSuffix = timeUnitSuffix;
+            this.millis = millis;
+        }
 
         public String getTimeUnitSuffix() { return timeUnitSuffix; }
+
+        public long toMillis(long interval) { return interval * millis; }
     }
 
     private final String iso8601Interval;
     private final int repeatCount;
+    private volatile List<String> exclusionCalendars;
+    private transient volatile long[] startAndPeriod;
 
     /**
      * Creates an interval trigger based on the given ISO-8601 standard interval expression
@@ -76,18 +112,26 @@ public class IntervalTrigger implements Trigger {
             throw new IllegalArgumentException(String.format("Invalid interval %s specified for the IntervalTrigger", interval));
         }
         if (startAt == null) {
-            startAt = new Date();
+            startAt = SchedulerClock.now();
+        }
+        if (intervalUnit == TimeUnit.MILLISECONDS) {
+            this.iso8601Interval = String.format(
+                "%s/%s%d.%03d%s", MILLIS_DATE_FORMAT.get().format(startAt), ISO_8601_TIME_PREFIX,
+                interval / 1000, interval % 1000, intervalUnit.getTimeUnitSuffix()
+            );
+        } else {
+            this.iso8601Interval = String.format(
+                "%s/%s%s%s", DATE_FORMAT.get().format(startAt), ISO_8601_TIME_PREFIX, interval, intervalUnit.getTimeUnitSuffix()
+            );
         }
-        DateFormat dateFormat = new SimpleDateFormat(ISO_8601_DATE_FORMAT);
-        this.iso8601Interval = String.format(
-            "%s/%s%s%s", dateFormat.format(startAt), ISO_8601_TIME_PREFIX, interval, intervalUnit.getTimeUnitSuffix()
-        );
         this.repeatCount = repeatCount;
     }
 
     @Override
     public void validate() throws IllegalArgumentException {
         TriggerUtils.validateISO8601Interval(iso8601Interval);
+        parse();
+        ExclusionCalendars.validate(exclusionCalendars);
     }
 
     @Override
@@ -98,6 +142,64 @@ public class IntervalTrigger implements Trigger {
         );
     }
 
+    /**
+     * Fire times excluded by the calendars still count towards the repeat count
+     */
+    @Override
+    public Date getScheduledFireTime(Context context, Date after) {
+        long[] parsed = parse();
+        long startMs = parsed[0];
+        long periodMs = parsed[1];
+        long fireCount = after.getTime() < startMs ? 0 : (after.getTime() - startMs) / periodMs + 1;
+        if (repeatCount >= 0 && fireCount > repeatCount) {
+            return null;
+        }
+        return new Date(startMs + fireCount * periodMs);
+    }
+
+    /**
+     * Returns the start of the interval in epoch millis
+     */
+    @JsonIgnore
+    public long getStartMs() {
+        return parse()[0];
+    }
+
+    /**
+     * Returns the period of the interval in milliseconds
+     */
+    @JsonIgnore
+    public long getPeriodMs() {
+        return parse()[1];
+    }
+
+    /**
+     * Parses the ISO-8601 interval into {start, period} in millis the first time it is needed
+     */
+    private long[] parse() {
+        long[] parsed = startAndPeriod;
+        if (parsed != null) {
+            return parsed;
+        }
+        if (iso8601Interval == null) {
+            throw new IllegalArgumentException("iso8601Interval for the IntervalTrigger cannot be null");
+        }
+        Interval interval;
+        try {
+            interval = new Interval(iso8601Interval);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("Unsupported ISO-8601 interval %s", iso8601Interval), e);
+        }
+        long startMs = interval.getStartMillis();
+        long periodMs = interval.toDurationMillis();
+        if (periodMs <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid interval period in %s", iso8601Interval));
+        }
+        parsed = new long[] { startMs, periodMs };
+        startAndPeriod = parsed;
+        return parsed;
+    }
+
     public String getIso8601Interval() {
         return iso8601Interval;
     }
@@ -105,4 +207,29 @@ public class IntervalTrigger implements Trigger {
     public int getRepeatCount() {
         return repeatCount;
     }
+
+    @Override
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public List<String> getExclusionCalendars() {
+        return exclusionCalendars;
+    }
+
+    @Override
+    public void setExclusionCalendars(List<String> exclusionCalendars) {
+        this.exclusionCalendars = ExclusionCalendars.copyOf(exclusionCalendars);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IntervalTrigger that = (IntervalTrigger) o;
+        return repeatCount == that.repeatCount && Objects.equals(iso8601Interval, that.iso8601Interval) &&
+            Objects.equals(exclusionCalendars, that.exclusionCalendars);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(iso8601Interval, repeatCount, exclusionCalendars);
+    }
 }
@@ -20,9 +20,20 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.netflix.scheduledactions.Context;
 import rx.functions.Action1;
 
+import java.util.Date;
+
 @JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY, property = "@class")
 public interface Trigger {
     public void validate() throws IllegalArgumentException;
     public com.netflix.fenzo.triggers.Trigger<Context> createFenzoTrigger(Context context,
                                                                           Class<? extends Action1<Context>> action);
+
+    /**
+     * Returns the first time after the given date at which this trigger fires for the given context, or null if it
+     * does not fire at a time (anymore). Triggers that don't implement it are still scheduled with fenzo, but the
+     * schedulers and indexes that compute fire times themselves treat them as never firing
+     */
+    public default Date getNextFireTime(Context context, Date after) {
+        return null;
+    }
 }
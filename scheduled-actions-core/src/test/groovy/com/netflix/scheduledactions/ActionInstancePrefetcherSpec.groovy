@@ -0,0 +1,120 @@
+package com.netflix.scheduledactions
+
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import com.netflix.scheduledactions.persistence.ActionInstanceDao
+import com.netflix.scheduledactions.scheduler.NextFireTimeIndex
+import spock.lang.Specification
+
+class ActionInstancePrefetcherSpec extends Specification {
+
+  static final long START = 1000000L
+
+  def clock = new VirtualClock(START)
+  def actionInstanceDao = Mock(ActionInstanceDao)
+  def nextFireTimeIndex = new NextFireTimeIndex()
+  def prefetcher = new ActionInstancePrefetcher('node-1', actionInstanceDao, nextFireTimeIndex, 5000L, 1000L, 100, 1)
+
+  def setup() {
+    SchedulerClock.set(clock)
+  }
+
+  def cleanup() {
+    SchedulerClock.reset()
+  }
+
+  def 'should only read the actionInstances due within the lookahead, once'() {
+    given:
+    nextFireTimeIndex.put('soon', START + 2000L)
+    nextFireTimeIndex.put('later', START + 60000L)
+
+    when:
+    int first = prefetcher.prefetch()
+    int second = prefetcher.prefetch()
+
+    then:
+    first == 1
+    second == 0
+    1 * actionInstanceDao.getActionInstance('soon') >> newActionInstance('soon')
+    0 * actionInstanceDao.getActionInstance('later')
+    prefetcher.size() == 1
+  }
+
+  def 'should hand out a prefetched actionInstance once'() {
+    given:
+    nextFireTimeIndex.put('soon', START + 2000L)
+    actionInstanceDao.getActionInstance('soon') >> newActionInstance('soon')
+    prefetcher.prefetch()
+
+    expect:
+    prefetcher.take('soon').id == 'soon'
+    prefetcher.take('soon') == null
+    prefetcher.hits == 1
+    prefetcher.misses == 1
+  }
+
+  def 'should drop the prefetched copy of a changed actionInstance'() {
+    given:
+    nextFireTimeIndex.put('soon', START + 2000L)
+    actionInstanceDao.getActionInstance('soon') >> newActionInstance('soon')
+    prefetcher.prefetch()
+
+    when:
+    prefetcher.unsubscribe('soon')
+
+    then:
+    prefetcher.take('soon') == null
+  }
+
+  def 'should not hand out a copy that was prefetched too long ago'() {
+    given:
+    nextFireTimeIndex.put('soon', START + 2000L)
+    actionInstanceDao.getActionInstance('soon') >> newActionInstance('soon')
+    prefetcher.prefetch()
+
+    when:
+    clock.advance(6001L)
+
+    then:
+    prefetcher.take('soon') == null
+  }
+
+  def 'should not keep a copy read while the actionInstance was being changed'() {
+    given:
+    nextFireTimeIndex.put('soon', START + 2000L)
+    actionInstanceDao.getActionInstance('soon') >> {
+      prefetcher.invalidate('soon')
+      newActionInstance('soon')
+    }
+
+    when:
+    prefetcher.prefetch()
+
+    then:
+    prefetcher.size() == 0
+  }
+
+  private static ActionInstance newActionInstance(String id) {
+    ActionInstance.newActionInstance()
+      .withId(id)
+      .withName(id)
+      .withGroup('ActionInstancePrefetcherSpec')
+      .withAction(DefaultActionOperationsDelegateSpec.TestAction.class)
+      .build()
+  }
+}
@@ -90,6 +90,61 @@ class ActionsOperatorSpec extends Specification {
         regActionInstance.group != null && regActionInstance.group.size() > 0
     }
 
+    void 'test register all registers the valid action instances and reports the invalid ones'() {
+        setup:
+        List<ActionInstance> actionInstances = [
+            ActionInstance.newActionInstance().withName('registerAll1').withGroup('registerAll').withAction(WaitAction.class)
+                .withTrigger(new CronTrigger('0 0 0/1 * * ?')).build(),
+            ActionInstance.newActionInstance().withGroup('registerAll').withAction(WaitAction.class).build(),
+            ActionInstance.newActionInstance().withName('registerAll3').withGroup('registerAll').withAction(WaitAction.class)
+                .withTrigger(new CronTrigger('0 H * * * ?')).build()
+        ]
+
+        when:
+        List<RegistrationResult> results = actionsOperator.registerAll(actionInstances)
+
+        then:
+        results*.registered == [true, false, true]
+        results[1].error != null
+        actionsOperator.getActionInstances('registerAll')*.name.sort() == ['registerAll1', 'registerAll3']
+        actionsOperator.getActionInstance(results[2].actionInstanceId).trigger.fuzzedExpression ==~ /0 \d+ \* \* \* \?/
+    }
+
+    void 'test group operations disable, enable and delete all the action instances of the group'() {
+        setup:
+        actionsOperator.registerAll((1..3).collect {
+            ActionInstance.newActionInstance().withName("groupOperations${it}").withGroup('groupOperations').withAction(WaitAction.class)
+                .withTrigger(new CronTrigger('0 0 0/1 * * ?')).build()
+        })
+        actionsOperator.registerActionInstance(
+            ActionInstance.newActionInstance().withName('otherGroup').withGroup('otherGroup').withAction(WaitAction.class).build()
+        )
+
+        when:
+        List<ActionInstance> disabled = actionsOperator.disableGroup('groupOperations')
+
+        then:
+        disabled.size() == 3
+        actionsOperator.getActionInstances('groupOperations')*.disabled == [true, true, true]
+        actionsOperator.disableGroup('groupOperations').isEmpty()
+        !actionsOperator.getActionInstances('otherGroup')[0].disabled
+
+        when:
+        List<ActionInstance> enabled = actionsOperator.enableGroup('groupOperations')
+
+        then:
+        enabled.size() == 3
+        actionsOperator.getActionInstances('groupOperations')*.disabled == [false, false, false]
+
+        when:
+        List<ActionInstance> deleted = actionsOperator.deleteGroup('groupOperations')
+
+        then:
+        deleted.size() == 3
+        actionsOperator.getActionInstances('groupOperations').isEmpty()
+        actionsOperator.getActionInstances('otherGroup').size() == 1
+    }
+
     void 'test delete action instance'() {
         setup:
         ActionInstance actionInstance = ActionInstance.newActionInstance().withName('deleteActionInstance').withAction(WaitAction.class).build()
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.scheduledactions
+
+import com.netflix.fenzo.triggers.persistence.InMemoryTriggerDao
+import com.netflix.scheduledactions.exceptions.ActionInstanceNotFoundException
+import com.netflix.scheduledactions.exceptions.ActionOperationException
+import com.netflix.scheduledactions.exceptions.ExecutionNotFoundException
+import com.netflix.scheduledactions.executors.Executor
+import com.netflix.scheduledactions.persistence.InMemoryActionInstanceDao
+import com.netflix.scheduledactions.persistence.InMemoryExecutionDao
+import com.netflix.scheduledactions.scheduler.ActionScheduler
+import com.netflix.scheduledactions.triggers.CronTrigger
+import com.netflix.scheduledactions.triggers.ExclusionCalendar
+import com.netflix.scheduledactions.triggers.ExclusionCalendars
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class DefaultActionOperationsDelegateSpec extends Specification {
+
+    static class TestAction extends ActionSupport {
+        @Override
+        void execute(Context context, Execution execution) {}
+    }
+
+    ActionScheduler actionScheduler = Mock(ActionScheduler)
+    InMemoryActionInstanceDao actionInstanceDao = new InMemoryActionInstanceDao()
+    InMemoryExecutionDao executionDao = new InMemoryExecutionDao()
+    Executor executor = Mock(Executor)
+    DefaultActionOperationsDelegate delegate = new DefaultActionOperationsDelegate(
+        actionScheduler,
+        new DaoConfigurer(actionInstanceDao, new InMemoryTriggerDao(), executionDao),
+        executor,
+        2
+    )
+
+    void 'register writes the instance once, before its trigger is registered'() {
+        setup:
+        boolean persistedBeforeRegistration = false
+
+        when:
+        String id = delegate.register(newActionInstance(null, new CronTrigger('0 0 * * * ?'), ['a']))
+
+        then:
+        1 * actionScheduler.register({ it.id != null }) >> { ActionInstance actionInstance ->
+            persistedBeforeRegistration = actionInstanceDao.getActionInstance(actionInstance.id) != null
+        }
+        persistedBeforeRegistration
+        actionInstanceDao.getActionInstance(id) != null
+    }
+
+    void 'register deletes the instance if its trigger cannot be registered'() {
+        when:
+        delegate.register(newActionInstance(null, new CronTrigger('0 0 * * * ?'), ['a']))
+
+        then:
+        1 * actionScheduler.register(_) >> { throw new ActionOperationException('boom') }
+        thrown(ActionOperationException)
+        actionInstanceDao.getActionInstances('DefaultActionOperationsDelegateSpec').isEmpty()
+    }
+
+    void 'update only writes the instance when the schedule did not change'() {
+        setup:
+        String id = delegate.register(newActionInstance(null, new CronTrigger('0 0 * * * ?'), ['a']))
+
+        when:
+        delegate.update(newActionInstance(id, new CronTrigger('0 0 * * * ?'), ['a', 'b']))
+
+        then:
+        0 * actionScheduler.delete(_)
+        0 * actionScheduler.register(_)
+        actionInstanceDao.getActionInstance(id).owners == ['a', 'b']
+    }
+
+    void 'update replaces the registered trigger when the schedule changed'() {
+        setup:
+        String id = delegate.register(newActionInstance(null, new CronTrigger('0 0 * * * ?'), ['a']))
+
+        when:
+        delegate.update(newActionInstance(id, new CronTrigger('0 30 * * * ?'), ['a']))
+
+        then:
+        1 * actionScheduler.delete({ it.trigger.cronExpression == '0 0 * * * ?' })
+        1 * actionScheduler.register({ it.trigger.cronExpression == '0 30 * * * ?' })
+        actionInstanceDao.getActionInstance(id).trigger.cronExpression == '0 30 * * * ?'
+    }
+
+    void 'update writes the instance before registering its new trigger and restores it if that fails'() {
+        setup:
+        String id = delegate.register(newActionInstance(null, new CronTrigger('0 0 * * * ?'), ['a']))
+        String persistedExpression = null
+
+        when:
+        delegate.update(newActionInstance(id, new CronTrigger('0 30 * * * ?'), ['a']))
+
+        then:
+        1 * actionScheduler.register(_) >> { ActionInstance actionInstance ->
+            persistedExpression = actionInstanceDao.getActionInstance(id).trigger.cronExpression
+            throw new ActionOperationException('boom')
+        }
+        thrown(ActionOperationException)
+        persistedExpression == '0 30 * * * ?'
+        actionInstanceDao.getActionInstance(id).trigger.cronExpression == '0 0 * * * ?'
+    }
+
+    void 'scheduled fires excluded by the calendars of the trigger do not create executions'() {
+        setup:
+        ExclusionCalendar calendar = new ExclusionCalendar('DefaultActionOperationsDelegateSpec', 'UTC')
+        calendar.addWindow(new Date(System.currentTimeMillis() - 60000), new Date(System.currentTimeMillis() + 60000))
+        ExclusionCalendars.register(calendar)
+        CronTrigger trigger = new CronTrigger('0 0 * * * ?')
+        trigger.exclusionCalendars = ['DefaultActionOperationsDelegateSpec']
+        String id = delegate.register(newActionInstance(null, trigger, ['a']))
+
+        when:
+        Execution execution = delegate.execute(id, AbstractActionOperationsDelegate.InternalAction.INITIATOR)
+
+        then:
+        execution == null
+
+        cleanup:
+        ExclusionCalendars.unregister('DefaultActionOperationsDelegateSpec')
+    }
+
+    void 'scheduled fires record how late they are at every stage'() {
+        setup:
+        String id = delegate.register(newActionInstance(null, new CronTrigger('0 0 * * * ?'), ['a']))
+        Date fireTime = new Date(System.currentTimeMillis() - 1500)
+
+        when:
+        delegate.execute(id, AbstractActionOperationsDelegate.InternalAction.INITIATOR, fireTime)
+
+        then:
+        FireLagHistogram histogram = delegate.fireLagHistograms.find {
+            it.group == 'DefaultActionOperationsDelegateSpec' && it.stage == FireLagHistogram.Stage.FIRE_TO_EXECUTE
+        }
+        histogram.count == 1
+        histogram.maxMs >= 1500
+        delegate.fireLagHistograms.find { it.stage == FireLagHistogram.Stage.EXECUTE_TO_SUBMITTED }.count == 1
+    }
+
+    void 'the submitted to started lag is recorded when the execution starts'() {
+        setup:
+        String id = delegate.register(newActionInstance(null, new CronTrigger('0 0 * * * ?'), ['a']))
+        CountDownLatch started = new CountDownLatch(1)
+        CountDownLatch release = new CountDownLatch(1)
+        executor.execute(_, _, _) >> {
+            started.countDown()
+            release.await(5, TimeUnit.SECONDS)
+        }
+
+        when:
+        delegate.execute(id, AbstractActionOperationsDelegate.InternalAction.INITIATOR, new Date())
+        started.await(5, TimeUnit.SECONDS)
+
+        then:
+        delegate.fireLagHistograms.find { it.stage == FireLagHistogram.Stage.SUBMITTED_TO_STARTED }.count == 1
+
+        cleanup:
+        release.countDown()
+    }
+
+    void 'cron triggers that only differ by past start times are equivalent'() {
+        setup:
+        Date now = new Date()
+        CronTrigger trigger = new CronTrigger('0 0 * * * ?', 'UTC', new Date(now.time - 1000))
+
+        expect:
+        trigger.isEquivalent(new CronTrigger('0 0 * * * ?', 'UTC', new Date(now.time - 5000)), now)
+        !trigger.isEquivalent(new CronTrigger('0 0 * * * ?', 'UTC', new Date(now.time + 5000)), now)
+        !trigger.isEquivalent(new CronTrigger('0 0 * * * ?', 'America/Los_Angeles', new Date(now.time - 5000)), now)
+    }
+
+    void 'loading the indexes pages through the registered instances'() {
+        setup:
+        (1..1203).each {
+            actionInstanceDao.createActionInstance('DefaultActionOperationsDelegateSpec',
+                newActionInstance(null, new CronTrigger('0 0 * * * ?'), ['a']))
+        }
+
+        when:
+        delegate.loadIndexes()
+
+        then:
+        delegate.getUpcoming(new Date(), new Date(System.currentTimeMillis() + 3600000L), 10).count == 1203
+    }
+
+    void 'resuming an interrupted execution carries over its checkpoint'() {
+        setup:
+        String id = delegate.register(newActionInstance(null, new CronTrigger('0 0 * * * ?'), ['a']))
+        Execution interrupted = new Execution('another-delegate', id)
+        interrupted.setFireTime(new Date(1000L))
+        executionDao.createExecution(id, interrupted)
+        interrupted.setExecutionDao(executionDao)
+        interrupted.saveCheckpoint([step: '2'])
+
+        when:
+        Execution resumed = delegate.resume(interrupted.id)
+
+        then:
+        resumed.id != interrupted.id
+        resumed.checkpoint == [step: '2']
+        resumed.resumedFrom == interrupted.id
+        resumed.fireTime == new Date(1000L)
+        executionDao.getExecution(resumed.id) != null
+        executionDao.getExecution(interrupted.id).status == Status.FAILED
+        executionDao.getExecution(interrupted.id).endTime != null
+    }
+
+    void 'resuming a completed execution does nothing'() {
+        setup:
+        String id = delegate.register(newActionInstance(null, new CronTrigger('0 0 * * * ?'), ['a']))
+        Execution completed = new Execution('another-delegate', id)
+        completed.setStatus(Status.COMPLETED)
+        executionDao.createExecution(id, completed)
+
+        expect:
+        delegate.resume(completed.id) == null
+        executionDao.getExecutions(id).size() == 1
+    }
+
+    void 'resuming an unknown execution fails'() {
+        when:
+        delegate.resume('missing')
+
+        then:
+        thrown(ExecutionNotFoundException)
+    }
+
+    void 'resuming an execution of a deleted action instance fails'() {
+        setup:
+        Execution orphaned = new Execution('another-delegate', 'deleted')
+        executionDao.createExecution('deleted', orphaned)
+
+        when:
+        delegate.resume(orphaned.id)
+
+        then:
+        thrown(ActionInstanceNotFoundException)
+    }
+
+    private static ActionInstance newActionInstance(String id, CronTrigger trigger, List<String> owners) {
+        ActionInstance.newActionInstance()
+            .withId(id)
+            .withName('update')
+            .withGroup('DefaultActionOperationsDelegateSpec')
+            .withAction(TestAction.class)
+            .withTrigger(trigger)
+            .withOwners(owners as String[])
+            .build()
+    }
+}
@@ -0,0 +1,96 @@
+package com.netflix.scheduledactions
+
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.netflix.scheduledactions.persistence.InMemoryActionInstanceDao
+import com.netflix.scheduledactions.persistence.InMemoryExecutionDao
+import spock.lang.Specification
+
+class ExecutionReaperSpec extends Specification {
+
+  def executionDao = new InMemoryExecutionDao()
+  def actionInstanceDao = new InMemoryActionInstanceDao()
+  def delegate = Mock(ActionOperationsDelegate)
+  def reaper = new ExecutionReaper('node-1', executionDao, actionInstanceDao, delegate, 1000L, 5, 2)
+
+  def 'should only sweep executions in the running index'() {
+    given:
+    def running = newExecution('node-1', Status.IN_PROGRESS)
+    def completed = newExecution('node-1', Status.IN_PROGRESS)
+    completed.status = Status.COMPLETED
+    executionDao.updateExecution(completed)
+
+    expect:
+    executionDao.getRunningExecutionIds() == [running.id]
+  }
+
+  def 'should mark executions of dead executors as ORPHANED'() {
+    given:
+    executionDao.heartbeat('node-2', 60)
+    def alive = newExecution('node-2', Status.IN_PROGRESS)
+    def dead = (1..3).collect { newExecution('node-3', Status.IN_PROGRESS) }
+
+    when:
+    int reaped = reaper.reap()
+
+    then:
+    reaped == 3
+    dead.every { executionDao.getExecution(it.id).status == Status.ORPHANED }
+    executionDao.getExecution(alive.id).status == Status.IN_PROGRESS
+    executionDao.getRunningExecutionIds() == [alive.id]
+    0 * delegate.resume(_, _)
+  }
+
+  def 'should resume checkpointed executions of dead executors instead of orphaning them'() {
+    given:
+    def execution = newExecution('node-3', Status.IN_PROGRESS)
+    execution.checkpoint = [offset: '42']
+    executionDao.updateExecution(execution)
+
+    when:
+    reaper.reap()
+
+    then:
+    1 * delegate.resume({ it.id == execution.id }, { it.id == execution.actionInstanceId }) >> new Execution('node-1', execution.actionInstanceId)
+    executionDao.getExecution(execution.id).status == Status.IN_PROGRESS
+  }
+
+  def 'should not reap its own executions started after it came up'() {
+    given:
+    def execution = newExecution('node-1', Status.IN_PROGRESS)
+    execution.startTime = new Date(System.currentTimeMillis() + 1000)
+    executionDao.updateExecution(execution)
+
+    expect:
+    reaper.reap() == 0
+  }
+
+  private Execution newExecution(String executorId, Status status) {
+    def actionInstance = ActionInstance.newActionInstance()
+      .withName('reaperTest')
+      .withGroup('reaperGroup')
+      .withAction(ActionSupport)
+      .build()
+    actionInstanceDao.createActionInstance(actionInstance.group, actionInstance)
+    def execution = new Execution(executorId, actionInstance.id)
+    executionDao.createExecution(actionInstance.id, execution)
+    execution.status = status
+    execution.startTime = new Date()
+    executionDao.updateExecution(execution)
+    return execution
+  }
+}
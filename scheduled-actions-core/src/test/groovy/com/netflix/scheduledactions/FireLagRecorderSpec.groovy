@@ -0,0 +1,66 @@
+package com.netflix.scheduledactions
+
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import com.netflix.scheduledactions.FireLagHistogram.Stage
+import spock.lang.Specification
+
+class FireLagRecorderSpec extends Specification {
+
+  def recorder = new FireLagRecorder(2)
+
+  def 'should bucket the lags of a group and stage'() {
+    given:
+    [0L, 3L, 3L, 40L, 900L, -5L, 400000L].each { recorder.record('group-a', Stage.FIRE_TO_EXECUTE, it) }
+    recorder.record('group-a', Stage.SUBMITTED_TO_STARTED, 7L)
+
+    when:
+    def histogram = recorder.getHistogram('group-a', Stage.FIRE_TO_EXECUTE)
+
+    then:
+    histogram.count == 7
+    histogram.counts[0] == 2
+    histogram.counts[2] == 2
+    histogram.counts[5] == 1
+    histogram.counts[9] == 1
+    histogram.counts[FireLagRecorder.BUCKET_BOUNDS_MS.length] == 1
+    histogram.maxMs == 400000L
+    histogram.p50Ms == 5L
+    histogram.p99Ms == 400000L
+    histogram.meanMs == (3 + 3 + 40 + 900 + 400000) / 7d
+    recorder.getHistogram('group-a', Stage.SUBMITTED_TO_STARTED).count == 1
+    recorder.getHistogram('group-a', Stage.EXECUTE_TO_SUBMITTED).count == 0
+    recorder.getHistogram('group-b', Stage.FIRE_TO_EXECUTE) == null
+  }
+
+  def 'should list the histograms by group and stage and bound the number of groups'() {
+    given:
+    recorder.record('group-b', Stage.FIRE_TO_EXECUTE, 1L)
+    recorder.record('group-a', Stage.FIRE_TO_EXECUTE, 1L)
+    recorder.record('group-c', Stage.FIRE_TO_EXECUTE, 1L)
+    recorder.record('group-d', Stage.FIRE_TO_EXECUTE, 1L)
+
+    when:
+    def histograms = recorder.getHistograms()
+
+    then:
+    histograms*.group.unique() == [FireLagRecorder.OTHER_GROUPS, 'group-a', 'group-b']
+    histograms.findAll { it.group == 'group-a' }*.stage == Stage.values() as List
+    recorder.getHistogram(FireLagRecorder.OTHER_GROUPS, Stage.FIRE_TO_EXECUTE).count == 2
+  }
+}
@@ -22,6 +22,7 @@ import com.fasterxml.jackson.annotation.PropertyAccessor
 import com.fasterxml.jackson.databind.DeserializationFeature
 import com.fasterxml.jackson.databind.ObjectMapper
 import com.fasterxml.jackson.databind.SerializationFeature
+import com.netflix.scheduledactions.persistence.ExecutionDao
 import rx.functions.Action1
 import spock.lang.Shared
 import spock.lang.Specification
@@ -39,6 +40,44 @@ class ModelSpec extends Specification {
     objectMapper.addMixInAnnotations(Action1.class, Action1Mixin.class)
   }
 
+  def 'should serialize checkpoint and progress of an Execution'() {
+    given:
+    def execution = new Execution('executor', 'actionInstance')
+    execution.id = 'execution'
+    execution.checkpoint = [offset: '42']
+    execution.reportProgress(40, 'Copied 4 of 10 items')
+
+    when:
+    def result = objectMapper.readValue(objectMapper.writeValueAsString(execution), Execution)
+
+    then:
+    result.checkpoint == [offset: '42']
+    result.progressPercent == 40
+    result.progressMessage == 'Copied 4 of 10 items'
+    result.lastHeartbeat == execution.lastHeartbeat
+  }
+
+  def 'should throttle progress writes'() {
+    given:
+    def executionDao = Mock(ExecutionDao)
+    def execution = new Execution('executor', 'actionInstance')
+    execution.executionDao = executionDao
+
+    when:
+    (1..50).each { execution.reportProgress(it, "Step ${it}") }
+
+    then:
+    1 * executionDao.updateExecution(execution)
+    execution.progressPercent == 50
+
+    when:
+    execution.reportProgress(150, 'Done')
+
+    then:
+    1 * executionDao.updateExecution(execution)
+    execution.progressPercent == 100
+  }
+
   @JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY, property = "@class")
   abstract static class Action1Mixin {}
 }
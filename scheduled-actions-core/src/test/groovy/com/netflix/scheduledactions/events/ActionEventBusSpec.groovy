@@ -0,0 +1,146 @@
+package com.netflix.scheduledactions.events
+
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.netflix.scheduledactions.ActionInstance
+import com.netflix.scheduledactions.ActionOperationsDelegate
+import com.netflix.scheduledactions.ActionSupport
+import com.netflix.scheduledactions.Context
+import com.netflix.scheduledactions.Execution
+import com.netflix.scheduledactions.triggers.EventTrigger
+import spock.lang.Specification
+
+import java.util.concurrent.CopyOnWriteArrayList
+
+class ActionEventBusSpec extends Specification {
+
+  static class TestAction extends ActionSupport {
+    @Override
+    void execute(Context context, Execution execution) {}
+  }
+
+  /**
+   * Runs the scheduled fires on the calling thread as its own clock is moved forward
+   */
+  static class ManualEventBus extends ActionEventBus {
+    long time
+    List<List> tasks = []
+
+    ManualEventBus(ActionOperationsDelegate delegate) {
+      super(delegate, 1)
+    }
+
+    @Override
+    protected long now() {
+      time
+    }
+
+    @Override
+    protected void schedule(Runnable task, long delayMs) {
+      tasks << [time + delayMs, task]
+    }
+
+    void advanceTo(long until) {
+      def due = tasks.findAll { it[0] <= until }.sort { it[0] }
+      while (due) {
+        tasks.remove(due[0])
+        time = due[0][0]
+        due[0][1].run()
+        due = tasks.findAll { it[0] <= until }.sort { it[0] }
+      }
+      time = until
+    }
+  }
+
+  def fired = new CopyOnWriteArrayList<String>()
+  def initiators = new CopyOnWriteArrayList<String>()
+  def fireTimes = new CopyOnWriteArrayList<Date>()
+  def delegate = Stub(ActionOperationsDelegate) {
+    execute(_ as String, _ as String, _ as Date) >> { String id, String initiator, Date fireTime ->
+      fired << id
+      initiators << initiator
+      fireTimes << fireTime
+      null
+    }
+  }
+  def eventBus = new ActionEventBus(delegate)
+
+  def cleanup() {
+    eventBus.shutdown()
+  }
+
+  def 'should coalesce the events within the window of a subscriber into one trailing fire'() {
+    given:
+    def manualEventBus = new ManualEventBus(delegate)
+    def coalesced = actionInstance('coalesced', new EventTrigger('deploy', 500L))
+    def other = actionInstance('other', new EventTrigger('rollback'))
+    [coalesced, other].each { manualEventBus.subscribe(it) }
+
+    when:
+    manualEventBus.publish('deploy')
+    manualEventBus.advanceTo(0L)
+
+    then:
+    fired == [coalesced.id]
+    initiators == ['Event:deploy']
+
+    when:
+    manualEventBus.time = 100L
+    def subscribers = (1..49).collect { manualEventBus.publish('deploy') }
+    manualEventBus.advanceTo(499L)
+
+    then:
+    subscribers.every { it == 1 }
+    fired.size() == 1
+
+    when:
+    manualEventBus.advanceTo(2000L)
+
+    then:
+    fired == [coalesced.id, coalesced.id]
+    fireTimes*.time == [0L, 500L]
+
+    cleanup:
+    manualEventBus.shutdown()
+  }
+
+  def 'should not fire unsubscribed or disabled actionInstances'() {
+    given:
+    def unsubscribed = actionInstance('unsubscribed', new EventTrigger('deploy'))
+    def disabled = actionInstance('disabled', new EventTrigger('deploy'))
+    disabled.disabled = true
+    [unsubscribed, disabled].each { eventBus.subscribe(it) }
+
+    when:
+    eventBus.unsubscribe(unsubscribed.id)
+
+    then:
+    eventBus.publish('deploy') == 0
+    eventBus.subscriptionCount == 0
+    fired.isEmpty()
+  }
+
+  private static ActionInstance actionInstance(String name, EventTrigger trigger) {
+    ActionInstance actionInstance = ActionInstance.newActionInstance()
+      .withName(name)
+      .withAction(TestAction.class)
+      .withTrigger(trigger)
+      .build()
+    actionInstance.id = UUID.randomUUID().toString()
+    actionInstance
+  }
+}
@@ -0,0 +1,151 @@
+package com.netflix.scheduledactions.events
+
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.netflix.scheduledactions.ActionInstance
+import com.netflix.scheduledactions.ActionOperationsDelegate
+import com.netflix.scheduledactions.ActionSupport
+import com.netflix.scheduledactions.Context
+import com.netflix.scheduledactions.Execution
+import com.netflix.scheduledactions.Status
+import com.netflix.scheduledactions.triggers.DependencyTrigger
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.CopyOnWriteArrayList
+
+class DependencyTrackerSpec extends Specification {
+
+  static class TestAction extends ActionSupport {
+    @Override
+    void execute(Context context, Execution execution) {}
+  }
+
+  def fired = new CopyOnWriteArrayList<String>()
+  def delegate = Stub(ActionOperationsDelegate) {
+    execute(_ as String, _ as String, _ as Date) >> { String id, String initiator, Date fireTime ->
+      fired << id
+      null
+    }
+  }
+  def tracker = new DependencyTracker(delegate)
+  def conditions = new PollingConditions(timeout: 5)
+
+  def cleanup() {
+    tracker.shutdown()
+  }
+
+  def 'should fire once all the upstream actionInstances have completed'() {
+    given:
+    def fanIn = actionInstance('fanIn', new DependencyTrigger('a', 'b'))
+    def onFailure = actionInstance('onFailure', new DependencyTrigger(['a'], [Status.FAILED, Status.TIMED_OUT]))
+    [fanIn, onFailure].each { tracker.subscribe(it) }
+
+    when:
+    tracker.onComplete('a', Status.COMPLETED)
+    tracker.onComplete('a', Status.COMPLETED)
+    tracker.onComplete('b', Status.FAILED)
+    sleep(200)
+
+    then:
+    fired.isEmpty()
+
+    when:
+    tracker.onComplete('b', Status.COMPLETED)
+
+    then:
+    conditions.eventually {
+      assert fired == [fanIn.id]
+    }
+
+    when: 'the fan in starts over after firing'
+    tracker.onComplete('a', Status.FAILED)
+    tracker.onComplete('b', Status.COMPLETED)
+
+    then:
+    conditions.eventually {
+      assert fired == [fanIn.id, onFailure.id]
+    }
+  }
+
+  def 'should not fire unsubscribed or disabled actionInstances'() {
+    given:
+    def unsubscribed = actionInstance('unsubscribed', new DependencyTrigger('a'))
+    def disabled = actionInstance('disabled', new DependencyTrigger('a'))
+    disabled.disabled = true
+    [unsubscribed, disabled].each { tracker.subscribe(it) }
+
+    when:
+    tracker.unsubscribe(unsubscribed.id)
+    tracker.onComplete('a', Status.COMPLETED)
+    sleep(200)
+
+    then:
+    tracker.subscriptionCount == 0
+    fired.isEmpty()
+  }
+
+  def 'should only accept terminal statuses'() {
+    when:
+    new DependencyTrigger(['a'], [Status.IN_PROGRESS]).validate()
+
+    then:
+    thrown(IllegalArgumentException)
+  }
+
+  def 'should reject dependencies on the actionInstance itself and cycles'() {
+    given:
+    def a = actionInstance('a', null)
+    def b = actionInstance('b', new DependencyTrigger(a.id))
+    def c = actionInstance('c', new DependencyTrigger(b.id))
+    tracker.subscribe(b)
+    tracker.subscribe(c)
+
+    when:
+    a.trigger = new DependencyTrigger(a.id)
+    tracker.validate(a)
+
+    then:
+    thrown(IllegalArgumentException)
+
+    when:
+    a.trigger = new DependencyTrigger(c.id)
+    tracker.validate(a)
+
+    then:
+    thrown(IllegalArgumentException)
+
+    when: 'a cycle that slipped through validation is not subscribed'
+    tracker.subscribe(a)
+    tracker.onComplete(c.id, Status.COMPLETED)
+    sleep(200)
+
+    then:
+    tracker.subscriptionCount == 2
+    fired.isEmpty()
+  }
+
+  private static ActionInstance actionInstance(String name, DependencyTrigger trigger) {
+    ActionInstance actionInstance = ActionInstance.newActionInstance()
+      .withName(name)
+      .withAction(TestAction.class)
+      .withTrigger(trigger)
+      .build()
+    actionInstance.id = UUID.randomUUID().toString()
+    actionInstance
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.scheduledactions.executors
+
+import com.netflix.scheduledactions.ActionInstance
+import com.netflix.scheduledactions.ActionSupport
+import com.netflix.scheduledactions.Context
+import com.netflix.scheduledactions.Execution
+import com.netflix.scheduledactions.Status
+import com.netflix.scheduledactions.exceptions.ExecutionException
+import com.netflix.scheduledactions.persistence.ExecutionDao
+import spock.lang.Shared
+import spock.lang.Specification
+
+class WorkerProcessPoolExecutorSpec extends Specification {
+
+    @Shared ExecutionDao executionDao = Mock(ExecutionDao)
+    @Shared WorkerProcessPoolExecutor executor = new WorkerProcessPoolExecutor(executionDao, 1, 2, -1L, [])
+
+    def cleanupSpec() {
+        executor.shutdown()
+    }
+
+    static class EchoAction extends ActionSupport {
+        @Override
+        void execute(Context context, Execution execution) throws Exception {
+            execution.logger.info("Running in worker with ${context.parameters.greeting}")
+        }
+    }
+
+    static class FailingAction extends ActionSupport {
+        @Override
+        void execute(Context context, Execution execution) throws Exception {
+            throw new IllegalStateException('Boom!')
+        }
+    }
+
+    void 'frames survive a round trip'() {
+        setup:
+        WorkerFrame frame = new WorkerFrame(WorkerFrame.Type.EXECUTE, 'executionId')
+            .with(WorkerFrame.ACTION, EchoAction.class.name)
+            .withAll(WorkerFrame.PARAMETER_PREFIX, [greeting: 'hello', empty: ''])
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream()
+
+        when:
+        frame.write(new DataOutputStream(bytes))
+        WorkerFrame read = WorkerFrame.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())))
+
+        then:
+        read.type == WorkerFrame.Type.EXECUTE
+        read.executionId == 'executionId'
+        read.get(WorkerFrame.ACTION) == EchoAction.class.name
+        read.getAll(WorkerFrame.PARAMETER_PREFIX) == [greeting: 'hello', empty: '']
+    }
+
+    void 'action is executed in a worker process'() {
+        setup:
+        ActionInstance actionInstance = newActionInstance(EchoAction, [greeting: 'hello'])
+        Execution execution = new Execution('executorId', actionInstance.id)
+        execution.id = UUID.randomUUID().toString()
+
+        when:
+        executor.execute(new EchoAction(), actionInstance, execution)
+
+        then:
+        execution.status == Status.COMPLETED
+        execution.startTime != null
+        execution.endTime != null
+        execution.log.find { it.message == 'Running in worker with hello' } != null
+    }
+
+    void 'failure of the action in the worker process fails the execution'() {
+        setup:
+        ActionInstance actionInstance = newActionInstance(FailingAction, [:])
+        Execution execution = new Execution('executorId', actionInstance.id)
+        execution.id = UUID.randomUUID().toString()
+
+        when:
+        executor.execute(new FailingAction(), actionInstance, execution)
+
+        then:
+        ExecutionException e = thrown()
+        e.status == Status.FAILED
+        e.message == "Exception occurred in action ${FailingAction.class.name}: Boom!"
+    }
+
+    void 'shutdown removes the shutdown hook'() {
+        setup:
+        WorkerProcessPoolExecutor other = new WorkerProcessPoolExecutor(executionDao, 1, 2, -1L, [])
+
+        when:
+        other.shutdown()
+
+        then:
+        !Runtime.runtime.removeShutdownHook(other.shutdownHook)
+    }
+
+    private static ActionInstance newActionInstance(Class action, Map parameters) {
+        ActionInstance actionInstance = ActionInstance.newActionInstance()
+            .withName('workerActionInstance')
+            .withAction(action)
+            .withParameters(parameters)
+            .build()
+        actionInstance.id = UUID.randomUUID().toString()
+        return actionInstance
+    }
+}
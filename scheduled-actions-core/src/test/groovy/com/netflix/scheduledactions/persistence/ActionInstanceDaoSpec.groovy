@@ -0,0 +1,101 @@
+package com.netflix.scheduledactions.persistence
+
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.netflix.scheduledactions.ActionInstance
+import spock.lang.Specification
+
+class ActionInstanceDaoSpec extends Specification {
+
+  /**
+   * Only implements the methods that every ActionInstanceDao had to implement before the batch and paging methods
+   */
+  static class MinimalActionInstanceDao implements ActionInstanceDao {
+    final Map<String, ActionInstance> store = [:]
+
+    @Override
+    String createActionInstance(String group, ActionInstance actionInstance) {
+      assignId(group, actionInstance)
+      store[actionInstance.id] = actionInstance
+      return actionInstance.id
+    }
+
+    @Override
+    void updateActionInstance(ActionInstance actionInstance) {
+      store[actionInstance.id] = actionInstance
+    }
+
+    @Override
+    ActionInstance getActionInstance(String actionInstanceId) {
+      return store[actionInstanceId]
+    }
+
+    @Override
+    void deleteActionInstance(String group, ActionInstance actionInstance) {
+      store.remove(actionInstance.id)
+    }
+
+    @Override
+    List<ActionInstance> getActionInstances(String group) {
+      return store.values().findAll { it.group == group } as List
+    }
+
+    @Override
+    List<ActionInstance> getActionInstances() {
+      return new ArrayList<>(store.values())
+    }
+  }
+
+  def 'the default batch and paging methods fall back to the single item methods'() {
+    given:
+    def subject = new MinimalActionInstanceDao()
+    def actionInstances = (1..7).collect {
+      ActionInstance.newActionInstance().withName("name-$it").withGroup("group-${it % 2}").build()
+    }
+
+    when:
+    def ids = subject.createActionInstances(actionInstances)
+
+    then:
+    ids == actionInstances*.id
+    subject.store.size() == 7
+
+    when:
+    def pages = []
+    def page = subject.getActionInstanceIds(null, 3)
+    while (!page.isEmpty()) {
+      pages << page
+      page = subject.getActionInstanceIds(page.last(), 3)
+    }
+
+    then:
+    pages*.size() == [3, 3, 1]
+    pages.flatten() == ids.sort(false)
+
+    when:
+    def found = subject.getActionInstances([ids[0], 'missing', ids[1]])
+
+    then:
+    found == [actionInstances[0], actionInstances[1]]
+
+    when:
+    subject.deleteActionInstances(actionInstances.take(5))
+
+    then:
+    subject.store.keySet() == ids.drop(5) as Set
+  }
+}
@@ -72,6 +72,21 @@ class InMemoryDaoSpec extends Specification {
         executions.find { it.id == executionId2 } != null
     }
 
+    void 'test last fire time'() {
+        when:
+        String actionInstanceId = 'foobar2'
+        [3000L, 5000L, 4000L].each {
+            Execution execution = new Execution('localExecutorId', actionInstanceId)
+            execution.fireTime = new Date(it)
+            executionDao.createExecution(actionInstanceId, execution)
+        }
+        executionDao.createExecution(actionInstanceId, new Execution('localExecutorId', actionInstanceId))
+
+        then:
+        executionDao.getLastFireTime(actionInstanceId) == new Date(5000L)
+        executionDao.getLastFireTime('foobar3') == null
+    }
+
     void 'test create action instance'() {
         when:
         String group = 'api'
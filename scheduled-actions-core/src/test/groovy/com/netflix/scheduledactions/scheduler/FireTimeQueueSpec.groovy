@@ -0,0 +1,118 @@
+package com.netflix.scheduledactions.scheduler
+
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class FireTimeQueueSpec extends Specification {
+
+  def 'should poll the ids in fire time order'() {
+    given:
+    def queue = new FireTimeQueue()
+    [c: 3000L, a: 1000L, d: 4000L, b: 2000L].each { id, time -> queue.schedule(id, time) }
+
+    expect:
+    queue.size() == 4
+    queue.peekId() == 'a'
+    queue.peekFireTime() == 1000L
+    (1..4).collect { queue.poll() } == ['a', 'b', 'c', 'd']
+    queue.poll() == null
+    queue.isEmpty()
+  }
+
+  def 'should reschedule and remove an id in place'() {
+    given:
+    def queue = new FireTimeQueue()
+    queue.schedule('a', 1000L)
+    queue.schedule('b', 2000L)
+    queue.schedule('c', 3000L)
+
+    when:
+    def added = queue.schedule('a', 4000L)
+    def removed = queue.remove('b')
+
+    then:
+    !added
+    removed
+    !queue.remove('b')
+    queue.size() == 2
+    queue.getFireTime('a') == 4000L
+    queue.getFireTime('b') == FireTimeQueue.NOT_SCHEDULED
+    !queue.contains('b')
+    queue.poll() == 'c'
+    queue.poll() == 'a'
+  }
+
+  @Unroll
+  def 'should stay ordered through random schedules, reschedules and removals with arity #arity'() {
+    given:
+    def queue = new FireTimeQueue(arity, 2)
+    def expected = [:]
+    def random = new Random(arity)
+
+    when:
+    20000.times {
+      def id = "id-${random.nextInt(2000)}".toString()
+      if (random.nextInt(4) == 0) {
+        assert queue.remove(id) == (expected.remove(id) != null)
+      } else {
+        long time = random.nextInt(100000)
+        assert queue.schedule(id, time) == !expected.containsKey(id)
+        expected[id] = time
+      }
+    }
+    def polled = []
+    while (!queue.isEmpty()) {
+      def time = queue.peekFireTime()
+      def id = queue.poll()
+      assert expected[id] == time
+      polled << time
+    }
+
+    then:
+    polled.size() == expected.size()
+    polled == polled.sort(false)
+
+    where:
+    arity << [2, 4, 8]
+  }
+
+  def 'should forget every id after a clear'() {
+    given:
+    def queue = new FireTimeQueue()
+    (1..100).each { queue.schedule("id-$it".toString(), it) }
+
+    when:
+    queue.clear()
+    queue.schedule('a', 5L)
+
+    then:
+    queue.size() == 1
+    !queue.contains('id-1')
+    queue.poll() == 'a'
+  }
+
+  def 'should reject an invalid arity'() {
+    when:
+    new FireTimeQueue(1, 16)
+
+    then:
+    thrown(IllegalArgumentException)
+  }
+}
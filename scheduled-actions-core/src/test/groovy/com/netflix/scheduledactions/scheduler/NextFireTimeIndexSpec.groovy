@@ -0,0 +1,87 @@
+package com.netflix.scheduledactions.scheduler
+
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import spock.lang.Specification
+
+class NextFireTimeIndexSpec extends Specification {
+
+  def index = new NextFireTimeIndex()
+
+  def 'should count and list the fires due in a window, soonest first'() {
+    given:
+    (1..200).each { index.put("id-$it", 1000L * (it % 50)) }
+
+    when:
+    def upcoming = index.upcoming(10000L, 20000L, 5)
+
+    then:
+    index.size() == 200
+    upcoming.count == 40
+    upcoming.fires*.fireTime*.time == [10000L, 10000L, 10000L, 10000L, 11000L]
+    upcoming.fires*.actionInstanceId.take(4) == ['id-10', 'id-110', 'id-160', 'id-60']
+    index.count(49000L, 50000L) == 4
+    index.count(50000L, 60000L) == 0
+    index.count(20000L, 10000L) == 0
+  }
+
+  def 'should move and remove the fire time of an actionInstance'() {
+    given:
+    index.put('a', 1000L)
+    index.put('b', 2000L)
+    index.put('c', 3000L)
+
+    when:
+    index.put('a', 4000L)
+    index.remove('b')
+    index.remove('unknown')
+
+    then:
+    index.size() == 2
+    index.get('a').time == 4000L
+    index.get('b') == null
+    index.upcoming(0L, 10000L, 10).fires*.actionInstanceId == ['c', 'a']
+  }
+
+  def 'should agree with a sorted list after random moves and removes'() {
+    given:
+    def random = new Random(42)
+    Map<String, Long> expected = [:]
+
+    when:
+    10000.times {
+      String id = "id-${random.nextInt(2000)}"
+      if (random.nextInt(4) == 0) {
+        index.remove(id)
+        expected.remove(id)
+      } else {
+        long fireTime = 1000L * random.nextInt(500)
+        index.put(id, fireTime)
+        expected[id] = fireTime
+      }
+    }
+    def sorted = expected.entrySet().sort { a, b -> a.value <=> b.value ?: a.key <=> b.key }
+    def window = sorted.findAll { it.value >= 100000L && it.value < 300000L }
+
+    then:
+    index.size() == expected.size()
+    index.count(100000L, 300000L) == window.size()
+    index.upcoming(100000L, 300000L, 50).fires*.actionInstanceId == window.take(50)*.key
+    index.upcoming(0L, Long.MAX_VALUE, Integer.MAX_VALUE).fires*.actionInstanceId == sorted*.key
+    expected.every { id, fireTime -> index.get(id).time == fireTime }
+  }
+}
@@ -0,0 +1,366 @@
+package com.netflix.scheduledactions.scheduler
+
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.netflix.scheduledactions.ActionInstance
+import com.netflix.scheduledactions.ActionOperationsDelegate
+import com.netflix.scheduledactions.ActionSupport
+import com.netflix.scheduledactions.Context
+import com.netflix.scheduledactions.Execution
+import com.netflix.scheduledactions.MisfirePolicy
+import com.netflix.scheduledactions.persistence.InMemoryActionInstanceDao
+import com.netflix.scheduledactions.persistence.InMemoryExecutionDao
+import com.netflix.scheduledactions.triggers.IntervalTrigger
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+
+class TimingWheelActionSchedulerSpec extends Specification {
+
+  static final long START = 1600000000000L
+  static final AtomicLong CLOCK = new AtomicLong(START)
+
+  static class TestAction extends ActionSupport {
+    @Override
+    void execute(Context context, Execution execution) {}
+  }
+
+  def actionInstanceDao = new InMemoryActionInstanceDao()
+  def fired = new CopyOnWriteArrayList<String>()
+  def fireTimes = new CopyOnWriteArrayList<Long>()
+  def delegate = Stub(ActionOperationsDelegate) {
+    execute(_ as String, _ as String, _ as Date) >> { String id, String initiator, Date fireTime ->
+      fired << id
+      fireTimes << fireTime.time
+      null
+    }
+  }
+  def conditions = new PollingConditions(timeout: 5)
+  TimingWheelActionScheduler scheduler
+
+  def setup() {
+    CLOCK.set(START)
+    // 4 buckets of 100ms in 2 levels, anything 1.6 seconds out goes to the overflow queue
+    scheduler = new TimingWheelActionScheduler(actionInstanceDao, Executors.newSingleThreadExecutor(), 100L, 4, 2) {
+      @Override
+      protected long now() {
+        return CLOCK.get()
+      }
+    }
+  }
+
+  def cleanup() {
+    scheduler.destroy()
+  }
+
+  def 'should fire triggers as time reaches them across the wheel levels and the overflow queue'() {
+    given:
+    def everySecond = register('everySecond', 1, -1)
+    def everyFiveSeconds = register('everyFiveSeconds', 5, -1)
+    initialize()
+
+    expect:
+    scheduler.getNextFireTime(everySecond.id).time == START + 1000
+    scheduler.getNextFireTime(everyFiveSeconds.id).time == START + 5000
+
+    when:
+    CLOCK.set(START + 900)
+    sleep(300)
+
+    then:
+    fired.isEmpty()
+
+    when:
+    CLOCK.set(START + 1100)
+
+    then:
+    conditions.eventually {
+      assert fired == [everySecond.id]
+      assert scheduler.getNextFireTime(everySecond.id).time == START + 2000
+    }
+
+    when: 'the wheel falls behind, missed fire times are coalesced'
+    CLOCK.set(START + 5100)
+
+    then:
+    conditions.eventually {
+      assert fired.sort() == [everyFiveSeconds.id, everySecond.id, everySecond.id].sort()
+      assert scheduler.getNextFireTime(everySecond.id).time == START + 6000
+      assert scheduler.getNextFireTime(everyFiveSeconds.id).time == START + 10000
+    }
+  }
+
+  def 'should not fire disabled or deleted actionInstances'() {
+    given:
+    def disabled = register('disabled', 1, -1)
+    def deleted = register('deleted', 1, -1)
+    initialize()
+
+    when:
+    disabled.disabled = true
+    scheduler.disable(disabled)
+    scheduler.delete(deleted)
+    CLOCK.set(START + 2100)
+    sleep(300)
+
+    then:
+    fired.isEmpty()
+    !scheduler.isScheduled(disabled)
+    !scheduler.isScheduled(deleted)
+
+    when:
+    disabled.disabled = false
+    scheduler.enable(disabled)
+
+    then:
+    scheduler.isScheduled(disabled)
+    scheduler.getNextFireTime(disabled.id).time == START + 3000
+  }
+
+  def 'should unschedule triggers that do not fire anymore'() {
+    given:
+    def once = register('once', 1, 1)
+    initialize()
+
+    when:
+    CLOCK.set(START + 1100)
+
+    then:
+    conditions.eventually {
+      assert fired == [once.id]
+      assert !scheduler.isScheduled(once)
+    }
+    scheduler.scheduledCount == 0
+  }
+
+  def 'should spread the fires of a smoothed group across its window'() {
+    given:
+    def policy = new SmoothingPolicy(2, TimeUnit.SECONDS)
+    scheduler.setSmoothingPolicy('timingWheel', policy)
+    def actionInstances = ['smoothed-1', 'smoothed-2'].collect { id ->
+      def actionInstance = register(id, 5, -1)
+      actionInstanceDao.deleteActionInstance(actionInstance.group, actionInstance)
+      actionInstance.id = id
+      actionInstance
+    }
+    def offsets = actionInstances.collectEntries { [(it.id): policy.offsetFor(it.id)] }
+    def (first, second) = actionInstances.sort { offsets[it.id] }
+    initialize()
+    actionInstances.each { scheduler.schedule(it) }
+
+    expect:
+    offsets.values().every { it >= 0 && it < 2000 }
+    offsets[second.id] - offsets[first.id] > 200
+
+    when:
+    CLOCK.set(START + 5000 + offsets[first.id] + 100)
+
+    then:
+    conditions.eventually {
+      assert fired == [first.id]
+    }
+
+    when:
+    CLOCK.set(START + 5000 + offsets[second.id] + 100)
+
+    then:
+    conditions.eventually {
+      assert fired == [first.id, second.id]
+    }
+    fireTimes == [START + 5000, START + 5000]
+    scheduler.getNextFireTime(first.id).time == START + 10000
+  }
+
+  def 'should rehydrate the triggers in pages while the wheel is ticking'() {
+    given:
+    def soon = (1..5).collect { register("soon-$it", 1, -1) }
+    def later = (1..20).collect { register("later-$it", 600, -1) }
+    scheduler.setRehydration(4, 3, 2000L)
+
+    when:
+    initialize()
+    def progress = scheduler.rehydrationProgress
+
+    then:
+    actionInstanceDao.getActionInstanceIds(null, 30).size() == 25
+    progress.loaded == 25
+    progress.pages == 7
+    progress.scheduled == 25
+    progress.failed == 0
+    (soon + later).every { scheduler.isScheduled(it) }
+    scheduler.getNextFireTime(soon[0].id).time == START + 1000
+    scheduler.getNextFireTime(later[0].id).time == START + 600000
+  }
+
+  def 'should apply the misfire policy to the fires missed while the wheel was stalled'() {
+    given:
+    def coalesced = register('coalesced', 1, -1)
+    def skipped = register('skipped', 1, -1, MisfirePolicy.skip())
+    def once = register('once', 1, -1, MisfirePolicy.runOnce())
+    def all = register('all', 1, -1, MisfirePolicy.runAll(2.0))
+    initialize()
+
+    when: 'the wheel stalls for more than the misfire threshold'
+    CLOCK.set(START + 65500)
+
+    then:
+    conditions.eventually {
+      assert fired.count(coalesced.id) == 1
+      assert fired.count(once.id) == 1
+      assert fired.count(all.id) == 1
+      assert scheduler.pendingReplayCount == 64
+    }
+    fired.count(skipped.id) == 0
+    fireTimes.every { it == START + 1000 }
+    scheduler.getNextFireTime(all.id).time == START + 66000
+
+    when: 'the replays are paced at two per second next to the regular fires'
+    CLOCK.set(START + 66500)
+
+    then:
+    conditions.eventually {
+      assert fired.count(skipped.id) == 1
+      assert fired.count(all.id) == 4
+      assert scheduler.pendingReplayCount == 62
+    }
+
+    when:
+    scheduler.delete(all)
+
+    then:
+    scheduler.pendingReplayCount == 0
+  }
+
+  def 'should catch up on the fires missed while the node was down'() {
+    given:
+    def executionDao = new InMemoryExecutionDao()
+    def startAt = new Date(START - 600000)
+    def all = register('all', 10, -1, MisfirePolicy.runAll(1000.0), startAt)
+    def once = register('once', 10, -1, MisfirePolicy.runOnce(), startAt)
+    def none = register('none', 10, -1, null, startAt)
+    [all, once, none].each { actionInstance ->
+      def execution = new Execution('down', actionInstance.id)
+      execution.fireTime = new Date(START - 120000)
+      executionDao.createExecution(actionInstance.id, execution)
+    }
+    scheduler.setExecutionDao(executionDao)
+
+    when:
+    initialize()
+
+    then:
+    conditions.eventually {
+      assert fired.count(all.id) == 1
+      assert fired.count(once.id) == 1
+      assert scheduler.pendingReplayCount == 11
+    }
+    fired.count(none.id) == 0
+    fireTimes.every { it == START - 110000 }
+
+    when:
+    CLOCK.set(START + 50)
+
+    then:
+    conditions.eventually {
+      assert fired.count(all.id) == 12
+      assert scheduler.pendingReplayCount == 0
+    }
+    fireTimes.findAll { it != START - 110000 }.sort() == (1..11).collect { START - 110000 + it * 10000L }
+  }
+
+  def 'should fire sub-second interval triggers on their own grid'() {
+    given:
+    def actionInstance = ActionInstance.newActionInstance()
+      .withName('fast')
+      .withGroup('timingWheel')
+      .withAction(TestAction.class)
+      .withTrigger(new IntervalTrigger(250, IntervalTrigger.TimeUnit.MILLISECONDS, -1, new Date(START)))
+      .build()
+    actionInstanceDao.createActionInstance(actionInstance.group, actionInstance)
+    initialize()
+
+    expect:
+    scheduler.getNextFireTime(actionInstance.id).time == START + 250
+
+    when:
+    CLOCK.set(START + 260)
+
+    then:
+    conditions.eventually {
+      assert fireTimes == [START + 250]
+      assert scheduler.getNextFireTime(actionInstance.id).time == START + 500
+    }
+
+    when: 'the fire is late, the next one stays on the grid'
+    CLOCK.set(START + 1010)
+
+    then:
+    conditions.eventually {
+      assert fireTimes == [START + 250, START + 500]
+      assert scheduler.getNextFireTime(actionInstance.id).time == START + 1250
+    }
+  }
+
+  def 'should keep the heap ordered by key through removals'() {
+    given:
+    def heap = new LongKeyedHeap<LongKeyedHeap.Node>(2)
+    def random = new Random(7)
+    def nodes = (1..200).collect { new LongKeyedHeap.Node() }
+    def keys = [:]
+    nodes.each { node ->
+      long key = random.nextInt(1000)
+      keys[node] = key
+      heap.add(key, node)
+    }
+
+    when:
+    def removed = nodes.findAll { random.nextBoolean() }
+    removed.each { assert heap.remove(it) }
+    def polled = []
+    while (!heap.isEmpty()) {
+      polled << keys[heap.poll()]
+    }
+
+    then:
+    polled == (nodes - removed).collect { keys[it] }.sort()
+    removed.every { !heap.remove(it) }
+  }
+
+  private void initialize() {
+    scheduler.initialize(delegate)
+    conditions.eventually {
+      assert scheduler.rehydrationProgress.done
+    }
+  }
+
+  private ActionInstance register(String name, int intervalSeconds, int repeatCount,
+                                  MisfirePolicy misfirePolicy = null, Date startAt = new Date(START)) {
+    ActionInstance actionInstance = ActionInstance.newActionInstance()
+      .withName(name)
+      .withGroup('timingWheel')
+      .withAction(TestAction.class)
+      .withTrigger(new IntervalTrigger(intervalSeconds, IntervalTrigger.TimeUnit.SECONDS, repeatCount, startAt))
+      .withMisfirePolicy(misfirePolicy)
+      .build()
+    actionInstanceDao.createActionInstance(actionInstance.group, actionInstance)
+    actionInstance
+  }
+}
@@ -0,0 +1,121 @@
+package com.netflix.scheduledactions.scheduler
+
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import com.netflix.scheduledactions.ActionInstance
+import com.netflix.scheduledactions.ActionOperationsDelegate
+import com.netflix.scheduledactions.ActionSupport
+import com.netflix.scheduledactions.Context
+import com.netflix.scheduledactions.Execution
+import com.netflix.scheduledactions.SchedulerClock
+import com.netflix.scheduledactions.VirtualClock
+import com.netflix.scheduledactions.triggers.CronTrigger
+import com.netflix.scheduledactions.triggers.IntervalTrigger
+import spock.lang.Specification
+
+class VirtualTimeActionSchedulerSpec extends Specification {
+
+  static final long START = 1600000000000L
+  static final long DAY = 24 * 3600 * 1000L
+
+  static class TestAction extends ActionSupport {
+    @Override
+    void execute(Context context, Execution execution) {}
+  }
+
+  def clock = new VirtualClock(START)
+  def fired = []
+  def clockTimes = []
+  def delegate = Stub(ActionOperationsDelegate) {
+    execute(_ as String, _ as String, _ as Date) >> { String id, String initiator, Date fireTime ->
+      fired << [id, fireTime.time]
+      clockTimes << SchedulerClock.currentTimeMillis()
+      null
+    }
+  }
+  def scheduler = new VirtualTimeActionScheduler(clock)
+
+  def setup() {
+    SchedulerClock.set(clock)
+    scheduler.initialize(delegate)
+  }
+
+  def cleanup() {
+    SchedulerClock.reset()
+  }
+
+  def 'should replay a day of fires in order without waiting'() {
+    given:
+    scheduler.register(actionInstance('every-minute', new IntervalTrigger(1, IntervalTrigger.TimeUnit.MINUTES, -1, new Date(START))))
+    scheduler.register(actionInstance('every-hour', new CronTrigger('0 0 * * * ?', 'UTC', new Date(START))))
+
+    when:
+    def count = scheduler.advanceBy(DAY)
+
+    then:
+    count == 24 * 60 + 24
+    scheduler.fireCount == count
+    fired.collect { it[1] } == fired.collect { it[1] }.sort()
+    clockTimes == fired.collect { it[1] }
+    clock.millis() == START + DAY
+    SchedulerClock.now().time == START + DAY
+  }
+
+  def 'should stop firing unscheduled and exhausted triggers'() {
+    given:
+    def once = actionInstance('once', new IntervalTrigger(10, IntervalTrigger.TimeUnit.SECONDS, 0, new Date(START + 1000)))
+    def unscheduled = actionInstance('unscheduled', new IntervalTrigger(10, IntervalTrigger.TimeUnit.SECONDS, -1, new Date(START)))
+    scheduler.register(once)
+    scheduler.register(unscheduled)
+
+    when:
+    scheduler.advanceBy(15000)
+    scheduler.unschedule(unscheduled)
+    scheduler.advanceBy(60000)
+
+    then:
+    fired.findAll { it[0] == 'once' }.size() == 1
+    fired.findAll { it[0] == 'unscheduled' } == [['unscheduled', START + 10000]]
+    !scheduler.isScheduled(once)
+    scheduler.scheduledCount == 0
+  }
+
+  def 'should not move a virtual clock backwards'() {
+    when:
+    clock.advanceTo(START - 1)
+
+    then:
+    clock.millis() == START
+
+    when:
+    clock.advance(-1)
+
+    then:
+    thrown(IllegalArgumentException)
+  }
+
+  private static ActionInstance actionInstance(String id, def trigger) {
+    ActionInstance.newActionInstance()
+      .withId(id)
+      .withName(id)
+      .withGroup('virtualTime')
+      .withAction(TestAction.class)
+      .withTrigger(trigger)
+      .build()
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.scheduledactions.triggers
+
+import org.quartz.CronExpression
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.time.ZoneId
+
+class CompiledCronExpressionSpec extends Specification {
+
+  static final long START = 1420070400000L   // 2015-01-01T00:00:00Z
+  static final long FIVE_YEARS = 5L * 365 * 24 * 3600 * 1000
+
+  @Unroll
+  def "should compute the same fire times as Quartz for '#expression' in #zone"() {
+    given:
+    def compiled = CompiledCronExpression.compile(expression, ZoneId.of(zone))
+    def quartz = new CronExpression(expression)
+    quartz.timeZone = TimeZone.getTimeZone(zone)
+    def random = new Random(expression.hashCode())
+
+    expect:
+    (1..20).each {
+      long time = START + (long) (random.nextDouble() * FIVE_YEARS)
+      for (int i = 0; i < 25 && time >= 0; i++) {
+        Date expected = quartz.getNextValidTimeAfter(new Date(time))
+        long actual = compiled.nextFireTime(time)
+        assert actual == (expected != null ? expected.time : -1L): "after ${new Date(time)}"
+        time = actual
+      }
+    }
+
+    where:
+    [expression, zone] << [
+      [
+        '0 * * * * ?',
+        '*/7 */13 * * * ?',
+        '0 0/15 9-17 ? * MON-FRI',
+        '30 10 2 * * ?',
+        '0 0 12 1/5 * ?',
+        '0 15 10 L * ?',
+        '0 15 10 L-2 * ?',
+        '0 0 8 15W * ?',
+        '0 0 8 1W * ?',
+        '0 0 8 LW * ?',
+        '0 15 10 ? * 6L',
+        '0 15 10 ? * 6#3',
+        '0 0 22-2 ? * FRI-MON',
+        '0 0 0 29 FEB ?',
+        '0 0 0 ? JAN,JUL SUN',
+        '0 30 1 * * ?',
+        '0 0 12 * * ? 2016-2017'
+      ],
+      ['UTC', 'America/Los_Angeles', 'Asia/Kolkata']
+    ].combinations()
+  }
+
+  @Unroll
+  def "should match Quartz across DST transitions for '#expression' in #zone"() {
+    given:
+    def compiled = CompiledCronExpression.compile(expression, ZoneId.of(zone))
+    def quartz = new CronExpression(expression)
+    quartz.timeZone = TimeZone.getTimeZone(zone)
+
+    expect:
+    [1520668800000L, 1572739200000L, 1521936000000L, 1540684800000L].each { long start ->  // a day before 2018/2019 transitions
+      long time = start
+      for (int i = 0; i < 300; i++) {
+        Date expected = quartz.getNextValidTimeAfter(new Date(time))
+        long actual = compiled.nextFireTime(time)
+        assert actual == expected.time: "after ${new Date(time)}"
+        time = actual
+      }
+    }
+
+    where:
+    [expression, zone] << [
+      ['0 */10 * * * ?', '0 0 * * * ?', '0 30 1-3 * * ?', '15 * 1 * * ?'],
+      ['America/Los_Angeles', 'Europe/London']
+    ].combinations()
+  }
+
+  def "should resolve fuzzy expressions the same way as CronExpressionFuzzer"() {
+    expect:
+    CompiledCronExpression.compile('abcd', 'H H/5 * * * ?', ZoneId.of('UTC')).expression == '22 22/5 * * * ?'
+  }
+
+  @Unroll
+  def "should reject invalid expression '#expression'"() {
+    when:
+    CompiledCronExpression.compile(expression, ZoneId.of('UTC'))
+
+    then:
+    thrown(IllegalArgumentException)
+
+    where:
+    expression << ['* * * *', '60 * * * * ?', '0 0 0 1 * MON', '0 0 0 ? * 8', '0 0 0 ? * MON#6', '0 0 0 X * ?']
+  }
+
+  def "should convert between epoch days and civil dates"() {
+    expect:
+    (-1000..100000).every {
+      int civil = CompiledCronExpression.civilFromDays(it)
+      CompiledCronExpression.daysFromCivil(civil.intdiv(10000), civil.intdiv(100) % 100, civil % 100) == it
+    }
+    CompiledCronExpression.civilFromDays(0) == 19700101
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.scheduledactions.triggers
+
+import spock.lang.Specification
+
+import java.time.ZoneOffset
+
+class CronExpressionCacheSpec extends Specification {
+
+  def 'should cache valid and invalid expressions'() {
+    given:
+    def cache = new CronExpressionCache(10)
+
+    when:
+    def valid = cache.get('0 0/15 * * * ?')
+    def invalid = cache.get('H H')
+
+    then:
+    valid.valid
+    !invalid.valid
+    invalid.error != null
+    cache.get('0 0/15 * * * ?').is(valid)
+    cache.misses == 2
+    cache.hits == 1
+
+    when:
+    cache.validate('H H')
+
+    then:
+    thrown(IllegalArgumentException)
+  }
+
+  def 'should evict the least recently used expression'() {
+    given:
+    def cache = new CronExpressionCache(2)
+    def first = cache.get('0 0 * * * ?')
+    cache.get('0 1 * * * ?')
+
+    when:
+    cache.get('0 0 * * * ?')
+    cache.get('0 2 * * * ?')
+
+    then:
+    cache.size() == 2
+    cache.get('0 0 * * * ?').is(first)
+    cache.misses == 3
+  }
+
+  def 'should compile fuzzy expressions once per zone'() {
+    given:
+    def entry = new CronExpressionCache(10).get('H H * * * ?')
+
+    expect:
+    entry.compile(ZoneOffset.UTC).is(entry.compile(null))
+    entry.compile(null).nextFireTime(0L) >= 0
+  }
+}
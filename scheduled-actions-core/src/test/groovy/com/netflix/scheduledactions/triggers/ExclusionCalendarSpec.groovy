@@ -0,0 +1,163 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.scheduledactions.triggers
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.netflix.scheduledactions.Context
+import spock.lang.Specification
+
+import java.time.Instant
+
+class ExclusionCalendarSpec extends Specification {
+
+  def context = new Context('abcd', 'name', 'group', [:])
+
+  def cleanup() {
+    ExclusionCalendars.getNames().each { ExclusionCalendars.unregister(it) }
+  }
+
+  def 'should exclude windows, whole days and recurring windows'() {
+    given:
+    def calendar = new ExclusionCalendar('maintenance', 'America/Los_Angeles')
+    calendar.addWindow(date('2016-01-04T10:00:00Z'), date('2016-01-04T12:00:00Z'))
+    calendar.addWindow(date('2016-01-04T11:00:00Z'), date('2016-01-04T13:00:00Z'))
+    calendar.addDate('2016-01-01')
+    calendar.addRecurringWindow('0 0 2 ? * SUN', 2 * 3600 * 1000L)
+
+    expect:
+    calendar.excludedUntil(millis('2016-01-04T10:30:00Z')) == millis('2016-01-04T13:00:00Z')
+    calendar.excludedUntil(millis('2016-01-04T13:00:00Z')) == -1L
+    calendar.excludedUntil(millis('2016-01-01T23:00:00Z')) == millis('2016-01-02T08:00:00Z')
+    calendar.isExcluded(millis('2016-01-01T08:00:00Z'))
+    !calendar.isExcluded(millis('2016-01-01T07:59:59Z'))
+    calendar.excludedUntil(millis('2016-01-03T11:00:00Z')) == millis('2016-01-03T12:00:00Z')
+    // a month and a half later, past the first compiled horizon
+    calendar.excludedUntil(millis('2016-02-21T10:00:00Z')) == millis('2016-02-21T12:00:00Z')
+    !calendar.isExcluded(millis('2016-02-22T10:00:00Z'))
+  }
+
+  def 'should not recompile for lookups a little before the previous ones'() {
+    given:
+    def calendar = new ExclusionCalendar('maintenance', 'UTC')
+    calendar.addRecurringWindow('0 0 2 ? * SUN', 2 * 3600 * 1000L)
+    calendar.excludedUntil(millis('2016-01-20T00:00:00Z'))
+    def compiled = calendar.@compiled
+
+    when:
+    def lookups = [
+      calendar.isExcluded(millis('2016-01-17T03:00:00Z')),
+      calendar.isExcluded(millis('2016-01-21T00:00:00Z')),
+      calendar.isExcluded(millis('2016-01-13T00:00:00Z')),
+      calendar.isExcluded(millis('2016-01-24T02:30:00Z'))
+    ]
+
+    then:
+    lookups == [true, false, false, true]
+    calendar.@compiled.is(compiled)
+  }
+
+  def 'should still cover the time looked up when recurrences are too many for the slack'() {
+    given:
+    def calendar = new ExclusionCalendar('maintenance', 'UTC')
+    calendar.addRecurringWindow('* * * * * ?', 500L)
+
+    expect:
+    calendar.excludedUntil(millis('2016-01-20T00:00:00.100Z')) == millis('2016-01-20T00:00:00.500Z')
+    !calendar.isExcluded(millis('2016-01-20T00:00:00.600Z'))
+  }
+
+  def 'should skip the fires of a cron trigger excluded by its calendars'() {
+    given:
+    def calendar = new ExclusionCalendar('maintenance', 'UTC')
+    calendar.addWindow(date('2016-01-04T10:00:00Z'), date('2016-01-04T12:30:00Z'))
+    ExclusionCalendars.register(calendar)
+    def trigger = new CronTrigger('0 0 * * * ?', 'UTC', null)
+    trigger.exclusionCalendars = ['maintenance']
+
+    expect:
+    trigger.getNextFireTime(context, date('2016-01-04T09:30:00Z')) == date('2016-01-04T13:00:00Z')
+    trigger.getNextFireTime(context, date('2016-01-04T08:30:00Z')) == date('2016-01-04T09:00:00Z')
+  }
+
+  def 'should skip the fires of an interval trigger excluded by its calendars'() {
+    given:
+    def holidays = new ExclusionCalendar('holidays', 'UTC')
+    holidays.addDate('2016-01-02')
+    def maintenance = new ExclusionCalendar('maintenance', 'UTC')
+    maintenance.addWindow(date('2016-01-03T00:00:00Z'), date('2016-01-03T06:00:00Z'))
+    ExclusionCalendars.register(holidays)
+    ExclusionCalendars.register(maintenance)
+    def trigger = new IntervalTrigger('2016-01-01T00:00:00Z/PT4H', -1)
+    trigger.exclusionCalendars = ['holidays', 'maintenance']
+
+    expect:
+    trigger.getNextFireTime(context, date('2016-01-01T22:00:00Z')) == date('2016-01-03T08:00:00Z')
+  }
+
+  def 'should stop looking for a fire time when everything is excluded'() {
+    given:
+    def calendar = new ExclusionCalendar('always', 'UTC')
+    calendar.addRecurringWindow('0 0 0 * * ?', 24 * 3600 * 1000L)
+    ExclusionCalendars.register(calendar)
+    def trigger = new CronTrigger('0 0 * * * ?', 'UTC', null)
+    trigger.exclusionCalendars = ['always']
+
+    expect:
+    trigger.getNextFireTime(context, date('2016-01-04T09:30:00Z')) == null
+  }
+
+  def 'should only accept registered calendars'() {
+    given:
+    def trigger = new CronTrigger('0 0 * * * ?', 'UTC', null)
+    trigger.exclusionCalendars = ['unknown']
+
+    when:
+    trigger.validate()
+
+    then:
+    thrown(IllegalArgumentException)
+
+    when:
+    ExclusionCalendars.register(new ExclusionCalendar('unknown', 'UTC'))
+    trigger.validate()
+
+    then:
+    notThrown(IllegalArgumentException)
+  }
+
+  def 'should compare and serialize the exclusion calendars of a trigger'() {
+    given:
+    def mapper = new ObjectMapper()
+    def trigger = new CronTrigger('0 0 * * * ?', null, null)
+    def excluding = new CronTrigger('0 0 * * * ?', null, null)
+    excluding.exclusionCalendars = ['holidays']
+
+    expect:
+    trigger != excluding
+    !trigger.isEquivalent(excluding, new Date())
+    !mapper.writeValueAsString(trigger).contains('exclusionCalendars')
+    mapper.readValue(mapper.writeValueAsString(excluding), Trigger) == excluding
+  }
+
+  private static Date date(String instant) {
+    new Date(millis(instant))
+  }
+
+  private static long millis(String instant) {
+    Instant.parse(instant).toEpochMilli()
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.scheduledactions.triggers
+
+import com.netflix.scheduledactions.Context
+import spock.lang.Specification
+
+class FuzzPlacementServiceSpec extends Specification {
+
+  def service = new FuzzPlacementService()
+
+  def 'should spread fuzzy minutes evenly across the hour'() {
+    when:
+    def placed = (1..120).collect { service.place("action-$it", '0 H * * * ?') }
+
+    then:
+    placed.collect { it.split(' ')[1] }.toSet().size() == 60
+    service.getHistogram(FuzzPlacementService.Field.MINUTES) as List == [2] * 60
+    service.getHistogram(FuzzPlacementService.Field.SECONDS)[0] == 120
+  }
+
+  def 'should place fuzzy expressions away from the slots of fixed expressions'() {
+    given:
+    (1..10).each { service.place("fixed-$it", '0 0,30 * * * ?') }
+
+    when:
+    def placed = service.place('fuzzy', '0 H * * * ?')
+
+    then:
+    !(placed.split(' ')[1] in ['0', '30'])
+    service.getHistogram(FuzzPlacementService.Field.MINUTES)[0] == 10
+  }
+
+  def 'should place the offset of a fuzzy step in the least loaded slots'() {
+    given:
+    (0..14).findAll { it != 7 }.each { service.place("fixed-$it", "0 $it/15 * * * ?") }
+
+    expect:
+    service.place('fuzzy', '0 H/15 * * * ?') == '0 7/15 * * * ?'
+  }
+
+  def 'should place deterministically per id'() {
+    given:
+    def other = new FuzzPlacementService()
+    (1..5).each {
+      service.place("action-$it", 'H H H * * ?')
+      other.place("action-$it", 'H H H * * ?')
+    }
+
+    expect:
+    service.place('next', 'H H H * * ?') == other.place('next', 'H H H * * ?')
+    service.place('next', 'H H H * * ?') == other.place('next', 'H H H * * ?')
+    service.histogram == other.histogram
+  }
+
+  def 'should free the slots of released ids'() {
+    given:
+    def placed = service.place('action', '0 H * * * ?')
+    int minute = placed.split(' ')[1] as int
+
+    when:
+    service.release('action')
+
+    then:
+    service.getHistogram(FuzzPlacementService.Field.MINUTES)[minute] == 0
+    service.histogram.keySet() as List == ['seconds', 'minutes', 'hours']
+  }
+
+  def 'should store the placement on the CronTrigger and fire at it'() {
+    given:
+    (0..58).each { service.place("fixed-$it", "0 $it * * * ?") }
+    def trigger = new CronTrigger('0 H * * * ?', 'UTC', null)
+    def context = new Context('action', 'name', 'group', [:])
+
+    when:
+    service.place('action', trigger)
+
+    then:
+    trigger.fuzzedExpression == '0 59 * * * ?'
+    trigger.getNextFireTime(context, new Date(0)) == new Date(59 * 60 * 1000L)
+
+    when: 'placing an already placed trigger keeps its placement'
+    service.place('action', trigger)
+
+    then:
+    trigger.fuzzedExpression == '0 59 * * * ?'
+    service.getHistogram(FuzzPlacementService.Field.MINUTES)[59] == 1
+  }
+}
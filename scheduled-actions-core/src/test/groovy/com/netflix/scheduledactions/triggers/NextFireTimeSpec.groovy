@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.scheduledactions.triggers
+
+import com.netflix.scheduledactions.Context
+import spock.lang.Specification
+
+class NextFireTimeSpec extends Specification {
+
+  def context = new Context('abcd', 'name', 'group', [:])
+
+  def 'should compute fire times of a CronTrigger'() {
+    given:
+    def trigger = new CronTrigger('0 0/15 * * * ?', 'UTC', new Date(0))
+    def from = date('2016-01-01T10:00:00Z')
+
+    expect:
+    fireTimes(trigger, from, date('2016-01-01T11:00:00Z')) == [
+      '2016-01-01T10:00:00Z', '2016-01-01T10:15:00Z', '2016-01-01T10:30:00Z',
+      '2016-01-01T10:45:00Z', '2016-01-01T11:00:00Z'
+    ].collect { date(it) }
+  }
+
+  def 'should resolve fuzzy cron expressions with the actionInstance id'() {
+    given:
+    def trigger = new CronTrigger('0 H * * * ?', 'UTC', new Date(0))
+
+    expect:
+    trigger.getNextFireTime(context, date('2016-01-01T10:00:00Z')) == date('2016-01-01T10:22:00Z')
+  }
+
+  def 'should not fire a CronTrigger before its startAt'() {
+    given:
+    def trigger = new CronTrigger('0 0 * * * ?', 'UTC', date('2016-01-01T12:30:00Z'))
+
+    expect:
+    trigger.getNextFireTime(context, date('2016-01-01T10:00:00Z')) == date('2016-01-01T13:00:00Z')
+  }
+
+  def 'should compute fire times of an IntervalTrigger'() {
+    given:
+    def trigger = new IntervalTrigger('2016-01-01T10:00:00Z/PT1H30M', repeatCount)
+
+    expect:
+    fireTimes(trigger, date('2016-01-01T09:00:00Z'), date('2016-01-01T16:00:00Z')) == expected.collect { date(it) }
+
+    where:
+    repeatCount || expected
+    -1          || ['2016-01-01T10:00:00Z', '2016-01-01T11:30:00Z', '2016-01-01T13:00:00Z', '2016-01-01T14:30:00Z', '2016-01-01T16:00:00Z']
+    2           || ['2016-01-01T10:00:00Z', '2016-01-01T11:30:00Z', '2016-01-01T13:00:00Z']
+  }
+
+  def 'should accept every ISO-8601 interval form fenzo accepts'() {
+    given:
+    def trigger = new IntervalTrigger(interval, -1)
+
+    when:
+    trigger.validate()
+
+    then:
+    trigger.getNextFireTime(context, date('2016-01-01T09:00:00Z')) == date(expected)
+
+    where:
+    interval                                    || expected
+    '2016-01-01T10:00:00Z/P1D'                  || '2016-01-01T10:00:00Z'
+    '2016-01-01T10:00Z/PT30M'                   || '2016-01-01T10:00:00Z'
+    '2015-12-31T10:00:00Z/P1DT2H'               || '2016-01-01T12:00:00Z'
+    '2016-01-01T10:00:00Z/2016-01-01T10:20:00Z' || '2016-01-01T10:00:00Z'
+  }
+
+  def 'should compute sub-second fire times of an IntervalTrigger'() {
+    given:
+    def startAt = date('2016-01-01T10:00:00.100Z')
+    def trigger = new IntervalTrigger(250, IntervalTrigger.TimeUnit.MILLISECONDS, 3, startAt)
+    def parsed = new IntervalTrigger(trigger.iso8601Interval, 3)
+
+    expect:
+    trigger.iso8601Interval.endsWith('/PT0.250S')
+    parsed.startMs == startAt.time
+    parsed.periodMs == 250L
+    new IntervalTrigger('2016-01-01T10:00:00Z/PT1.5S', -1).periodMs == 1500L
+    fireTimes(parsed, startAt, date('2016-01-01T10:00:10Z')) == [
+      '2016-01-01T10:00:00.100Z', '2016-01-01T10:00:00.350Z', '2016-01-01T10:00:00.600Z', '2016-01-01T10:00:00.850Z'
+    ].collect { date(it) }
+  }
+
+  private List<Date> fireTimes(Trigger trigger, Date from, Date to) {
+    def fireTimes = []
+    def fireTime = trigger.getNextFireTime(context, new Date(from.time - 1))
+    while (fireTime != null && !fireTime.after(to)) {
+      fireTimes << fireTime
+      fireTime = trigger.getNextFireTime(context, fireTime)
+    }
+    return fireTimes
+  }
+
+  private static Date date(String iso) {
+    Date.from(java.time.Instant.parse(iso))
+  }
+}
@@ -19,6 +19,10 @@ package com.netflix.scheduledactions.web.controllers;
 import com.netflix.scheduledactions.ActionInstance;
 import com.netflix.scheduledactions.ActionsOperator;
 import com.netflix.scheduledactions.Execution;
+import com.netflix.scheduledactions.FireLagHistogram;
+import com.netflix.scheduledactions.RegistrationResult;
+import com.netflix.scheduledactions.SchedulerClock;
+import com.netflix.scheduledactions.UpcomingSchedule;
 import com.netflix.scheduledactions.exceptions.ExecutionNotFoundException;
 import com.netflix.scheduledactions.exceptions.ActionInstanceNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,7 +30,12 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @ConditionalOnBean(ActionsOperator.class)
@@ -41,12 +50,29 @@ public class ActionInstanceController {
         return actionsOperator.registerActionInstance(actionInstance);
     }
 
+    @RequestMapping(value = "/scheduledActions/bulk", method = RequestMethod.POST)
+    public List<RegistrationResult> createActionInstances(@RequestBody List<ActionInstance> actionInstances) {
+        return actionsOperator.registerAll(actionInstances);
+    }
+
     @RequestMapping(value = "/scheduledActions/{id}/execute", method = RequestMethod.POST)
     @ResponseStatus(HttpStatus.ACCEPTED)
     public Execution executeAction(@PathVariable String id) throws ActionInstanceNotFoundException {
         return actionsOperator.execute(id);
     }
 
+    /**
+     * Runs the action for every fire time of its trigger between from and to (epoch milliseconds, inclusive)
+     */
+    @RequestMapping(value = "/scheduledActions/{id}/backfill", method = RequestMethod.POST)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public List<Execution> backfill(@PathVariable String id,
+                                    @RequestParam long from,
+                                    @RequestParam long to,
+                                    @RequestParam(defaultValue = "1") int maxConcurrency) throws ActionInstanceNotFoundException {
+        return actionsOperator.backfill(id, new Date(from), new Date(to), maxConcurrency);
+    }
+
     @RequestMapping(value = "/scheduledActions/{id}/disable", method = RequestMethod.POST)
     @ResponseStatus(HttpStatus.ACCEPTED)
     public ActionInstance disableActionInstance(@PathVariable String id) throws ActionInstanceNotFoundException {
@@ -59,6 +85,33 @@ public class ActionInstanceController {
         return actionsOperator.enableActionInstance(id);
     }
 
+    /**
+     * Disables all the actionInstances of the group at once, returns the ones that were disabled
+     */
+    @RequestMapping(value = "/scheduledActions/groups/{group}/disable", method = RequestMethod.POST)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public List<ActionInstance> disableGroup(@PathVariable String group) {
+        return actionsOperator.disableGroup(group);
+    }
+
+    /**
+     * Enables all the actionInstances of the group at once, returns the ones that were enabled
+     */
+    @RequestMapping(value = "/scheduledActions/groups/{group}/enable", method = RequestMethod.POST)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public List<ActionInstance> enableGroup(@PathVariable String group) {
+        return actionsOperator.enableGroup(group);
+    }
+
+    /**
+     * Deletes all the actionInstances of the group at once, returns the ones that were deleted
+     */
+    @RequestMapping(value = "/scheduledActions/groups/{group}", method = RequestMethod.DELETE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public List<ActionInstance> deleteGroup(@PathVariable String group) {
+        return actionsOperator.deleteGroup(group);
+    }
+
     @RequestMapping(value = "/scheduledActions", method = RequestMethod.GET)
     public List<ActionInstance> actionInstances(@RequestParam(required = false) String group) {
         if (group != null) {
@@ -68,6 +121,49 @@ public class ActionInstanceController {
         }
     }
 
+    /**
+     * Number of registered cron expressions firing at every second, minute and hour, keyed by field
+     */
+    @RequestMapping(value = "/scheduledActions/fuzzPlacement/histogram", method = RequestMethod.GET)
+    public Map<String, int[]> fuzzPlacementHistogram() {
+        return actionsOperator.getFuzzPlacementHistogram();
+    }
+
+    /**
+     * Fire lag histograms per group and stage, optionally of a single group
+     */
+    @RequestMapping(value = "/scheduledActions/fireLag", method = RequestMethod.GET)
+    public List<FireLagHistogram> fireLag(@RequestParam(required = false) String group) {
+        List<FireLagHistogram> histograms = new ArrayList<>();
+        for (FireLagHistogram histogram : actionsOperator.getFireLagHistograms()) {
+            if (group == null || group.equals(histogram.getGroup())) {
+                histograms.add(histogram);
+            }
+        }
+        return histograms;
+    }
+
+    /**
+     * Triggers due between from and to (epoch millis), by default in the next 15 minutes
+     */
+    @RequestMapping(value = "/scheduledActions/upcoming", method = RequestMethod.GET)
+    public UpcomingSchedule upcoming(@RequestParam(required = false) Long from,
+                                     @RequestParam(required = false) Long to,
+                                     @RequestParam(defaultValue = "100") int limit) {
+        long start = from != null ? from : SchedulerClock.currentTimeMillis();
+        long end = to != null ? to : start + TimeUnit.MINUTES.toMillis(15);
+        return actionsOperator.getUpcoming(new Date(start), new Date(end), limit);
+    }
+
+    /**
+     * Publishes an event to the actionInstances with an event trigger for it, returns how many are subscribed
+     */
+    @RequestMapping(value = "/scheduledActions/events/{eventName}", method = RequestMethod.POST)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public Map<String, Integer> publishEvent(@PathVariable String eventName) {
+        return Collections.singletonMap("subscribers", actionsOperator.publishEvent(eventName));
+    }
+
     @RequestMapping(value = "/scheduledActions/{id}", method = RequestMethod.GET)
     public ActionInstance actionInstance(@PathVariable String id) {
         return actionsOperator.getActionInstance(id);
@@ -94,4 +190,9 @@ public class ActionInstanceController {
     public void cancelExecution(@PathVariable String id) throws ActionInstanceNotFoundException, ExecutionNotFoundException {
         actionsOperator.cancel(id);
     }
+
+    @RequestMapping(value = "/scheduledActions/executions/{id}/resume", method = RequestMethod.POST)
+    public Execution resumeExecution(@PathVariable String id) throws ActionInstanceNotFoundException, ExecutionNotFoundException {
+        return actionsOperator.resume(id);
+    }
 }
@@ -18,6 +18,9 @@ package com.netflix.scheduledactions.web.controllers;
 
 import com.google.common.collect.ImmutableMap;
 import com.netflix.fenzo.triggers.TriggerUtils;
+import com.netflix.scheduledactions.SchedulerClock;
+import com.netflix.scheduledactions.triggers.CompiledCronExpression;
+import com.netflix.scheduledactions.triggers.CronExpressionCache;
 import com.netflix.scheduledactions.triggers.CronExpressionFuzzer;
 import net.redhogs.cronparser.CronExpressionDescriptor;
 import net.redhogs.cronparser.Options;
@@ -27,35 +30,80 @@ import org.springframework.web.bind.annotation.*;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.text.ParseException;
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
 public class ValidationController {
 
+    static final int MAX_BATCH_SIZE = 1000;
+    static final int MAX_FIRE_TIMES = 100;
+
+    private final CronExpressionCache cronExpressionCache = CronExpressionCache.shared();
+
     @RequestMapping(value = "/validateCronExpression", method = RequestMethod.GET)
     @ResponseStatus(value = HttpStatus.OK)
     public Map<String,Object> validateCronExpression(@RequestParam String cronExpression) {
-        ImmutableMap.Builder<String,Object> mapBuilder = ImmutableMap.builder();
+        CronExpressionCache.Entry entry = cronExpressionCache.get(cronExpression);
+        if (!entry.isValid()) {
+            throw new InvalidCronExpressionException(
+                String.format("Cron expression '%s' is not valid: %s", cronExpression, entry.getError())
+            );
+        }
+        return ImmutableMap.<String,Object>builder()
+            .put("response", "Cron expression is valid")
+            .put("description", describe(entry))
+            .build();
+    }
+
+    /**
+     * Validates all the given cron expressions in one request and returns, in the same order, the outcome for
+     * each one along with its next {@code count} fire times in the given time zone (UTC by default)
+     */
+    @RequestMapping(value = "/validateCronExpressions", method = RequestMethod.POST)
+    @ResponseStatus(value = HttpStatus.OK)
+    public List<Map<String,Object>> validateCronExpressions(@RequestBody List<String> cronExpressions,
+                                                           @RequestParam(defaultValue = "5") int count,
+                                                           @RequestParam(required = false) String timeZoneId,
+                                                           @RequestParam(required = false) Long from) {
+        if (cronExpressions == null || cronExpressions.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException(
+                String.format("Between 0 and %d cron expressions can be validated at once", MAX_BATCH_SIZE)
+            );
+        }
+        if (count < 0 || count > MAX_FIRE_TIMES) {
+            throw new IllegalArgumentException(String.format("count must be between 0 and %d", MAX_FIRE_TIMES));
+        }
+        ZoneId zoneId;
         try {
-            CronExpressionFuzzer.validate(cronExpression);
-            mapBuilder.put("response", "Cron expression is valid");
-            if (CronExpressionFuzzer.hasFuzzyExpression(cronExpression)) {
-                mapBuilder.put("description", "No description available for fuzzy cron expressions");
+            zoneId = timeZoneId != null ? ZoneId.of(timeZoneId) : ZoneOffset.UTC;
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException(String.format("Time zone '%s' is not valid", timeZoneId));
+        }
+        long after = from != null ? from : SchedulerClock.currentTimeMillis();
+
+        List<Map<String,Object>> results = new ArrayList<>(cronExpressions.size());
+        for (String cronExpression : cronExpressions) {
+            Map<String,Object> result = new LinkedHashMap<>();
+            result.put("cronExpression", cronExpression);
+            CronExpressionCache.Entry entry = cronExpression != null ? cronExpressionCache.get(cronExpression) : null;
+            if (entry == null || !entry.isValid()) {
+                result.put("valid", false);
+                result.put("error", entry != null ? entry.getError() : "Cron expression cannot be null");
             } else {
-                try {
-                    Options options = new Options();
-                    options.setZeroBasedDayOfWeek(false);
-                    mapBuilder.put("description", CronExpressionDescriptor.getDescription(cronExpression, options));
-                } catch (ParseException IGNORED) {
-                    mapBuilder.put("description", "No description available");
-                }
+                result.put("valid", true);
+                result.put("description", describe(entry));
+                result.put("nextFireTimes", nextFireTimes(entry, zoneId, after, count));
             }
-            return mapBuilder.build();
-        } catch (IllegalArgumentException e) {
-            throw new InvalidCronExpressionException(
-                String.format("Cron expression '%s' is not valid: %s", cronExpression, e.getMessage())
-            );
+            results.add(result);
         }
+        return results;
     }
 
     @RequestMapping(value = "/validateISO8601Interval", method = RequestMethod.GET)
@@ -71,6 +119,48 @@ public class ValidationController {
         }
     }
 
+    private static String describe(CronExpressionCache.Entry entry) {
+        String description = entry.getDescription();
+        if (description == null) {
+            if (CronExpressionFuzzer.hasFuzzyExpression(entry.getExpression())) {
+                description = "No description available for fuzzy cron expressions";
+            } else {
+                try {
+                    Options options = new Options();
+                    options.setZeroBasedDayOfWeek(false);
+                    description = CronExpressionDescriptor.getDescription(entry.getExpression(), options);
+                } catch (ParseException IGNORED) {
+                    description = "No description available";
+                }
+            }
+            entry.setDescription(description);
+        }
+        return description;
+    }
+
+    private static List<Date> nextFireTimes(CronExpressionCache.Entry entry, ZoneId zoneId, long after, int count) {
+        List<Date> fireTimes = new ArrayList<>(count);
+        try {
+            CompiledCronExpression expression = entry.compile(zoneId);
+            long fireTime = after;
+            while (fireTimes.size() < count) {
+                fireTime = expression.nextFireTime(fireTime);
+                if (fireTime < 0) {
+                    break;
+                }
+                fireTimes.add(new Date(fireTime));
+            }
+        } catch (IllegalArgumentException IGNORED) {
+            // valid for Quartz but not supported by the compiled expression, no fire times to show
+        }
+        return fireTimes;
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    void handleIllegalArgument(HttpServletResponse response, IllegalArgumentException e) throws IOException {
+        response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+    }
+
     @ExceptionHandler(InvalidCronExpressionException.class)
     void handleInvalidCronExpression(HttpServletResponse response, InvalidCronExpressionException e) throws IOException {
         response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
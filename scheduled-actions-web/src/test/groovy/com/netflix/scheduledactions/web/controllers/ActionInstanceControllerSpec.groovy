@@ -0,0 +1,70 @@
+package com.netflix.scheduledactions.web.controllers
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.netflix.fenzo.triggers.persistence.InMemoryTriggerDao
+import com.netflix.scheduledactions.ActionOperationsDelegate
+import com.netflix.scheduledactions.ActionsOperator
+import com.netflix.scheduledactions.DaoConfigurer
+import com.netflix.scheduledactions.Execution
+import com.netflix.scheduledactions.exceptions.ExecutionNotFoundException
+import com.netflix.scheduledactions.persistence.InMemoryActionInstanceDao
+import com.netflix.scheduledactions.persistence.InMemoryExecutionDao
+import org.springframework.test.web.servlet.MvcResult
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders
+import org.springframework.test.web.servlet.setup.MockMvcBuilders
+import org.springframework.web.util.NestedServletException
+import spock.lang.Shared
+import spock.lang.Specification
+
+class ActionInstanceControllerSpec extends Specification {
+
+  @Shared ObjectMapper objectMapper = new ObjectMapper()
+
+  ActionOperationsDelegate delegate = Mock(ActionOperationsDelegate)
+
+  def mvc
+
+  void setup() {
+    ActionsOperator actionsOperator = new ActionsOperator(
+        new DaoConfigurer(new InMemoryActionInstanceDao(), new InMemoryTriggerDao(), new InMemoryExecutionDao()),
+        delegate
+    )
+    actionsOperator.initialize()
+    ActionInstanceController controller = new ActionInstanceController()
+    controller.actionsOperator = actionsOperator
+    mvc = MockMvcBuilders.standaloneSetup(controller).build()
+  }
+
+  MvcResult resume(String executionId) {
+    mvc.perform(MockMvcRequestBuilders.post("/scheduledActions/executions/${executionId}/resume")).andReturn()
+  }
+
+  void 'should return the execution that resumes the interrupted one'() {
+    given:
+    Execution resumed = new Execution('delegate', 'actionInstance')
+    resumed.setId('resumed')
+    resumed.setResumedFrom('interrupted')
+    resumed.setCheckpoint([step: '2'])
+
+    when:
+    def result = resume('interrupted')
+    def responseBody = objectMapper.readValue(result.response.contentAsByteArray, Map)
+
+    then:
+    1 * delegate.resume('interrupted') >> resumed
+    result.response.status == 200
+    responseBody.id == 'resumed'
+    responseBody.resumedFrom == 'interrupted'
+    responseBody.checkpoint == [step: '2']
+  }
+
+  void 'should fail when the execution does not exist'() {
+    when:
+    resume('missing')
+
+    then:
+    1 * delegate.resume('missing') >> { throw new ExecutionNotFoundException('No execution found for executionId: missing') }
+    NestedServletException e = thrown()
+    e.cause instanceof ExecutionNotFoundException
+  }
+}